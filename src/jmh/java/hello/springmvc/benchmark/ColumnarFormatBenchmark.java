@@ -0,0 +1,101 @@
+package hello.springmvc.benchmark;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import hello.springmvc.basic.HelloData;
+import hello.springmvc.basic.columnar.HelloDataBatch;
+import hello.springmvc.basic.columnar.HelloDataColumnarCodec;
+import hello.springmvc.basic.json.FastPathJsonModule;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * HelloData rows 건을 JSON(List<HelloData>, Jackson) 과 application/x-hello-columnar 로 주고받는 비용 비교
+ *
+ * jsonEncode / jsonDecode : List<HelloData> <-> JSON 배열 (FastPathJsonModule 적용)
+ * columnarEncode / columnarDecode : HelloDataBatch <-> 열 단위 바이너리
+ *
+ * distinctUsernames 가 작을수록 username dictionary 가 작아진다.
+ * 셋업할 때 두 형식의 바이트 수(그대로, gzip)를 출력한다.
+ */
+@State(Scope.Benchmark)
+public class ColumnarFormatBenchmark {
+
+    @Param({"1000", "100000"})
+    public int rows;
+
+    @Param({"100", "1000000"})
+    public int distinctUsernames;
+
+    private List<HelloData> list;
+    private HelloDataBatch batch;
+    private ObjectWriter jsonWriter;
+    private ObjectReader jsonReader;
+    private byte[] json;
+    private byte[] columnar;
+
+    @Setup
+    public void setUp() throws IOException {
+        list = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) {
+            HelloData helloData = new HelloData();
+            helloData.setUsername("user" + (i % distinctUsernames));
+            helloData.setAge(20 + i % 50);
+            list.add(helloData);
+        }
+        batch = HelloDataBatch.of(list);
+
+        ObjectMapper objectMapper = new ObjectMapper().registerModule(new FastPathJsonModule());
+        jsonWriter = objectMapper.writerFor(new TypeReference<List<HelloData>>() {
+        });
+        jsonReader = objectMapper.readerFor(new TypeReference<List<HelloData>>() {
+        });
+        json = jsonWriter.writeValueAsBytes(list);
+        columnar = columnarEncode();
+
+        System.out.printf("%nrows=%d distinct=%d json=%d bytes (gzip %d), columnar=%d bytes (gzip %d)%n",
+                rows, distinctUsernames, json.length, gzipSize(json), columnar.length, gzipSize(columnar));
+    }
+
+    @Benchmark
+    public byte[] jsonEncode() throws IOException {
+        return jsonWriter.writeValueAsBytes(list);
+    }
+
+    @Benchmark
+    public List<HelloData> jsonDecode() throws IOException {
+        return jsonReader.readValue(json);
+    }
+
+    @Benchmark
+    public byte[] columnarEncode() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(32, rows * 3));
+        HelloDataColumnarCodec.write(batch, out);
+        return out.toByteArray();
+    }
+
+    @Benchmark
+    public HelloDataBatch columnarDecode() throws IOException {
+        return HelloDataColumnarCodec.read(new ByteArrayInputStream(columnar), Integer.MAX_VALUE);
+    }
+
+    private static int gzipSize(byte[] bytes) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(bytes);
+        }
+        return out.size();
+    }
+}
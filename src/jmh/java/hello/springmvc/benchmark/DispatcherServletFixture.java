@@ -0,0 +1,118 @@
+package hello.springmvc.benchmark;
+
+import hello.springmvc.SpringmvcApplication;
+import org.springframework.boot.Banner;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.servlet.context.AnnotationConfigServletWebApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.annotation.AnnotationAwareOrderComparator;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.mock.web.MockServletConfig;
+import org.springframework.mock.web.MockServletContext;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.web.servlet.DispatcherServlet;
+
+import javax.servlet.Filter;
+import javax.servlet.ServletException;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 벤치마크용으로 실제 스프링 부트 설정 그대로 컨텍스트를 띄우고
+ * 톰캣 대신 Mock 요청/응답으로 DispatcherServlet 을 직접 호출한다.
+ *
+ * 스프링 부트가 등록하는 필터들도 같은 순서로 태워서
+ * 실제 요청 처리 경로와 최대한 비슷하게 측정한다.
+ */
+public class DispatcherServletFixture implements AutoCloseable {
+
+    /**
+     * 핸들러들이 info 레벨로 로그를 남기기 때문에 그대로 두면 콘솔 I/O 가 측정값을 덮어버린다.
+     * 바인딩 비용만 보고 싶을 때 사용한다.
+     */
+    public static final String QUIET_LOGGING = "logging.level.hello.springmvc=warn";
+
+    private final MockServletContext servletContext = new MockServletContext();
+    private final ConfigurableApplicationContext context;
+    private final DispatcherServlet dispatcherServlet;
+    private final Filter[] filters;
+
+    private DispatcherServletFixture(String[] profiles, String[] properties) throws ServletException {
+        this.context = new SpringApplicationBuilder(SpringmvcApplication.class)
+                .contextFactory(webApplicationType -> {
+                    AnnotationConfigServletWebApplicationContext context = new AnnotationConfigServletWebApplicationContext();
+                    context.setServletContext(servletContext);
+                    return context;
+                })
+                .bannerMode(Banner.Mode.OFF)
+                .profiles(profiles)
+                .run(arguments(properties));
+
+        this.dispatcherServlet = context.getBean(DispatcherServlet.class);
+        dispatcherServlet.init(new MockServletConfig(servletContext, "dispatcherServlet"));
+
+        List<Filter> filters = new ArrayList<>(context.getBeansOfType(Filter.class).values());
+        AnnotationAwareOrderComparator.sort(filters);
+        this.filters = filters.toArray(new Filter[0]);
+    }
+
+    /**
+     * properties 는 application.properties 보다 우선하도록 커맨드라인 인자(--key=value)로 넘긴다.
+     * 입장 제어는 초당 요청 수 제한에 걸려 429 를 측정하게 되므로 기본으로 끈다.
+     */
+    private static String[] arguments(String[] properties) {
+        List<String> arguments = new ArrayList<>();
+        arguments.add("--springmvc.admission.enabled=false");
+        for (String property : properties) {
+            arguments.add("--" + property);
+        }
+        return arguments.toArray(new String[0]);
+    }
+
+    public static DispatcherServletFixture start(String... properties) throws ServletException {
+        return new DispatcherServletFixture(new String[0], properties);
+    }
+
+    public static DispatcherServletFixture startWithProfiles(String[] profiles, String... properties) throws ServletException {
+        return new DispatcherServletFixture(profiles, properties);
+    }
+
+    public ConfigurableApplicationContext getContext() {
+        return context;
+    }
+
+    public MockHttpServletResponse perform(MockHttpServletRequestBuilder requestBuilder) throws ServletException, IOException {
+        return perform(requestBuilder.buildRequest(servletContext));
+    }
+
+    public MockHttpServletResponse perform(MockHttpServletRequest request) throws ServletException, IOException {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        new MockFilterChain(dispatcherServlet, filters).doFilter(request, response);
+        return response;
+    }
+
+    /**
+     * 잘못된 요청을 열심히 측정하는 일이 없도록 @Setup 에서 한번씩 호출해본다.
+     */
+    public void verify(MockHttpServletRequestBuilder requestBuilder, int expectedStatus) throws ServletException, IOException {
+        MockHttpServletRequest request = requestBuilder.buildRequest(servletContext);
+        MockHttpServletResponse response = perform(request);
+        if (response.getStatus() != expectedStatus) {
+            throw new IllegalStateException(request.getMethod() + " " + request.getRequestURI()
+                    + " -> status " + response.getStatus() + " (expected " + expectedStatus + ")");
+        }
+    }
+
+    public void verify(MockHttpServletRequestBuilder requestBuilder) throws ServletException, IOException {
+        verify(requestBuilder, 200);
+    }
+
+    @Override
+    public void close() {
+        dispatcherServlet.destroy();
+        context.close();
+    }
+}
@@ -0,0 +1,98 @@
+package hello.springmvc.benchmark;
+
+import hello.springmvc.basic.requestmapping.trie.TrieRequestMappingHandlerMapping;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockServletContext;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.context.support.StaticWebApplicationContext;
+import org.springframework.web.servlet.HandlerExecutionChain;
+import org.springframework.web.servlet.mvc.method.RequestMappingInfo;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerMapping;
+
+import java.lang.reflect.Method;
+
+/**
+ * 등록된 매핑 수를 늘려가면서 핸들러 조회 시간을 비교한다.
+ *
+ * /mapping/gen{i}/{userId}, /mapping/gen{i}/{userId}/orders/{orderId} 형태로 mappingCount 개씩 등록하고
+ * 그 중 가운데 있는 매핑을 조회한다.
+ * trie=false 는 스프링 기본 RequestMappingHandlerMapping, trie=true 는 TrieRequestMappingHandlerMapping
+ */
+@State(Scope.Benchmark)
+public class HandlerMappingLookupBenchmark {
+
+    @Param({"10", "100", "1000", "10000", "30000"})
+    public int mappingCount;
+
+    @Param({"true", "false"})
+    public boolean trie;
+
+    private StaticWebApplicationContext context;
+    private RequestMappingHandlerMapping mapping;
+    private MockHttpServletRequest userRequest;
+    private MockHttpServletRequest orderRequest;
+
+    @Setup
+    public void setUp() throws Exception {
+        context = new StaticWebApplicationContext();
+        context.setServletContext(new MockServletContext());
+        context.refresh();
+
+        mapping = trie ? new TrieRequestMappingHandlerMapping() : new RequestMappingHandlerMapping();
+        mapping.setApplicationContext(context);
+        mapping.afterPropertiesSet();
+
+        GeneratedController handler = new GeneratedController();
+        Method findUser = GeneratedController.class.getMethod("findUser", String.class);
+        Method findOrder = GeneratedController.class.getMethod("findOrder", String.class, Long.class);
+        for (int i = 0; i < mappingCount; i++) {
+            mapping.registerMapping(info("/mapping/gen" + i + "/{userId}"), handler, findUser);
+            mapping.registerMapping(info("/mapping/gen" + i + "/{userId}/orders/{orderId}"), handler, findOrder);
+        }
+
+        int target = mappingCount / 2;
+        userRequest = new MockHttpServletRequest("GET", "/mapping/gen" + target + "/userA");
+        orderRequest = new MockHttpServletRequest("GET", "/mapping/gen" + target + "/userA/orders/10");
+        if (mapping.getHandler(userRequest) == null || mapping.getHandler(orderRequest) == null) {
+            throw new IllegalStateException("mapping not found");
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public HandlerExecutionChain singleVariable() throws Exception {
+        return mapping.getHandler(userRequest);
+    }
+
+    @Benchmark
+    public HandlerExecutionChain multipleVariables() throws Exception {
+        return mapping.getHandler(orderRequest);
+    }
+
+    private RequestMappingInfo info(String path) {
+        return RequestMappingInfo.paths(path)
+                .methods(RequestMethod.GET)
+                .options(mapping.getBuilderConfiguration())
+                .build();
+    }
+
+    public static class GeneratedController {
+        public String findUser(String userId) {
+            return "ok";
+        }
+
+        public String findOrder(String userId, Long orderId) {
+            return "ok";
+        }
+    }
+}
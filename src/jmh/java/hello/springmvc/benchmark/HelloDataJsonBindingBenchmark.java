@@ -0,0 +1,53 @@
+package hello.springmvc.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import hello.springmvc.basic.HelloData;
+import hello.springmvc.basic.json.FastPathJsonModule;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 컨트롤러를 빼고 json -> HelloData 바인딩 자체만 비교한다.
+ *
+ * stringThenReadValue : v1, v2 처럼 바디를 String 으로 만든 뒤 readValue
+ * readerFromBytes : v6 처럼 미리 만든 ObjectReader 로 바이트에서 바로 바인딩
+ * fastPathFromBytes : v6 + HelloDataDeserializer (리플렉션 없음)
+ */
+@State(Scope.Benchmark)
+public class HelloDataJsonBindingBenchmark {
+
+    private final byte[] body = "{\"username\":\"hello\", \"age\":20}".getBytes(StandardCharsets.UTF_8);
+
+    private ObjectMapper objectMapper;
+    private ObjectReader reflectiveReader;
+    private ObjectReader fastPathReader;
+
+    @Setup
+    public void setUp() {
+        objectMapper = new ObjectMapper();
+        reflectiveReader = objectMapper.readerFor(HelloData.class);
+        fastPathReader = new ObjectMapper().registerModule(new FastPathJsonModule()).readerFor(HelloData.class);
+    }
+
+    @Benchmark
+    public HelloData stringThenReadValue() throws IOException {
+        String messageBody = new String(body, StandardCharsets.UTF_8);
+        return objectMapper.readValue(messageBody, HelloData.class);
+    }
+
+    @Benchmark
+    public HelloData readerFromBytes() throws IOException {
+        return reflectiveReader.readValue(body);
+    }
+
+    @Benchmark
+    public HelloData fastPathFromBytes() throws IOException {
+        return fastPathReader.readValue(body);
+    }
+}
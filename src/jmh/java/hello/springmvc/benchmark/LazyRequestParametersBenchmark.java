@@ -0,0 +1,114 @@
+package hello.springmvc.benchmark;
+
+import hello.springmvc.basic.request.param.LazyRequestParameters;
+import org.apache.tomcat.util.buf.MessageBytes;
+import org.apache.tomcat.util.http.Parameters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+
+/**
+ * LazyRequestParameters 와 컨테이너 파라미터 파싱 비교
+ *
+ * tomcatParameters / lazyParameters :
+ *   톰캣이 request.getParameter 를 처음 호출할 때 하는 파싱(org.apache.tomcat.util.http.Parameters)과
+ *   LazyRequestParameters 로 같은 쿼리 스트링에서 username, age 를 읽는 비용
+ *   extraParameters 만큼 쓰지 않는 파라미터를 뒤에 붙인다.
+ *
+ * getParameter / requestParamMap / lazy* :
+ *   /request-param-v1, /request-param-map, /request-param-lazy 를 DispatcherServlet 으로 호출
+ *   Mock 요청은 파라미터가 이미 Map 으로 들어있어서 컨테이너 파싱 비용은 빠져있다.
+ */
+@State(Scope.Benchmark)
+public class LazyRequestParametersBenchmark {
+
+    @Param({"0", "20"})
+    public int extraParameters;
+
+    private String query;
+    private byte[] queryBytes;
+    private DispatcherServletFixture fixture;
+
+    @Setup
+    public void setUp() throws Exception {
+        StringBuilder builder = new StringBuilder("username=hello&age=20");
+        for (int i = 0; i < extraParameters; i++) {
+            builder.append("&extra").append(i).append("=value%20").append(i);
+        }
+        query = builder.toString();
+        queryBytes = query.getBytes(StandardCharsets.ISO_8859_1);
+
+        fixture = DispatcherServletFixture.start(DispatcherServletFixture.QUIET_LOGGING);
+        fixture.verify(getRequest("/request-param-v1"));
+        fixture.verify(getRequest("/request-param-map"));
+        fixture.verify(getRequest("/request-param-lazy"));
+        fixture.verify(formRequest("/request-param-lazy"));
+    }
+
+    @TearDown
+    public void tearDown() {
+        fixture.close();
+    }
+
+    @Benchmark
+    public void tomcatParameters(Blackhole blackhole) {
+        MessageBytes messageBytes = MessageBytes.newInstance();
+        messageBytes.setBytes(queryBytes, 0, queryBytes.length);
+        Parameters parameters = new Parameters();
+        parameters.setQuery(messageBytes);
+        parameters.setQueryStringCharset(StandardCharsets.UTF_8);
+        parameters.setCharset(StandardCharsets.UTF_8);
+        parameters.handleQueryParameters();
+        blackhole.consume(parameters.getParameter("username"));
+        blackhole.consume(Integer.parseInt(parameters.getParameter("age")));
+    }
+
+    @Benchmark
+    public void lazyParameters(Blackhole blackhole) {
+        LazyRequestParameters parameters = LazyRequestParameters.of(query, null, StandardCharsets.UTF_8);
+        blackhole.consume(parameters.get("username"));
+        blackhole.consume(parameters.getInt("age"));
+    }
+
+    @Benchmark
+    public MockHttpServletResponse getParameter() throws Exception {
+        return fixture.perform(getRequest("/request-param-v1"));
+    }
+
+    @Benchmark
+    public MockHttpServletResponse requestParamMap() throws Exception {
+        return fixture.perform(getRequest("/request-param-map"));
+    }
+
+    @Benchmark
+    public MockHttpServletResponse lazyQuery() throws Exception {
+        return fixture.perform(getRequest("/request-param-lazy"));
+    }
+
+    @Benchmark
+    public MockHttpServletResponse lazyForm() throws Exception {
+        return fixture.perform(formRequest("/request-param-lazy"));
+    }
+
+    private MockHttpServletRequestBuilder getRequest(String path) {
+        return get(path + "?" + query);
+    }
+
+    private MockHttpServletRequestBuilder formRequest(String path) {
+        return post(path)
+                .contentType(MediaType.APPLICATION_FORM_URLENCODED)
+                .content(queryBytes);
+    }
+}
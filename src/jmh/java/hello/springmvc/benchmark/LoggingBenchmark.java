@@ -0,0 +1,48 @@
+package hello.springmvc.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+/**
+ * 핸들러에서 info 로그를 남기는 요청의 지연시간을 동기 콘솔 로그와
+ * async-logging 프로파일(RingBufferAsyncAppender)로 비교한다.
+ * 여기서는 로그 레벨을 낮추지 않고 application.properties 설정 그대로 측정한다.
+ */
+@State(Scope.Benchmark)
+public class LoggingBenchmark {
+
+    @Param({"true", "false"})
+    public boolean asyncLogging;
+
+    private DispatcherServletFixture fixture;
+
+    @Setup
+    public void setUp() throws Exception {
+        String[] profiles = asyncLogging ? new String[]{"async-logging"} : new String[0];
+        fixture = DispatcherServletFixture.startWithProfiles(profiles);
+        fixture.verify(get("/log-test"));
+        fixture.verify(get("/headers").header("host", "localhost"));
+    }
+
+    @TearDown
+    public void tearDown() {
+        fixture.close();
+    }
+
+    @Benchmark
+    public MockHttpServletResponse logTest() throws Exception {
+        return fixture.perform(get("/log-test"));
+    }
+
+    @Benchmark
+    public MockHttpServletResponse headers() throws Exception {
+        return fixture.perform(get("/headers").header("host", "localhost"));
+    }
+}
@@ -0,0 +1,158 @@
+package hello.springmvc.benchmark;
+
+import hello.springmvc.basic.HelloData;
+import hello.springmvc.basic.bind.BindingPlan;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.autoconfigure.web.format.DateTimeFormatters;
+import org.springframework.boot.autoconfigure.web.format.WebConversionService;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.web.bind.ServletRequestDataBinder;
+
+import javax.servlet.ServletException;
+import java.io.IOException;
+
+/**
+ * @ModelAttribute 바인딩 비교
+ *
+ * webDataBinder : 스프링 기본 방식 (ServletRequestDataBinder + BeanWrapper + ConversionService)
+ * bindingPlan : BindingPlan (MethodHandle setter, 기본형은 박싱 없이)
+ *
+ * HelloData(필드 2개)와 WideDto(필드 50개)로 각각 비교하고
+ * /model-attribute-v1 을 DispatcherServlet 으로 호출해서 전체 요청 처리 경로에서도 비교한다.
+ */
+@State(Scope.Benchmark)
+public class ModelAttributeBindingBenchmark {
+
+    private static final String[] WIDE_PARAMETERS = {
+            "text01", "text01",
+            "text02", "text02",
+            "text03", "text03",
+            "text04", "text04",
+            "text05", "text05",
+            "text06", "text06",
+            "text07", "text07",
+            "text08", "text08",
+            "text09", "text09",
+            "text10", "text10",
+            "text11", "text11",
+            "text12", "text12",
+            "text13", "text13",
+            "text14", "text14",
+            "text15", "text15",
+            "text16", "text16",
+            "text17", "text17",
+            "text18", "text18",
+            "text19", "text19",
+            "text20", "text20",
+            "int01", "7",
+            "int02", "14",
+            "int03", "21",
+            "int04", "28",
+            "int05", "35",
+            "int06", "42",
+            "int07", "49",
+            "int08", "56",
+            "int09", "63",
+            "int10", "70",
+            "int11", "77",
+            "int12", "84",
+            "int13", "91",
+            "int14", "98",
+            "int15", "105",
+            "long01", "10000000001",
+            "long02", "10000000002",
+            "long03", "10000000003",
+            "long04", "10000000004",
+            "long05", "10000000005",
+            "flag01", "true",
+            "flag02", "off",
+            "flag03", "true",
+            "flag04", "off",
+            "flag05", "true",
+            "ratio01", "1.5",
+            "ratio02", "2.5",
+            "ratio03", "3.5",
+            "ratio04", "4.5",
+            "ratio05", "5.5"
+    };
+
+    @Param({"true", "false"})
+    public boolean compiled;
+
+    private final WebConversionService conversionService = new WebConversionService(new DateTimeFormatters());
+
+    private MockHttpServletRequest helloRequest;
+    private MockHttpServletRequest wideRequest;
+    private BindingPlan<HelloData> helloPlan;
+    private BindingPlan<WideDto> widePlan;
+    private DispatcherServletFixture fixture;
+
+    @Setup(Level.Trial)
+    public void setUp() throws ServletException, IOException {
+        helloRequest = new MockHttpServletRequest("POST", "/model-attribute-v1");
+        helloRequest.addParameter("username", "hello");
+        helloRequest.addParameter("age", "20");
+
+        wideRequest = new MockHttpServletRequest("POST", "/wide");
+        for (int i = 0; i < WIDE_PARAMETERS.length; i += 2) {
+            wideRequest.addParameter(WIDE_PARAMETERS[i], WIDE_PARAMETERS[i + 1]);
+        }
+
+        helloPlan = BindingPlan.compile(HelloData.class);
+        widePlan = BindingPlan.compile(WideDto.class);
+        if (helloPlan.bind(helloRequest.getParameterMap()) == null || widePlan.bind(wideRequest.getParameterMap()) == null) {
+            throw new IllegalStateException("binding plan rejected the benchmark parameters");
+        }
+
+        fixture = DispatcherServletFixture.start(DispatcherServletFixture.QUIET_LOGGING,
+                "springmvc.binding.compiled.enabled=" + compiled);
+        fixture.verify(modelAttributeRequest());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        fixture.close();
+    }
+
+    @Benchmark
+    public Object helloData() {
+        if (compiled) {
+            return helloPlan.bind(helloRequest.getParameterMap());
+        }
+        return webDataBinder(new HelloData(), helloRequest);
+    }
+
+    @Benchmark
+    public Object wideDto() {
+        if (compiled) {
+            return widePlan.bind(wideRequest.getParameterMap());
+        }
+        return webDataBinder(new WideDto(), wideRequest);
+    }
+
+    @Benchmark
+    public Object modelAttributeV1() throws ServletException, IOException {
+        return fixture.perform(modelAttributeRequest());
+    }
+
+    private Object webDataBinder(Object target, MockHttpServletRequest request) {
+        ServletRequestDataBinder binder = new ServletRequestDataBinder(target, "target");
+        binder.setConversionService(conversionService);
+        binder.bind(request);
+        return binder.getTarget();
+    }
+
+    private static MockHttpServletRequestBuilder modelAttributeRequest() {
+        return MockMvcRequestBuilders.post("/model-attribute-v1")
+                .param("username", "hello")
+                .param("age", "20");
+    }
+}
@@ -0,0 +1,163 @@
+package hello.springmvc.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import hello.springmvc.basic.HelloData;
+import hello.springmvc.basic.json.HelloDataJsonWriter;
+import hello.springmvc.basic.json.PreEncodedJsonHttpMessageConverter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * HelloData 응답을 Jackson 컨버터와 PreEncodedJsonHttpMessageConverter 로 쓰는 비용 비교
+ *
+ * jacksonConverter / preEncodedConverter : HttpMessageConverter.write (헤더 설정 포함, 스프링 MVC 가 부르는 경로)
+ * jacksonWriter / preEncodedWriter : 컨버터를 빼고 OutputStream 에 쓰는 부분만
+ *
+ * username 은 usernameLength 글자이고 content 에 따라
+ *  - ascii : 영문 소문자
+ *  - escaped : 4글자마다 " 또는 \n (이스케이프가 필요한 문자)
+ *  - korean : 한글 (UTF-8 3바이트)
+ * 출력은 매번 비우고 재사용하는 버퍼에 쓴다. (서블릿 출력 버퍼 대신)
+ */
+@State(Scope.Benchmark)
+public class PreEncodedJsonBenchmark {
+
+    @Param({"8", "128", "4096"})
+    public int usernameLength;
+
+    @Param({"ascii", "escaped", "korean"})
+    public String content;
+
+    private HelloData helloData;
+    private ReusableOutputMessage outputMessage;
+    private MappingJackson2HttpMessageConverter jacksonConverter;
+    private PreEncodedJsonHttpMessageConverter preEncodedConverter;
+    private ObjectWriter jacksonWriter;
+    private HelloDataJsonWriter preEncodedWriter;
+
+    @Setup
+    public void setUp() throws IOException {
+        char[] username = new char[usernameLength];
+        for (int i = 0; i < usernameLength; i++) {
+            switch (content) {
+                case "escaped":
+                    username[i] = i % 4 == 3 ? (i % 8 == 3 ? '"' : '\n') : (char) ('a' + i % 26);
+                    break;
+                case "korean":
+                    username[i] = (char) ('가' + i % 100);
+                    break;
+                default:
+                    username[i] = (char) ('a' + i % 26);
+            }
+        }
+        helloData = new HelloData();
+        helloData.setUsername(new String(username));
+        helloData.setAge(20);
+
+        ObjectMapper objectMapper = new ObjectMapper();
+        outputMessage = new ReusableOutputMessage(usernameLength * 6 + 64);
+        jacksonConverter = new MappingJackson2HttpMessageConverter(objectMapper);
+        preEncodedConverter = new PreEncodedJsonHttpMessageConverter()
+                .register(HelloData.class, new HelloDataJsonWriter());
+        jacksonWriter = objectMapper.writerFor(HelloData.class);
+        preEncodedWriter = new HelloDataJsonWriter();
+
+        jacksonConverter();
+        byte[] expected = outputMessage.body.toByteArray();
+        preEncodedConverter();
+        byte[] actual = outputMessage.body.toByteArray();
+        if (!Arrays.equals(expected, actual)) {
+            throw new IllegalStateException("output differs from jackson: " + new String(actual, StandardCharsets.UTF_8));
+        }
+        if (outputMessage.headers.getContentLength() != actual.length) {
+            throw new IllegalStateException("content-length " + outputMessage.headers.getContentLength()
+                    + " != " + actual.length);
+        }
+    }
+
+    @Benchmark
+    public byte[] jacksonConverter() throws IOException {
+        outputMessage.reset();
+        jacksonConverter.write(helloData, MediaType.APPLICATION_JSON, outputMessage);
+        return outputMessage.body.buffer();
+    }
+
+    @Benchmark
+    public byte[] preEncodedConverter() throws IOException {
+        outputMessage.reset();
+        preEncodedConverter.write(helloData, MediaType.APPLICATION_JSON, outputMessage);
+        return outputMessage.body.buffer();
+    }
+
+    @Benchmark
+    public byte[] jacksonWriter() throws IOException {
+        outputMessage.reset();
+        jacksonWriter.writeValue(outputMessage.body, helloData);
+        return outputMessage.body.buffer();
+    }
+
+    @Benchmark
+    public byte[] preEncodedWriter() throws IOException {
+        outputMessage.reset();
+        preEncodedWriter.write(helloData, outputMessage.body);
+        return outputMessage.body.buffer();
+    }
+
+    private static final class ReusableOutputMessage implements HttpOutputMessage {
+
+        private final HttpHeaders headers = new HttpHeaders();
+        private final ReusableBuffer body;
+
+        ReusableOutputMessage(int capacity) {
+            this.body = new ReusableBuffer(capacity);
+        }
+
+        void reset() {
+            headers.clear();
+            body.reset();
+        }
+
+        @Override
+        public OutputStream getBody() {
+            return body;
+        }
+
+        @Override
+        public HttpHeaders getHeaders() {
+            return headers;
+        }
+    }
+
+    /**
+     * toByteArray 로 복사하지 않고 내부 배열을 그대로 돌려준다. (Blackhole 로 넘기기만 한다.)
+     * 비교용 출력(setUp)에서만 복사한다.
+     */
+    private static final class ReusableBuffer extends ByteArrayOutputStream {
+
+        ReusableBuffer(int capacity) {
+            super(capacity);
+        }
+
+        byte[] buffer() {
+            return buf;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package hello.springmvc.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+
+/**
+ * RequestBodyJsonController v1 ~ v6 의 json 바인딩 방식별 비용 비교
+ * fastPath=false 면 HelloData 도 기본 BeanDeserializer(리플렉션)로 바인딩한다.
+ */
+@State(Scope.Benchmark)
+public class RequestBodyJsonBenchmark {
+
+    private static final String HELLO_DATA_JSON = "{\"username\":\"hello\", \"age\":20}";
+
+    @Param({"true", "false"})
+    public boolean fastPath;
+
+    private DispatcherServletFixture fixture;
+
+    @Setup
+    public void setUp() throws Exception {
+        fixture = DispatcherServletFixture.start(DispatcherServletFixture.QUIET_LOGGING,
+                "springmvc.json.fast-path.enabled=" + fastPath);
+        for (int version = 1; version <= 6; version++) {
+            fixture.verify(requestBodyJson(version));
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        fixture.close();
+    }
+
+    @Benchmark
+    public MockHttpServletResponse objectMapperFromRequest() throws Exception {
+        return fixture.perform(requestBodyJson(1));
+    }
+
+    @Benchmark
+    public MockHttpServletResponse objectMapperFromRequestBodyString() throws Exception {
+        return fixture.perform(requestBodyJson(2));
+    }
+
+    @Benchmark
+    public MockHttpServletResponse requestBodyObject() throws Exception {
+        return fixture.perform(requestBodyJson(3));
+    }
+
+    @Benchmark
+    public MockHttpServletResponse httpEntityObject() throws Exception {
+        return fixture.perform(requestBodyJson(4));
+    }
+
+    @Benchmark
+    public MockHttpServletResponse requestBodyObjectResponseBody() throws Exception {
+        return fixture.perform(requestBodyJson(5));
+    }
+
+    @Benchmark
+    public MockHttpServletResponse objectReaderFromInputStream() throws Exception {
+        return fixture.perform(requestBodyJson(6));
+    }
+
+    static MockHttpServletRequestBuilder requestBodyJson(int version) {
+        return post("/request-body-json-v" + version)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(HELLO_DATA_JSON);
+    }
+}
@@ -0,0 +1,87 @@
+package hello.springmvc.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import java.util.Arrays;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+
+/**
+ * RequestBodyStringController v1 ~ v4 의 메시지 바디 조회 방식별 비용 비교
+ * payloadSize 를 바꿔가며 바디 크기에 따른 할당량 차이를 본다.
+ *
+ * stream 은 /request-body-string-stream 으로 String 을 만들지 않고 버퍼 단위로 읽는 방식이다.
+ */
+@State(Scope.Benchmark)
+public class RequestBodyStringBenchmark {
+
+    @Param({"64", "65536", "4194304"})
+    public int payloadSize;
+
+    private DispatcherServletFixture fixture;
+    private byte[] payload;
+
+    @Setup
+    public void setUp() throws Exception {
+        fixture = DispatcherServletFixture.start(DispatcherServletFixture.QUIET_LOGGING);
+        payload = new byte[payloadSize];
+        Arrays.fill(payload, (byte) 'a');
+
+        for (int version = 1; version <= 4; version++) {
+            fixture.verify(requestBodyString(version));
+        }
+        fixture.verify(requestBodyStringStream());
+    }
+
+    @TearDown
+    public void tearDown() {
+        fixture.close();
+    }
+
+    @Benchmark
+    public MockHttpServletResponse inputStreamFromRequest() throws Exception {
+        return fixture.perform(requestBodyString(1));
+    }
+
+    @Benchmark
+    public MockHttpServletResponse inputStreamArgument() throws Exception {
+        return fixture.perform(requestBodyString(2));
+    }
+
+    @Benchmark
+    public MockHttpServletResponse httpEntity() throws Exception {
+        return fixture.perform(requestBodyString(3));
+    }
+
+    @Benchmark
+    public MockHttpServletResponse requestBody() throws Exception {
+        return fixture.perform(requestBodyString(4));
+    }
+
+    @Benchmark
+    public MockHttpServletResponse stream() throws Exception {
+        return fixture.perform(requestBodyStringStream());
+    }
+
+    private MockHttpServletRequestBuilder requestBodyString(int version) {
+        return requestBody("/request-body-string-v" + version);
+    }
+
+    private MockHttpServletRequestBuilder requestBodyStringStream() {
+        return requestBody("/request-body-string-stream");
+    }
+
+    private MockHttpServletRequestBuilder requestBody(String uri) {
+        return post(uri)
+                .contentType(MediaType.TEXT_PLAIN)
+                .content(payload);
+    }
+}
@@ -0,0 +1,81 @@
+package hello.springmvc.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import javax.servlet.http.Cookie;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+/**
+ * RequestHeaderController 의 헤더 조회 방식별 요청당 할당량 비교 (gc.alloc.rate.norm)
+ *
+ * fullMap : /headers (@RequestHeader MultiValueMap 으로 헤더 전체 복사)
+ * singleHeader : /headers-single (@RequestHeader("host") + @CookieValue)
+ * lazyView : /headers-lazy (LazyRequestHeaders)
+ *
+ * 브라우저가 보내는 정도의 헤더 15 개와 쿠키 6 개를 붙여서 보낸다.
+ */
+@State(Scope.Benchmark)
+public class RequestHeaderBenchmark {
+
+    private DispatcherServletFixture fixture;
+
+    @Setup
+    public void setUp() throws Exception {
+        fixture = DispatcherServletFixture.start(DispatcherServletFixture.QUIET_LOGGING);
+        fixture.verify(browserRequest("/headers"));
+        fixture.verify(browserRequest("/headers-single"));
+        fixture.verify(browserRequest("/headers-lazy"));
+    }
+
+    @TearDown
+    public void tearDown() {
+        fixture.close();
+    }
+
+    @Benchmark
+    public MockHttpServletResponse fullMap() throws Exception {
+        return fixture.perform(browserRequest("/headers"));
+    }
+
+    @Benchmark
+    public MockHttpServletResponse singleHeader() throws Exception {
+        return fixture.perform(browserRequest("/headers-single"));
+    }
+
+    @Benchmark
+    public MockHttpServletResponse lazyView() throws Exception {
+        return fixture.perform(browserRequest("/headers-lazy"));
+    }
+
+    private static MockHttpServletRequestBuilder browserRequest(String path) {
+        return get(path)
+                .header("Host", "localhost:8080")
+                .header("Connection", "keep-alive")
+                .header("Cache-Control", "max-age=0")
+                .header("sec-ch-ua", "\"Chromium\";v=\"118\", \"Not=A?Brand\";v=\"99\"")
+                .header("sec-ch-ua-mobile", "?0")
+                .header("sec-ch-ua-platform", "\"macOS\"")
+                .header("Upgrade-Insecure-Requests", "1")
+                .header("User-Agent", "Mozilla/5.0 (Macintosh; Intel Mac OS X 10_15_7) AppleWebKit/537.36 (KHTML, like Gecko) Chrome/118.0.0.0 Safari/537.36")
+                .header("Accept", "text/html,application/xhtml+xml,application/xml;q=0.9,image/avif,image/webp,*/*;q=0.8")
+                .header("Sec-Fetch-Site", "none")
+                .header("Sec-Fetch-Mode", "navigate")
+                .header("Sec-Fetch-User", "?1")
+                .header("Sec-Fetch-Dest", "document")
+                .header("Accept-Encoding", "gzip, deflate, br")
+                .header("Accept-Language", "ko-KR,ko;q=0.9,en-US;q=0.8,en;q=0.7")
+                .cookie(new Cookie("JSESSIONID", "9D3C1B0E5F6A7B8C9D0E1F2A3B4C5D6E"),
+                        new Cookie("_ga", "GA1.1.123456789.1690000000"),
+                        new Cookie("theme", "dark"),
+                        new Cookie("myCookie", "hello"),
+                        new Cookie("locale", "ko"),
+                        new Cookie("_gid", "GA1.1.987654321.1690000000"));
+    }
+}
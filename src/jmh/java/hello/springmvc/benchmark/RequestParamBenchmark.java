@@ -0,0 +1,91 @@
+package hello.springmvc.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+/**
+ * RequestParamController 의 파라미터 바인딩 방식별 비용 비교
+ * HttpServletRequest 직접 조회 / @RequestParam / Map / @ModelAttribute HelloData
+ */
+@State(Scope.Benchmark)
+public class RequestParamBenchmark {
+
+    private DispatcherServletFixture fixture;
+
+    @Setup
+    public void setUp() throws Exception {
+        fixture = DispatcherServletFixture.start(DispatcherServletFixture.QUIET_LOGGING);
+        fixture.verify(requestParamV1());
+        fixture.verify(requestParamV2());
+        fixture.verify(requestParamV3());
+        fixture.verify(requestParamMap());
+        fixture.verify(modelAttributeV1());
+        fixture.verify(modelAttributeV2());
+    }
+
+    @TearDown
+    public void tearDown() {
+        fixture.close();
+    }
+
+    @Benchmark
+    public MockHttpServletResponse httpServletRequest() throws Exception {
+        return fixture.perform(requestParamV1());
+    }
+
+    @Benchmark
+    public MockHttpServletResponse requestParam() throws Exception {
+        return fixture.perform(requestParamV2());
+    }
+
+    @Benchmark
+    public MockHttpServletResponse requestParamByName() throws Exception {
+        return fixture.perform(requestParamV3());
+    }
+
+    @Benchmark
+    public MockHttpServletResponse requestParamMapping() throws Exception {
+        return fixture.perform(requestParamMap());
+    }
+
+    @Benchmark
+    public MockHttpServletResponse modelAttribute() throws Exception {
+        return fixture.perform(modelAttributeV1());
+    }
+
+    @Benchmark
+    public MockHttpServletResponse modelAttributeOmitted() throws Exception {
+        return fixture.perform(modelAttributeV2());
+    }
+
+    private static MockHttpServletRequestBuilder requestParamV1() {
+        return get("/request-param-v1").param("username", "hello").param("age", "20");
+    }
+
+    private static MockHttpServletRequestBuilder requestParamV2() {
+        return get("/request-param-v2").param("username", "hello").param("age", "20");
+    }
+
+    private static MockHttpServletRequestBuilder requestParamV3() {
+        return get("/request-param-v3").param("username", "hello").param("memberA", "20");
+    }
+
+    private static MockHttpServletRequestBuilder requestParamMap() {
+        return get("/request-param-map").param("username", "hello").param("age", "20");
+    }
+
+    private static MockHttpServletRequestBuilder modelAttributeV1() {
+        return get("/model-attribute-v1").param("username", "hello").param("age", "20");
+    }
+
+    private static MockHttpServletRequestBuilder modelAttributeV2() {
+        return get("/model-attribute-v2").param("username", "hello").param("age", "20");
+    }
+}
@@ -0,0 +1,64 @@
+package hello.springmvc.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+/**
+ * ResponseBodyController json 응답을 매번 직렬화하는 경우(cache=false)와
+ * @CachedResponse 로 저장된 바이트를 내려주는 경우(cache=true) 비교
+ *
+ * conditionalGet 은 If-None-Match 를 같이 보내는 요청으로, 캐시가 켜져있으면 304 로 끝난다.
+ */
+@State(Scope.Benchmark)
+public class ResponseBodyCacheBenchmark {
+
+    @Param({"true", "false"})
+    public boolean cache;
+
+    private DispatcherServletFixture fixture;
+    private String etag;
+
+    @Setup
+    public void setUp() throws Exception {
+        fixture = DispatcherServletFixture.start(DispatcherServletFixture.QUIET_LOGGING,
+                "springmvc.response-cache.enabled=" + cache);
+        fixture.verify(responseBodyJson(1));
+        fixture.verify(responseBodyJson(2));
+
+        String etag = fixture.perform(responseBodyJson(1)).getHeader(HttpHeaders.ETAG);
+        this.etag = etag != null ? etag : "\"none\"";
+    }
+
+    @TearDown
+    public void tearDown() {
+        fixture.close();
+    }
+
+    @Benchmark
+    public MockHttpServletResponse responseEntity() throws Exception {
+        return fixture.perform(responseBodyJson(1));
+    }
+
+    @Benchmark
+    public MockHttpServletResponse responseBody() throws Exception {
+        return fixture.perform(responseBodyJson(2));
+    }
+
+    @Benchmark
+    public MockHttpServletResponse conditionalGet() throws Exception {
+        return fixture.perform(responseBodyJson(1).header(HttpHeaders.IF_NONE_MATCH, etag));
+    }
+
+    private static MockHttpServletRequestBuilder responseBodyJson(int version) {
+        return get("/response-body-json-v" + version);
+    }
+}
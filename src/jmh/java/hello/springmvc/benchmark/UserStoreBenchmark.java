@@ -0,0 +1,111 @@
+package hello.springmvc.benchmark;
+
+import hello.springmvc.basic.HelloData;
+import hello.springmvc.user.OffHeapUserStore;
+import hello.springmvc.user.UserRecord;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * OffHeapUserStore 와 ConcurrentHashMap<String, HelloData> 비교 (기본 1000만 건)
+ *
+ * get / update : 임의의 userId 하나 조회 / 변경 (4 스레드)
+ * getUnderAllocation : 조회하면서 요청 처리처럼 짧게 사는 객체를 같이 만든다.
+ *   힙에 살아있는 객체가 많을수록 GC 한번에 걸리는 시간이 늘어나는 것을 gc 프로파일러의 gc.time 으로 본다.
+ *
+ * 채우고 난 다음 GC 후 힙 사용량(heap)과 힙 밖 사용량(offHeap), 측정이 끝났을 때 GC 횟수/시간을 출력한다.
+ */
+@State(Scope.Benchmark)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx8g", "-XX:MaxDirectMemorySize=4g"})
+@Threads(4)
+public class UserStoreBenchmark {
+
+    @Param({"offheap", "concurrent-hash-map"})
+    public String store;
+
+    @Param({"10000000"})
+    public int records;
+
+    private OffHeapUserStore offHeapStore;
+    private ConcurrentHashMap<String, HelloData> map;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        if (store.equals("offheap")) {
+            offHeapStore = OffHeapUserStore.allocate(records, 256);
+            for (int i = 0; i < records; i++) {
+                offHeapStore.put(new UserRecord(userId(i), "user" + i, i % 100));
+            }
+        } else {
+            map = new ConcurrentHashMap<>(records * 4 / 3 + 1);
+            for (int i = 0; i < records; i++) {
+                HelloData helloData = new HelloData();
+                helloData.setUsername("user" + i);
+                helloData.setAge(i % 100);
+                map.put(userId(i), helloData);
+            }
+        }
+        System.gc();
+        Runtime runtime = Runtime.getRuntime();
+        System.out.printf("%n%s: heap=%dMB offHeap=%dMB%n", store,
+                (runtime.totalMemory() - runtime.freeMemory()) >> 20,
+                offHeapStore != null ? offHeapStore.getOffHeapBytes() >> 20 : 0);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        long count = 0;
+        long millis = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            count += gc.getCollectionCount();
+            millis += gc.getCollectionTime();
+        }
+        System.out.printf("%n%s: gc count=%d time=%dms%n", store, count, millis);
+        if (offHeapStore != null) {
+            offHeapStore.close();
+        }
+    }
+
+    @Benchmark
+    public Object get() {
+        String userId = userId(ThreadLocalRandom.current().nextInt(records));
+        return offHeapStore != null ? offHeapStore.get(userId) : map.get(userId);
+    }
+
+    @Benchmark
+    public Object update() {
+        int i = ThreadLocalRandom.current().nextInt(records);
+        String userId = userId(i);
+        if (offHeapStore != null) {
+            return offHeapStore.update(userId, null, i % 90);
+        }
+        return map.computeIfPresent(userId, (key, helloData) -> {
+            helloData.setAge(i % 90);
+            return helloData;
+        });
+    }
+
+    @Benchmark
+    public void getUnderAllocation(Blackhole blackhole) {
+        blackhole.consume(new byte[2048]);
+        blackhole.consume(get());
+    }
+
+    private static String userId(int i) {
+        return "user-" + i;
+    }
+}
@@ -0,0 +1,66 @@
+package hello.springmvc.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+/**
+ * ResponseViewController 렌더링 비교 (처리량, gc.alloc.rate.norm)
+ *
+ * default : 스프링 부트 기본 ThymeleafViewResolver / ThymeleafView
+ * compiled : compiled-views 프로파일에서 결과 캐시만 끈 것 (미리 파싱 + 풀링된 인코더로 바로 바이트 출력)
+ * prerendered : compiled-views 프로파일 그대로 (response/hello 렌더링 결과 캐시)
+ */
+@State(Scope.Benchmark)
+public class ViewRenderingBenchmark {
+
+    @Param({"default", "compiled", "prerendered"})
+    public String mode;
+
+    private DispatcherServletFixture fixture;
+
+    @Setup
+    public void setUp() throws Exception {
+        switch (mode) {
+            case "compiled":
+                fixture = DispatcherServletFixture.startWithProfiles(new String[]{"compiled-views"},
+                        DispatcherServletFixture.QUIET_LOGGING, "springmvc.view.prerender.templates=");
+                break;
+            case "prerendered":
+                fixture = DispatcherServletFixture.startWithProfiles(new String[]{"compiled-views"},
+                        DispatcherServletFixture.QUIET_LOGGING);
+                break;
+            default:
+                fixture = DispatcherServletFixture.start(DispatcherServletFixture.QUIET_LOGGING);
+        }
+        fixture.verify(get("/response-view-v1"));
+        fixture.verify(get("/response-view-v2"));
+        fixture.verify(get("/response/hello"));
+    }
+
+    @TearDown
+    public void tearDown() {
+        fixture.close();
+    }
+
+    @Benchmark
+    public MockHttpServletResponse responseViewV1() throws Exception {
+        return fixture.perform(get("/response-view-v1"));
+    }
+
+    @Benchmark
+    public MockHttpServletResponse responseViewV2() throws Exception {
+        return fixture.perform(get("/response-view-v2"));
+    }
+
+    @Benchmark
+    public MockHttpServletResponse responseViewV3() throws Exception {
+        return fixture.perform(get("/response/hello"));
+    }
+}
@@ -0,0 +1,60 @@
+package hello.springmvc.benchmark;
+
+import lombok.Data;
+
+/**
+ * 바인딩 벤치마크용 필드 50 개짜리 DTO
+ */
+@Data
+public class WideDto {
+    private String text01;
+    private String text02;
+    private String text03;
+    private String text04;
+    private String text05;
+    private String text06;
+    private String text07;
+    private String text08;
+    private String text09;
+    private String text10;
+    private String text11;
+    private String text12;
+    private String text13;
+    private String text14;
+    private String text15;
+    private String text16;
+    private String text17;
+    private String text18;
+    private String text19;
+    private String text20;
+    private int int01;
+    private int int02;
+    private int int03;
+    private int int04;
+    private int int05;
+    private int int06;
+    private int int07;
+    private int int08;
+    private int int09;
+    private int int10;
+    private int int11;
+    private int int12;
+    private int int13;
+    private int int14;
+    private int int15;
+    private long long01;
+    private long long02;
+    private long long03;
+    private long long04;
+    private long long05;
+    private boolean flag01;
+    private boolean flag02;
+    private boolean flag03;
+    private boolean flag04;
+    private boolean flag05;
+    private double ratio01;
+    private double ratio02;
+    private double ratio03;
+    private double ratio04;
+    private double ratio05;
+}
@@ -0,0 +1,69 @@
+package hello.springmvc.load;
+
+import hello.springmvc.server.admission.AdmissionControlInterceptor;
+
+import java.net.http.HttpRequest;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 입장 제어를 켰을 때와 껐을 때 포화 지점 이후의 지연시간 비교
+ *
+ * /request-body-json-v3 에 동시 요청 수를 16 -> 64 -> 256 -> 1024 로 늘려가며 보낸다.
+ * 토큰 버킷이 아니라 동시 처리 한도(GradientConcurrencyLimiter)의 효과를 보려고 초당 요청 수 제한은 크게 잡는다.
+ * 클라이언트 키(X-Client-Id)는 요청마다 64개 중 하나를 고른다.
+ * 부하 생성기가 같은 주소(루프백)에서 보내므로 루프백을 믿을 수 있는 프록시로 두고 그 헤더로 클라이언트를 나눈다.
+ *
+ * p99 는 받아들여진 요청(2xx)만으로 계산하고 errors 는 503/429 로 거절된 요청 수다.
+ * 입장 제어를 끄면 포화 이후에는 톰캣 대기열이 길어지는 만큼 p99 가 늘어나고,
+ * 켜면 한도를 넘는 요청은 바로 거절되어 받아들여진 요청의 p99 가 거의 그대로 유지되어야 한다.
+ *
+ * ./gradlew loadTest -PloadTest=AdmissionLoadTest -PloadTestArgs="20"
+ */
+public class AdmissionLoadTest {
+
+    private static final int[] CONCURRENCY = {16, 64, 256, 1024};
+    private static final String BODY = "{\"username\":\"hello\", \"age\":20}";
+
+    public static void main(String[] args) throws Exception {
+        Duration duration = Duration.ofSeconds(args.length > 0 ? Long.parseLong(args[0]) : 20);
+
+        List<LoadResult> results = new ArrayList<>();
+        List<String> admission = new ArrayList<>();
+        for (boolean enabled : new boolean[]{false, true}) {
+            String mode = enabled ? "admission" : "unlimited";
+            try (ApplicationUnderTest app = ApplicationUnderTest.start(
+                    "springmvc.admission.enabled=" + enabled,
+                    "springmvc.admission.request-body-json.permits-per-second=1000000",
+                    "springmvc.admission.request-body-json.burst=100000",
+                    "springmvc.admission.request-body-json.client-permits-per-second=1000000",
+                    "springmvc.admission.request-body-json.client-burst=100000",
+                    "springmvc.admission.client-key-header=X-Client-Id",
+                    "springmvc.admission.trusted-proxies=127.0.0.1,0:0:0:0:0:0:0:1",
+                    "server.tomcat.threads.max=200",
+                    "server.tomcat.max-connections=8192",
+                    "server.tomcat.accept-count=2048")) {
+                LoadGenerator generator = new LoadGenerator();
+                for (int concurrency : CONCURRENCY) {
+                    results.add(generator.run(mode + " x" + concurrency, concurrency, duration,
+                            () -> HttpRequest.newBuilder(app.uri("/request-body-json-v3"))
+                                    .header("Content-Type", "application/json")
+                                    .header("X-Client-Id", "client-" + ThreadLocalRandom.current().nextInt(64))
+                                    .POST(HttpRequest.BodyPublishers.ofString(BODY))
+                                    .build()));
+                    if (enabled) {
+                        admission.add(concurrency + " " + app.getContext()
+                                .getBean(AdmissionControlInterceptor.class).snapshot());
+                    }
+                }
+            }
+        }
+
+        System.out.println(LoadResult.header());
+        results.forEach(System.out::println);
+        System.out.println();
+        admission.forEach(System.out::println);
+    }
+}
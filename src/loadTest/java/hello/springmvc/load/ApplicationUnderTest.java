@@ -0,0 +1,69 @@
+package hello.springmvc.load;
+
+import hello.springmvc.SpringmvcApplication;
+import org.springframework.boot.Banner;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 부하 테스트 대상 애플리케이션을 같은 JVM 안에서 실제 톰캣으로 띄운다.
+ * 포트는 비어있는 포트를 아무거나 사용한다.
+ */
+public class ApplicationUnderTest implements AutoCloseable {
+
+    private final ConfigurableApplicationContext context;
+    private final URI baseUri;
+
+    private ApplicationUnderTest(Class<?>[] sources, String[] profiles, String[] properties) {
+        // application.properties 보다 우선하도록 커맨드라인 인자(--key=value)로 넘긴다.
+        // 입장 제어는 다른 기능의 처리량 측정을 방해하지 않게 기본으로 끄고 AdmissionLoadTest 에서만 켠다.
+        List<String> arguments = new ArrayList<>();
+        arguments.add("--server.port=0");
+        arguments.add("--logging.level.hello.springmvc=warn");
+        arguments.add("--springmvc.admission.enabled=false");
+        for (String property : properties) {
+            arguments.add("--" + property);
+        }
+
+        this.context = new SpringApplicationBuilder(SpringmvcApplication.class)
+                .sources(sources)
+                .bannerMode(Banner.Mode.OFF)
+                .profiles(profiles)
+                .run(arguments.toArray(new String[0]));
+        int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+        this.baseUri = URI.create("http://localhost:" + port);
+    }
+
+    public static ApplicationUnderTest start(String... properties) {
+        return new ApplicationUnderTest(new Class<?>[0], new String[0], properties);
+    }
+
+    public static ApplicationUnderTest startWithProfiles(String[] profiles, String... properties) {
+        return new ApplicationUnderTest(new Class<?>[0], profiles, properties);
+    }
+
+    /**
+     * 부하 테스트에서만 쓰는 설정 클래스(sources)를 같이 올린다.
+     */
+    public static ApplicationUnderTest startWithSources(Class<?>[] sources, String... properties) {
+        return new ApplicationUnderTest(sources, new String[0], properties);
+    }
+
+    public URI uri(String pathAndQuery) {
+        return baseUri.resolve(pathAndQuery);
+    }
+
+    public ConfigurableApplicationContext getContext() {
+        return context;
+    }
+
+    @Override
+    public void close() {
+        context.close();
+    }
+}
@@ -0,0 +1,143 @@
+package hello.springmvc.load;
+
+import hello.springmvc.basic.requestmapping.MappingClassController;
+import hello.springmvc.basic.requestmapping.MappingController;
+import hello.springmvc.user.OffHeapUserStore;
+import hello.springmvc.user.UserRecord;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * @CoalesceRequests 를 켰을 때와 껐을 때 핸들러 호출 수 비교
+ *
+ * /mapping/users/{userId} 와 /mapping/{userId} 를 userId 가 Zipf 분포(지수 s)를 따르도록 요청한다.
+ * s 가 클수록 소수의 userId 에 요청이 몰린다. (s=0 은 균등 분포)
+ * 핸들러 호출은 컨트롤러를 감싼 프록시에서 세고, 프록시는 실제 조회 대신 backend-ms 만큼 기다린다.
+ *
+ * ./gradlew loadTest -PloadTest=CoalescingLoadTest -PloadTestArgs="256 20 5"
+ */
+public class CoalescingLoadTest {
+
+    private static final int USERS = 10_000;
+    private static final double[] SKEWS = {0, 0.8, 1.2};
+
+    static final LongAdder INVOCATIONS = new LongAdder();
+    static volatile long backendMillis = 5;
+
+    public static void main(String[] args) throws Exception {
+        int concurrency = args.length > 0 ? Integer.parseInt(args[0]) : 256;
+        Duration duration = Duration.ofSeconds(args.length > 1 ? Long.parseLong(args[1]) : 20);
+        backendMillis = args.length > 2 ? Long.parseLong(args[2]) : 5;
+
+        List<LoadResult> results = new ArrayList<>();
+        List<String> invocations = new ArrayList<>();
+        for (boolean coalescing : new boolean[]{false, true}) {
+            String mode = coalescing ? "coalescing" : "direct";
+            try (ApplicationUnderTest app = ApplicationUnderTest.startWithSources(
+                    new Class<?>[]{SlowBackend.class}, "springmvc.coalescing.enabled=" + coalescing)) {
+                // 핸들러 호출 수를 전체 요청 수와 비교하기 위해 워밍업 없이 전부 센다.
+                LoadGenerator generator = new LoadGenerator(HttpClient.Version.HTTP_1_1, Duration.ZERO);
+                OffHeapUserStore userStore = app.getContext().getBean(OffHeapUserStore.class);
+                for (int i = 1; i <= USERS; i++) {
+                    userStore.put(new UserRecord("user" + i, "user" + i, 20));
+                }
+                for (double skew : SKEWS) {
+                    Zipf zipf = new Zipf(USERS, skew);
+                    String scenario = String.format("%s zipf(s=%.1f) x%d", mode, skew, concurrency);
+                    INVOCATIONS.reset();
+                    LoadResult result = generator.run(scenario, concurrency, duration, () -> {
+                        int userId = zipf.next();
+                        String path = (userId & 1) == 0 ? "/mapping/users/user" + userId : "/mapping/user" + userId;
+                        return HttpRequest.newBuilder(app.uri(path)).GET().build();
+                    });
+                    results.add(result);
+                    long requests = result.getRequests() + result.getErrors();
+                    long handled = INVOCATIONS.sum();
+                    invocations.add(String.format("%-48s %12d %12d %9.1f%%", scenario, requests, handled,
+                            100d * (requests - handled) / Math.max(1, requests)));
+                }
+            }
+        }
+
+        System.out.println(LoadResult.header());
+        results.forEach(System.out::println);
+        System.out.println();
+        System.out.println(String.format("%-48s %12s %12s %10s", "scenario", "requests", "invocations", "saved"));
+        invocations.forEach(System.out::println);
+    }
+
+    /**
+     * 두 컨트롤러를 호출 수를 세고 backend-ms 만큼 기다리는 프록시로 감싼다.
+     */
+    @Configuration
+    static class SlowBackend {
+
+        @Bean
+        static BeanPostProcessor slowBackendProxy() {
+            return new BeanPostProcessor() {
+                @Override
+                public Object postProcessAfterInitialization(Object bean, String beanName) {
+                    if (!(bean instanceof MappingController) && !(bean instanceof MappingClassController)) {
+                        return bean;
+                    }
+                    ProxyFactory proxyFactory = new ProxyFactory(bean);
+                    proxyFactory.setProxyTargetClass(true);
+                    proxyFactory.addAdvice((MethodInterceptor) invocation -> {
+                        String name = invocation.getMethod().getName();
+                        if (name.equals("findUser") || name.equals("mappingPath")) {
+                            INVOCATIONS.increment();
+                            Thread.sleep(backendMillis);
+                        }
+                        return invocation.proceed();
+                    });
+                    return proxyFactory.getProxy();
+                }
+            };
+        }
+    }
+
+    /**
+     * 1..n 중 k 가 나올 확률이 1/k^s 에 비례하는 분포 (누적 분포를 미리 계산해서 이진 탐색)
+     */
+    static class Zipf {
+        private final double[] cumulative;
+
+        Zipf(int n, double s) {
+            cumulative = new double[n];
+            double sum = 0;
+            for (int k = 1; k <= n; k++) {
+                sum += 1 / Math.pow(k, s);
+                cumulative[k - 1] = sum;
+            }
+            for (int i = 0; i < n; i++) {
+                cumulative[i] /= sum;
+            }
+        }
+
+        int next() {
+            double u = ThreadLocalRandom.current().nextDouble();
+            int low = 0;
+            int high = cumulative.length - 1;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (cumulative[mid] < u) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low + 1;
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package hello.springmvc.load;
+
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 응답 압축 전후 비교
+ *
+ * 같은 경로를 Accept-Encoding 없이(identity) 요청했을 때와 gzip 으로 요청했을 때의
+ * 처리량/지연시간과 실제로 전송된 바디 크기(bytes on wire)를 본다.
+ * HttpClient 는 압축을 풀지 않기 때문에 받은 바이트 수가 그대로 전송량이다.
+ * /response-body-json-v1 은 min-response-size 보다 작아서 gzip 으로 요청해도 압축하지 않는다.
+ *
+ * ./gradlew loadTest -PloadTest=CompressionLoadTest -PloadTestArgs="64 20"
+ */
+public class CompressionLoadTest {
+
+    private static final String[] PATHS = {"/index.html", "/basic/hello-form.html", "/response-body-json-v1"};
+    private static final String[] ENCODINGS = {"identity", "gzip"};
+
+    public static void main(String[] args) throws Exception {
+        int concurrency = args.length > 0 ? Integer.parseInt(args[0]) : 64;
+        Duration duration = Duration.ofSeconds(args.length > 1 ? Long.parseLong(args[1]) : 20);
+
+        List<LoadResult> results = new ArrayList<>();
+        List<String> wire = new ArrayList<>();
+        try (ApplicationUnderTest app = ApplicationUnderTest.start()) {
+            HttpClient client = HttpClient.newHttpClient();
+            LoadGenerator generator = new LoadGenerator();
+            for (String path : PATHS) {
+                for (String encoding : ENCODINGS) {
+                    HttpRequest request = HttpRequest.newBuilder(app.uri(path))
+                            .header("Accept-Encoding", encoding)
+                            .GET()
+                            .build();
+                    HttpResponse<byte[]> response = client.send(request, HttpResponse.BodyHandlers.ofByteArray());
+                    wire.add(String.format("%-28s %-9s %-9s %8d",
+                            path, encoding, response.headers().firstValue("Content-Encoding").orElse("-"),
+                            response.body().length));
+
+                    results.add(generator.run(path + " " + encoding + " x" + concurrency, concurrency, duration,
+                            () -> request));
+                }
+            }
+        }
+
+        System.out.println(String.format("%-28s %-9s %-9s %8s", "path", "accept", "encoding", "bytes"));
+        wire.forEach(System.out::println);
+        System.out.println();
+        System.out.println(LoadResult.header());
+        results.forEach(System.out::println);
+    }
+}
@@ -0,0 +1,92 @@
+package hello.springmvc.load;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.io.IOException;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * 닫힌 루프(closed-loop) 부하 생성기
+ * concurrency 개의 가상 스레드가 각자 응답을 받으면 바로 다음 요청을 보낸다.
+ * 워밍업 구간의 결과는 버리고 측정 구간의 지연시간만 기록한다.
+ */
+public class LoadGenerator {
+
+    private final HttpClient client;
+    private final Duration warmup;
+
+    public LoadGenerator(HttpClient.Version version, Duration warmup) {
+        this.client = HttpClient.newBuilder()
+                .version(version)
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+        this.warmup = warmup;
+    }
+
+    public LoadGenerator() {
+        this(HttpClient.Version.HTTP_1_1, Duration.ofSeconds(5));
+    }
+
+    public LoadResult run(String name, int concurrency, Duration duration, Supplier<HttpRequest> requests)
+            throws InterruptedException {
+        Recorder recorder = new Recorder(TimeUnit.SECONDS.toMicros(60), 3);
+        LongAdder errors = new LongAdder();
+        long warmupEnd = System.nanoTime() + warmup.toNanos();
+        long end = warmupEnd + duration.toNanos();
+
+        List<Thread> workers = new ArrayList<>(concurrency);
+        for (int i = 0; i < concurrency; i++) {
+            workers.add(Thread.ofVirtual().name("load-" + i).start(() -> {
+                while (true) {
+                    long start = System.nanoTime();
+                    if (start >= end) {
+                        return;
+                    }
+                    boolean ok = send(requests.get());
+                    long finish = System.nanoTime();
+                    if (start < warmupEnd) {
+                        continue;
+                    }
+                    if (ok) {
+                        recorder.recordValue(Math.min(TimeUnit.NANOSECONDS.toMicros(finish - start),
+                                TimeUnit.SECONDS.toMicros(60)));
+                    } else {
+                        errors.increment();
+                    }
+                }
+            }));
+        }
+
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        Histogram latency = recorder.getIntervalHistogram();
+        return new LoadResult(name, latency, errors.sum(), duration);
+    }
+
+    /**
+     * 2xx, 3xx 가 아니거나 연결이 실패하면 오류로 센다.
+     */
+    private boolean send(HttpRequest request) {
+        try {
+            HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+            return response.statusCode() < 400;
+        } catch (IOException e) {
+            return false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package hello.springmvc.load;
+
+import org.HdrHistogram.Histogram;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 부하 테스트 한 구간의 결과
+ * 지연시간은 HdrHistogram 에 마이크로초 단위로 기록한다.
+ */
+public class LoadResult {
+
+    private final String name;
+    private final Histogram latency;
+    private final long errors;
+    private final Duration elapsed;
+
+    LoadResult(String name, Histogram latency, long errors, Duration elapsed) {
+        this.name = name;
+        this.latency = latency;
+        this.errors = errors;
+        this.elapsed = elapsed;
+    }
+
+    public long getRequests() {
+        return latency.getTotalCount();
+    }
+
+    public long getErrors() {
+        return errors;
+    }
+
+    public double getThroughput() {
+        return latency.getTotalCount() * 1_000d / Math.max(1, elapsed.toMillis());
+    }
+
+    public double getPercentileMillis(double percentile) {
+        return latency.getValueAtPercentile(percentile) / (double) TimeUnit.MILLISECONDS.toMicros(1);
+    }
+
+    public Histogram getLatency() {
+        return latency;
+    }
+
+    public static String header() {
+        return String.format("%-48s %10s %8s %10s %10s %10s %10s %10s",
+                "scenario", "requests", "errors", "req/s", "p50(ms)", "p90(ms)", "p99(ms)", "max(ms)");
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%-48s %10d %8d %10.1f %10.2f %10.2f %10.2f %10.2f",
+                name, getRequests(), errors, getThroughput(),
+                getPercentileMillis(50), getPercentileMillis(90), getPercentileMillis(99),
+                latency.getMaxValue() / 1_000d);
+    }
+}
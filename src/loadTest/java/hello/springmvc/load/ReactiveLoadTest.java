@@ -0,0 +1,111 @@
+package hello.springmvc.load;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.management.ThreadMXBean;
+import java.net.http.HttpRequest;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 서블릿 엔드포인트와 /reactive/** 엔드포인트 비교
+ *
+ * 느린 업로드를 concurrency 개 동시에 걸어두고 그 사이에 json 요청(request-body-json-v5)의 지연시간을 잰다.
+ * 측정하는 동안 힙 사용량과 스레드 수를 200ms 마다 샘플링해서
+ * 시작 전보다 늘어난 힙 1GB 당 몇 개의 연결을 버틸 수 있는지 계산한다.
+ *
+ * 부하 발생기도 같은 JVM 에 있기 때문에 힙 수치에는 클라이언트 몫도 들어있다.
+ * 두 모드 모두 클라이언트는 똑같으니 절대값보다는 두 모드의 차이를 보면 된다.
+ *
+ * ./gradlew loadTest -PloadTest=ReactiveLoadTest -PloadTestArgs="2000 20"
+ */
+public class ReactiveLoadTest {
+
+    public static void main(String[] args) throws Exception {
+        int concurrency = args.length > 0 ? Integer.parseInt(args[0]) : 2000;
+        Duration duration = Duration.ofSeconds(args.length > 1 ? Long.parseLong(args[1]) : 20);
+
+        List<LoadResult> results = new ArrayList<>();
+        List<String> footprints = new ArrayList<>();
+        for (String prefix : new String[]{"", "/reactive"}) {
+            String mode = prefix.isEmpty() ? "servlet" : "reactive";
+            try (ApplicationUnderTest app = ApplicationUnderTest.start()) {
+                LoadGenerator generator = new LoadGenerator();
+                Footprint footprint = Footprint.start();
+
+                CompletableFuture<LoadResult> slowUploads = CompletableFuture.supplyAsync(() -> {
+                    try {
+                        return generator.run(mode + " slow upload x" + concurrency, concurrency, duration,
+                                () -> HttpRequest.newBuilder(app.uri(prefix + "/request-body-string-v2"))
+                                        .header("Content-Type", "text/plain")
+                                        .POST(SlowBody.trickle(8 * 1024, 1024, Duration.ofMillis(20)))
+                                        .build());
+                    } catch (InterruptedException e) {
+                        throw new IllegalStateException(e);
+                    }
+                });
+
+                results.add(generator.run(mode + " json-v5 x64", 64, duration,
+                        () -> HttpRequest.newBuilder(app.uri(prefix + "/request-body-json-v5"))
+                                .header("Content-Type", "application/json")
+                                .POST(HttpRequest.BodyPublishers.ofString("{\"username\":\"hello\", \"age\":20}"))
+                                .build()));
+                results.add(slowUploads.get());
+                footprints.add(footprint.stop(mode, concurrency));
+            }
+        }
+
+        System.out.println(LoadResult.header());
+        results.forEach(System.out::println);
+        System.out.println();
+        System.out.println(Footprint.header());
+        footprints.forEach(System.out::println);
+    }
+
+    /**
+     * 측정 구간 동안의 최대 힙 사용량과 최대 스레드 수
+     */
+    private static class Footprint {
+        private static final double GB = 1024d * 1024 * 1024;
+
+        private final MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        private final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        private final ScheduledExecutorService sampler = Executors.newSingleThreadScheduledExecutor();
+        private final AtomicLong peakHeap = new AtomicLong();
+        private final long baselineHeap;
+        private final int baselineThreads;
+
+        private Footprint() {
+            System.gc();
+            this.baselineHeap = memory.getHeapMemoryUsage().getUsed();
+            this.baselineThreads = threads.getThreadCount();
+            threads.resetPeakThreadCount();
+            sampler.scheduleAtFixedRate(
+                    () -> peakHeap.accumulateAndGet(memory.getHeapMemoryUsage().getUsed(), Math::max),
+                    0, 200, TimeUnit.MILLISECONDS);
+        }
+
+        static Footprint start() {
+            return new Footprint();
+        }
+
+        String stop(String mode, int connections) {
+            sampler.shutdownNow();
+            long heapDelta = Math.max(1, peakHeap.get() - baselineHeap);
+            return String.format("%-10s %12d %14.1f %16.0f %14d",
+                    mode, connections, heapDelta / (1024d * 1024), connections / (heapDelta / GB),
+                    threads.getPeakThreadCount() - baselineThreads);
+        }
+
+        static String header() {
+            return String.format("%-10s %12s %14s %16s %14s",
+                    "mode", "connections", "heap+(MB)", "connections/GB", "threads+");
+        }
+    }
+}
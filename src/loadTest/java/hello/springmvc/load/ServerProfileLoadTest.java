@@ -0,0 +1,74 @@
+package hello.springmvc.load;
+
+import hello.springmvc.user.OffHeapUserStore;
+import hello.springmvc.user.UserRecord;
+
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 기본 톰캣 설정과 high-throughput 프로파일 비교
+ *
+ * 기존 엔드포인트를 섞어서 보낸다.
+ *  - GET /hello-basic 40%
+ *  - GET /mapping/users/{userId} 30% (userId 는 미리 넣어둔 USERS 명 중 하나)
+ *  - POST /request-body-json-v3 20%
+ *  - GET /response-view-v2 10%
+ * high-throughput 프로파일은 HTTP/1.1 과 HTTP/2(h2c) 로 각각 보내서 커넥터 튜닝과 HTTP/2 의 효과를 나눠 본다.
+ * HttpClient 는 HTTP/2 일 때 연결 하나에 스트림을 여러개 올리고, HTTP/1.1 일 때는 동시 요청 수만큼 연결을 연다.
+ *
+ * ./gradlew loadTest -PloadTest=ServerProfileLoadTest -PloadTestArgs="256 20"
+ */
+public class ServerProfileLoadTest {
+
+    private static final int USERS = 10_000;
+    private static final String BODY = "{\"username\":\"hello\", \"age\":20}";
+
+    public static void main(String[] args) throws Exception {
+        int concurrency = args.length > 0 ? Integer.parseInt(args[0]) : 256;
+        Duration duration = Duration.ofSeconds(args.length > 1 ? Long.parseLong(args[1]) : 20);
+
+        List<LoadResult> results = new ArrayList<>();
+        results.add(run(new String[0], HttpClient.Version.HTTP_1_1, concurrency, duration));
+        results.add(run(new String[]{"high-throughput"}, HttpClient.Version.HTTP_1_1, concurrency, duration));
+        results.add(run(new String[]{"high-throughput"}, HttpClient.Version.HTTP_2, concurrency, duration));
+
+        System.out.println(LoadResult.header());
+        results.forEach(System.out::println);
+    }
+
+    private static LoadResult run(String[] profiles, HttpClient.Version version, int concurrency, Duration duration)
+            throws InterruptedException {
+        String name = (profiles.length == 0 ? "default" : String.join(",", profiles)) + " " + version + " x" + concurrency;
+        try (ApplicationUnderTest app = ApplicationUnderTest.startWithProfiles(profiles)) {
+            OffHeapUserStore userStore = app.getContext().getBean(OffHeapUserStore.class);
+            for (int i = 1; i <= USERS; i++) {
+                userStore.put(new UserRecord("user" + i, "user" + i, 20));
+            }
+            LoadGenerator generator = new LoadGenerator(version, Duration.ofSeconds(5));
+            return generator.run(name, concurrency, duration, () -> next(app));
+        }
+    }
+
+    private static HttpRequest next(ApplicationUnderTest app) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int dice = random.nextInt(100);
+        if (dice < 40) {
+            return HttpRequest.newBuilder(app.uri("/hello-basic")).GET().build();
+        }
+        if (dice < 70) {
+            return HttpRequest.newBuilder(app.uri("/mapping/users/user" + (random.nextInt(USERS) + 1))).GET().build();
+        }
+        if (dice < 90) {
+            return HttpRequest.newBuilder(app.uri("/request-body-json-v3"))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(BODY))
+                    .build();
+        }
+        return HttpRequest.newBuilder(app.uri("/response-view-v2")).GET().build();
+    }
+}
@@ -0,0 +1,65 @@
+package hello.springmvc.load;
+
+import java.io.InputStream;
+import java.net.http.HttpRequest;
+import java.time.Duration;
+
+/**
+ * 느린 클라이언트 흉내
+ * size 바이트를 chunk 바이트씩 나눠서 보내고 조각 사이마다 pause 만큼 쉰다.
+ */
+public final class SlowBody {
+
+    private SlowBody() {
+    }
+
+    public static HttpRequest.BodyPublisher trickle(long size, int chunk, Duration pause) {
+        return HttpRequest.BodyPublishers.ofInputStream(() -> new TrickleInputStream(size, chunk, pause));
+    }
+
+    private static class TrickleInputStream extends InputStream {
+        private final int chunk;
+        private final long pauseMillis;
+        private long remaining;
+        private long untilPause;
+
+        TrickleInputStream(long size, int chunk, Duration pause) {
+            this.remaining = size;
+            this.chunk = chunk;
+            this.untilPause = chunk;
+            this.pauseMillis = pause.toMillis();
+        }
+
+        @Override
+        public int read() {
+            byte[] one = new byte[1];
+            return read(one, 0, 1) < 0 ? -1 : one[0];
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            if (remaining <= 0) {
+                return -1;
+            }
+            if (untilPause == 0) {
+                pause();
+                untilPause = chunk;
+            }
+            int n = (int) Math.min(len, Math.min(remaining, untilPause));
+            for (int i = 0; i < n; i++) {
+                b[off + i] = 'a';
+            }
+            remaining -= n;
+            untilPause -= n;
+            return n;
+        }
+
+        private void pause() {
+            try {
+                Thread.sleep(pauseMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
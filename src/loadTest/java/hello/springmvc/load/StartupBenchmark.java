@@ -0,0 +1,120 @@
+package hello.springmvc.load;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 기본 설정과 fast-start 프로파일의 콜드 스타트 비교
+ *
+ * 매번 새 JVM 으로 애플리케이션을 띄우고 프로세스 시작부터 첫 요청(/hello-basic)이 200 으로 응답할 때까지 걸린 시간과
+ * 그 시점의 RSS(/proc/{pid}/status 의 VmRSS)를 잰다. runs 번 반복해서 중앙값을 보여준다.
+ * RSS 는 리눅스에서만 나온다.
+ *
+ * ./gradlew loadTest -PloadTest=StartupBenchmark -PloadTestArgs="5"
+ */
+public class StartupBenchmark {
+
+    private static final String FIRST_REQUEST = "/hello-basic";
+    private static final Duration TIMEOUT = Duration.ofSeconds(60);
+
+    public static void main(String[] args) throws Exception {
+        int runs = args.length > 0 ? Integer.parseInt(args[0]) : 5;
+        HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofMillis(200)).build();
+
+        System.out.println(String.format("%-12s %24s %16s", "profile", "time-to-first-request(ms)", "rss(MB)"));
+        for (String profile : new String[]{"default", "fast-start"}) {
+            long[] millis = new long[runs];
+            long[] rssKb = new long[runs];
+            for (int run = 0; run < runs; run++) {
+                long[] result = startOnce(client, profile);
+                millis[run] = result[0];
+                rssKb[run] = result[1];
+            }
+            System.out.println(String.format("%-12s %24d %16.1f", profile, median(millis), median(rssKb) / 1024d));
+        }
+    }
+
+    /**
+     * @return {첫 요청까지 걸린 시간(ms), RSS(KB, 모르면 -1)}
+     */
+    private static long[] startOnce(HttpClient client, String profile) throws IOException, InterruptedException {
+        int port = freePort();
+        List<String> command = new ArrayList<>(Arrays.asList(
+                Paths.get(System.getProperty("java.home"), "bin", "java").toString(),
+                "-cp", System.getProperty("java.class.path"),
+                "hello.springmvc.SpringmvcApplication",
+                "--server.port=" + port,
+                "--logging.level.root=warn",
+                "--springmvc.metrics.snapshot.path="));
+        if (!"default".equals(profile)) {
+            command.add("--spring.profiles.active=" + profile);
+        }
+
+        long start = System.nanoTime();
+        Process process = new ProcessBuilder(command)
+                .redirectErrorStream(true)
+                .redirectOutput(ProcessBuilder.Redirect.to(new File(System.getProperty("java.io.tmpdir"), "startup-" + profile + ".log")))
+                .start();
+        try {
+            HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + FIRST_REQUEST)).GET().build();
+            while (true) {
+                if (System.nanoTime() - start > TIMEOUT.toNanos() || !process.isAlive()) {
+                    throw new IllegalStateException(profile + " did not answer " + FIRST_REQUEST);
+                }
+                try {
+                    HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+                    if (response.statusCode() == 200) {
+                        break;
+                    }
+                } catch (IOException e) {
+                    Thread.sleep(5);
+                }
+            }
+            long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            return new long[]{millis, rssKb(process.pid())};
+        } finally {
+            process.destroy();
+            if (!process.waitFor(10, TimeUnit.SECONDS)) {
+                process.destroyForcibly();
+            }
+        }
+    }
+
+    private static long rssKb(long pid) throws IOException {
+        Path status = Paths.get("/proc", Long.toString(pid), "status");
+        if (!Files.exists(status)) {
+            return -1;
+        }
+        for (String line : Files.readAllLines(status)) {
+            if (line.startsWith("VmRSS:")) {
+                return Long.parseLong(line.replaceAll("[^0-9]", ""));
+            }
+        }
+        return -1;
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    private static long median(long[] values) {
+        long[] sorted = values.clone();
+        Arrays.sort(sorted);
+        return sorted[sorted.length / 2];
+    }
+}
@@ -0,0 +1,71 @@
+package hello.springmvc.load;
+
+import java.net.http.HttpRequest;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 스프링 부트 기본 ResourceHttpRequestHandler 와 StaticResourceHandler(springmvc.static.engine) 비교
+ *
+ * 임시 디렉터리에 64KB, 1MB, 16MB 파일을 만들어서 static-locations 맨 앞에 두고
+ * 파일 전체 GET 과 16MB 파일의 64KB 구간 요청의 처리량을 잰다.
+ * 1MB 는 캐시(direct/매핑 버퍼)에서, 16MB 는 sendfile 로 나간다.
+ *
+ * ./gradlew loadTest -PloadTest=StaticResourceLoadTest -PloadTestArgs="32 20"
+ */
+public class StaticResourceLoadTest {
+
+    private static final int[] SIZES = {64 * 1024, 1024 * 1024, 16 * 1024 * 1024};
+
+    public static void main(String[] args) throws Exception {
+        int concurrency = args.length > 0 ? Integer.parseInt(args[0]) : 32;
+        Duration duration = Duration.ofSeconds(args.length > 1 ? Long.parseLong(args[1]) : 20);
+
+        Path directory = Files.createTempDirectory("static-load");
+        for (int size : SIZES) {
+            byte[] content = new byte[size];
+            ThreadLocalRandom.current().nextBytes(content);
+            Files.write(directory.resolve(name(size)), content);
+        }
+        String locations = directory.toUri() + ",classpath:/static/";
+
+        List<LoadResult> results = new ArrayList<>();
+        List<String> bandwidth = new ArrayList<>();
+        for (boolean engine : new boolean[]{false, true}) {
+            String mode = engine ? "engine" : "default";
+            try (ApplicationUnderTest app = ApplicationUnderTest.start(
+                    "springmvc.static.engine.enabled=" + engine,
+                    "spring.web.resources.static-locations=" + locations)) {
+                LoadGenerator generator = new LoadGenerator();
+                for (int size : SIZES) {
+                    String scenario = mode + " GET " + name(size) + " x" + concurrency;
+                    LoadResult result = generator.run(scenario, concurrency, duration,
+                            () -> HttpRequest.newBuilder(app.uri("/" + name(size))).GET().build());
+                    results.add(result);
+                    bandwidth.add(String.format("%-48s %10.1f", scenario,
+                            result.getThroughput() * size / (1024 * 1024)));
+                }
+                int largest = SIZES[SIZES.length - 1];
+                results.add(generator.run(mode + " Range 64KB of " + name(largest) + " x" + concurrency, concurrency, duration,
+                        () -> HttpRequest.newBuilder(app.uri("/" + name(largest)))
+                                .header("Range", "bytes=1048576-1114111")
+                                .GET()
+                                .build()));
+            }
+        }
+
+        System.out.println(LoadResult.header());
+        results.forEach(System.out::println);
+        System.out.println();
+        System.out.println(String.format("%-48s %10s", "scenario", "MB/s"));
+        bandwidth.forEach(System.out::println);
+    }
+
+    private static String name(int size) {
+        return "file-" + (size / 1024) + "k.bin";
+    }
+}
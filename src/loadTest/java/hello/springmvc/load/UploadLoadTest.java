@@ -0,0 +1,168 @@
+package hello.springmvc.load;
+
+import hello.springmvc.basic.request.multipart.StreamingMultipartReader;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * MultipartResolver(/upload-standard)와 StreamingMultipartReader(/upload-stream)의 큰 파일 업로드 비교
+ *
+ * username, age 필드와 파일 하나짜리 multipart 바디를 InputStream 으로 만들어서 보낸다. (클라이언트도 바디를 메모리에 올리지 않는다.)
+ * 파일 크기는 1MB, 16MB, 256MB, 1GB, 5GB 중 인자로 준 범위(MB)만 보낸다.
+ *
+ * MB/s 는 요청을 보내기 시작해서 응답을 받을 때까지로 잰다.
+ * peak heap 은 요청마다 힙 메모리 풀의 최댓값을 초기화하고 응답을 받은 뒤 풀별 최댓값을 더한 값이라 실제보다 조금 크게 나온다.
+ * 같은 JVM 안의 클라이언트가 쓰는 힙도 들어간다.
+ *
+ * 기본 MultipartResolver 는 크기 제한을 풀어야(-1) 큰 파일을 받을 수 있다.
+ *
+ * ./gradlew loadTest -PloadTest=UploadLoadTest -PloadTestArgs="1 5120"
+ */
+public class UploadLoadTest {
+
+    private static final long MB = 1024 * 1024;
+    private static final long[] SIZES_MB = {1, 16, 256, 1024, 5120};
+    // 기본 한도(100MB)로는 큰 파일이 413 이 되니 가장 큰 파일에 멀티파트 헤더 여유를 더한 만큼 열어둔다.
+    private static final long UPLOAD_LIMIT_BYTES = 5121 * MB;
+    private static final String BOUNDARY = "----UploadLoadTestBoundary7MA4YWxkTrZu0gW";
+
+    public static void main(String[] args) throws Exception {
+        long minMb = args.length > 0 ? Long.parseLong(args[0]) : 1;
+        long maxMb = args.length > 1 ? Long.parseLong(args[1]) : 5120;
+
+        HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+
+        List<String> results = new ArrayList<>();
+        try (ApplicationUnderTest app = ApplicationUnderTest.start(
+                "springmvc.upload.max-file-bytes=" + UPLOAD_LIMIT_BYTES,
+                "springmvc.upload.max-request-bytes=" + UPLOAD_LIMIT_BYTES)) {
+            Path directory = app.getContext().getBean(StreamingMultipartReader.class).getDirectory();
+            for (long sizeMb : SIZES_MB) {
+                if (sizeMb < minMb || sizeMb > maxMb) {
+                    continue;
+                }
+                for (String path : new String[]{"/upload-standard", "/upload-stream"}) {
+                    results.add(upload(client, app, path, sizeMb * MB));
+                    clean(directory);
+                }
+            }
+        }
+
+        System.out.println(String.format("%-20s %10s %8s %10s %14s", "endpoint", "size(MB)", "status", "MB/s", "peak heap(MB)"));
+        results.forEach(System.out::println);
+    }
+
+    private static String upload(HttpClient client, ApplicationUnderTest app, String path, long fileSize) throws Exception {
+        MultipartBody body = new MultipartBody(fileSize);
+        HttpRequest request = HttpRequest.newBuilder(app.uri(path))
+                .header("Content-Type", "multipart/form-data; boundary=" + BOUNDARY)
+                .POST(HttpRequest.BodyPublishers.fromPublisher(
+                        HttpRequest.BodyPublishers.ofInputStream(() -> new MultipartBody(fileSize)), body.length()))
+                .timeout(Duration.ofMinutes(30))
+                .build();
+
+        System.gc();
+        List<MemoryPoolMXBean> heapPools = heapPools();
+        heapPools.forEach(MemoryPoolMXBean::resetPeakUsage);
+
+        long start = System.nanoTime();
+        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        double seconds = (System.nanoTime() - start) / 1_000_000_000d;
+
+        long peak = heapPools.stream().mapToLong(pool -> pool.getPeakUsage().getUsed()).sum();
+        return String.format("%-20s %10d %8d %10.1f %14.1f", path, fileSize / MB, response.statusCode(),
+                body.length() / MB / seconds, (double) peak / MB);
+    }
+
+    private static List<MemoryPoolMXBean> heapPools() {
+        List<MemoryPoolMXBean> pools = new ArrayList<>();
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP && pool.isValid()) {
+                pools.add(pool);
+            }
+        }
+        return pools;
+    }
+
+    private static void clean(Path directory) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                Files.deleteIfExists(file);
+            }
+        }
+    }
+
+    /**
+     * username, age 필드와 fileSize 바이트짜리 파일 파트 하나
+     * 파일 내용은 a ~ z 를 반복해서 boundary 가 나올 수 없다.
+     */
+    private static class MultipartBody extends InputStream {
+        private final byte[] head;
+        private final byte[] tail;
+        private final long fileSize;
+        private long position;
+
+        MultipartBody(long fileSize) {
+            this.head = ("--" + BOUNDARY + "\r\n"
+                    + "Content-Disposition: form-data; name=\"username\"\r\n\r\nhello\r\n"
+                    + "--" + BOUNDARY + "\r\n"
+                    + "Content-Disposition: form-data; name=\"age\"\r\n\r\n20\r\n"
+                    + "--" + BOUNDARY + "\r\n"
+                    + "Content-Disposition: form-data; name=\"file\"; filename=\"upload.bin\"\r\n"
+                    + "Content-Type: application/octet-stream\r\n\r\n").getBytes(StandardCharsets.US_ASCII);
+            this.tail = ("\r\n--" + BOUNDARY + "--\r\n").getBytes(StandardCharsets.US_ASCII);
+            this.fileSize = fileSize;
+        }
+
+        long length() {
+            return head.length + fileSize + tail.length;
+        }
+
+        @Override
+        public int read() {
+            byte[] one = new byte[1];
+            return read(one, 0, 1) < 0 ? -1 : one[0] & 0xff;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            long remaining = length() - position;
+            if (remaining <= 0) {
+                return -1;
+            }
+            int count = (int) Math.min(len, remaining);
+            for (int i = 0; i < count; i++, position++) {
+                b[off + i] = byteAt(position);
+            }
+            return count;
+        }
+
+        private byte byteAt(long at) {
+            if (at < head.length) {
+                return head[(int) at];
+            }
+            long inFile = at - head.length;
+            if (inFile < fileSize) {
+                return (byte) ('a' + inFile % 26);
+            }
+            return tail[(int) (inFile - fileSize)];
+        }
+    }
+}
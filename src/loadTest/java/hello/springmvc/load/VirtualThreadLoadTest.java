@@ -0,0 +1,54 @@
+package hello.springmvc.load;
+
+import java.net.http.HttpRequest;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * 톰캣 플랫폼 스레드 풀과 가상 스레드 모드 비교
+ *
+ * 느린 업로드(/request-body-string-v2)를 concurrency 개 동시에 걸어두고
+ * 그 사이에 빠른 요청(/request-param-v1)의 처리량과 p99 지연시간이 어떻게 되는지 본다.
+ * 플랫폼 스레드 모드에서는 느린 업로드가 스레드 200 개를 다 잡고 있으면 빠른 요청도 줄을 선다.
+ *
+ * ./gradlew loadTest -PloadTest=VirtualThreadLoadTest -PloadTestArgs="1000 20"
+ */
+public class VirtualThreadLoadTest {
+
+    public static void main(String[] args) throws Exception {
+        int concurrency = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+        Duration duration = Duration.ofSeconds(args.length > 1 ? Long.parseLong(args[1]) : 20);
+
+        List<LoadResult> results = new ArrayList<>();
+        for (boolean virtualThreads : new boolean[]{false, true}) {
+            String mode = virtualThreads ? "virtual" : "platform";
+            try (ApplicationUnderTest app = ApplicationUnderTest.start(
+                    "springmvc.virtual-threads.enabled=" + virtualThreads)) {
+                LoadGenerator generator = new LoadGenerator();
+
+                CompletableFuture<LoadResult> slowUploads = CompletableFuture.supplyAsync(() -> {
+                    try {
+                        return generator.run(mode + " slow upload x" + concurrency, concurrency, duration,
+                                () -> HttpRequest.newBuilder(app.uri("/request-body-string-v2"))
+                                        .header("Content-Type", "text/plain")
+                                        .POST(SlowBody.trickle(8 * 1024, 1024, Duration.ofMillis(20)))
+                                        .build());
+                    } catch (InterruptedException e) {
+                        throw new IllegalStateException(e);
+                    }
+                });
+
+                results.add(generator.run(mode + " /request-param-v1 x64", 64, duration,
+                        () -> HttpRequest.newBuilder(app.uri("/request-param-v1?username=hello&age=20"))
+                                .GET()
+                                .build()));
+                results.add(slowUploads.get());
+            }
+        }
+
+        System.out.println(LoadResult.header());
+        results.forEach(System.out::println);
+    }
+}
@@ -1,11 +1,15 @@
 package hello.springmvc.basic;
 
+import hello.springmvc.basic.bind.CompiledBinding;
 import lombok.Data;
 
 /**
  * lombok의 @Data를 써주면 get,set,toString등 여러가지를 다 자동으로 만들어준다.
+ *
+ * @CompiledBinding : @ModelAttribute 바인딩을 WebDataBinder 대신 미리 만들어둔 BindingPlan 으로 한다.
  */
 @Data
+@CompiledBinding
 public class HelloData {
     private String username;
     private int age;
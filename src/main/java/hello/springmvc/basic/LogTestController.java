@@ -1,11 +1,15 @@
 package hello.springmvc.basic;
 
+import hello.springmvc.basic.log.RingBufferAsyncAppender;
 import lombok.extern.slf4j.Slf4j;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.util.Collections;
+import java.util.Map;
+
 @Slf4j
 @RestController
 /**
@@ -70,4 +74,17 @@ public class LogTestController {
          */
         return "ok";
     }
+
+    /**
+     * async-logging 프로파일로 실행했을 때 링 버퍼 상태
+     * occupancy(현재 쌓인 이벤트 수), dropped, sampledOut 등을 볼 수 있다.
+     */
+    @RequestMapping("/log-test/buffer")
+    public Map<String, Object> logBuffer() {
+        RingBufferAsyncAppender appender = RingBufferAsyncAppender.find("ASYNC");
+        if (appender == null) {
+            return Collections.singletonMap("async", false);
+        }
+        return appender.metrics();
+    }
 }
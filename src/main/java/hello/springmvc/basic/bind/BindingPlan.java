@@ -0,0 +1,315 @@
+package hello.springmvc.basic.bind;
+
+import org.springframework.beans.BeanUtils;
+import org.springframework.util.NumberUtils;
+
+import java.beans.PropertyDescriptor;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 클래스 하나를 요청 파라미터로 바인딩하는 방법을 미리 만들어둔 것
+ *
+ * 프로퍼티마다 setter 를 MethodHandle 로 꺼내서 (Object, int) 처럼 정확한 타입으로 맞춰두기 때문에
+ * 바인딩할 때는 PropertyDescriptor 조회, 리플렉션 호출, PropertyEditor/ConversionService 조회 없이
+ * 파라미터 값을 변환해서 setter 를 바로 호출한다. int 같은 기본형은 박싱도 하지 않는다.
+ *
+ * 값 변환 규칙은 스프링 기본 컨버터(StringToNumberConverterFactory, StringToBooleanConverter)와 같다.
+ * 그 규칙으로 변환할 수 없는 값이 오면 bind 가 null 을 돌려주고, 호출한 쪽에서 원래 바인더로 다시 바인딩한다.
+ */
+public final class BindingPlan<T> {
+
+    private static final MethodHandles.Lookup LOOKUP = MethodHandles.publicLookup();
+
+    private final Class<T> type;
+    private final MethodHandle constructor;
+    private final Property[] properties;
+
+    private BindingPlan(Class<T> type, MethodHandle constructor, Property[] properties) {
+        this.type = type;
+        this.constructor = constructor;
+        this.properties = properties;
+    }
+
+    /**
+     * 지원하지 않는 타입의 프로퍼티가 있거나 public 기본 생성자가 없으면 null
+     */
+    public static <T> BindingPlan<T> compile(Class<T> type) {
+        if (!Modifier.isPublic(type.getModifiers()) || Modifier.isAbstract(type.getModifiers())) {
+            return null;
+        }
+        try {
+            MethodHandle constructor = LOOKUP.findConstructor(type, MethodType.methodType(void.class))
+                    .asType(MethodType.methodType(Object.class));
+
+            List<Property> properties = new ArrayList<>();
+            for (PropertyDescriptor descriptor : BeanUtils.getPropertyDescriptors(type)) {
+                Method writeMethod = descriptor.getWriteMethod();
+                if (writeMethod == null) {
+                    continue;
+                }
+                Property property = Property.of(descriptor.getName(), descriptor.getPropertyType(), LOOKUP.unreflect(writeMethod));
+                if (property == null) {
+                    return null;
+                }
+                properties.add(property);
+            }
+            return new BindingPlan<>(type, constructor, properties.toArray(new Property[0]));
+        } catch (NoSuchMethodException | IllegalAccessException e) {
+            return null;
+        }
+    }
+
+    public Class<T> getType() {
+        return type;
+    }
+
+    /**
+     * @param parameters HttpServletRequest.getParameterMap()
+     * @return 바인딩된 객체, 변환할 수 없는 값이 있으면 null
+     */
+    public T bind(Map<String, String[]> parameters) {
+        try {
+            Object target = (Object) constructor.invokeExact();
+            for (Property property : properties) {
+                String[] values = parameters.get(property.name);
+                if (values == null) {
+                    if (property.hasFieldMarker(parameters)) {
+                        return null;
+                    }
+                    continue;
+                }
+                if (values.length != 1 || !property.set(target, values[0])) {
+                    return null;
+                }
+            }
+            return type.cast(target);
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new IllegalStateException("failed to bind " + type.getName(), e);
+        }
+    }
+
+    /**
+     * 프로퍼티 하나
+     * 타입별로 setter 를 정확한 시그니처로 맞춰서 invokeExact 로 호출한다.
+     */
+    private abstract static class Property {
+        final String name;
+        final MethodHandle setter;
+        private final String fieldMarker;
+        private final String fieldDefault;
+
+        Property(String name, MethodHandle setter) {
+            this.name = name;
+            this.setter = setter;
+            this.fieldMarker = "_" + name;
+            this.fieldDefault = "!" + name;
+        }
+
+        static Property of(String name, Class<?> type, MethodHandle setter) {
+            if (type == String.class) {
+                return new StringProperty(name, setter);
+            }
+            if (type == int.class) {
+                return new IntProperty(name, setter);
+            }
+            if (type == long.class) {
+                return new LongProperty(name, setter);
+            }
+            if (type == double.class) {
+                return new DoubleProperty(name, setter);
+            }
+            if (type == boolean.class) {
+                return new BooleanProperty(name, setter);
+            }
+            if (type == Integer.class || type == Long.class || type == Double.class || type == Boolean.class) {
+                return new BoxedProperty(name, type, setter);
+            }
+            return null;
+        }
+
+        /**
+         * 체크박스용 _name, !name 파라미터는 WebDataBinder 만 처리할 수 있다.
+         */
+        boolean hasFieldMarker(Map<String, String[]> parameters) {
+            return parameters.containsKey(fieldMarker) || parameters.containsKey(fieldDefault);
+        }
+
+        /**
+         * @return 변환할 수 없는 값이면 false
+         */
+        abstract boolean set(Object target, String value) throws Throwable;
+    }
+
+    private static final class StringProperty extends Property {
+        StringProperty(String name, MethodHandle setter) {
+            super(name, setter.asType(MethodType.methodType(void.class, Object.class, String.class)));
+        }
+
+        @Override
+        boolean set(Object target, String value) throws Throwable {
+            setter.invokeExact(target, value);
+            return true;
+        }
+    }
+
+    private static final class IntProperty extends Property {
+        IntProperty(String name, MethodHandle setter) {
+            super(name, setter.asType(MethodType.methodType(void.class, Object.class, int.class)));
+        }
+
+        @Override
+        boolean set(Object target, String value) throws Throwable {
+            String text = value.trim();
+            int parsed;
+            if (isPlainDecimal(text, 9)) {
+                parsed = Integer.parseInt(text);
+            } else {
+                try {
+                    parsed = NumberUtils.parseNumber(text, Integer.class);
+                } catch (IllegalArgumentException e) {
+                    return false;
+                }
+            }
+            setter.invokeExact(target, parsed);
+            return true;
+        }
+    }
+
+    private static final class LongProperty extends Property {
+        LongProperty(String name, MethodHandle setter) {
+            super(name, setter.asType(MethodType.methodType(void.class, Object.class, long.class)));
+        }
+
+        @Override
+        boolean set(Object target, String value) throws Throwable {
+            String text = value.trim();
+            long parsed;
+            if (isPlainDecimal(text, 18)) {
+                parsed = Long.parseLong(text);
+            } else {
+                try {
+                    parsed = NumberUtils.parseNumber(text, Long.class);
+                } catch (IllegalArgumentException e) {
+                    return false;
+                }
+            }
+            setter.invokeExact(target, parsed);
+            return true;
+        }
+    }
+
+    private static final class DoubleProperty extends Property {
+        DoubleProperty(String name, MethodHandle setter) {
+            super(name, setter.asType(MethodType.methodType(void.class, Object.class, double.class)));
+        }
+
+        @Override
+        boolean set(Object target, String value) throws Throwable {
+            double parsed;
+            try {
+                parsed = NumberUtils.parseNumber(value.trim(), Double.class);
+            } catch (IllegalArgumentException e) {
+                return false;
+            }
+            setter.invokeExact(target, parsed);
+            return true;
+        }
+    }
+
+    private static final class BooleanProperty extends Property {
+        BooleanProperty(String name, MethodHandle setter) {
+            super(name, setter.asType(MethodType.methodType(void.class, Object.class, boolean.class)));
+        }
+
+        @Override
+        boolean set(Object target, String value) throws Throwable {
+            Boolean parsed = parseBoolean(value);
+            if (parsed == null) {
+                return false;
+            }
+            setter.invokeExact(target, parsed.booleanValue());
+            return true;
+        }
+    }
+
+    /**
+     * Integer, Long, Double, Boolean
+     * 빈 문자열은 스프링 기본 컨버터처럼 null 로 바인딩한다.
+     */
+    private static final class BoxedProperty extends Property {
+        private final Class<?> type;
+
+        BoxedProperty(String name, Class<?> type, MethodHandle setter) {
+            super(name, setter.asType(MethodType.methodType(void.class, Object.class, Object.class)));
+            this.type = type;
+        }
+
+        @Override
+        boolean set(Object target, String value) throws Throwable {
+            Object parsed = null;
+            if (!value.isEmpty()) {
+                if (type == Boolean.class) {
+                    parsed = parseBoolean(value);
+                    if (parsed == null) {
+                        return false;
+                    }
+                } else {
+                    try {
+                        parsed = NumberUtils.parseNumber(value.trim(), type.asSubclass(Number.class));
+                    } catch (IllegalArgumentException e) {
+                        return false;
+                    }
+                }
+            }
+            setter.invokeExact(target, parsed);
+            return true;
+        }
+    }
+
+    /**
+     * 부호 없는 10진수이고 자리수가 maxDigits 이하면 오버플로 걱정 없이 parseInt/parseLong 으로 바로 읽는다.
+     * 나머지(16진수, 부호, 긴 숫자 등)는 NumberUtils 로 넘긴다.
+     */
+    private static boolean isPlainDecimal(String text, int maxDigits) {
+        int length = text.length();
+        if (length == 0 || length > maxDigits) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            char c = text.charAt(i);
+            if (c < '0' || c > '9') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * StringToBooleanConverter 와 같은 규칙, 변환할 수 없으면 null
+     */
+    private static Boolean parseBoolean(String value) {
+        switch (value.trim().toLowerCase()) {
+            case "true":
+            case "on":
+            case "yes":
+            case "1":
+                return Boolean.TRUE;
+            case "false":
+            case "off":
+            case "no":
+            case "0":
+                return Boolean.FALSE;
+            default:
+                return null;
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package hello.springmvc.basic.bind;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.context.annotation.ClassPathScanningCandidateComponentProvider;
+import org.springframework.core.type.filter.AnnotationTypeFilter;
+import org.springframework.util.ClassUtils;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * @CompiledBinding 클래스 -> BindingPlan
+ *
+ * 애플리케이션 시작 시점에 패키지를 스캔해서 미리 만들어둔다.
+ * 스캔에서 빠진 클래스는 처음 요청이 왔을 때 한번 만든다.
+ */
+@Slf4j
+public class BindingPlanRegistry {
+
+    private final Map<Class<?>, Optional<BindingPlan<?>>> plans = new ConcurrentHashMap<>();
+
+    public void compileAnnotated(Collection<String> basePackages, ClassLoader classLoader) {
+        ClassPathScanningCandidateComponentProvider scanner = new ClassPathScanningCandidateComponentProvider(false);
+        scanner.addIncludeFilter(new AnnotationTypeFilter(CompiledBinding.class));
+        for (String basePackage : basePackages) {
+            for (BeanDefinition candidate : scanner.findCandidateComponents(basePackage)) {
+                plan(ClassUtils.resolveClassName(candidate.getBeanClassName(), classLoader));
+            }
+        }
+    }
+
+    /**
+     * @return 바인딩 계획, 이 방식으로 바인딩할 수 없는 클래스면 null
+     */
+    @SuppressWarnings("unchecked")
+    public <T> BindingPlan<T> plan(Class<T> type) {
+        Optional<BindingPlan<?>> plan = plans.get(type);
+        if (plan == null) {
+            plan = plans.computeIfAbsent(type, this::compile);
+        }
+        return (BindingPlan<T>) plan.orElse(null);
+    }
+
+    private Optional<BindingPlan<?>> compile(Class<?> type) {
+        BindingPlan<?> plan = BindingPlan.compile(type);
+        if (plan == null) {
+            log.warn("@CompiledBinding is not applicable to {}, falling back to WebDataBinder", type.getName());
+        } else {
+            log.debug("compiled binding plan for {}", type.getName());
+        }
+        return Optional.ofNullable(plan);
+    }
+}
@@ -0,0 +1,21 @@
+package hello.springmvc.basic.bind;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * @ModelAttribute 로 바인딩할 때 WebDataBinder(BeanWrapper) 대신
+ * 애플리케이션 시작 시점에 만들어둔 BindingPlan 으로 바인딩한다.
+ *
+ * 단순 타입(String, 숫자, boolean) 프로퍼티만 있는 클래스에만 적용된다.
+ * 컨트롤러에 @InitBinder 가 있거나 @Valid, BindingResult 를 같이 쓰는 경우,
+ * 값 변환에 실패한 경우에는 원래 방식으로 바인딩하기 때문에 결과(에러 메시지 포함)는 같다.
+ */
+@Documented
+@Target(ElementType.TYPE)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface CompiledBinding {
+}
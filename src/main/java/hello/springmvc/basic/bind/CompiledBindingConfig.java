@@ -0,0 +1,75 @@
+package hello.springmvc.basic.bind;
+
+import org.springframework.beans.factory.BeanFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.AutoConfigurationPackages;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.MethodIntrospector;
+import org.springframework.web.method.ControllerAdviceBean;
+import org.springframework.web.method.support.HandlerMethodArgumentResolver;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerAdapter;
+import org.springframework.web.servlet.mvc.method.annotation.ServletModelAttributeMethodProcessor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * springmvc.binding.compiled.enabled=true 면 @CompiledBinding 클래스를 BindingPlan 으로 바인딩한다.
+ *
+ * RequestMappingHandlerAdapter 가 초기화된 뒤 argument resolver 목록에서
+ * ServletModelAttributeMethodProcessor 를 CompiledModelAttributeResolver 로 감싼다.
+ * 순서는 그대로 두기 때문에 @RequestParam 등 다른 resolver 가 먼저 가져가는 파라미터에는 영향이 없다.
+ */
+@Configuration
+@ConditionalOnProperty(name = "springmvc.binding.compiled.enabled", havingValue = "true", matchIfMissing = true)
+public class CompiledBindingConfig {
+
+    @Bean
+    public BindingPlanRegistry bindingPlanRegistry(BeanFactory beanFactory) {
+        BindingPlanRegistry registry = new BindingPlanRegistry();
+        registry.compileAnnotated(AutoConfigurationPackages.get(beanFactory), getClass().getClassLoader());
+        return registry;
+    }
+
+    @Bean
+    public static BeanPostProcessor compiledBindingPostProcessor(ObjectProvider<BindingPlanRegistry> registry) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof RequestMappingHandlerAdapter) {
+                    RequestMappingHandlerAdapter adapter = (RequestMappingHandlerAdapter) bean;
+                    List<HandlerMethodArgumentResolver> resolvers = new ArrayList<>(adapter.getArgumentResolvers());
+                    List<ControllerAdviceBean> initBinderAdvice = initBinderAdvice(adapter.getApplicationContext());
+                    for (int i = 0; i < resolvers.size(); i++) {
+                        if (resolvers.get(i) instanceof ServletModelAttributeMethodProcessor) {
+                            resolvers.set(i, new CompiledModelAttributeResolver(
+                                    (ServletModelAttributeMethodProcessor) resolvers.get(i), registry.getObject(),
+                                    adapter.getWebBindingInitializer(), initBinderAdvice));
+                        }
+                    }
+                    adapter.setArgumentResolvers(resolvers);
+                }
+                return bean;
+            }
+        };
+    }
+
+    private static List<ControllerAdviceBean> initBinderAdvice(ApplicationContext context) {
+        List<ControllerAdviceBean> advice = new ArrayList<>();
+        if (context == null) {
+            return advice;
+        }
+        for (ControllerAdviceBean adviceBean : ControllerAdviceBean.findAnnotatedBeans(context)) {
+            Class<?> beanType = adviceBean.getBeanType();
+            if (beanType != null
+                    && !MethodIntrospector.selectMethods(beanType, RequestMappingHandlerAdapter.INIT_BINDER_METHODS).isEmpty()) {
+                advice.add(adviceBean);
+            }
+        }
+        return advice;
+    }
+}
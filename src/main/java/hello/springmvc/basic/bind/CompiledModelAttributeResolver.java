@@ -0,0 +1,159 @@
+package hello.springmvc.basic.bind;
+
+import org.springframework.core.MethodIntrospector;
+import org.springframework.core.MethodParameter;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.validation.BeanPropertyBindingResult;
+import org.springframework.validation.BindingResult;
+import org.springframework.validation.Errors;
+import org.springframework.web.bind.annotation.ModelAttribute;
+import org.springframework.web.bind.support.ConfigurableWebBindingInitializer;
+import org.springframework.web.bind.support.WebBindingInitializer;
+import org.springframework.web.bind.support.WebDataBinderFactory;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.method.ControllerAdviceBean;
+import org.springframework.web.method.annotation.ModelAttributeMethodProcessor;
+import org.springframework.web.method.annotation.ModelFactory;
+import org.springframework.web.method.support.HandlerMethodArgumentResolver;
+import org.springframework.web.method.support.ModelAndViewContainer;
+import org.springframework.web.servlet.HandlerMapping;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerAdapter;
+
+import javax.servlet.http.HttpServletRequest;
+import java.lang.annotation.Annotation;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * @CompiledBinding 클래스를 @ModelAttribute 로 받을 때 BindingPlan 으로 바인딩한다.
+ *
+ * RequestMappingHandlerAdapter 의 ServletModelAttributeMethodProcessor 자리에 대신 들어가고
+ * 다음 경우에는 원래 processor 에 그대로 맡긴다.
+ *  - @CompiledBinding 이 없거나 BindingPlan 을 만들 수 없는 클래스
+ *  - 바인더를 초기화하는 설정이 적용되는 경우 (허용 필드, 커스텀 에디터 등)
+ *    컨트롤러나 그 컨트롤러에 적용되는 @ControllerAdvice 에 @InitBinder 메서드가 있거나,
+ *    전역 WebBindingInitializer 가 에디터를 등록하거나 필드 직접 접근을 켠 경우
+ *  - @ModelAttribute(binding = false) 인 경우 (원래 processor 는 객체만 만들고 바인딩하지 않는다)
+ *  - @Valid/@Validated 또는 바로 다음 파라미터가 BindingResult 인 경우
+ *  - 모델에 같은 이름의 속성이 이미 있는 경우 (@SessionAttributes, @ModelAttribute 메서드)
+ *  - 속성 이름과 같은 URI 변수나 요청 파라미터가 있는 경우 (원래 processor 는 그 값을 변환해서 객체를 만든다)
+ *  - 값 변환에 실패한 경우 (에러 처리를 원래 processor 가 하도록)
+ *
+ * 바인딩할 값은 ExtendedServletRequestDataBinder 처럼 요청 파라미터에 URI 변수를 더한 것이다.
+ * 같은 이름이면 요청 파라미터가 먼저다.
+ */
+public class CompiledModelAttributeResolver implements HandlerMethodArgumentResolver {
+
+    private final ModelAttributeMethodProcessor delegate;
+    private final BindingPlanRegistry registry;
+    private final WebBindingInitializer bindingInitializer;
+    private final List<ControllerAdviceBean> initBinderAdvice;
+    private final Map<MethodParameter, Boolean> eligible = new ConcurrentHashMap<>();
+
+    /**
+     * @param bindingInitializer RequestMappingHandlerAdapter.getWebBindingInitializer()
+     * @param initBinderAdvice   @InitBinder 메서드가 있는 @ControllerAdvice 빈
+     */
+    public CompiledModelAttributeResolver(ModelAttributeMethodProcessor delegate, BindingPlanRegistry registry,
+                                          WebBindingInitializer bindingInitializer,
+                                          List<ControllerAdviceBean> initBinderAdvice) {
+        this.delegate = delegate;
+        this.registry = registry;
+        this.bindingInitializer = bindingInitializer;
+        this.initBinderAdvice = initBinderAdvice;
+    }
+
+    @Override
+    public boolean supportsParameter(MethodParameter parameter) {
+        return delegate.supportsParameter(parameter);
+    }
+
+    @Override
+    public Object resolveArgument(MethodParameter parameter, ModelAndViewContainer mavContainer,
+                                  NativeWebRequest webRequest, WebDataBinderFactory binderFactory) throws Exception {
+        if (mavContainer != null && eligible.computeIfAbsent(parameter, this::isEligible)) {
+            String name = ModelFactory.getNameForParameter(parameter);
+            HttpServletRequest request = webRequest.getNativeRequest(HttpServletRequest.class);
+            if (request != null && !mavContainer.containsAttribute(name)) {
+                Map<String, String[]> values = bindValues(request, name);
+                Object attribute = values != null ? registry.plan(parameter.getParameterType()).bind(values) : null;
+                if (attribute != null) {
+                    BindingResult bindingResult = new BeanPropertyBindingResult(attribute, name);
+                    mavContainer.addAllAttributes(bindingResult.getModel());
+                    return attribute;
+                }
+            }
+        }
+        return delegate.resolveArgument(parameter, mavContainer, webRequest, binderFactory);
+    }
+
+    /**
+     * 요청 파라미터 + URI 변수, 속성 이름과 같은 값이 있어서 원래 processor 가 객체를 만들어야 하면 null
+     */
+    @SuppressWarnings("unchecked")
+    private static Map<String, String[]> bindValues(HttpServletRequest request, String name) {
+        Map<String, String[]> parameters = request.getParameterMap();
+        Map<String, String> uriVariables =
+                (Map<String, String>) request.getAttribute(HandlerMapping.URI_TEMPLATE_VARIABLES_ATTRIBUTE);
+        if (parameters.containsKey(name) || (uriVariables != null && uriVariables.containsKey(name))) {
+            return null;
+        }
+        if (uriVariables == null || uriVariables.isEmpty()) {
+            return parameters;
+        }
+        Map<String, String[]> values = new LinkedHashMap<>(parameters);
+        uriVariables.forEach((variable, value) -> values.putIfAbsent(variable, new String[]{value}));
+        return values;
+    }
+
+    private boolean isEligible(MethodParameter parameter) {
+        Class<?> type = parameter.getParameterType();
+        if (!AnnotatedElementUtils.hasAnnotation(type, CompiledBinding.class) || registry.plan(type) == null) {
+            return false;
+        }
+        ModelAttribute modelAttribute = parameter.getParameterAnnotation(ModelAttribute.class);
+        if (modelAttribute != null && !modelAttribute.binding()) {
+            return false;
+        }
+        if (customizesBinder(bindingInitializer)) {
+            return false;
+        }
+        Class<?> controllerType = parameter.getContainingClass();
+        if (!MethodIntrospector.selectMethods(controllerType, RequestMappingHandlerAdapter.INIT_BINDER_METHODS).isEmpty()) {
+            return false;
+        }
+        for (ControllerAdviceBean advice : initBinderAdvice) {
+            if (advice.isApplicableToBeanType(controllerType)) {
+                return false;
+            }
+        }
+        for (Annotation annotation : parameter.getParameterAnnotations()) {
+            String annotationName = annotation.annotationType().getSimpleName();
+            if (annotationName.startsWith("Valid")) {
+                return false;
+            }
+        }
+        Class<?>[] parameterTypes = parameter.getExecutable().getParameterTypes();
+        int next = parameter.getParameterIndex() + 1;
+        return next >= parameterTypes.length || !Errors.class.isAssignableFrom(parameterTypes[next]);
+    }
+
+    /**
+     * 스프링 부트가 등록하는 ConfigurableWebBindingInitializer 는 ConversionService, Validator,
+     * MessageCodesResolver 만 설정하고 바인딩할 필드나 값 변환 방법은 바꾸지 않는다.
+     * 그 밖의 설정이 있거나 직접 만든 WebBindingInitializer 면 무엇을 하는지 알 수 없으므로 원래 processor 에 맡긴다.
+     */
+    private static boolean customizesBinder(WebBindingInitializer initializer) {
+        if (initializer == null) {
+            return false;
+        }
+        if (initializer.getClass() != ConfigurableWebBindingInitializer.class) {
+            return true;
+        }
+        ConfigurableWebBindingInitializer configurable = (ConfigurableWebBindingInitializer) initializer;
+        return configurable.isDirectFieldAccess() || !configurable.isAutoGrowNestedPaths()
+                || (configurable.getPropertyEditorRegistrars() != null && configurable.getPropertyEditorRegistrars().length > 0);
+    }
+}
@@ -0,0 +1,40 @@
+package hello.springmvc.basic.columnar;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jackson.Jackson2ObjectMapperBuilderCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.List;
+
+/**
+ * application/x-hello-columnar 메시지 컨버터 등록
+ *
+ * Accept 가 없거나 * / * 일 때는 지금처럼 JSON 이 나가도록 Jackson 컨버터 뒤에 붙인다.
+ * max-rows 는 JSON 으로 받는 HelloDataBatch 에도 같이 적용한다.
+ */
+@Configuration
+@ConditionalOnProperty(name = "springmvc.columnar.enabled", havingValue = "true", matchIfMissing = true)
+public class ColumnarConfig implements WebMvcConfigurer {
+
+    private final int maxRows;
+
+    public ColumnarConfig(@Value("${springmvc.columnar.max-rows:1000000}") int maxRows) {
+        this.maxRows = maxRows;
+    }
+
+    @Override
+    public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+        converters.add(new HelloDataColumnarHttpMessageConverter(maxRows));
+    }
+
+    @Bean
+    public Jackson2ObjectMapperBuilderCustomizer helloDataBatchMaxRowsCustomizer() {
+        return builder -> builder.postConfigurer(objectMapper -> objectMapper.setDefaultAttributes(
+                objectMapper.getDeserializationConfig().getAttributes()
+                        .withSharedAttribute(HelloDataBatchJsonDeserializer.MAX_ROWS_ATTRIBUTE, maxRows)));
+    }
+}
@@ -0,0 +1,117 @@
+package hello.springmvc.basic.columnar;
+
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import hello.springmvc.basic.HelloData;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * HelloData 여러 개를 열(column) 단위로 담는다.
+ *
+ * HelloData 한 건마다 객체 헤더 + String 을 만드는 대신
+ *  - username : 서로 다른 값만 dictionary 에 한번씩 두고 행마다 dictionary 번호(int)만 저장한다. (null 은 -1)
+ *  - age : int[] 에 그대로 저장한다.
+ * 건수가 많아도 배열 세 개와 서로 다른 username 수만큼의 String 만 남는다.
+ *
+ * JSON 으로는 [{"username":..,"age":..}, ...] 배열로 주고받고
+ * application/x-hello-columnar 로는 HelloDataColumnarCodec 형식으로 주고받는다.
+ */
+@JsonSerialize(using = HelloDataBatchJsonSerializer.class)
+@JsonDeserialize(using = HelloDataBatchJsonDeserializer.class)
+public final class HelloDataBatch {
+
+    private final String[] dictionary;
+    private final int[] usernames;
+    private final int[] ages;
+    private final int size;
+
+    HelloDataBatch(String[] dictionary, int[] usernames, int[] ages, int size) {
+        this.dictionary = dictionary;
+        this.usernames = usernames;
+        this.ages = ages;
+        this.size = size;
+    }
+
+    public static HelloDataBatch of(List<HelloData> helloDataList) {
+        Builder builder = new Builder(helloDataList.size());
+        for (HelloData helloData : helloDataList) {
+            builder.add(helloData.getUsername(), helloData.getAge());
+        }
+        return builder.build();
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public String getUsername(int index) {
+        int code = usernames[index];
+        return code >= 0 ? dictionary[code] : null;
+    }
+
+    public int getAge(int index) {
+        return ages[index];
+    }
+
+    public HelloData get(int index) {
+        HelloData helloData = new HelloData();
+        helloData.setUsername(getUsername(index));
+        helloData.setAge(ages[index]);
+        return helloData;
+    }
+
+    public List<HelloData> toList() {
+        List<HelloData> list = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            list.add(get(i));
+        }
+        return list;
+    }
+
+    String[] dictionary() {
+        return dictionary;
+    }
+
+    int usernameCode(int index) {
+        return usernames[index];
+    }
+
+    public static class Builder {
+        private final Map<String, Integer> codes = new HashMap<>();
+        private final List<String> dictionary = new ArrayList<>();
+        private int[] usernames;
+        private int[] ages;
+        private int size;
+
+        public Builder(int expectedSize) {
+            int capacity = Math.max(16, expectedSize);
+            this.usernames = new int[capacity];
+            this.ages = new int[capacity];
+        }
+
+        public Builder add(String username, int age) {
+            if (size == ages.length) {
+                usernames = Arrays.copyOf(usernames, size * 2);
+                ages = Arrays.copyOf(ages, size * 2);
+            }
+            usernames[size] = username != null ? codes.computeIfAbsent(username, this::addToDictionary) : -1;
+            ages[size] = age;
+            size++;
+            return this;
+        }
+
+        private int addToDictionary(String username) {
+            dictionary.add(username);
+            return dictionary.size() - 1;
+        }
+
+        public HelloDataBatch build() {
+            return new HelloDataBatch(dictionary.toArray(new String[0]), usernames, ages, size);
+        }
+    }
+}
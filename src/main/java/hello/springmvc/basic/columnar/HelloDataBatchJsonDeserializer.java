@@ -0,0 +1,63 @@
+package hello.springmvc.basic.columnar;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
+
+import java.io.IOException;
+
+/**
+ * [{"username":..,"age":..}, ...] 배열을 HelloData 객체 없이 바로 HelloDataBatch 로 읽는다.
+ * 모르는 필드, null, "20" 같은 문자열 숫자 처리는 HelloDataDeserializer 와 같이 ObjectMapper 설정을 따른다.
+ *
+ * 행 수는 columnar 형식과 같이 springmvc.columnar.max-rows 로 제한한다.
+ * @JsonDeserialize 로 만들어져서 설정을 직접 받을 수 없으므로 ColumnarConfig 가 ObjectMapper 속성(MAX_ROWS_ATTRIBUTE)으로 넘긴다.
+ */
+public class HelloDataBatchJsonDeserializer extends StdDeserializer<HelloDataBatch> {
+
+    public static final String MAX_ROWS_ATTRIBUTE = HelloDataBatchJsonDeserializer.class.getName() + ".maxRows";
+
+    static final int DEFAULT_MAX_ROWS = 1_000_000;
+
+    public HelloDataBatchJsonDeserializer() {
+        super(HelloDataBatch.class);
+    }
+
+    @Override
+    public HelloDataBatch deserialize(JsonParser p, DeserializationContext ctxt) throws IOException {
+        if (p.currentToken() != JsonToken.START_ARRAY) {
+            return (HelloDataBatch) ctxt.handleUnexpectedToken(HelloDataBatch.class, p);
+        }
+        Object maxRowsAttribute = ctxt.getAttribute(MAX_ROWS_ATTRIBUTE);
+        int maxRows = maxRowsAttribute instanceof Integer ? (Integer) maxRowsAttribute : DEFAULT_MAX_ROWS;
+        HelloDataBatch.Builder builder = new HelloDataBatch.Builder(16);
+        int rows = 0;
+        for (JsonToken token = p.nextToken(); token != JsonToken.END_ARRAY; token = p.nextToken()) {
+            if (token != JsonToken.START_OBJECT) {
+                return (HelloDataBatch) ctxt.handleUnexpectedToken(HelloDataBatch.class, p);
+            }
+            if (++rows > maxRows) {
+                return ctxt.reportInputMismatch(this, "batch has more than %d rows", maxRows);
+            }
+            String username = null;
+            int age = 0;
+            for (token = p.nextToken(); token == JsonToken.FIELD_NAME; token = p.nextToken()) {
+                String name = p.currentName();
+                JsonToken value = p.nextToken();
+                switch (name) {
+                    case "username":
+                        username = value == JsonToken.VALUE_NULL ? null : _parseString(p, ctxt);
+                        break;
+                    case "age":
+                        age = _parseIntPrimitive(p, ctxt);
+                        break;
+                    default:
+                        ctxt.handleUnknownProperty(p, this, HelloDataBatch.class, name);
+                }
+            }
+            builder.add(username, age);
+        }
+        return builder.build();
+    }
+}
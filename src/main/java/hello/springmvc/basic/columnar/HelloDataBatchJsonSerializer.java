@@ -0,0 +1,29 @@
+package hello.springmvc.basic.columnar;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+
+import java.io.IOException;
+
+/**
+ * HelloDataBatch 를 List<HelloData> 와 같은 JSON 배열로 쓴다. (HelloData 객체는 만들지 않는다.)
+ */
+public class HelloDataBatchJsonSerializer extends StdSerializer<HelloDataBatch> {
+
+    public HelloDataBatchJsonSerializer() {
+        super(HelloDataBatch.class);
+    }
+
+    @Override
+    public void serialize(HelloDataBatch batch, JsonGenerator gen, SerializerProvider provider) throws IOException {
+        gen.writeStartArray(batch, batch.size());
+        for (int i = 0; i < batch.size(); i++) {
+            gen.writeStartObject();
+            gen.writeStringField("username", batch.getUsername(i));
+            gen.writeNumberField("age", batch.getAge(i));
+            gen.writeEndObject();
+        }
+        gen.writeEndArray();
+    }
+}
@@ -0,0 +1,209 @@
+package hello.springmvc.basic.columnar;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * application/x-hello-columnar 바이너리 형식
+ *
+ * <pre>
+ * "HDC1"
+ * varint 행 수
+ * varint dictionary 크기, dictionary 항목마다 varint 바이트 수 + UTF-8
+ * 행마다 varint (username dictionary 번호 + 1, null 이면 0)
+ * 행마다 zigzag varint age
+ * </pre>
+ *
+ * 값이 작으면 1 바이트로 끝나서 같은 username 이 반복되는 batch 는 JSON 의 몇 분의 일 크기가 된다.
+ * 읽을 때는 maxRows 와 항목 길이를 먼저 확인하고, 배열은 헤더에 적힌 크기가 아니라 실제로 읽은 만큼 늘린다.
+ * 헤더만 크게 적은 짧은 바디로 큰 배열을 할당하게 만들 수 없다.
+ */
+public final class HelloDataColumnarCodec {
+
+    private static final byte[] MAGIC = {'H', 'D', 'C', '1'};
+    private static final int MAX_USERNAME_BYTES = 64 * 1024;
+    private static final int BUFFER_SIZE = 8192;
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private HelloDataColumnarCodec() {
+    }
+
+    public static void write(HelloDataBatch batch, OutputStream out) throws IOException {
+        Writer writer = new Writer(out);
+        writer.bytes(MAGIC, MAGIC.length);
+        writer.varint(batch.size());
+        String[] dictionary = batch.dictionary();
+        writer.varint(dictionary.length);
+        for (String username : dictionary) {
+            byte[] bytes = username.getBytes(StandardCharsets.UTF_8);
+            writer.varint(bytes.length);
+            writer.bytes(bytes, bytes.length);
+        }
+        for (int i = 0; i < batch.size(); i++) {
+            writer.varint(batch.usernameCode(i) + 1);
+        }
+        for (int i = 0; i < batch.size(); i++) {
+            int age = batch.getAge(i);
+            writer.varint((age << 1) ^ (age >> 31));
+        }
+        writer.flush();
+    }
+
+    /**
+     * @throws InvalidColumnarFormatException 형식이 잘못됐거나 maxRows 를 넘으면
+     */
+    public static HelloDataBatch read(InputStream in, int maxRows) throws IOException {
+        Reader reader = new Reader(in);
+        for (byte magic : MAGIC) {
+            if (reader.next() != magic) {
+                throw new InvalidColumnarFormatException("not a hello-columnar body");
+            }
+        }
+        int size = reader.varint();
+        if (size < 0 || size > maxRows) {
+            throw new InvalidColumnarFormatException("batch has " + size + " rows, max " + maxRows);
+        }
+        int dictionarySize = reader.varint();
+        if (dictionarySize < 0 || dictionarySize > size) {
+            throw new InvalidColumnarFormatException("dictionary larger than batch");
+        }
+        String[] dictionary = new String[Math.min(dictionarySize, INITIAL_CAPACITY)];
+        for (int i = 0; i < dictionarySize; i++) {
+            int length = reader.varint();
+            if (length < 0 || length > MAX_USERNAME_BYTES) {
+                throw new InvalidColumnarFormatException("username exceeds " + MAX_USERNAME_BYTES + " bytes");
+            }
+            if (i == dictionary.length) {
+                dictionary = Arrays.copyOf(dictionary, grow(i, dictionarySize));
+            }
+            dictionary[i] = reader.string(length);
+        }
+        int[] usernames = new int[Math.min(size, INITIAL_CAPACITY)];
+        for (int i = 0; i < size; i++) {
+            int code = reader.varint() - 1;
+            if (code < -1 || code >= dictionarySize) {
+                throw new InvalidColumnarFormatException("username code " + code + " out of dictionary");
+            }
+            if (i == usernames.length) {
+                usernames = Arrays.copyOf(usernames, grow(i, size));
+            }
+            usernames[i] = code;
+        }
+        int[] ages = new int[Math.min(size, INITIAL_CAPACITY)];
+        for (int i = 0; i < size; i++) {
+            int zigzag = reader.varint();
+            if (i == ages.length) {
+                ages = Arrays.copyOf(ages, grow(i, size));
+            }
+            ages[i] = (zigzag >>> 1) ^ -(zigzag & 1);
+        }
+        return new HelloDataBatch(dictionary, usernames, ages, size);
+    }
+
+    /**
+     * 두 배씩 늘리되 헤더에 적힌 크기는 넘지 않는다.
+     */
+    private static int grow(int length, int max) {
+        return (int) Math.min((long) length * 2, max);
+    }
+
+    private static final class Writer {
+        private final OutputStream out;
+        private final byte[] buffer = new byte[BUFFER_SIZE];
+        private int position;
+
+        Writer(OutputStream out) {
+            this.out = out;
+        }
+
+        void varint(int value) throws IOException {
+            if (position + 5 > buffer.length) {
+                flush();
+            }
+            while ((value & ~0x7F) != 0) {
+                buffer[position++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            buffer[position++] = (byte) value;
+        }
+
+        void bytes(byte[] bytes, int length) throws IOException {
+            if (position + length > buffer.length) {
+                flush();
+                if (length > buffer.length) {
+                    out.write(bytes, 0, length);
+                    return;
+                }
+            }
+            System.arraycopy(bytes, 0, buffer, position, length);
+            position += length;
+        }
+
+        void flush() throws IOException {
+            if (position > 0) {
+                out.write(buffer, 0, position);
+                position = 0;
+            }
+        }
+    }
+
+    private static final class Reader {
+        private final InputStream in;
+        private final byte[] buffer = new byte[BUFFER_SIZE];
+        private int position;
+        private int limit;
+
+        Reader(InputStream in) {
+            this.in = in;
+        }
+
+        byte next() throws IOException {
+            if (position == limit) {
+                limit = in.read(buffer, 0, buffer.length);
+                position = 0;
+                if (limit <= 0) {
+                    limit = 0;
+                    throw new EOFException("unexpected end of hello-columnar body");
+                }
+            }
+            return buffer[position++];
+        }
+
+        /**
+         * 최대 5 바이트, 32 비트를 넘는 값은 잘못된 형식이다.
+         */
+        int varint() throws IOException {
+            int value = 0;
+            for (int shift = 0; shift < 32; shift += 7) {
+                byte b = next();
+                if (shift == 28 && (b & 0xF0) != 0) {
+                    break;
+                }
+                value |= (b & 0x7F) << shift;
+                if (b >= 0) {
+                    return value;
+                }
+            }
+            throw new InvalidColumnarFormatException("malformed varint");
+        }
+
+        String string(int length) throws IOException {
+            byte[] bytes = new byte[length];
+            int copied = Math.min(length, limit - position);
+            System.arraycopy(buffer, position, bytes, 0, copied);
+            position += copied;
+            while (copied < length) {
+                int n = in.read(bytes, copied, length - copied);
+                if (n < 0) {
+                    throw new EOFException("unexpected end of hello-columnar body");
+                }
+                copied += n;
+            }
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+    }
+}
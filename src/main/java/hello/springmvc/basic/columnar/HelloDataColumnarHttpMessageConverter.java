@@ -0,0 +1,62 @@
+package hello.springmvc.basic.columnar;
+
+import hello.springmvc.basic.HelloData;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+
+import java.io.EOFException;
+import java.io.IOException;
+
+/**
+ * Content-Type / Accept 가 application/x-hello-columnar 인 HelloDataBatch, HelloData 를 읽고 쓴다.
+ * HelloData 한 건은 행이 하나인 batch 로 주고받는다.
+ */
+public class HelloDataColumnarHttpMessageConverter extends AbstractHttpMessageConverter<Object> {
+
+    public static final String MEDIA_TYPE_VALUE = "application/x-hello-columnar";
+    public static final MediaType MEDIA_TYPE = MediaType.parseMediaType(MEDIA_TYPE_VALUE);
+
+    private final int maxRows;
+
+    public HelloDataColumnarHttpMessageConverter(int maxRows) {
+        super(MEDIA_TYPE);
+        this.maxRows = maxRows;
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return clazz == HelloDataBatch.class || clazz == HelloData.class;
+    }
+
+    @Override
+    protected Object readInternal(Class<?> clazz, HttpInputMessage inputMessage) throws IOException {
+        HelloDataBatch batch;
+        try {
+            batch = HelloDataColumnarCodec.read(inputMessage.getBody(), maxRows);
+        } catch (InvalidColumnarFormatException | EOFException e) {
+            throw new HttpMessageNotReadableException(e.getMessage(), e, inputMessage);
+        }
+        if (clazz == HelloDataBatch.class) {
+            return batch;
+        }
+        if (batch.size() != 1) {
+            throw new HttpMessageNotReadableException("expected 1 row but was " + batch.size(), inputMessage);
+        }
+        return batch.get(0);
+    }
+
+    @Override
+    protected void writeInternal(Object value, HttpOutputMessage outputMessage) throws IOException {
+        HelloDataBatch batch;
+        if (value instanceof HelloData) {
+            HelloData helloData = (HelloData) value;
+            batch = new HelloDataBatch.Builder(1).add(helloData.getUsername(), helloData.getAge()).build();
+        } else {
+            batch = (HelloDataBatch) value;
+        }
+        HelloDataColumnarCodec.write(batch, outputMessage.getBody());
+    }
+}
@@ -0,0 +1,14 @@
+package hello.springmvc.basic.columnar;
+
+import java.io.IOException;
+
+/**
+ * application/x-hello-columnar 바디 형식이 잘못됨
+ * HelloDataColumnarHttpMessageConverter 가 HttpMessageNotReadableException(400) 으로 바꾼다.
+ */
+public class InvalidColumnarFormatException extends IOException {
+
+    public InvalidColumnarFormatException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,23 @@
+package hello.springmvc.basic.json;
+
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import hello.springmvc.basic.HelloData;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * 리플렉션 없이 바인딩할 DTO 들의 전용 역직렬화기를 등록한다.
+ *
+ * 스프링 부트는 Module 빈을 공용 ObjectMapper 에 자동으로 등록해주기 때문에
+ * @RequestBody, HttpEntity, ObjectMapper 를 직접 쓰는 곳 모두 이 경로를 탄다.
+ * springmvc.json.fast-path.enabled=false 로 끄면 기본 BeanDeserializer 를 사용한다.
+ */
+@Component
+@ConditionalOnProperty(name = "springmvc.json.fast-path.enabled", havingValue = "true", matchIfMissing = true)
+public class FastPathJsonModule extends SimpleModule {
+
+    public FastPathJsonModule() {
+        super("FastPathJsonModule");
+        addDeserializer(HelloData.class, new HelloDataDeserializer());
+    }
+}
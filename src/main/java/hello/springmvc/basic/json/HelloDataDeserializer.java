@@ -0,0 +1,50 @@
+package hello.springmvc.basic.json;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
+import hello.springmvc.basic.HelloData;
+
+import java.io.IOException;
+
+/**
+ * HelloData 전용 역직렬화기
+ * 기본 BeanDeserializer 는 프로퍼티 이름으로 SettableBeanProperty 를 찾고 리플렉션으로 값을 넣지만
+ * 여기서는 필드 이름으로 바로 분기해서 setter 를 직접 호출한다.
+ *
+ * 모르는 필드, null, "20" 같은 문자열 숫자 처리는 ObjectMapper 설정을 그대로 따른다.
+ */
+public class HelloDataDeserializer extends StdDeserializer<HelloData> {
+
+    public HelloDataDeserializer() {
+        super(HelloData.class);
+    }
+
+    @Override
+    public HelloData deserialize(JsonParser p, DeserializationContext ctxt) throws IOException {
+        JsonToken token = p.currentToken();
+        if (token == JsonToken.START_OBJECT) {
+            token = p.nextToken();
+        } else if (token != JsonToken.FIELD_NAME && token != JsonToken.END_OBJECT) {
+            return (HelloData) ctxt.handleUnexpectedToken(HelloData.class, p);
+        }
+
+        HelloData helloData = new HelloData();
+        for (; token == JsonToken.FIELD_NAME; token = p.nextToken()) {
+            String name = p.currentName();
+            JsonToken value = p.nextToken();
+            switch (name) {
+                case "username":
+                    helloData.setUsername(value == JsonToken.VALUE_NULL ? null : _parseString(p, ctxt));
+                    break;
+                case "age":
+                    helloData.setAge(_parseIntPrimitive(p, ctxt));
+                    break;
+                default:
+                    ctxt.handleUnknownProperty(p, this, helloData, name);
+            }
+        }
+        return helloData;
+    }
+}
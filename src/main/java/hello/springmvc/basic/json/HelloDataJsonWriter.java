@@ -0,0 +1,39 @@
+package hello.springmvc.basic.json;
+
+import hello.springmvc.basic.HelloData;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * HelloData 를 Jackson 기본 BeanSerializer 와 같은 모양({"username":"...","age":20})으로 쓴다.
+ * 필드 이름 부분은 미리 인코딩해둔 바이트를 그대로 쓰고 username, age 만 그때그때 쓴다.
+ */
+public class HelloDataJsonWriter implements PreEncodedJsonWriter<HelloData> {
+
+    private static final byte[] USERNAME = Utf8Json.ascii("{\"username\":");
+    private static final byte[] NULL = Utf8Json.ascii("null");
+    private static final byte[] AGE = Utf8Json.ascii(",\"age\":");
+
+    @Override
+    public long length(HelloData value) {
+        String username = value.getUsername();
+        return USERNAME.length
+                + (username == null ? NULL.length : Utf8Json.stringLength(username))
+                + AGE.length + Utf8Json.intLength(value.getAge()) + 1;
+    }
+
+    @Override
+    public void write(HelloData value, OutputStream out) throws IOException {
+        out.write(USERNAME);
+        String username = value.getUsername();
+        if (username == null) {
+            out.write(NULL);
+        } else {
+            Utf8Json.writeString(username, out);
+        }
+        out.write(AGE);
+        Utf8Json.writeInt(value.getAge(), out);
+        out.write('}');
+    }
+}
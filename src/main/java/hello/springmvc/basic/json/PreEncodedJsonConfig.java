@@ -0,0 +1,25 @@
+package hello.springmvc.basic.json;
+
+import hello.springmvc.basic.HelloData;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * PreEncodedJsonHttpMessageConverter 를 빈으로 등록한다.
+ * 스프링 부트는 HttpMessageConverter 빈을 HttpMessageConverters 의 기본 컨버터(Jackson 포함)보다 앞에 넣는다.
+ * extendMessageConverters 로 넣으면 HttpMessageConverters 빈에서 찾을 수 없어서
+ * 그 빈으로 컨버터를 찾는 @CachedResponse, @CoalesceRequests 가 동작하지 않는다.
+ *
+ * springmvc.json.pre-encoded.enabled=false 로 끄면 모든 JSON 응답을 Jackson 이 쓴다.
+ */
+@Configuration
+@ConditionalOnProperty(name = "springmvc.json.pre-encoded.enabled", havingValue = "true", matchIfMissing = true)
+public class PreEncodedJsonConfig {
+
+    @Bean
+    public PreEncodedJsonHttpMessageConverter preEncodedJsonHttpMessageConverter() {
+        return new PreEncodedJsonHttpMessageConverter()
+                .register(HelloData.class, new HelloDataJsonWriter());
+    }
+}
@@ -0,0 +1,71 @@
+package hello.springmvc.basic.json;
+
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+
+import java.io.IOException;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * 등록한 DTO 타입만 PreEncodedJsonWriter 로 응답 바디에 바로 쓰는 JSON 컨버터 (쓰기 전용)
+ *
+ * Jackson 컨버터는 ObjectMapper 가 BeanSerializer 를 찾고 프로퍼티마다 getter 를 리플렉션으로 호출하지만
+ * 여기서는 등록된 writer 가 서블릿 출력 버퍼에 바이트를 바로 쓴다.
+ * 쓸 바이트 수를 미리 계산해서 Content-Length 를 붙이므로 응답을 버퍼에 모아둘 필요도 없다.
+ *
+ * ObjectMapper 설정(들여쓰기, null 제외 등)은 적용되지 않는다.
+ * 등록하지 않은 타입과 요청 바디 읽기는 Jackson 컨버터가 그대로 처리한다.
+ */
+public class PreEncodedJsonHttpMessageConverter extends AbstractHttpMessageConverter<Object> {
+
+    private final Map<Class<?>, PreEncodedJsonWriter<?>> writers = new IdentityHashMap<>();
+
+    /**
+     * Jackson 컨버터처럼 Content-Type 에 charset 을 붙이지 않는다. (JSON 은 UTF-8 이다.)
+     */
+    public PreEncodedJsonHttpMessageConverter() {
+        super(MediaType.APPLICATION_JSON, new MediaType("application", "*+json"));
+    }
+
+    /**
+     * 시작할 때만 호출한다. (등록이 끝난 뒤에는 읽기만 한다.)
+     */
+    public <T> PreEncodedJsonHttpMessageConverter register(Class<T> type, PreEncodedJsonWriter<T> writer) {
+        writers.put(type, writer);
+        return this;
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return writers.containsKey(clazz);
+    }
+
+    @Override
+    protected boolean canRead(MediaType mediaType) {
+        return false;
+    }
+
+    @Override
+    protected Object readInternal(Class<?> clazz, HttpInputMessage inputMessage) {
+        throw new HttpMessageNotReadableException("write only converter", inputMessage);
+    }
+
+    @Override
+    protected Long getContentLength(Object value, MediaType contentType) {
+        return writer(value).length(value);
+    }
+
+    @Override
+    protected void writeInternal(Object value, HttpOutputMessage outputMessage) throws IOException {
+        writer(value).write(value, outputMessage.getBody());
+    }
+
+    @SuppressWarnings("unchecked")
+    private PreEncodedJsonWriter<Object> writer(Object value) {
+        return (PreEncodedJsonWriter<Object>) writers.get(value.getClass());
+    }
+}
@@ -0,0 +1,17 @@
+package hello.springmvc.basic.json;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * DTO 하나를 JSON(UTF-8) 으로 직접 쓰는 전용 writer
+ * PreEncodedJsonHttpMessageConverter 에 타입별로 등록한다.
+ *
+ * length 는 write 가 쓸 바이트 수와 정확히 같아야 한다. (Content-Length 로 나간다.)
+ */
+public interface PreEncodedJsonWriter<T> {
+
+    long length(T value);
+
+    void write(T value, OutputStream out) throws IOException;
+}
@@ -0,0 +1,148 @@
+package hello.springmvc.basic.json;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 중간 String, byte[] 없이 OutputStream 에 JSON 값을 바로 쓰는 도구
+ *
+ * 문자열 이스케이프는 Jackson 기본 설정과 같은 결과를 낸다.
+ *  - " 와 \ 는 \" \\, 제어 문자는 \b \t \n \f \r 또는 \\u00XX
+ *  - surrogate 는 BMP 밖의 문자(쌍)든 짝이 맞지 않는 것이든 \uD83D\uDE00, \uD800 처럼 하나씩 이스케이프한다.
+ *  - 그 밖의 문자는 이스케이프 없이 UTF-8 로 쓴다.
+ */
+public final class Utf8Json {
+
+    private static final byte[] HEX = "0123456789ABCDEF".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] MIN_INT = Integer.toString(Integer.MIN_VALUE).getBytes(StandardCharsets.US_ASCII);
+    private static final int[] POWERS_OF_TEN = {
+            1, 10, 100, 1_000, 10_000, 100_000, 1_000_000, 10_000_000, 100_000_000, 1_000_000_000};
+
+    /**
+     * 0 ~ 127 문자의 이스케이프 방법. 0 이면 그대로, 'u' 면 \\u00XX, 나머지는 \ 뒤에 붙일 문자
+     */
+    private static final byte[] ESCAPES = new byte[128];
+
+    static {
+        for (int c = 0; c < 0x20; c++) {
+            ESCAPES[c] = 'u';
+        }
+        ESCAPES['\b'] = 'b';
+        ESCAPES['\t'] = 't';
+        ESCAPES['\n'] = 'n';
+        ESCAPES['\f'] = 'f';
+        ESCAPES['\r'] = 'r';
+        ESCAPES['"'] = '"';
+        ESCAPES['\\'] = '\\';
+    }
+
+    private Utf8Json() {
+    }
+
+    public static byte[] ascii(String value) {
+        return value.getBytes(StandardCharsets.US_ASCII);
+    }
+
+    /**
+     * 따옴표를 포함한 JSON 문자열의 바이트 수
+     */
+    public static int stringLength(String value) {
+        int length = 2;
+        int count = value.length();
+        for (int i = 0; i < count; i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                byte escape = ESCAPES[c];
+                length += escape == 0 ? 1 : escape == 'u' ? 6 : 2;
+            } else if (c < 0x800) {
+                length += 2;
+            } else if (Character.isSurrogate(c)) {
+                length += 6;
+            } else {
+                length += 3;
+            }
+        }
+        return length;
+    }
+
+    public static void writeString(String value, OutputStream out) throws IOException {
+        out.write('"');
+        int count = value.length();
+        for (int i = 0; i < count; i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                byte escape = ESCAPES[c];
+                if (escape == 0) {
+                    out.write(c);
+                } else if (escape == 'u') {
+                    writeUnicodeEscape(c, out);
+                } else {
+                    out.write('\\');
+                    out.write(escape);
+                }
+            } else if (c < 0x800) {
+                out.write(0xC0 | (c >> 6));
+                out.write(0x80 | (c & 0x3F));
+            } else if (Character.isSurrogate(c)) {
+                writeUnicodeEscape(c, out);
+            } else {
+                out.write(0xE0 | (c >> 12));
+                out.write(0x80 | ((c >> 6) & 0x3F));
+                out.write(0x80 | (c & 0x3F));
+            }
+        }
+        out.write('"');
+    }
+
+    private static void writeUnicodeEscape(char c, OutputStream out) throws IOException {
+        out.write('\\');
+        out.write('u');
+        out.write(HEX[c >> 12]);
+        out.write(HEX[(c >> 8) & 0xF]);
+        out.write(HEX[(c >> 4) & 0xF]);
+        out.write(HEX[c & 0xF]);
+    }
+
+    public static int intLength(int value) {
+        if (value == Integer.MIN_VALUE) {
+            return MIN_INT.length;
+        }
+        if (value < 0) {
+            return 1 + digits(-value);
+        }
+        return digits(value);
+    }
+
+    /**
+     * 자릿수를 먼저 구해서 앞자리부터 쓴다. (Integer.toString 처럼 뒤에서부터 채울 버퍼가 필요 없다.)
+     */
+    public static void writeInt(int value, OutputStream out) throws IOException {
+        if (value == Integer.MIN_VALUE) {
+            out.write(MIN_INT);
+            return;
+        }
+        if (value < 0) {
+            out.write('-');
+            value = -value;
+        }
+        if (value < 10) {
+            out.write('0' + value);
+            return;
+        }
+        for (int power = digits(value) - 1; power >= 0; power--) {
+            int divisor = POWERS_OF_TEN[power];
+            int digit = value / divisor;
+            out.write('0' + digit);
+            value -= digit * divisor;
+        }
+    }
+
+    private static int digits(int value) {
+        int digits = 1;
+        while (digits < POWERS_OF_TEN.length && value >= POWERS_OF_TEN[digits]) {
+            digits++;
+        }
+        return digits;
+    }
+}
@@ -0,0 +1,236 @@
+package hello.springmvc.basic.log;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.Appender;
+import ch.qos.logback.core.OutputStreamAppender;
+import ch.qos.logback.core.UnsynchronizedAppenderBase;
+import ch.qos.logback.core.spi.AppenderAttachable;
+import ch.qos.logback.core.spi.AppenderAttachableImpl;
+import hello.springmvc.support.MpscRingBuffer;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 요청 스레드에서는 로그 이벤트를 링 버퍼에 넣기만 하고
+ * 별도 워커 스레드가 batchSize 개씩 꺼내서 실제 appender 에 쓴 다음 한번만 flush 한다.
+ *
+ * 버퍼가 가득 찼을 때의 동작은 overflowPolicy 로 정한다.
+ *  - DROP : 버리고 dropped 를 센다.
+ *  - BLOCK : 자리가 날 때까지 기다린다.
+ *  - SAMPLE : 버퍼가 3/4 이상 차면 INFO 이하 로그는 sampleRate 개 중 하나만 남긴다.
+ *             WARN 이상은 샘플링하지 않고 자리가 날 때까지 기다린다.
+ *
+ * logback-spring.xml 의 async-logging 프로파일에서 사용한다.
+ */
+public class RingBufferAsyncAppender extends UnsynchronizedAppenderBase<ILoggingEvent>
+        implements AppenderAttachable<ILoggingEvent> {
+
+    public enum OverflowPolicy {
+        DROP, BLOCK, SAMPLE
+    }
+
+    private static final long IDLE_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(500);
+
+    private final AppenderAttachableImpl<ILoggingEvent> appenders = new AppenderAttachableImpl<>();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder sampledOut = new LongAdder();
+    private final AtomicLong sampleCounter = new AtomicLong();
+    private final AtomicLong written = new AtomicLong();
+    private final AtomicLong batches = new AtomicLong();
+
+    private int bufferSize = 8192;
+    private int batchSize = 256;
+    private int sampleRate = 10;
+    private OverflowPolicy overflowPolicy = OverflowPolicy.DROP;
+
+    private volatile MpscRingBuffer<ILoggingEvent> buffer;
+    private Thread worker;
+    private volatile boolean running;
+
+    /**
+     * 설정 파일에 등록된 이름(ASYNC)으로 찾아온다. 없으면 null
+     */
+    public static RingBufferAsyncAppender find(String name) {
+        LoggerContext context = (LoggerContext) LoggerFactory.getILoggerFactory();
+        Appender<ILoggingEvent> appender = context.getLogger(Logger.ROOT_LOGGER_NAME).getAppender(name);
+        return appender instanceof RingBufferAsyncAppender ? (RingBufferAsyncAppender) appender : null;
+    }
+
+    @Override
+    public void start() {
+        if (isStarted()) {
+            return;
+        }
+        buffer = new MpscRingBuffer<>(bufferSize);
+        running = true;
+        worker = new Thread(this::drainLoop, "log-ring-buffer-" + getName());
+        worker.setDaemon(true);
+        worker.start();
+        super.start();
+    }
+
+    @Override
+    public void stop() {
+        if (!isStarted()) {
+            return;
+        }
+        super.stop();
+        running = false;
+        LockSupport.unpark(worker);
+        try {
+            worker.join(TimeUnit.SECONDS.toMillis(1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        appenders.detachAndStopAllAppenders();
+    }
+
+    @Override
+    protected void append(ILoggingEvent event) {
+        boolean important = event.getLevel().isGreaterOrEqual(Level.WARN);
+        if (overflowPolicy == OverflowPolicy.SAMPLE && !important
+                && buffer.size() >= buffer.capacity() - (buffer.capacity() >> 2)
+                && sampleCounter.incrementAndGet() % sampleRate != 0) {
+            sampledOut.increment();
+            return;
+        }
+
+        event.prepareForDeferredProcessing();
+        if (buffer.offer(event)) {
+            return;
+        }
+
+        if (overflowPolicy == OverflowPolicy.DROP || (overflowPolicy == OverflowPolicy.SAMPLE && !important)) {
+            dropped.increment();
+            return;
+        }
+        while (!buffer.offer(event)) {
+            if (!running) {
+                dropped.increment();
+                return;
+            }
+            LockSupport.parkNanos(1_000);
+        }
+    }
+
+    private void drainLoop() {
+        List<ILoggingEvent> batch = new ArrayList<>(batchSize);
+        while (running || buffer.size() > 0) {
+            buffer.drain(batch::add, batchSize);
+            if (batch.isEmpty()) {
+                LockSupport.parkNanos(IDLE_PARK_NANOS);
+                continue;
+            }
+            for (ILoggingEvent event : batch) {
+                appenders.appendLoopOnAppenders(event);
+            }
+            written.addAndGet(batch.size());
+            batches.incrementAndGet();
+            batch.clear();
+            flushAppenders();
+        }
+        flushAppenders();
+    }
+
+    /**
+     * 하위 appender 가 immediateFlush=false 인 OutputStreamAppender 라면
+     * 배치 하나를 다 쓰고 나서 한번만 flush 한다.
+     */
+    private void flushAppenders() {
+        Iterator<Appender<ILoggingEvent>> iterator = appenders.iteratorForAppenders();
+        while (iterator.hasNext()) {
+            Appender<ILoggingEvent> appender = iterator.next();
+            if (appender instanceof OutputStreamAppender) {
+                OutputStream outputStream = ((OutputStreamAppender<ILoggingEvent>) appender).getOutputStream();
+                try {
+                    if (outputStream != null) {
+                        outputStream.flush();
+                    }
+                } catch (IOException e) {
+                    addError("failed to flush " + appender.getName(), e);
+                }
+            }
+        }
+    }
+
+    /**
+     * start() 전(또는 시작에 실패했을 때)에는 버퍼가 없으니 occupancy 는 0 이다.
+     */
+    public Map<String, Object> metrics() {
+        MpscRingBuffer<ILoggingEvent> buffer = this.buffer;
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("policy", overflowPolicy);
+        metrics.put("capacity", buffer != null ? buffer.capacity() : bufferSize);
+        metrics.put("occupancy", buffer != null ? buffer.size() : 0);
+        metrics.put("written", written.get());
+        metrics.put("batches", batches.get());
+        metrics.put("dropped", dropped.sum());
+        metrics.put("sampledOut", sampledOut.sum());
+        return metrics;
+    }
+
+    public void setBufferSize(int bufferSize) {
+        this.bufferSize = bufferSize;
+    }
+
+    public void setBatchSize(int batchSize) {
+        this.batchSize = batchSize;
+    }
+
+    public void setSampleRate(int sampleRate) {
+        this.sampleRate = Math.max(1, sampleRate);
+    }
+
+    public void setOverflowPolicy(OverflowPolicy overflowPolicy) {
+        this.overflowPolicy = overflowPolicy;
+    }
+
+    @Override
+    public void addAppender(Appender<ILoggingEvent> newAppender) {
+        appenders.addAppender(newAppender);
+    }
+
+    @Override
+    public Iterator<Appender<ILoggingEvent>> iteratorForAppenders() {
+        return appenders.iteratorForAppenders();
+    }
+
+    @Override
+    public Appender<ILoggingEvent> getAppender(String name) {
+        return appenders.getAppender(name);
+    }
+
+    @Override
+    public boolean isAttached(Appender<ILoggingEvent> appender) {
+        return appenders.isAttached(appender);
+    }
+
+    @Override
+    public void detachAndStopAllAppenders() {
+        appenders.detachAndStopAllAppenders();
+    }
+
+    @Override
+    public boolean detachAppender(Appender<ILoggingEvent> appender) {
+        return appenders.detachAppender(appender);
+    }
+
+    @Override
+    public boolean detachAppender(String name) {
+        return appenders.detachAppender(name);
+    }
+}
@@ -0,0 +1,71 @@
+package hello.springmvc.basic.reactive;
+
+import hello.springmvc.basic.HelloData;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.web.reactive.function.BodyExtractors;
+import org.springframework.web.reactive.function.server.ServerRequest;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import reactor.core.publisher.Mono;
+
+/**
+ * RequestBodyStringController, RequestBodyJsonController, ResponseBodyController 의 논블로킹 버전
+ *
+ * 바디를 String 으로 모으지 않고 DataBuffer 조각이 도착할 때마다 처리하고 바로 반납한다.
+ * 바디를 기다리는 동안 스레드를 붙잡고 있지 않기 때문에 느린 업로드가 많아도 적은 스레드로 처리할 수 있다.
+ */
+@Slf4j
+public class ReactiveBodyHandler {
+
+    /**
+     * /request-body-string-v1 ~ v4 와 같은 역할
+     * 조각마다 바이트 수만 세고 버퍼는 바로 반납한다.
+     */
+    public Mono<ServerResponse> requestBodyString(ServerRequest request) {
+        return request.body(BodyExtractors.toDataBuffers())
+                .reduce(0L, (size, buffer) -> {
+                    long read = size + buffer.readableByteCount();
+                    DataBufferUtils.release(buffer);
+                    return read;
+                })
+                .flatMap(size -> {
+                    log.info("messageBody bytes = {}", size);
+                    return ServerResponse.ok().bodyValue("ok");
+                });
+    }
+
+    /**
+     * /request-body-json-v1 ~ v4, v6 와 같은 역할
+     * Jackson 의 논블로킹 파서가 DataBuffer 를 받는 대로 토큰을 만들어서 바로 HelloData 로 바인딩한다.
+     */
+    public Mono<ServerResponse> requestBodyJson(ServerRequest request) {
+        return request.bodyToMono(HelloData.class)
+                .flatMap(data -> {
+                    log.info("username={}, age={}", data.getUsername(), data.getAge());
+                    return ServerResponse.ok().bodyValue("ok");
+                });
+    }
+
+    /**
+     * /request-body-json-v5 와 같은 역할
+     * 받은 HelloData 를 그대로 json 으로 돌려준다.
+     */
+    public Mono<ServerResponse> requestBodyJsonEcho(ServerRequest request) {
+        return request.bodyToMono(HelloData.class)
+                .flatMap(data -> {
+                    log.info("username={}, age={}", data.getUsername(), data.getAge());
+                    return ServerResponse.ok().bodyValue(data);
+                });
+    }
+
+    public Mono<ServerResponse> responseBodyString(ServerRequest request) {
+        return ServerResponse.ok().bodyValue("ok");
+    }
+
+    public Mono<ServerResponse> responseBodyJson(ServerRequest request) {
+        HelloData helloData = new HelloData();
+        helloData.setUsername("userA");
+        helloData.setAge(20);
+        return ServerResponse.ok().bodyValue(helloData);
+    }
+}
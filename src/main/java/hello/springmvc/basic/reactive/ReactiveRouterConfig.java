@@ -0,0 +1,73 @@
+package hello.springmvc.basic.reactive;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.servlet.ServletRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.codec.json.Jackson2JsonDecoder;
+import org.springframework.http.codec.json.Jackson2JsonEncoder;
+import org.springframework.http.server.reactive.HttpHandler;
+import org.springframework.http.server.reactive.ServletHttpHandlerAdapter;
+import org.springframework.web.reactive.function.server.HandlerStrategies;
+import org.springframework.web.reactive.function.server.RouterFunction;
+import org.springframework.web.reactive.function.server.RouterFunctions;
+import org.springframework.web.reactive.function.server.ServerResponse;
+
+/**
+ * /reactive/** 아래에 ReactiveBodyHandler 를 연결한다.
+ *
+ * 애플리케이션 전체를 WebFlux 로 바꾸지 않고 함수형 라우터를 HttpHandler 로 만든 다음
+ * ServletHttpHandlerAdapter 로 톰캣에 서블릿 하나로 올린다.
+ * 이 어댑터는 서블릿 3.1 논블로킹 I/O(ReadListener/WriteListener)로 바디를 읽고 쓰기 때문에
+ * 바디가 도착하기를 기다리는 동안 톰캣 스레드를 점유하지 않는다.
+ *
+ * URL 은 /reactive 뒤에 기존 컨트롤러와 같은 경로를 붙인다.
+ * 예) /request-body-json-v5 -> /reactive/request-body-json-v5
+ * 기존 컨트롤러에 있는 버전만 등록하고, 없는 버전은 MVC 쪽처럼 404 가 된다.
+ */
+@Configuration
+@ConditionalOnProperty(name = "springmvc.reactive.enabled", havingValue = "true", matchIfMissing = true)
+public class ReactiveRouterConfig {
+
+    public static final String PREFIX = "/reactive";
+
+    @Bean
+    public ServletRegistrationBean<ServletHttpHandlerAdapter> reactiveServlet(ObjectMapper objectMapper) {
+        RouterFunction<ServerResponse> routes = routes(new ReactiveBodyHandler());
+
+        // 스프링 MVC 쪽과 같은 ObjectMapper 설정으로 json 을 읽고 쓴다.
+        HandlerStrategies strategies = HandlerStrategies.builder()
+                .codecs(configurer -> {
+                    configurer.defaultCodecs().jackson2JsonDecoder(new Jackson2JsonDecoder(objectMapper));
+                    configurer.defaultCodecs().jackson2JsonEncoder(new Jackson2JsonEncoder(objectMapper));
+                })
+                .build();
+
+        HttpHandler httpHandler = RouterFunctions.toHttpHandler(routes, strategies);
+        ServletRegistrationBean<ServletHttpHandlerAdapter> registration =
+                new ServletRegistrationBean<>(new ServletHttpHandlerAdapter(httpHandler), PREFIX + "/*");
+        registration.setName("reactiveServlet");
+        registration.setAsyncSupported(true);
+        registration.setLoadOnStartup(1);
+        return registration;
+    }
+
+    static RouterFunction<ServerResponse> routes(ReactiveBodyHandler handler) {
+        RouterFunctions.Builder builder = RouterFunctions.route();
+        for (String version : new String[]{"v1", "v2", "v3", "v4"}) {
+            builder.POST("/request-body-string-" + version, handler::requestBodyString);
+        }
+        for (String version : new String[]{"v1", "v2", "v3", "v4", "v6"}) {
+            builder.POST("/request-body-json-" + version, handler::requestBodyJson);
+        }
+        builder.POST("/request-body-json-v5", handler::requestBodyJsonEcho);
+        for (String version : new String[]{"v1", "v2", "v3"}) {
+            builder.GET("/response-body-string-" + version, handler::responseBodyString);
+        }
+        for (String version : new String[]{"v1", "v2"}) {
+            builder.GET("/response-body-json-" + version, handler::responseBodyJson);
+        }
+        return builder.build();
+    }
+}
@@ -0,0 +1,66 @@
+package hello.springmvc.basic.request;
+
+import hello.springmvc.basic.HelloData;
+import hello.springmvc.basic.request.multipart.StreamingMultipartReader;
+import hello.springmvc.basic.request.multipart.StreamingMultipartResult;
+import hello.springmvc.basic.request.multipart.UploadedFile;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.validation.BindException;
+import org.springframework.web.bind.annotation.ModelAttribute;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.multipart.MultipartFile;
+
+import javax.servlet.http.HttpServletRequest;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.UUID;
+
+/**
+ * static/basic/hello-upload-form.html 에서 username, age 와 파일 하나를 multipart/form-data 로 보낸다.
+ */
+@Slf4j
+@RestController
+@RequiredArgsConstructor
+public class MultipartUploadController {
+
+    private final StreamingMultipartReader streamingMultipartReader;
+
+    /**
+     * 스프링 MultipartResolver 로 받는 방법
+     * 컨트롤러가 호출되기 전에 톰캣이 바디 전체를 파트별로 나눠서 저장해두고 (file-size-threshold 보다 크면 임시 파일)
+     * transferTo 로 업로드 디렉터리에 한번 더 복사한다.
+     * spring.servlet.multipart.max-file-size, max-request-size (springmvc.upload.max-file-bytes, max-request-bytes 와 같은 값)를 넘으면 거절된다.
+     */
+    @PostMapping(value = "/upload-standard", consumes = "multipart/form-data")
+    public StreamingMultipartResult<HelloData> uploadStandard(@ModelAttribute HelloData helloData,
+                                                              @RequestParam("file") MultipartFile file) throws IOException {
+        long start = System.nanoTime();
+        String storedAs = UUID.randomUUID().toString();
+        file.transferTo(streamingMultipartReader.getDirectory().resolve(storedAs));
+        log.info("username={}, age={}, file={}, size={}",
+                helloData.getUsername(), helloData.getAge(), file.getOriginalFilename(), file.getSize());
+
+        UploadedFile uploaded = new UploadedFile("file", file.getOriginalFilename(), file.getContentType(), file.getSize(), storedAs);
+        return new StreamingMultipartResult<>(helloData, Collections.singletonList(uploaded),
+                file.getSize(), System.nanoTime() - start);
+    }
+
+    /**
+     * HttpServletRequest 의 InputStream 을 StreamingMultipartReader 로 직접 읽는 방법
+     * 일반 필드는 HelloData 에 바인딩하고 파일 파트는 읽는 대로 디스크에 쓴다.
+     * 파트별, 요청 전체 한도는 springmvc.upload.* 로 정한다.
+     *
+     * spring.servlet.multipart.resolve-lazily=true 여야 DispatcherServlet 이 바디를 먼저 읽지 않는다.
+     */
+    @PostMapping(value = "/upload-stream", consumes = "multipart/form-data")
+    public StreamingMultipartResult<HelloData> uploadStream(HttpServletRequest request) throws IOException, BindException {
+        StreamingMultipartResult<HelloData> result = streamingMultipartReader.read(request, HelloData.class);
+        HelloData helloData = result.getTarget();
+        log.info("username={}, age={}, files={}, bytesPerSecond={}",
+                helloData.getUsername(), helloData.getAge(), result.getFiles().size(), result.getBytesPerSecond());
+        return result;
+    }
+}
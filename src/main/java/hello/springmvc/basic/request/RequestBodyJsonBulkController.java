@@ -0,0 +1,138 @@
+package hello.springmvc.basic.request;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import hello.springmvc.basic.HelloData;
+import hello.springmvc.basic.request.bulk.BulkIngestOverloadedException;
+import hello.springmvc.basic.request.bulk.HelloDataBatchPipeline;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.PostMapping;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * HelloData 여러 건을 한번의 요청으로 받는 방법
+ *
+ * 한 줄에 json 하나씩 (application/x-ndjson)
+ * {"username":"hello", "age":20}
+ * {"username":"world", "age":30}
+ *
+ * 또는 json 배열
+ * [{"username":"hello", "age":20}, {"username":"world", "age":30}]
+ *
+ * 바디 전체를 읽어서 List<HelloData> 를 만들지 않고 토큰 단위로 읽으면서
+ * batch-size 만큼 모이면 HelloDataBatchPipeline 에 넘긴다.
+ * 응답도 배치가 접수될 때마다 한 줄씩 바로 내려보낸다.
+ */
+@Slf4j
+@Controller
+public class RequestBodyJsonBulkController {
+
+    private static final String NDJSON = "application/x-ndjson";
+
+    private final ObjectMapper objectMapper;
+    private final ObjectReader helloDataReader;
+    private final HelloDataBatchPipeline pipeline;
+    private final int batchSize;
+
+    public RequestBodyJsonBulkController(ObjectMapper objectMapper,
+                                         HelloDataBatchPipeline pipeline,
+                                         @Value("${springmvc.bulk.batch-size:500}") int batchSize) {
+        this.objectMapper = objectMapper;
+        this.helloDataReader = objectMapper.readerFor(HelloData.class);
+        this.pipeline = pipeline;
+        this.batchSize = batchSize;
+    }
+
+    @PostMapping("/request-body-json-bulk")
+    public void requestBodyJsonBulk(HttpServletRequest request, HttpServletResponse response) throws IOException, InterruptedException {
+        response.setContentType(NDJSON);
+        response.setCharacterEncoding("UTF-8");
+
+        JsonFactory factory = objectMapper.getFactory();
+        try (JsonParser parser = factory.createParser(request.getInputStream());
+             JsonGenerator acks = factory.createGenerator(response.getOutputStream())) {
+            acks.setRootValueSeparator(null);
+
+            int batches = 0;
+            long records = 0;
+            List<HelloData> batch = new ArrayList<>(batchSize);
+            try {
+                JsonToken token = parser.nextToken();
+                if (token == JsonToken.START_ARRAY) {
+                    token = parser.nextToken();
+                }
+
+                while (token != null && token != JsonToken.END_ARRAY) {
+                    batch.add(helloDataReader.readValue(parser));
+                    if (batch.size() == batchSize) {
+                        pipeline.submit(batch);
+                        records += batch.size();
+                        writeAck(acks, ++batches, batch.size());
+                        batch = new ArrayList<>(batchSize);
+                    }
+                    token = parser.nextToken();
+                }
+
+                if (!batch.isEmpty()) {
+                    pipeline.submit(batch);
+                    records += batch.size();
+                    writeAck(acks, ++batches, batch.size());
+                }
+                writeResult(acks, "completed", batches, records, null);
+                log.info("bulk batches={}, records={}", batches, records);
+            } catch (JsonProcessingException e) {
+                fail(response, acks, HttpStatus.BAD_REQUEST, batches, records, e.getOriginalMessage());
+            } catch (BulkIngestOverloadedException e) {
+                fail(response, acks, HttpStatus.SERVICE_UNAVAILABLE, batches, records, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * 이미 접수된 배치는 되돌릴 수 없기 때문에 몇 건까지 접수됐는지 같이 알려준다.
+     * 아직 응답을 내려보내기 전이라면 상태 코드도 바꿔준다.
+     */
+    private void fail(HttpServletResponse response, JsonGenerator acks, HttpStatus status,
+                      int batches, long records, String message) throws IOException {
+        log.warn("bulk failed after batches={}, records={}: {}", batches, records, message);
+        if (!response.isCommitted()) {
+            response.setStatus(status.value());
+        }
+        writeResult(acks, "failed", batches, records, message);
+    }
+
+    private void writeAck(JsonGenerator acks, int batch, int records) throws IOException {
+        acks.writeStartObject();
+        acks.writeNumberField("batch", batch);
+        acks.writeNumberField("records", records);
+        acks.writeStringField("status", "accepted");
+        acks.writeEndObject();
+        acks.writeRaw('\n');
+        acks.flush();
+    }
+
+    private void writeResult(JsonGenerator acks, String status, int batches, long records, String message) throws IOException {
+        acks.writeStartObject();
+        acks.writeStringField("status", status);
+        acks.writeNumberField("batches", batches);
+        acks.writeNumberField("records", records);
+        if (message != null) {
+            acks.writeStringField("message", message);
+        }
+        acks.writeEndObject();
+        acks.writeRaw('\n');
+    }
+}
@@ -1,7 +1,11 @@
 package hello.springmvc.basic.request;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
 import hello.springmvc.basic.HelloData;
+import hello.springmvc.basic.columnar.HelloDataBatch;
+import hello.springmvc.server.admission.AdmissionControl;
+import hello.springmvc.server.admission.Priority;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpEntity;
 import org.springframework.stereotype.Controller;
@@ -22,13 +26,30 @@ import java.nio.charset.StandardCharsets;
  * content-type: application/json
  *
  * content-type이 application/json이어야한다.
+ *
+ * json 파싱 비용이 있으니 핸들러마다 초당 요청 수와 클라이언트별 초당 요청 수를 제한한다.
  */
 
 
 @Slf4j
 @Controller
+@AdmissionControl(priority = Priority.NORMAL,
+        permitsPerSecond = "${springmvc.admission.request-body-json.permits-per-second:}",
+        burst = "${springmvc.admission.request-body-json.burst:}",
+        clientPermitsPerSecond = "${springmvc.admission.request-body-json.client-permits-per-second:}",
+        clientBurst = "${springmvc.admission.request-body-json.client-burst:}")
 public class RequestBodyJsonController {
-    private ObjectMapper objectMapper = new ObjectMapper();
+    /**
+     * new ObjectMapper() 대신 스프링 부트가 설정해둔 공용 ObjectMapper 를 주입받는다.
+     * HelloData 용 ObjectReader 는 만들 때 비용이 있으니 한번만 만들어두고 재사용한다.
+     */
+    private final ObjectMapper objectMapper;
+    private final ObjectReader helloDataReader;
+
+    public RequestBodyJsonController(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+        this.helloDataReader = objectMapper.readerFor(HelloData.class);
+    }
 
     /**
      * 기존에 Http api를 활용한 json으로 넘어온 값을 가공하는 방법
@@ -96,4 +117,29 @@ public class RequestBodyJsonController {
         log.info("username={}, age={}", data.getUsername(), data.getAge());
         return data;
     }
+
+    /**
+     * v1, v2 는 바디를 String 으로 한번 디코딩한 다음 다시 json 으로 파싱한다.
+     * 여기서는 InputStream 을 미리 만들어둔 ObjectReader 에 바로 넘겨서
+     * String 을 만들지 않고 바이트에서 바로 HelloData 를 만든다.
+     */
+    @ResponseBody
+    @PostMapping("/request-body-json-v6")
+    public String requestBodyJsonV6(HttpServletRequest request) throws IOException {
+        HelloData data = helloDataReader.readValue(request.getInputStream());
+        log.info("username={}, age={}", data.getUsername(), data.getAge());
+        return "ok";
+    }
+
+    /**
+     * HelloData 여러 건을 한번에 받는다.
+     * Content-Type 이 application/json 이면 JSON 배열로,
+     * application/x-hello-columnar 면 열 단위 바이너리(HelloDataColumnarCodec)로 읽는다.
+     */
+    @ResponseBody
+    @PostMapping("/request-body-json-batch")
+    public String requestBodyJsonBatch(@RequestBody HelloDataBatch batch) {
+        log.info("size={}", batch.size());
+        return "ok";
+    }
 }
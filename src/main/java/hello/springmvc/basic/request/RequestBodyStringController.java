@@ -1,11 +1,16 @@
 package hello.springmvc.basic.request;
 
+import hello.springmvc.basic.request.stream.StreamingBodyMetrics;
+import hello.springmvc.basic.request.stream.StreamingBodyReader;
+import hello.springmvc.basic.request.stream.StreamingBodyResult;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.RequestEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.util.StreamUtils;
+import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.ResponseBody;
@@ -17,11 +22,15 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.Writer;
 import java.nio.charset.StandardCharsets;
+import java.util.Map;
 
 @Slf4j
 @Controller
+@RequiredArgsConstructor
 public class RequestBodyStringController {
 
+    private final StreamingBodyReader streamingBodyReader;
+    private final StreamingBodyMetrics streamingBodyMetrics;
 
     /**
      * 메시지 바디에 값을 넣어서 전달하는 코드
@@ -83,4 +92,29 @@ public class RequestBodyStringController {
         return "ok";
     }
 
+    /**
+     * 메시지 바디를 String 으로 한번에 만들지 않고 버퍼 크기만큼씩 읽으면서 처리한다.
+     * 바디가 아무리 커도 요청 하나가 쓰는 메모리는 버퍼 크기로 고정된다.
+     * springmvc.request-body.stream.max-bytes 보다 크면 413 으로 응답한다.
+     */
+    @ResponseBody
+    @PostMapping("/request-body-string-stream")
+    public String requestBodyStringStream(HttpServletRequest request) throws IOException {
+        StreamingBodyResult result = streamingBodyReader.read(request,
+                chunk -> log.trace("messageBody chunk = {}", chunk));
+
+        log.info("messageBody bytes = {}, chars = {}, bytesPerSecond = {}",
+                result.getBytes(), result.getChars(), result.getBytesPerSecond());
+        return "ok";
+    }
+
+    /**
+     * 스트리밍 바디 읽기 누적 통계 (요청 수, 바이트 수, 초당 바이트 수)
+     */
+    @ResponseBody
+    @GetMapping("/request-body-string-stream/metrics")
+    public Map<String, Long> requestBodyStringStreamMetrics() {
+        return streamingBodyMetrics.snapshot();
+    }
+
 }
@@ -1,5 +1,6 @@
 package hello.springmvc.basic.request;
 
+import hello.springmvc.basic.request.header.LazyRequestHeaders;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpMethod;
 import org.springframework.util.MultiValueMap;
@@ -48,4 +49,29 @@ public class RequestHeaderController {
 
         return "ok";
     }
+
+    /**
+     * 실제로 쓰는 host 헤더와 쿠키 하나만 개별로 조회
+     * 헤더 전체를 맵으로 복사하지는 않지만 @CookieValue 는 모든 쿠키를 Cookie 객체로 만든다.
+     */
+    @RequestMapping("/headers-single")
+    public String headersSingle(@RequestHeader("host") String host,
+                                @CookieValue(value = "myCookie", required = false) String cookie) {
+        log.info("header host={}", host);
+        log.info("myCookie={}", cookie);
+
+        return "ok";
+    }
+
+    /**
+     * LazyRequestHeaders 는 아무것도 복사해두지 않고 조회할 때만 헤더를 찾는다.
+     * 쿠키도 Cookie 헤더에서 myCookie 값만 잘라낸다.
+     */
+    @RequestMapping("/headers-lazy")
+    public String headersLazy(LazyRequestHeaders headers) {
+        log.info("header host={}", headers.getHost());
+        log.info("myCookie={}", headers.getCookie("myCookie"));
+
+        return "ok";
+    }
 }
@@ -1,6 +1,7 @@
 package hello.springmvc.basic.request;
 
 import hello.springmvc.basic.HelloData;
+import hello.springmvc.basic.request.param.LazyRequestParameters;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Controller;
 import org.springframework.web.bind.annotation.*;
@@ -116,6 +117,19 @@ public class RequestParamController {
         return "ok";
     }
 
+    /**
+     * LazyRequestParameters 로 받으면 필요한 파라미터만 그때그때 원본에서 읽는다.
+     * 파라미터 전체를 Map 이나 String 배열로 만들지 않고 age 는 String 없이 바로 int 로 읽는다.
+     */
+    @ResponseBody
+    @RequestMapping("/request-param-lazy")
+    public String requestParamLazy(LazyRequestParameters parameters) {
+        String username = parameters.get("username");
+        int age = parameters.getInt("age");
+        log.info("username={}, age={}", username, age);
+        return "ok";
+    }
+
     /**
      * @ModelAttribute 어노테이션을 활용해서 HelloData 객체 내부의 변수들을 자동으로
      * 다 들어가게끔할 수 있다.
@@ -0,0 +1,15 @@
+package hello.springmvc.basic.request.bulk;
+
+/**
+ * 처리 큐가 가득 찬 상태로 enqueue-timeout 이 지나거나, 종료 중이라 배치를 더 받지 않으면 발생한다.
+ */
+public class BulkIngestOverloadedException extends RuntimeException {
+
+    public BulkIngestOverloadedException(long timeoutMillis) {
+        super("batch queue is still full after " + timeoutMillis + "ms");
+    }
+
+    public BulkIngestOverloadedException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,112 @@
+package hello.springmvc.basic.request.bulk;
+
+import hello.springmvc.basic.HelloData;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 요청 스레드가 파싱한 배치를 크기가 정해진 큐에 넣고 워커 스레드가 꺼내서 처리한다.
+ *
+ * 워커가 밀려서 큐가 가득 차면 submit 이 자리가 날 때까지 기다리기 때문에
+ * 요청 스레드가 소켓에서 더 읽지 않게 되고, 결국 클라이언트 업로드 속도가 처리 속도에 맞춰진다.
+ * 메모리에 올라가는 배치는 (queue-capacity + workers + 요청 수) 개를 넘지 않는다.
+ *
+ * 종료할 때는 먼저 새 배치를 받지 않고, 워커가 이미 큐에 들어간 배치를 모두 처리할 때까지
+ * shutdown-timeout-ms 동안 기다린다. 그래도 남아 있으면 버려진 배치 수를 남기고 워커를 인터럽트한다.
+ */
+@Slf4j
+@Component
+public class HelloDataBatchPipeline implements DisposableBean {
+
+    private final BlockingQueue<List<HelloData>> queue;
+    private final ExecutorService workers;
+    private final HelloDataBatchProcessor processor;
+    private final long enqueueTimeoutMillis;
+    private final long shutdownTimeoutMillis;
+
+    private volatile boolean accepting = true;
+
+    /**
+     * submit 안에서 큐에 넣는 중인 요청 수, 종료할 때 워커는 이 값이 0 이고 큐가 빌 때까지 처리한다.
+     */
+    private final AtomicInteger submitting = new AtomicInteger();
+
+    public HelloDataBatchPipeline(HelloDataBatchProcessor processor,
+                                  @Value("${springmvc.bulk.queue-capacity:16}") int queueCapacity,
+                                  @Value("${springmvc.bulk.workers:2}") int workerCount,
+                                  @Value("${springmvc.bulk.enqueue-timeout-ms:5000}") long enqueueTimeoutMillis,
+                                  @Value("${springmvc.bulk.shutdown-timeout-ms:30000}") long shutdownTimeoutMillis) {
+        this.processor = processor;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.enqueueTimeoutMillis = enqueueTimeoutMillis;
+        this.shutdownTimeoutMillis = shutdownTimeoutMillis;
+
+        AtomicInteger sequence = new AtomicInteger();
+        this.workers = Executors.newFixedThreadPool(workerCount, runnable -> {
+            Thread thread = new Thread(runnable, "bulk-worker-" + sequence.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        for (int i = 0; i < workerCount; i++) {
+            workers.execute(this::drain);
+        }
+    }
+
+    /**
+     * 배치를 큐에 넣는다. 큐에 들어가면 처리가 보장된 것으로 보고 바로 반환한다.
+     */
+    public void submit(List<HelloData> batch) throws InterruptedException {
+        submitting.incrementAndGet();
+        try {
+            if (!accepting) {
+                throw new BulkIngestOverloadedException("batch pipeline is shutting down");
+            }
+            if (!queue.offer(batch, enqueueTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                throw new BulkIngestOverloadedException(enqueueTimeoutMillis);
+            }
+        } finally {
+            submitting.decrementAndGet();
+        }
+    }
+
+    public int queueDepth() {
+        return queue.size();
+    }
+
+    private void drain() {
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                List<HelloData> batch = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (batch != null) {
+                    processor.process(batch);
+                } else if (!accepting && submitting.get() == 0 && queue.isEmpty()) {
+                    return;
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (RuntimeException e) {
+                log.error("batch processing failed", e);
+            }
+        }
+    }
+
+    @Override
+    public void destroy() throws InterruptedException {
+        accepting = false;
+        workers.shutdown();
+        if (!workers.awaitTermination(shutdownTimeoutMillis, TimeUnit.MILLISECONDS)) {
+            log.warn("bulk workers did not finish in {}ms, dropping {} queued batches", shutdownTimeoutMillis, queue.size());
+            workers.shutdownNow();
+        }
+    }
+}
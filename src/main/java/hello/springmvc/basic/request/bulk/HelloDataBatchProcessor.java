@@ -0,0 +1,14 @@
+package hello.springmvc.basic.request.bulk;
+
+import hello.springmvc.basic.HelloData;
+
+import java.util.List;
+
+/**
+ * 대량 업로드로 들어온 HelloData 를 배치 단위로 처리한다.
+ * HelloDataBatchPipeline 의 워커 스레드에서 호출된다.
+ */
+public interface HelloDataBatchProcessor {
+
+    void process(List<HelloData> batch);
+}
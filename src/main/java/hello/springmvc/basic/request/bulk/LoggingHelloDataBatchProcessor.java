@@ -0,0 +1,22 @@
+package hello.springmvc.basic.request.bulk;
+
+import hello.springmvc.basic.HelloData;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * 다른 컨트롤러들처럼 받은 값을 로그로 남기기만 한다.
+ * 건마다 남기면 로그가 감당이 안돼서 배치 단위로 요약해서 남긴다.
+ */
+@Slf4j
+@Component
+public class LoggingHelloDataBatchProcessor implements HelloDataBatchProcessor {
+
+    @Override
+    public void process(List<HelloData> batch) {
+        HelloData first = batch.get(0);
+        log.info("batch size={}, first username={}, age={}", batch.size(), first.getUsername(), first.getAge());
+    }
+}
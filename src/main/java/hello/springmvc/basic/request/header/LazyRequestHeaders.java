@@ -0,0 +1,112 @@
+package hello.springmvc.basic.request.header;
+
+import javax.servlet.http.HttpServletRequest;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.List;
+
+/**
+ * 필요한 헤더만 그때그때 조회하는 헤더 뷰
+ *
+ * @RequestHeader MultiValueMap 은 요청마다 모든 헤더 이름과 값을 String 으로 만들어서 새 맵에 복사한다.
+ * 여기서는 아무것도 복사해두지 않고 조회할 때 request.getHeader 로 넘긴다.
+ * 톰캣은 getHeader 에서 커넥터가 읽어둔 헤더 버퍼(MimeHeaders)를 대소문자 구분 없이 바로 비교하고
+ * 찾은 값 하나만 String 으로 만든다.
+ *
+ * 쿠키도 request.getCookies() 는 처음 호출할 때 모든 쿠키를 Cookie 객체로 만들지만
+ * getCookie 는 Cookie 헤더에서 요청한 이름 하나만 찾아서 값만 잘라낸다.
+ * 쿠키를 조회하지 않으면 Cookie 헤더는 읽지도 않는다.
+ */
+public final class LazyRequestHeaders {
+
+    private static final String COOKIE = "Cookie";
+
+    private final HttpServletRequest request;
+
+    public LazyRequestHeaders(HttpServletRequest request) {
+        this.request = request;
+    }
+
+    /**
+     * @return 첫번째 값, 없으면 null (이름은 대소문자 구분 없음)
+     */
+    public String get(String name) {
+        return request.getHeader(name);
+    }
+
+    public String get(String name, String defaultValue) {
+        String value = request.getHeader(name);
+        return value != null ? value : defaultValue;
+    }
+
+    public List<String> getAll(String name) {
+        Enumeration<String> values = request.getHeaders(name);
+        if (values == null || !values.hasMoreElements()) {
+            return Collections.emptyList();
+        }
+        return Collections.list(values);
+    }
+
+    public boolean contains(String name) {
+        return request.getHeader(name) != null;
+    }
+
+    public String getHost() {
+        return request.getHeader("Host");
+    }
+
+    /**
+     * 헤더 이름 전체, 이름만 복사한다.
+     */
+    public List<String> names() {
+        Enumeration<String> names = request.getHeaderNames();
+        return names != null ? Collections.list(names) : Collections.emptyList();
+    }
+
+    /**
+     * Cookie 헤더(name1=value1; name2=value2)에서 name 쿠키 값만 찾는다.
+     * 값이 따옴표로 감싸져 있으면 따옴표는 뺀다. 없으면 null
+     */
+    public String getCookie(String name) {
+        Enumeration<String> cookieHeaders = request.getHeaders(COOKIE);
+        if (cookieHeaders == null) {
+            return null;
+        }
+        while (cookieHeaders.hasMoreElements()) {
+            String value = findCookie(cookieHeaders.nextElement(), name);
+            if (value != null) {
+                return value;
+            }
+        }
+        return null;
+    }
+
+    static String findCookie(String header, String name) {
+        int length = header.length();
+        int start = 0;
+        while (start < length) {
+            while (start < length && (header.charAt(start) == ' ' || header.charAt(start) == '\t')) {
+                start++;
+            }
+            int end = header.indexOf(';', start);
+            if (end < 0) {
+                end = length;
+            }
+            int nameEnd = start + name.length();
+            if (nameEnd < end && header.charAt(nameEnd) == '=' && header.regionMatches(start, name, 0, name.length())) {
+                int valueStart = nameEnd + 1;
+                int valueEnd = end;
+                while (valueEnd > valueStart && header.charAt(valueEnd - 1) == ' ') {
+                    valueEnd--;
+                }
+                if (valueEnd - valueStart >= 2 && header.charAt(valueStart) == '"' && header.charAt(valueEnd - 1) == '"') {
+                    valueStart++;
+                    valueEnd--;
+                }
+                return header.substring(valueStart, valueEnd);
+            }
+            start = end + 1;
+        }
+        return null;
+    }
+}
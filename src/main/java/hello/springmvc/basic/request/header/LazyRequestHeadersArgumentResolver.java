@@ -0,0 +1,26 @@
+package hello.springmvc.basic.request.header;
+
+import org.springframework.core.MethodParameter;
+import org.springframework.web.bind.support.WebDataBinderFactory;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.method.support.HandlerMethodArgumentResolver;
+import org.springframework.web.method.support.ModelAndViewContainer;
+
+import javax.servlet.http.HttpServletRequest;
+
+/**
+ * LazyRequestHeaders 타입의 핸들러 파라미터를 만들어준다.
+ */
+public class LazyRequestHeadersArgumentResolver implements HandlerMethodArgumentResolver {
+
+    @Override
+    public boolean supportsParameter(MethodParameter parameter) {
+        return LazyRequestHeaders.class == parameter.getParameterType();
+    }
+
+    @Override
+    public Object resolveArgument(MethodParameter parameter, ModelAndViewContainer mavContainer,
+                                  NativeWebRequest webRequest, WebDataBinderFactory binderFactory) {
+        return new LazyRequestHeaders(webRequest.getNativeRequest(HttpServletRequest.class));
+    }
+}
@@ -0,0 +1,19 @@
+package hello.springmvc.basic.request.header;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.method.support.HandlerMethodArgumentResolver;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.List;
+
+/**
+ * 핸들러 메서드에서 LazyRequestHeaders 를 파라미터로 받을 수 있게 한다.
+ */
+@Configuration
+public class LazyRequestHeadersConfig implements WebMvcConfigurer {
+
+    @Override
+    public void addArgumentResolvers(List<HandlerMethodArgumentResolver> resolvers) {
+        resolvers.add(new LazyRequestHeadersArgumentResolver());
+    }
+}
@@ -0,0 +1,15 @@
+package hello.springmvc.basic.request.multipart;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * boundary 가 없거나, 파트 헤더가 잘못됐거나, 마지막 boundary 전에 바디가 끝나면 400 으로 응답한다.
+ */
+@ResponseStatus(HttpStatus.BAD_REQUEST)
+public class MalformedMultipartException extends RuntimeException {
+
+    public MalformedMultipartException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,16 @@
+package hello.springmvc.basic.request.multipart;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * 파트 하나(필드, 파일, 헤더)나 파트 수가 설정된 한도를 넘으면 413 으로 응답한다.
+ * 한도를 넘는 순간 읽기를 멈추고 그때까지 저장한 파일은 지운다.
+ */
+@ResponseStatus(HttpStatus.PAYLOAD_TOO_LARGE)
+public class MultipartLimitExceededException extends RuntimeException {
+
+    public MultipartLimitExceededException(String what, long limit) {
+        super(what + " exceeds " + limit);
+    }
+}
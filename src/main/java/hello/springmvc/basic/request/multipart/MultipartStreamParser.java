@@ -0,0 +1,347 @@
+package hello.springmvc.basic.request.multipart;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * multipart/form-data 바디를 InputStream 에서 조금씩 읽으면서 파트 단위로 나누는 파서
+ *
+ * 버퍼 하나(buffer)만 쓰고 파트 바디는 읽는 대로 ChunkSink 에 넘기기 때문에
+ * 바디 크기와 상관없이 메모리는 버퍼 크기로 고정된다.
+ *
+ * 파트 바디에서 "\r\n--boundary" 를 Boyer-Moore-Horspool 로 찾는다.
+ * 구분자 길이만큼 건너뛰면서 보기 때문에 큰 파일에서는 바이트를 거의 다 보지 않고 넘어간다.
+ * 버퍼 끝에 구분자 앞부분만 걸쳐 있을 수 있으므로 (구분자 길이 - 1) 바이트는 남겨두고 다음 읽기와 이어서 찾는다.
+ *
+ * 사용법 : nextPart() 로 헤더를 읽고 readBody() 로 바디를 넘겨받는다. nextPart() 가 null 이면 끝이다.
+ */
+public class MultipartStreamParser {
+
+    /**
+     * 파트 바디를 받는 쪽. bytes 는 호출이 끝나면 다시 쓰이므로 복사해야 한다.
+     */
+    @FunctionalInterface
+    public interface ChunkSink {
+        void write(byte[] bytes, int offset, int length) throws IOException;
+    }
+
+    private static final ChunkSink DISCARD = (bytes, offset, length) -> {
+    };
+
+    private final InputStream in;
+    private final byte[] buffer;
+    private final byte[] delimiter;
+    private final int[] skip = new int[256];
+    private final int maxHeaderBytes;
+    private final Charset headerCharset;
+
+    private int position;
+    private int limit;
+    private long bytesRead;
+    private boolean bodyPending;
+    private boolean finished;
+
+    /**
+     * @param buffer maxHeaderBytes + boundary 길이보다 커야 한다.
+     */
+    public MultipartStreamParser(InputStream in, String boundary, byte[] buffer, int maxHeaderBytes, Charset headerCharset) {
+        if (buffer.length < maxHeaderBytes + boundary.length() + 8) {
+            throw new IllegalArgumentException("buffer is smaller than max header bytes + boundary");
+        }
+        this.in = in;
+        this.buffer = buffer;
+        this.delimiter = ("\r\n--" + boundary).getBytes(StandardCharsets.ISO_8859_1);
+        this.maxHeaderBytes = maxHeaderBytes;
+        this.headerCharset = headerCharset;
+
+        for (int i = 0; i < skip.length; i++) {
+            skip[i] = delimiter.length;
+        }
+        for (int i = 0; i < delimiter.length - 1; i++) {
+            skip[delimiter[i] & 0xff] = delimiter.length - 1 - i;
+        }
+
+        // 첫 boundary 앞에는 CRLF 가 없으므로 있는 것처럼 넣어두고 구분자 찾기를 똑같이 한다.
+        buffer[0] = '\r';
+        buffer[1] = '\n';
+        limit = 2;
+        bodyPending = true;
+    }
+
+    /**
+     * Content-Type 헤더의 boundary 파라미터
+     */
+    public static String boundary(String contentType) {
+        if (contentType != null) {
+            for (String parameter : contentType.split(";")) {
+                String trimmed = parameter.trim();
+                if (trimmed.regionMatches(true, 0, "boundary=", 0, 9)) {
+                    String boundary = trimmed.substring(9);
+                    if (boundary.length() >= 2 && boundary.startsWith("\"") && boundary.endsWith("\"")) {
+                        boundary = boundary.substring(1, boundary.length() - 1);
+                    }
+                    if (!boundary.isEmpty() && boundary.length() <= 70) {
+                        return boundary;
+                    }
+                }
+            }
+        }
+        throw new MalformedMultipartException("missing or invalid multipart boundary");
+    }
+
+    /**
+     * 다음 파트의 헤더를 읽는다. 앞 파트의 바디를 다 읽지 않았으면 버린다.
+     *
+     * @return 마지막 boundary(--boundary--) 를 만나면 null
+     */
+    public Part nextPart() throws IOException {
+        if (finished) {
+            return null;
+        }
+        if (bodyPending) {
+            // 처음에는 preamble 을 건너뛴다. preamble 은 헤더 크기까지만 허용한다.
+            readBody(DISCARD, bytesRead == 0 ? maxHeaderBytes : Long.MAX_VALUE);
+        }
+
+        ensure(2);
+        if (buffer[position] == '-' && buffer[position + 1] == '-') {
+            finished = true;
+            return null;
+        }
+        while (buffer[position] == ' ' || buffer[position] == '\t') {
+            position++;
+            ensure(2);
+        }
+        if (buffer[position] != '\r' || buffer[position + 1] != '\n') {
+            throw new MalformedMultipartException("expected CRLF after boundary");
+        }
+        position += 2;
+
+        Part part = readHeaders();
+        bodyPending = true;
+        return part;
+    }
+
+    /**
+     * 현재 파트의 바디를 다음 구분자 전까지 sink 로 넘긴다.
+     *
+     * @return 바디 바이트 수
+     * @throws MultipartLimitExceededException 바디가 maxBytes 를 넘으면 (넘기 전까지의 바이트만 sink 로 넘어간다.)
+     */
+    public long readBody(ChunkSink sink, long maxBytes) throws IOException {
+        if (!bodyPending) {
+            throw new IllegalStateException("no part body to read");
+        }
+        long size = 0;
+        while (true) {
+            int found = indexOfDelimiter(position, limit);
+            int end = found >= 0 ? found : Math.max(position, limit - (delimiter.length - 1));
+            int length = end - position;
+            if (length > 0) {
+                if (size + length > maxBytes) {
+                    throw new MultipartLimitExceededException("multipart part", maxBytes);
+                }
+                sink.write(buffer, position, length);
+                size += length;
+                position = end;
+            }
+            if (found >= 0) {
+                position = found + delimiter.length;
+                bodyPending = false;
+                return size;
+            }
+            if (!fill()) {
+                throw new MalformedMultipartException("multipart body ended before closing boundary");
+            }
+        }
+    }
+
+    public long getBytesRead() {
+        return bytesRead;
+    }
+
+    private Part readHeaders() throws IOException {
+        int end;
+        while ((end = indexOfHeaderEnd()) < 0) {
+            if (limit - position >= maxHeaderBytes) {
+                throw new MultipartLimitExceededException("multipart part headers", maxHeaderBytes);
+            }
+            if (!fill()) {
+                throw new MalformedMultipartException("multipart body ended in part headers");
+            }
+        }
+        if (end - position > maxHeaderBytes) {
+            throw new MultipartLimitExceededException("multipart part headers", maxHeaderBytes);
+        }
+
+        String name = null;
+        String filename = null;
+        String contentType = null;
+        for (String line : new String(buffer, position, end - position, headerCharset).split("\r\n")) {
+            int colon = line.indexOf(':');
+            if (colon <= 0) {
+                continue;
+            }
+            String header = line.substring(0, colon).trim();
+            String value = line.substring(colon + 1).trim();
+            if (header.equalsIgnoreCase("Content-Disposition")) {
+                name = parameter(value, "name");
+                filename = parameter(value, "filename");
+            } else if (header.equalsIgnoreCase("Content-Type")) {
+                contentType = value;
+            }
+        }
+        // 헤더 끝의 빈 줄(CRLF CRLF)까지 넘긴다. 헤더가 하나도 없으면 CRLF 하나뿐이다.
+        position = end + (end == position ? 2 : 4);
+        if (name == null) {
+            throw new MalformedMultipartException("multipart part without content-disposition name");
+        }
+        return new Part(name, filename, contentType);
+    }
+
+    /**
+     * 헤더 블록 끝(CRLF CRLF)의 시작 위치. 헤더가 없는 파트는 바로 CRLF 이므로 position 을 돌려준다.
+     */
+    private int indexOfHeaderEnd() {
+        if (limit - position >= 2 && buffer[position] == '\r' && buffer[position + 1] == '\n') {
+            return position;
+        }
+        for (int i = position; i + 3 < limit; i++) {
+            if (buffer[i] == '\r' && buffer[i + 1] == '\n' && buffer[i + 2] == '\r' && buffer[i + 3] == '\n') {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private int indexOfDelimiter(int from, int to) {
+        int last = delimiter.length - 1;
+        byte lastByte = delimiter[last];
+        int i = from;
+        while (i + last < to) {
+            byte b = buffer[i + last];
+            if (b == lastByte && matches(i)) {
+                return i;
+            }
+            i += skip[b & 0xff];
+        }
+        return -1;
+    }
+
+    private boolean matches(int at) {
+        for (int j = 0; j < delimiter.length - 1; j++) {
+            if (buffer[at + j] != delimiter[j]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void ensure(int bytes) throws IOException {
+        while (limit - position < bytes) {
+            if (!fill()) {
+                throw new MalformedMultipartException("multipart body ended unexpectedly");
+            }
+        }
+    }
+
+    /**
+     * 남은 바이트를 버퍼 앞으로 옮기고 뒤를 채운다.
+     *
+     * @return 더 읽을 것이 없으면 false
+     */
+    private boolean fill() throws IOException {
+        if (position > 0) {
+            System.arraycopy(buffer, position, buffer, 0, limit - position);
+            limit -= position;
+            position = 0;
+        }
+        int read = in.read(buffer, limit, buffer.length - limit);
+        if (read < 0) {
+            return false;
+        }
+        limit += read;
+        bytesRead += read;
+        return true;
+    }
+
+    /**
+     * form-data; name="..."; filename="..." 의 파라미터 값. 따옴표 안의 \" 와 \\ 를 풀어준다.
+     */
+    static String parameter(String disposition, String name) {
+        int i = 0;
+        int length = disposition.length();
+        while (i < length) {
+            int semicolon = disposition.indexOf(';', i);
+            if (semicolon < 0) {
+                return null;
+            }
+            i = semicolon + 1;
+            while (i < length && disposition.charAt(i) == ' ') {
+                i++;
+            }
+            int equals = disposition.indexOf('=', i);
+            if (equals < 0) {
+                return null;
+            }
+            String key = disposition.substring(i, equals).trim();
+            i = equals + 1;
+            String value;
+            if (i < length && disposition.charAt(i) == '"') {
+                StringBuilder quoted = new StringBuilder();
+                i++;
+                while (i < length && disposition.charAt(i) != '"') {
+                    char c = disposition.charAt(i);
+                    if (c == '\\' && i + 1 < length) {
+                        c = disposition.charAt(++i);
+                    }
+                    quoted.append(c);
+                    i++;
+                }
+                i++;
+                value = quoted.toString();
+            } else {
+                int next = disposition.indexOf(';', i);
+                value = disposition.substring(i, next < 0 ? length : next).trim();
+                i = next < 0 ? length : next;
+            }
+            if (key.equalsIgnoreCase(name)) {
+                return value;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 파트 헤더 중 쓰는 것만. filename 이 null 이면 일반 필드다.
+     */
+    public static final class Part {
+        private final String name;
+        private final String filename;
+        private final String contentType;
+
+        Part(String name, String filename, String contentType) {
+            this.name = name;
+            this.filename = filename;
+            this.contentType = contentType;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public String getFilename() {
+            return filename;
+        }
+
+        public String getContentType() {
+            return contentType;
+        }
+
+        public boolean isFile() {
+            return filename != null;
+        }
+    }
+}
@@ -0,0 +1,328 @@
+package hello.springmvc.basic.request.multipart;
+
+import hello.springmvc.basic.bind.BindingPlan;
+import hello.springmvc.basic.bind.BindingPlanRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.BeanUtils;
+import org.springframework.beans.MutablePropertyValues;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.validation.BindException;
+import org.springframework.validation.BindingResult;
+import org.springframework.web.bind.WebDataBinder;
+
+import javax.servlet.http.HttpServletRequest;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.Stream;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * multipart/form-data 요청을 MultipartResolver 없이 요청 InputStream 에서 바로 읽는다.
+ *
+ * 기본 MultipartResolver(StandardServletMultipartResolver)는 컨트롤러가 호출되기 전에 바디 전체를 읽어서
+ * 파트마다 메모리나 임시 파일에 담아두고, 컨트롤러에서 transferTo 로 한번 더 복사한다.
+ * 여기서는 MultipartStreamParser 로 boundary 를 찾아가며
+ *  - 일반 필드는 max-field-bytes 까지만 모아서 target 타입에 바인딩하고
+ *  - 파일 파트는 읽는 대로 FileChannel 로 upload 디렉터리에 바로 쓴다.
+ * 요청 하나가 쓰는 메모리는 읽기 버퍼(buffer-size) + 쓰기 버퍼(direct-buffer-size)로 고정된다.
+ *
+ * 서블릿 API 는 byte[] 로만 읽을 수 있어서 읽기 버퍼는 힙 버퍼이고,
+ * FileChannel 에는 direct 버퍼로 모아서 쓴다. (힙 버퍼를 넘기면 JDK 가 내부에서 임시 direct 버퍼로 한번 더 복사한다.)
+ * direct 버퍼는 pool-size 개까지만 만들고, 그보다 많은 요청이 동시에 들어오면 힙 버퍼를 쓴다.
+ *
+ * 한도를 넘거나 바디가 깨져 있으면 그때까지 저장한 파일은 지운다.
+ * 요청 전체 크기는 Content-Length 로 먼저 보고, 없거나 틀릴 수 있으니 읽으면서 parser.getBytesRead() 로 한번 더 본다.
+ *
+ * upload 디렉터리(/upload-standard 가 저장하는 파일 포함)는 retention-minutes 보다 오래된 파일을
+ * 시작할 때와 retention-minutes 마다 지운다. 0 이면 지우지 않는다.
+ */
+@Slf4j
+@Component
+public class StreamingMultipartReader implements DisposableBean {
+
+    private final Path directory;
+    private final int bufferSize;
+    private final int directBufferSize;
+    private final int poolSize;
+    private final long maxFieldBytes;
+    private final long maxFileBytes;
+    private final long maxRequestBytes;
+    private final int maxParts;
+    private final int maxHeaderBytes;
+    private final long retentionMillis;
+    private final ObjectProvider<BindingPlanRegistry> bindingPlans;
+
+    private final BlockingQueue<Buffers> pool;
+    private final AtomicInteger directBuffers = new AtomicInteger();
+    private final ScheduledExecutorService cleaner;
+
+    public StreamingMultipartReader(@Value("${springmvc.upload.directory:${java.io.tmpdir}/springmvc-uploads}") String directory,
+                                    @Value("${springmvc.upload.buffer-size:65536}") int bufferSize,
+                                    @Value("${springmvc.upload.direct-buffer-size:262144}") int directBufferSize,
+                                    @Value("${springmvc.upload.pool-size:32}") int poolSize,
+                                    @Value("${springmvc.upload.max-field-bytes:65536}") long maxFieldBytes,
+                                    @Value("${springmvc.upload.max-file-bytes:104857600}") long maxFileBytes,
+                                    @Value("${springmvc.upload.max-request-bytes:209715200}") long maxRequestBytes,
+                                    @Value("${springmvc.upload.max-parts:32}") int maxParts,
+                                    @Value("${springmvc.upload.max-header-bytes:8192}") int maxHeaderBytes,
+                                    @Value("${springmvc.upload.retention-minutes:60}") long retentionMinutes,
+                                    ObjectProvider<BindingPlanRegistry> bindingPlans) throws IOException {
+        this.directory = Files.createDirectories(Paths.get(directory));
+        this.bufferSize = Math.max(bufferSize, maxHeaderBytes + 256);
+        this.directBufferSize = directBufferSize;
+        this.poolSize = poolSize;
+        this.maxFieldBytes = maxFieldBytes;
+        this.maxFileBytes = maxFileBytes;
+        this.maxRequestBytes = maxRequestBytes;
+        this.maxParts = maxParts;
+        this.maxHeaderBytes = maxHeaderBytes;
+        this.retentionMillis = TimeUnit.MINUTES.toMillis(retentionMinutes);
+        this.bindingPlans = bindingPlans;
+        this.pool = new ArrayBlockingQueue<>(poolSize);
+
+        if (retentionMinutes > 0) {
+            this.cleaner = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "upload-cleaner");
+                thread.setDaemon(true);
+                return thread;
+            });
+            cleaner.scheduleWithFixedDelay(this::deleteExpired, 0, retentionMinutes, TimeUnit.MINUTES);
+        } else {
+            this.cleaner = null;
+        }
+    }
+
+    public <T> StreamingMultipartResult<T> read(HttpServletRequest request, Class<T> type) throws IOException, BindException {
+        String boundary = MultipartStreamParser.boundary(request.getContentType());
+        String encoding = request.getCharacterEncoding();
+        Charset charset = encoding != null ? Charset.forName(encoding) : StandardCharsets.UTF_8;
+        if (request.getContentLengthLong() > maxRequestBytes) {
+            throw new MultipartLimitExceededException("multipart request", maxRequestBytes);
+        }
+
+        long start = System.nanoTime();
+        Buffers buffers = acquire();
+        List<UploadedFile> files = new ArrayList<>();
+        boolean completed = false;
+        try {
+            MultipartStreamParser parser = new MultipartStreamParser(
+                    request.getInputStream(), boundary, buffers.read, maxHeaderBytes, charset);
+            Map<String, String[]> fields = new LinkedHashMap<>();
+            ByteArrayOutputStream field = new ByteArrayOutputStream();
+
+            int parts = 0;
+            MultipartStreamParser.Part part;
+            while ((part = parser.nextPart()) != null) {
+                checkRequestBytes(parser);
+                if (++parts > maxParts) {
+                    throw new MultipartLimitExceededException("multipart parts", maxParts);
+                }
+                if (part.isFile()) {
+                    // 파일을 고르지 않은 <input type="file"> 은 filename="" 인 빈 파트로 온다.
+                    if (!part.getFilename().isEmpty()) {
+                        files.add(writeFile(parser, part, buffers.write));
+                    }
+                    continue;
+                }
+                field.reset();
+                parser.readBody(field::write, maxFieldBytes);
+                checkRequestBytes(parser);
+                fields.merge(part.getName(), new String[]{field.toString(charset)}, StreamingMultipartReader::append);
+            }
+
+            T target = bind(type, fields);
+            completed = true;
+            StreamingMultipartResult<T> result =
+                    new StreamingMultipartResult<>(target, files, parser.getBytesRead(), System.nanoTime() - start);
+            log.debug("stream multipart files={}, bytes={}, bytesPerSecond={}",
+                    files.size(), result.getBytes(), result.getBytesPerSecond());
+            return result;
+        } finally {
+            release(buffers);
+            if (!completed) {
+                files.forEach(this::delete);
+            }
+        }
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    /**
+     * upload 디렉터리에서 retention 보다 오래된 파일을 지운다.
+     *
+     * @return 지운 파일 수
+     */
+    int deleteExpired() {
+        FileTime cutoff = FileTime.fromMillis(System.currentTimeMillis() - retentionMillis);
+        int deleted = 0;
+        try (Stream<Path> paths = Files.list(directory)) {
+            for (Path path : (Iterable<Path>) paths::iterator) {
+                try {
+                    if (Files.isRegularFile(path) && Files.getLastModifiedTime(path).compareTo(cutoff) < 0
+                            && Files.deleteIfExists(path)) {
+                        deleted++;
+                    }
+                } catch (IOException e) {
+                    log.warn("failed to delete expired upload {}", path, e);
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            log.warn("failed to clean upload directory {}", directory, e);
+        }
+        if (deleted > 0) {
+            log.info("deleted {} uploads older than {}min from {}", deleted, TimeUnit.MILLISECONDS.toMinutes(retentionMillis), directory);
+        }
+        return deleted;
+    }
+
+    @Override
+    public void destroy() {
+        if (cleaner != null) {
+            cleaner.shutdownNow();
+        }
+    }
+
+    private UploadedFile writeFile(MultipartStreamParser parser, MultipartStreamParser.Part part, ByteBuffer buffer) throws IOException {
+        String storedAs = UUID.randomUUID().toString();
+        Path path = directory.resolve(storedAs);
+        boolean written = false;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+            buffer.clear();
+            long size = parser.readBody((bytes, offset, length) -> {
+                while (length > 0) {
+                    int chunk = Math.min(length, buffer.remaining());
+                    buffer.put(bytes, offset, chunk);
+                    offset += chunk;
+                    length -= chunk;
+                    if (!buffer.hasRemaining()) {
+                        flush(channel, buffer);
+                    }
+                }
+                checkRequestBytes(parser);
+            }, maxFileBytes);
+            flush(channel, buffer);
+            written = true;
+            return new UploadedFile(part.getName(), filename(part.getFilename()), part.getContentType(), size, storedAs);
+        } finally {
+            if (!written) {
+                Files.deleteIfExists(path);
+            }
+        }
+    }
+
+    private void checkRequestBytes(MultipartStreamParser parser) {
+        if (parser.getBytesRead() > maxRequestBytes) {
+            throw new MultipartLimitExceededException("multipart request", maxRequestBytes);
+        }
+    }
+
+    private static void flush(FileChannel channel, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    /**
+     * BindingPlan 으로 바인딩하고, 쓸 수 없거나 변환에 실패하면 WebDataBinder 로 다시 바인딩해서 오류를 만든다.
+     */
+    private <T> T bind(Class<T> type, Map<String, String[]> fields) throws BindException {
+        BindingPlanRegistry registry = bindingPlans.getIfAvailable();
+        BindingPlan<T> plan = registry != null ? registry.plan(type) : null;
+        if (plan != null) {
+            T target = plan.bind(fields);
+            if (target != null) {
+                return target;
+            }
+        }
+
+        T target = BeanUtils.instantiateClass(type);
+        WebDataBinder binder = new WebDataBinder(target, "target");
+        binder.bind(new MutablePropertyValues(fields));
+        BindingResult result = binder.getBindingResult();
+        if (result.hasErrors()) {
+            throw new BindException(result);
+        }
+        return target;
+    }
+
+    /**
+     * 클라이언트가 보낸 filename 은 경로를 뗀 이름만 결과에 남긴다.
+     */
+    private static String filename(String filename) {
+        int slash = Math.max(filename.lastIndexOf('/'), filename.lastIndexOf('\\'));
+        return slash >= 0 ? filename.substring(slash + 1) : filename;
+    }
+
+    private static String[] append(String[] values, String[] value) {
+        String[] merged = new String[values.length + 1];
+        System.arraycopy(values, 0, merged, 0, values.length);
+        merged[values.length] = value[0];
+        return merged;
+    }
+
+    private void delete(UploadedFile file) {
+        try {
+            Files.deleteIfExists(directory.resolve(file.getStoredAs()));
+        } catch (IOException e) {
+            log.warn("failed to delete upload {}", file.getStoredAs(), e);
+        }
+    }
+
+    private Buffers acquire() {
+        Buffers buffers = pool.poll();
+        if (buffers != null) {
+            return buffers;
+        }
+        boolean direct = directBuffers.getAndUpdate(count -> count < poolSize ? count + 1 : count) < poolSize;
+        return new Buffers(bufferSize, direct ? ByteBuffer.allocateDirect(directBufferSize) : ByteBuffer.allocate(directBufferSize));
+    }
+
+    /**
+     * direct 버퍼 묶음만 풀로 돌려놓는다. 힙 버퍼는 GC 에 맡긴다.
+     */
+    private void release(Buffers buffers) {
+        if (buffers.write.isDirect()) {
+            buffers.write.clear();
+            pool.offer(buffers);
+        }
+    }
+
+    /**
+     * 요청 하나가 쓰는 버퍼 묶음 (InputStream 읽기용 byte[], FileChannel 쓰기용 ByteBuffer)
+     */
+    private static class Buffers {
+        private final byte[] read;
+        private final ByteBuffer write;
+
+        Buffers(int bufferSize, ByteBuffer write) {
+            this.read = new byte[bufferSize];
+            this.write = write;
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package hello.springmvc.basic.request.multipart;
+
+import lombok.Value;
+
+import java.util.List;
+
+/**
+ * 스트리밍으로 읽은 multipart 요청 하나에 대한 결과
+ * target 은 일반 필드를 바인딩한 객체, bytes 는 읽은 바디 전체 바이트 수다.
+ */
+@Value
+public class StreamingMultipartResult<T> {
+    T target;
+    List<UploadedFile> files;
+    long bytes;
+    long elapsedNanos;
+
+    public long getBytesPerSecond() {
+        return elapsedNanos == 0 ? 0 : (long) (bytes * 1_000_000_000d / elapsedNanos);
+    }
+}
@@ -0,0 +1,16 @@
+package hello.springmvc.basic.request.multipart;
+
+import lombok.Value;
+
+/**
+ * 디스크에 저장한 파일 파트 하나
+ * storedAs 는 업로드 디렉터리 안의 파일 이름이다. (클라이언트가 보낸 filename 은 경로로 쓰지 않는다.)
+ */
+@Value
+public class UploadedFile {
+    String name;
+    String filename;
+    String contentType;
+    long size;
+    String storedAs;
+}
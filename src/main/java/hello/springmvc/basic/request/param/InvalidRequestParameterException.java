@@ -0,0 +1,15 @@
+package hello.springmvc.basic.request.param;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * @RequestParam 변환 실패처럼 필수 파라미터가 없거나 형식이 맞지 않으면 400 으로 응답한다.
+ */
+@ResponseStatus(HttpStatus.BAD_REQUEST)
+public class InvalidRequestParameterException extends RuntimeException {
+
+    public InvalidRequestParameterException(String name, String reason) {
+        super("request parameter '" + name + "' " + reason);
+    }
+}
@@ -0,0 +1,334 @@
+package hello.springmvc.basic.request.param;
+
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 쿼리 스트링과 폼 바디(application/x-www-form-urlencoded)를 필요할 때 파싱하는 요청 파라미터
+ *
+ * request.getParameter 는 처음 호출될 때 모든 파라미터를 디코딩해서 이름마다 String 배열을 만든다.
+ * 여기서는 처음 조회할 때 '&' 와 '=' 위치만 int 배열에 기록해두고
+ * 값은 꺼낼 때 원본에서 바로 읽는다.
+ *  - 이름 비교는 원본 문자와 직접 비교하기 때문에 이름 String 을 만들지 않는다.
+ *  - getInt 는 숫자를 원본에서 바로 읽기 때문에 값 String 도 만들지 않는다.
+ *  - names() 로 이름을 꺼낼 때 자주 쓰는 이름(username, age)은 미리 만들어둔 String 을 그대로 돌려준다.
+ *
+ * 원본은 바이트 배열이다. 폼 바디는 요청에서 읽은 버퍼를 그대로 쓰고 (String 이나 사본을 만들지 않는다.)
+ * 쿼리 스트링만 ISO-8859-1 바이트로 바꾼다. (쿼리는 인코딩되기 전이라 문자 하나가 바이트 하나다.)
+ * 값은 원본 바이트에서 바로 charset 으로 디코딩하고, 퍼센트 인코딩이나 '+' 가 들어있으면 풀어서 디코딩한다.
+ * 같은 이름이 쿼리와 바디에 모두 있으면 서블릿 스펙처럼 쿼리 쪽이 먼저다.
+ */
+public final class LazyRequestParameters {
+
+    private static final String[] KNOWN_KEYS = {"username", "age"};
+    private static final int FIELDS = 5;
+
+    private final byte[][] sources;
+    private final int[] lengths;
+    private final Charset charset;
+
+    /**
+     * 파라미터 하나마다 source, keyStart, keyEnd, valueStart, valueEnd
+     * valueStart == -1 이면 '=' 없이 이름만 있는 파라미터
+     */
+    private int[] index;
+    private int count = -1;
+
+    private LazyRequestParameters(byte[] query, byte[] form, int formLength, Charset charset) {
+        this.sources = new byte[][]{query, form};
+        this.lengths = new int[]{query != null ? query.length : 0, formLength};
+        this.charset = charset;
+    }
+
+    /**
+     * @param query 쿼리 스트링 ('?' 뒤), 없으면 null
+     * @param form 폼 바디 바이트, 없으면 null
+     * @param charset 퍼센트 인코딩된 값을 디코딩할 문자셋
+     */
+    public static LazyRequestParameters of(String query, byte[] form, Charset charset) {
+        return of(query, form, form != null ? form.length : 0, charset);
+    }
+
+    /**
+     * @param form 폼 바디를 읽은 버퍼, 앞에서부터 formLength 바이트만 쓴다. 없으면 null
+     */
+    public static LazyRequestParameters of(String query, byte[] form, int formLength, Charset charset) {
+        byte[] querySource = query != null ? query.getBytes(StandardCharsets.ISO_8859_1) : null;
+        return new LazyRequestParameters(querySource, form, formLength, charset);
+    }
+
+    public boolean contains(String name) {
+        return find(name) >= 0;
+    }
+
+    /**
+     * @return 디코딩된 첫번째 값, 없으면 null. '=' 없이 이름만 있으면 ""
+     */
+    public String get(String name) {
+        int entry = find(name);
+        return entry < 0 ? null : value(entry);
+    }
+
+    public String get(String name, String defaultValue) {
+        String value = get(name);
+        return value != null ? value : defaultValue;
+    }
+
+    public List<String> getAll(String name) {
+        ensureIndexed();
+        List<String> values = new ArrayList<>(1);
+        for (int entry = 0; entry < count; entry++) {
+            if (keyEquals(entry, name)) {
+                values.add(value(entry));
+            }
+        }
+        return values;
+    }
+
+    /**
+     * 값을 String 으로 만들지 않고 바로 int 로 읽는다.
+     * @throws InvalidRequestParameterException 파라미터가 없거나 숫자가 아니면 (400)
+     */
+    public int getInt(String name) {
+        int entry = find(name);
+        if (entry < 0) {
+            throw new InvalidRequestParameterException(name, "is required");
+        }
+        return parseInt(entry, name);
+    }
+
+    public int getInt(String name, int defaultValue) {
+        int entry = find(name);
+        if (entry < 0 || valueLength(entry) == 0) {
+            return defaultValue;
+        }
+        return parseInt(entry, name);
+    }
+
+    /**
+     * 파라미터 이름들 (중복 제거, 나온 순서)
+     */
+    public List<String> names() {
+        ensureIndexed();
+        if (count == 0) {
+            return Collections.emptyList();
+        }
+        List<String> names = new ArrayList<>(count);
+        for (int entry = 0; entry < count; entry++) {
+            String name = key(entry);
+            if (!names.contains(name)) {
+                names.add(name);
+            }
+        }
+        return names;
+    }
+
+    public int size() {
+        ensureIndexed();
+        return count;
+    }
+
+    private int find(String name) {
+        ensureIndexed();
+        for (int entry = 0; entry < count; entry++) {
+            if (keyEquals(entry, name)) {
+                return entry;
+            }
+        }
+        return -1;
+    }
+
+    private void ensureIndexed() {
+        if (count >= 0) {
+            return;
+        }
+        index = new int[FIELDS * 4];
+        count = 0;
+        for (int source = 0; source < sources.length; source++) {
+            byte[] bytes = sources[source];
+            if (bytes == null) {
+                continue;
+            }
+            int start = 0;
+            int length = lengths[source];
+            while (start < length) {
+                int end = indexOf(bytes, '&', start, length);
+                if (end > start) {
+                    int equals = indexOf(bytes, '=', start, end);
+                    if (equals == end) {
+                        add(source, start, end, -1, -1);
+                    } else {
+                        add(source, start, equals, equals + 1, end);
+                    }
+                }
+                start = end + 1;
+            }
+        }
+    }
+
+    /**
+     * @return from 부터 to 전까지에서 처음 나오는 c 의 위치, 없으면 to
+     */
+    private static int indexOf(byte[] bytes, char c, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (bytes[i] == c) {
+                return i;
+            }
+        }
+        return to;
+    }
+
+    private void add(int source, int keyStart, int keyEnd, int valueStart, int valueEnd) {
+        int offset = count * FIELDS;
+        if (offset + FIELDS > index.length) {
+            index = Arrays.copyOf(index, index.length * 2);
+        }
+        index[offset] = source;
+        index[offset + 1] = keyStart;
+        index[offset + 2] = keyEnd;
+        index[offset + 3] = valueStart;
+        index[offset + 4] = valueEnd;
+        count++;
+    }
+
+    /**
+     * 이름에 인코딩된 문자가 없으면 원본과 바로 비교하고 있으면 디코딩해서 비교한다.
+     */
+    private boolean keyEquals(int entry, String name) {
+        int offset = entry * FIELDS;
+        byte[] source = sources[index[offset]];
+        int start = index[offset + 1];
+        int end = index[offset + 2];
+        if (!needsDecoding(source, start, end) && isAscii(source, start, end)) {
+            return regionMatches(source, start, end, name);
+        }
+        return name.equals(decode(source, start, end));
+    }
+
+    private String key(int entry) {
+        int offset = entry * FIELDS;
+        byte[] source = sources[index[offset]];
+        int start = index[offset + 1];
+        int end = index[offset + 2];
+        if (!needsDecoding(source, start, end)) {
+            for (String known : KNOWN_KEYS) {
+                if (regionMatches(source, start, end, known)) {
+                    return known;
+                }
+            }
+        }
+        return decode(source, start, end);
+    }
+
+    private String value(int entry) {
+        int offset = entry * FIELDS;
+        if (index[offset + 3] < 0) {
+            return "";
+        }
+        return decode(sources[index[offset]], index[offset + 3], index[offset + 4]);
+    }
+
+    private int valueLength(int entry) {
+        int offset = entry * FIELDS;
+        return index[offset + 3] < 0 ? 0 : index[offset + 4] - index[offset + 3];
+    }
+
+    /**
+     * [-]숫자 형태면 원본에서 바로 읽고, 인코딩된 문자가 있거나 자리수가 많으면 디코딩해서 Integer.parseInt 로 넘긴다.
+     */
+    private int parseInt(int entry, String name) {
+        int offset = entry * FIELDS;
+        byte[] source = sources[index[offset]];
+        int start = index[offset + 3];
+        int end = index[offset + 4];
+        if (start >= 0 && end > start && !needsDecoding(source, start, end)) {
+            boolean negative = source[start] == '-';
+            int digitsStart = negative ? start + 1 : start;
+            if (end > digitsStart && end - digitsStart <= 9) {
+                int value = 0;
+                int i = digitsStart;
+                for (; i < end; i++) {
+                    byte c = source[i];
+                    if (c < '0' || c > '9') {
+                        break;
+                    }
+                    value = value * 10 + (c - '0');
+                }
+                if (i == end) {
+                    return negative ? -value : value;
+                }
+            }
+        }
+        String value = value(entry);
+        try {
+            return Integer.parseInt(value.trim());
+        } catch (NumberFormatException e) {
+            throw new InvalidRequestParameterException(name, "is not a number: " + value);
+        }
+    }
+
+    private static boolean needsDecoding(byte[] source, int start, int end) {
+        for (int i = start; i < end; i++) {
+            byte c = source[i];
+            if (c == '%' || c == '+') {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 인코딩된 문자가 없으면 원본 범위를 바로 디코딩하고, 있으면 풀어낸 바이트를 디코딩한다.
+     */
+    private String decode(byte[] source, int start, int end) {
+        if (!needsDecoding(source, start, end)) {
+            return new String(source, start, end - start, charset);
+        }
+        byte[] bytes = new byte[end - start];
+        int length = 0;
+        for (int i = start; i < end; i++) {
+            byte c = source[i];
+            if (c == '+') {
+                bytes[length++] = ' ';
+            } else if (c == '%' && i + 2 < end && hex(source[i + 1]) >= 0 && hex(source[i + 2]) >= 0) {
+                bytes[length++] = (byte) ((hex(source[i + 1]) << 4) | hex(source[i + 2]));
+                i += 2;
+            } else {
+                bytes[length++] = c;
+            }
+        }
+        return new String(bytes, 0, length, charset);
+    }
+
+    private static int hex(byte c) {
+        return Character.digit(c, 16);
+    }
+
+    private static boolean isAscii(byte[] source, int start, int end) {
+        for (int i = start; i < end; i++) {
+            if (source[i] < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * ASCII 범위의 원본 바이트와 name 을 String 을 만들지 않고 비교한다.
+     */
+    private static boolean regionMatches(byte[] source, int start, int end, String name) {
+        if (end - start != name.length()) {
+            return false;
+        }
+        for (int i = start; i < end; i++) {
+            if (source[i] != name.charAt(i - start)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,80 @@
+package hello.springmvc.basic.request.param;
+
+import hello.springmvc.basic.request.stream.RequestBodyTooLargeException;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.support.WebDataBinderFactory;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.method.support.HandlerMethodArgumentResolver;
+import org.springframework.web.method.support.ModelAndViewContainer;
+
+import javax.servlet.http.HttpServletRequest;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * LazyRequestParameters 타입의 핸들러 파라미터를 만들어준다.
+ *
+ * 폼 바디는 컨테이너가 파싱하기 전에 InputStream 에서 직접 읽는다.
+ * 그래서 같은 요청에서 request.getParameter 로 바디 파라미터를 다시 조회할 수는 없다.
+ *
+ * Content-Length 가 있으면 그 크기의 배열 하나에 바로 읽고, 없으면 늘려가며 읽은 배열을 자르지 않고
+ * 읽은 길이와 함께 LazyRequestParameters 에 넘긴다. (바디를 String 이나 다른 배열로 다시 복사하지 않는다.)
+ */
+public class LazyRequestParametersArgumentResolver implements HandlerMethodArgumentResolver {
+
+    private static final String FORM = MediaType.APPLICATION_FORM_URLENCODED_VALUE;
+    private static final int INITIAL_BUFFER_SIZE = 1024;
+
+    private final long maxFormBytes;
+
+    public LazyRequestParametersArgumentResolver(long maxFormBytes) {
+        this.maxFormBytes = maxFormBytes;
+    }
+
+    @Override
+    public boolean supportsParameter(MethodParameter parameter) {
+        return LazyRequestParameters.class == parameter.getParameterType();
+    }
+
+    @Override
+    public Object resolveArgument(MethodParameter parameter, ModelAndViewContainer mavContainer,
+                                  NativeWebRequest webRequest, WebDataBinderFactory binderFactory) throws IOException {
+        HttpServletRequest request = webRequest.getNativeRequest(HttpServletRequest.class);
+        String encoding = request.getCharacterEncoding();
+        Charset charset = encoding != null ? Charset.forName(encoding) : StandardCharsets.UTF_8;
+        String contentType = request.getContentType();
+        if (contentType == null || "GET".equals(request.getMethod())
+                || !contentType.regionMatches(true, 0, FORM, 0, FORM.length())) {
+            return LazyRequestParameters.of(request.getQueryString(), null, charset);
+        }
+
+        long contentLength = request.getContentLengthLong();
+        if (contentLength > maxFormBytes) {
+            throw new RequestBodyTooLargeException(maxFormBytes);
+        }
+        byte[] form = new byte[contentLength >= 0 ? (int) contentLength : INITIAL_BUFFER_SIZE];
+        int length = 0;
+        InputStream in = request.getInputStream();
+        while (true) {
+            if (length == form.length) {
+                if (contentLength >= 0 || length > maxFormBytes) {
+                    break;
+                }
+                form = Arrays.copyOf(form, (int) Math.min(form.length * 2L, maxFormBytes + 1));
+            }
+            int read = in.read(form, length, form.length - length);
+            if (read < 0) {
+                break;
+            }
+            length += read;
+        }
+        if (length > maxFormBytes) {
+            throw new RequestBodyTooLargeException(maxFormBytes);
+        }
+        return LazyRequestParameters.of(request.getQueryString(), form, length, charset);
+    }
+}
@@ -0,0 +1,27 @@
+package hello.springmvc.basic.request.param;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.method.support.HandlerMethodArgumentResolver;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.List;
+
+/**
+ * 핸들러 메서드에서 LazyRequestParameters 를 파라미터로 받을 수 있게 한다.
+ * 폼 바디 최대 크기는 톰캣 기본값(server.tomcat.max-http-form-post-size)과 같이 2MB 로 둔다.
+ */
+@Configuration
+public class LazyRequestParametersConfig implements WebMvcConfigurer {
+
+    private final long maxFormBytes;
+
+    public LazyRequestParametersConfig(@Value("${springmvc.request-param.lazy.max-form-bytes:2097152}") long maxFormBytes) {
+        this.maxFormBytes = maxFormBytes;
+    }
+
+    @Override
+    public void addArgumentResolvers(List<HandlerMethodArgumentResolver> resolvers) {
+        resolvers.add(new LazyRequestParametersArgumentResolver(maxFormBytes));
+    }
+}
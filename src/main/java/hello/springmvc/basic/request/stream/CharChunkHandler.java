@@ -0,0 +1,14 @@
+package hello.springmvc.basic.request.stream;
+
+import java.io.IOException;
+import java.nio.CharBuffer;
+
+/**
+ * 디코딩된 메시지 바디를 조각 단위로 받아서 처리한다.
+ * 넘어오는 CharBuffer 는 풀에서 재사용되는 버퍼라서 메서드가 끝난 뒤에는 참조하면 안된다.
+ */
+@FunctionalInterface
+public interface CharChunkHandler {
+
+    void onChunk(CharBuffer chunk) throws IOException;
+}
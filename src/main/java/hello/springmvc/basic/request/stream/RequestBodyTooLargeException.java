@@ -0,0 +1,15 @@
+package hello.springmvc.basic.request.stream;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * 설정된 최대 바디 크기를 넘으면 413 으로 응답한다.
+ */
+@ResponseStatus(HttpStatus.PAYLOAD_TOO_LARGE)
+public class RequestBodyTooLargeException extends RuntimeException {
+
+    public RequestBodyTooLargeException(long maxBytes) {
+        super("request body exceeds " + maxBytes + " bytes");
+    }
+}
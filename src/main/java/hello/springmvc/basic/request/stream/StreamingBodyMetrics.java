@@ -0,0 +1,42 @@
+package hello.springmvc.basic.request.stream;
+
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 스트리밍 바디 읽기 누적 통계
+ * 요청 스레드끼리 경합하지 않도록 LongAdder 로 집계한다.
+ */
+@Component
+public class StreamingBodyMetrics {
+
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder bytes = new LongAdder();
+    private final LongAdder elapsedNanos = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+
+    void record(StreamingBodyResult result) {
+        requests.increment();
+        bytes.add(result.getBytes());
+        elapsedNanos.add(result.getElapsedNanos());
+    }
+
+    void recordRejected() {
+        rejected.increment();
+    }
+
+    public Map<String, Long> snapshot() {
+        long totalBytes = bytes.sum();
+        long totalNanos = elapsedNanos.sum();
+
+        Map<String, Long> snapshot = new LinkedHashMap<>();
+        snapshot.put("requests", requests.sum());
+        snapshot.put("bytes", totalBytes);
+        snapshot.put("rejected", rejected.sum());
+        snapshot.put("bytesPerSecond", totalNanos == 0 ? 0 : (long) (totalBytes * 1_000_000_000d / totalNanos));
+        return snapshot;
+    }
+}
@@ -0,0 +1,161 @@
+package hello.springmvc.basic.request.stream;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.servlet.http.HttpServletRequest;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * 메시지 바디를 String 으로 한번에 복사하지 않고
+ * 고정 크기 버퍼로 조금씩 읽으면서 디코딩해서 CharChunkHandler 로 넘겨준다.
+ *
+ * StreamUtils.copyToString 은 바디 크기만큼 byte[] 과 char[] 을 만들지만
+ * 여기서는 요청 하나가 쓰는 메모리가 buffer-size 로 고정된다.
+ * 버퍼는 풀에서 꺼내 쓰고 돌려놓기 때문에 요청마다 새로 할당하지 않는다.
+ *
+ * 서블릿 API 는 InputStream(byte[] 읽기)만 제공하기 때문에
+ * direct 버퍼를 써도 복사가 한번 더 늘어날 뿐이라 힙 버퍼를 풀링한다.
+ */
+@Slf4j
+@Component
+public class StreamingBodyReader {
+
+    private final long maxBytes;
+    private final int bufferSize;
+    private final BlockingQueue<Buffers> pool;
+    private final StreamingBodyMetrics metrics;
+
+    public StreamingBodyReader(@Value("${springmvc.request-body.stream.max-bytes:10485760}") long maxBytes,
+                               @Value("${springmvc.request-body.stream.buffer-size:8192}") int bufferSize,
+                               @Value("${springmvc.request-body.stream.pool-size:64}") int poolSize,
+                               StreamingBodyMetrics metrics) {
+        this.maxBytes = maxBytes;
+        this.bufferSize = bufferSize;
+        this.pool = new ArrayBlockingQueue<>(poolSize);
+        this.metrics = metrics;
+    }
+
+    public StreamingBodyResult read(HttpServletRequest request, CharChunkHandler handler) throws IOException {
+        if (request.getContentLengthLong() > maxBytes) {
+            metrics.recordRejected();
+            throw new RequestBodyTooLargeException(maxBytes);
+        }
+
+        String encoding = request.getCharacterEncoding();
+        Charset charset = encoding != null ? Charset.forName(encoding) : StandardCharsets.UTF_8;
+        return read(request.getInputStream(), charset, handler);
+    }
+
+    public StreamingBodyResult read(InputStream inputStream, Charset charset, CharChunkHandler handler) throws IOException {
+        long start = System.nanoTime();
+        Buffers buffers = acquire();
+        try {
+            CharsetDecoder decoder = buffers.decoder(charset);
+            ByteBuffer bytes = buffers.bytes;
+            CharBuffer chars = buffers.chars;
+            long totalBytes = 0;
+            long totalChars = 0;
+
+            while (true) {
+                int read = inputStream.read(bytes.array(), bytes.position(), bytes.remaining());
+                boolean endOfInput = read < 0;
+                if (read > 0) {
+                    totalBytes += read;
+                    if (totalBytes > maxBytes) {
+                        metrics.recordRejected();
+                        throw new RequestBodyTooLargeException(maxBytes);
+                    }
+                    bytes.position(bytes.position() + read);
+                }
+
+                bytes.flip();
+                while (true) {
+                    CoderResult result = decoder.decode(bytes, chars, endOfInput);
+                    totalChars += emit(chars, handler);
+                    if (result.isUnderflow()) {
+                        break;
+                    }
+                }
+                bytes.compact();
+
+                if (endOfInput) {
+                    while (decoder.flush(chars).isOverflow()) {
+                        totalChars += emit(chars, handler);
+                    }
+                    totalChars += emit(chars, handler);
+                    break;
+                }
+            }
+
+            StreamingBodyResult result = new StreamingBodyResult(totalBytes, totalChars, System.nanoTime() - start);
+            metrics.record(result);
+            log.debug("stream body bytes={}, chars={}, bytesPerSecond={}",
+                    result.getBytes(), result.getChars(), result.getBytesPerSecond());
+            return result;
+        } finally {
+            release(buffers);
+        }
+    }
+
+    private long emit(CharBuffer chars, CharChunkHandler handler) throws IOException {
+        chars.flip();
+        int length = chars.remaining();
+        if (length > 0) {
+            handler.onChunk(chars);
+        }
+        chars.clear();
+        return length;
+    }
+
+    private Buffers acquire() {
+        Buffers buffers = pool.poll();
+        return buffers != null ? buffers : new Buffers(bufferSize);
+    }
+
+    private void release(Buffers buffers) {
+        buffers.bytes.clear();
+        buffers.chars.clear();
+        pool.offer(buffers);
+    }
+
+    /**
+     * 요청 하나가 쓰는 버퍼 묶음
+     * 바이트 버퍼와 문자 버퍼, UTF-8 디코더를 같이 풀링한다.
+     */
+    private static class Buffers {
+        private final ByteBuffer bytes;
+        private final CharBuffer chars;
+        private final CharsetDecoder utf8Decoder = newDecoder(StandardCharsets.UTF_8);
+
+        Buffers(int bufferSize) {
+            this.bytes = ByteBuffer.allocate(bufferSize);
+            this.chars = CharBuffer.allocate(bufferSize);
+        }
+
+        CharsetDecoder decoder(Charset charset) {
+            CharsetDecoder decoder = StandardCharsets.UTF_8.equals(charset) ? utf8Decoder : newDecoder(charset);
+            return decoder.reset();
+        }
+
+        /**
+         * copyToString 과 동일하게 잘못된 바이트는 대체 문자로 바꾼다.
+         */
+        private static CharsetDecoder newDecoder(Charset charset) {
+            return charset.newDecoder()
+                    .onMalformedInput(CodingErrorAction.REPLACE)
+                    .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        }
+    }
+}
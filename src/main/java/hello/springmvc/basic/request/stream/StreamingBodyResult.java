@@ -0,0 +1,17 @@
+package hello.springmvc.basic.request.stream;
+
+import lombok.Value;
+
+/**
+ * 스트리밍으로 읽은 바디 하나에 대한 결과
+ */
+@Value
+public class StreamingBodyResult {
+    long bytes;
+    long chars;
+    long elapsedNanos;
+
+    public long getBytesPerSecond() {
+        return elapsedNanos == 0 ? 0 : (long) (bytes * 1_000_000_000d / elapsedNanos);
+    }
+}
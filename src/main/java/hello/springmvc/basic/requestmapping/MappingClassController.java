@@ -1,36 +1,160 @@
 package hello.springmvc.basic.requestmapping;
 
+import hello.springmvc.basic.response.coalesce.CoalesceRequests;
+import hello.springmvc.user.OffHeapUserStore;
+import hello.springmvc.user.UserAlreadyExistsException;
+import hello.springmvc.user.UserNotFoundException;
+import hello.springmvc.user.UserPage;
+import hello.springmvc.user.UserRecord;
+import hello.springmvc.writebehind.UserEvent;
+import hello.springmvc.writebehind.WriteBehindPipeline;
+import hello.springmvc.writebehind.WriteBehindUnavailableException;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 클래스 레벨 @RequestMapping("/mapping/users") 아래에 메서드별로 나머지 경로와 HTTP 메서드를 붙인다.
+ * 사용자는 OffHeapUserStore 에 저장한다.
+ *
+ * write-behind 가 켜져 있으면(springmvc.write-behind.enabled) 변경(추가, 수정, 삭제)은
+ * userWriteBehind 세그먼트 파일에 기록(fsync)된 다음에 응답한다.
+ * 다시 시작하면 기록을 replay 해서 저장소를 복구한다. (WriteBehindConfig) 꺼져 있으면 저장소만 바꾼다.
+ *
+ * 같은 userId 의 변경은 userId 해시로 고른 락을 잡고 저장소 변경과 기록을 한 번에 한다.
+ * 그래야 기록 순서가 저장소에 반영된 순서와 같아서 replay 결과가 마지막 값이 된다.
+ * 기록이 실패하면 기록되지 않은 것이 확실할 때(isDiscarded)만 저장소 변경을 되돌린다.
+ */
 @RequestMapping("/mapping/users")
 @RestController
 @Slf4j
 public class MappingClassController {
 
+    private static final int MAX_PAGE_SIZE = 1000;
+    private static final int LOCK_STRIPES = 256;
+
+    private final OffHeapUserStore userStore;
+    // write-behind 가 꺼져 있으면 null
+    private final WriteBehindPipeline<UserEvent> userWriteBehind;
+    // 기록(fsync)을 기다리는 동안 잡고 있으므로 가상 스레드를 고정시키는 synchronized 대신 ReentrantLock 을 쓴다.
+    private final ReentrantLock[] locks = newLocks();
+
+    public MappingClassController(OffHeapUserStore userStore,
+                                  ObjectProvider<WriteBehindPipeline<UserEvent>> userWriteBehind) {
+        this.userStore = userStore;
+        this.userWriteBehind = userWriteBehind.getIfAvailable();
+    }
+
+    /**
+     * 목록은 cursor 부터 limit 개씩 나눠서 준다. 응답의 next 를 다음 cursor 로 넘긴다.
+     */
     @GetMapping
-    public String user(){
-        return "get users";
+    public UserPage user(@RequestParam(defaultValue = "0") long cursor,
+                         @RequestParam(defaultValue = "100") int limit) {
+        return userStore.page(Math.max(0, cursor), Math.min(Math.max(1, limit), MAX_PAGE_SIZE));
     }
 
     @PostMapping
-    public String addUser() {
-        return "post user";
+    @ResponseStatus(HttpStatus.CREATED)
+    public UserRecord addUser(@RequestBody UserRecord user) {
+        ReentrantLock lock = lockFor(user.getUserId());
+        lock.lock();
+        try {
+            if (!userStore.insert(user)) {
+                throw new UserAlreadyExistsException(user.getUserId());
+            }
+            try {
+                record(UserEvent.put(user));
+            } catch (WriteBehindUnavailableException e) {
+                if (e.isDiscarded()) {
+                    userStore.delete(user.getUserId());
+                }
+                throw e;
+            }
+            return user;
+        } finally {
+            lock.unlock();
+        }
     }
 
+    /**
+     * 같은 userId 로 동시에 들어온 조회는 핸들러를 한번만 호출한다. (@CoalesceRequests)
+     */
+    @CoalesceRequests
     @GetMapping("/{userId}")
-    public String findUser(@PathVariable String userId){
-        return "get userId = "+userId;
-
+    public UserRecord findUser(@PathVariable String userId){
+        UserRecord user = userStore.get(userId);
+        if (user == null) {
+            throw new UserNotFoundException(userId);
+        }
+        return user;
     }
 
+    /**
+     * 넘어온 값만 바꾼다.
+     */
     @PatchMapping("/{userId}")
-    public String updateUser(@PathVariable String userId){
-        return "update userId = "+userId;
+    public UserRecord updateUser(@PathVariable String userId,
+                                 @RequestParam(required = false) String username,
+                                 @RequestParam(required = false) Integer age){
+        ReentrantLock lock = lockFor(userId);
+        lock.lock();
+        try {
+            UserRecord previous = userStore.get(userId);
+            UserRecord user = previous != null ? userStore.update(userId, username, age) : null;
+            if (user == null) {
+                throw new UserNotFoundException(userId);
+            }
+            try {
+                record(UserEvent.put(user));
+            } catch (WriteBehindUnavailableException e) {
+                if (e.isDiscarded()) {
+                    userStore.put(previous);
+                }
+                throw e;
+            }
+            return user;
+        } finally {
+            lock.unlock();
+        }
     }
 
     @DeleteMapping("/{userId}")
-    public String deleteUser(@PathVariable String userId){
-        return "delete userId = "+userId;
+    @ResponseStatus(HttpStatus.NO_CONTENT)
+    public void deleteUser(@PathVariable String userId){
+        // 지운 슬롯은 다른 userId 가 가져갈 수 있어서 되돌리기(다시 넣기)가 실패할 수 있다. 기록한 다음에 지운다.
+        ReentrantLock lock = lockFor(userId);
+        lock.lock();
+        try {
+            if (userStore.get(userId) == null) {
+                throw new UserNotFoundException(userId);
+            }
+            record(UserEvent.delete(userId));
+            userStore.delete(userId);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void record(UserEvent event) {
+        if (userWriteBehind != null) {
+            userWriteBehind.append(event);
+        }
+    }
+
+    private ReentrantLock lockFor(String userId) {
+        int hash = userId != null ? userId.hashCode() : 0;
+        return locks[(hash ^ (hash >>> 16)) & (LOCK_STRIPES - 1)];
+    }
+
+    private static ReentrantLock[] newLocks() {
+        ReentrantLock[] locks = new ReentrantLock[LOCK_STRIPES];
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            locks[i] = new ReentrantLock();
+        }
+        return locks;
     }
 }
@@ -1,5 +1,6 @@
 package hello.springmvc.basic.requestmapping;
 
+import hello.springmvc.basic.response.coalesce.CoalesceRequests;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.web.bind.annotation.*;
 
@@ -43,7 +44,10 @@ public class MappingController {
      * @PathVariable 의 이름과 파라미터 이름이 같으면 생략할 수 있다 -> 변수명이 같으면 @PathVariable 이것만 써도 된다.
      * 여기선 변수명이 data였으니까 생략할 수 없는데
      * 이 변수명을 userId로 바꿔버리면 생략할 수 있다.
+     *
+     * @CoalesceRequests : 같은 userId 로 동시에 들어온 요청은 핸들러를 한번만 호출하고 응답을 나눠 받는다.
      */
+    @CoalesceRequests
     @GetMapping("/mapping/{userId}")
     public String mappingPath(@PathVariable("userId") String data){
         log.info("mappingPath userId={}",data);
@@ -0,0 +1,119 @@
+package hello.springmvc.basic.requestmapping.trie;
+
+import org.springframework.util.StringUtils;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * URL 패턴을 "/" 단위 세그먼트로 나눠서 만든 트라이
+ *
+ * /mapping/users/{userId}/orders/{orderId}
+ *   root -> "mapping" -> "users" -> {var} -> "orders" -> {var}
+ *
+ * 조회할 때는 세그먼트마다 리터럴 자식을 먼저 보고 그 다음 변수 자식을 본다.
+ * 경로 길이만큼만 내려가기 때문에 등록된 패턴 개수가 늘어나도 조회 비용이 거의 그대로다.
+ *
+ * *, **, ?, {name:regex}, /abc{name} 처럼 세그먼트 하나로 표현할 수 없는 패턴은
+ * 트라이에 넣지 않고 fallback 으로 모아서 항상 후보로 돌려준다.
+ */
+class PathTrie<T> {
+
+    private final Node<T> root = new Node<>();
+    private final List<T> fallback = new ArrayList<>();
+
+    void add(String pattern, T value) {
+        if (!isTrieable(pattern)) {
+            fallback.add(value);
+            return;
+        }
+
+        Node<T> node = root;
+        for (String segment : StringUtils.tokenizeToStringArray(pattern, "/")) {
+            node = isVariable(segment) ? node.variableChild() : node.literalChild(segment);
+        }
+        node.values.add(value);
+    }
+
+    /**
+     * path 와 세그먼트 구조가 맞는 패턴의 값을 모두 result 에 담는다.
+     * 실제 매칭 여부(메서드, 헤더, 파라미터 조건 등)는 호출하는 쪽에서 다시 확인한다.
+     */
+    void collect(String path, List<T> result) {
+        collect(root, path, skipSlashes(path, 0), result);
+        result.addAll(fallback);
+    }
+
+    private void collect(Node<T> node, String path, int start, List<T> result) {
+        if (start >= path.length()) {
+            result.addAll(node.values);
+            return;
+        }
+
+        int end = path.indexOf('/', start);
+        if (end < 0) {
+            end = path.length();
+        }
+        int next = skipSlashes(path, end);
+
+        if (node.literals != null) {
+            Node<T> literal = node.literals.get(path.substring(start, end));
+            if (literal != null) {
+                collect(literal, path, next, result);
+            }
+        }
+        if (node.variable != null) {
+            collect(node.variable, path, next, result);
+        }
+    }
+
+    private static int skipSlashes(String path, int index) {
+        while (index < path.length() && path.charAt(index) == '/') {
+            index++;
+        }
+        return index;
+    }
+
+    private static boolean isTrieable(String pattern) {
+        if (!pattern.startsWith("/") || pattern.indexOf('*') >= 0 || pattern.indexOf('?') >= 0) {
+            return false;
+        }
+        for (String segment : StringUtils.tokenizeToStringArray(pattern, "/")) {
+            boolean hasBrace = segment.indexOf('{') >= 0 || segment.indexOf('}') >= 0;
+            if (hasBrace && !isVariable(segment)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isVariable(String segment) {
+        return segment.length() > 2
+                && segment.charAt(0) == '{'
+                && segment.charAt(segment.length() - 1) == '}'
+                && segment.indexOf(':') < 0
+                && segment.indexOf('{', 1) < 0;
+    }
+
+    private static class Node<T> {
+        private Map<String, Node<T>> literals;
+        private Node<T> variable;
+        private final List<T> values = new ArrayList<>(1);
+
+        Node<T> literalChild(String segment) {
+            if (literals == null) {
+                literals = new HashMap<>();
+            }
+            return literals.computeIfAbsent(segment, key -> new Node<>());
+        }
+
+        Node<T> variableChild() {
+            if (variable == null) {
+                variable = new Node<>();
+            }
+            return variable;
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package hello.springmvc.basic.requestmapping.trie;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.web.servlet.WebMvcRegistrations;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerMapping;
+
+/**
+ * springmvc.mapping.trie.enabled=true 면 스프링 부트가 만드는 RequestMappingHandlerMapping 을
+ * TrieRequestMappingHandlerMapping 으로 바꿔 끼운다.
+ * 나머지 설정(경로 매칭 전략, 인터셉터, CORS 등)은 스프링 부트 설정이 그대로 적용된다.
+ */
+@Configuration
+@ConditionalOnProperty(name = "springmvc.mapping.trie.enabled", havingValue = "true")
+public class TrieMappingConfig {
+
+    @Bean
+    public WebMvcRegistrations trieWebMvcRegistrations() {
+        return new WebMvcRegistrations() {
+            @Override
+            public RequestMappingHandlerMapping getRequestMappingHandlerMapping() {
+                return new TrieRequestMappingHandlerMapping();
+            }
+        };
+    }
+}
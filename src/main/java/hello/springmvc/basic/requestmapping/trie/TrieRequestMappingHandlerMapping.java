@@ -0,0 +1,118 @@
+package hello.springmvc.basic.requestmapping.trie;
+
+import org.springframework.web.cors.CorsUtils;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.mvc.method.RequestMappingInfo;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerMapping;
+
+import javax.servlet.http.HttpServletRequest;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 기본 RequestMappingHandlerMapping 은 URL 이 리터럴과 정확히 일치하지 않으면
+ * 등록된 매핑 전체를 하나씩 돌면서 패턴 매칭을 해보기 때문에 매핑이 늘어날수록 느려진다.
+ *
+ * 여기서는 등록된 @RequestMapping 패턴으로 PathTrie 를 만들어두고
+ * 트라이에서 경로 구조가 맞는 후보 몇 개만 골라서 스프링의 조건 매칭을 적용한다.
+ * 후보가 없거나 애매한 경우는 기본 구현에 맡겨서 404, 405, 415 같은 응답과 CORS 처리를 그대로 유지한다.
+ */
+public class TrieRequestMappingHandlerMapping extends RequestMappingHandlerMapping {
+
+    private volatile PathTrie<Candidate> trie;
+
+    @Override
+    protected void handlerMethodsInitialized(Map<RequestMappingInfo, HandlerMethod> handlerMethods) {
+        super.handlerMethodsInitialized(handlerMethods);
+        this.trie = null;
+    }
+
+    @Override
+    public void registerMapping(RequestMappingInfo mapping, Object handler, Method method) {
+        super.registerMapping(mapping, handler, method);
+        this.trie = null;
+    }
+
+    @Override
+    public void unregisterMapping(RequestMappingInfo mapping) {
+        super.unregisterMapping(mapping);
+        this.trie = null;
+    }
+
+    @Override
+    protected HandlerMethod lookupHandlerMethod(String lookupPath, HttpServletRequest request) throws Exception {
+        if (CorsUtils.isPreFlightRequest(request)) {
+            return super.lookupHandlerMethod(lookupPath, request);
+        }
+
+        List<Candidate> candidates = new ArrayList<>(4);
+        trie().collect(lookupPath, candidates);
+
+        RequestMappingInfo bestInfo = null;
+        HandlerMethod best = null;
+        boolean ambiguous = false;
+        for (Candidate candidate : candidates) {
+            RequestMappingInfo matched = candidate.info.getMatchingCondition(request);
+            if (matched == null) {
+                continue;
+            }
+            int comparison = bestInfo == null ? -1 : matched.compareTo(bestInfo, request);
+            if (comparison < 0) {
+                bestInfo = matched;
+                best = candidate.handlerMethod;
+                ambiguous = false;
+            } else if (comparison == 0 && !candidate.handlerMethod.equals(best)) {
+                ambiguous = true;
+            }
+        }
+
+        if (best == null || ambiguous) {
+            return super.lookupHandlerMethod(lookupPath, request);
+        }
+
+        request.setAttribute(BEST_MATCHING_HANDLER_ATTRIBUTE, best);
+        handleMatch(bestInfo, lookupPath, request);
+        return best;
+    }
+
+    /**
+     * 매핑이 추가, 삭제되면 트라이를 버리고 다음 조회 때 한번에 다시 만든다.
+     * 매핑을 대량으로 등록할 때 등록할 때마다 트라이를 다시 만들지 않기 위해서다.
+     */
+    private PathTrie<Candidate> trie() {
+        PathTrie<Candidate> trie = this.trie;
+        if (trie == null) {
+            synchronized (this) {
+                trie = this.trie;
+                if (trie == null) {
+                    trie = buildTrie();
+                    this.trie = trie;
+                }
+            }
+        }
+        return trie;
+    }
+
+    private PathTrie<Candidate> buildTrie() {
+        PathTrie<Candidate> trie = new PathTrie<>();
+        getHandlerMethods().forEach((info, handlerMethod) -> {
+            Candidate candidate = new Candidate(info, handlerMethod);
+            for (String pattern : info.getPatternValues()) {
+                trie.add(pattern, candidate);
+            }
+        });
+        return trie;
+    }
+
+    private static class Candidate {
+        private final RequestMappingInfo info;
+        private final HandlerMethod handlerMethod;
+
+        Candidate(RequestMappingInfo info, HandlerMethod handlerMethod) {
+            this.info = info;
+            this.handlerMethod = handlerMethod;
+        }
+    }
+}
@@ -1,11 +1,14 @@
 package hello.springmvc.basic.response;
 
 import hello.springmvc.basic.HelloData;
+import hello.springmvc.basic.columnar.HelloDataBatch;
+import hello.springmvc.basic.response.cache.CachedResponse;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseBody;
 import org.springframework.web.bind.annotation.ResponseStatus;
 
@@ -23,6 +26,8 @@ import java.io.IOException;
  **/
 public class ResponseBodyController {
 
+    private static final int MAX_BATCH_SIZE = 100_000;
+
     /**
      * 문자 자체를 HttpMessage body에 넣어서 보내는 방법
      * responseBodyV1 ~ responseBodyV3
@@ -50,7 +55,11 @@ public class ResponseBodyController {
      * v1은 status를 보낼 수 있는데에 반해
      * v2는 status를 보낼 수 없다.
      * 그래서 @ResponseStatus를 사용한다.
+     *
+     * 두 메서드 모두 항상 같은 값을 반환하기 때문에 @CachedResponse 로
+     * 처음 한번만 직렬화하고 그 뒤로는 저장된 바이트와 ETag 로 응답한다.
      **/
+    @CachedResponse
     @GetMapping("/response-body-json-v1")
     @ResponseBody
     public ResponseEntity<HelloData> responseBodyJsonV1(){
@@ -60,6 +69,7 @@ public class ResponseBodyController {
         return new ResponseEntity<>(helloData, HttpStatus.OK);
     }
 
+    @CachedResponse
     @ResponseStatus(HttpStatus.OK)
     @ResponseBody
     @GetMapping("/response-body-json-v2")
@@ -69,4 +79,19 @@ public class ResponseBodyController {
         helloData.setAge(20);
         return helloData;
     }
+
+    /**
+     * HelloData size 건을 한번에 보낸다. (username 은 100 가지가 반복된다.)
+     * Accept 가 application/x-hello-columnar 면 열 단위 바이너리로, 아니면 JSON 배열로 나간다.
+     */
+    @ResponseBody
+    @GetMapping("/response-body-json-batch")
+    public HelloDataBatch responseBodyJsonBatch(@RequestParam(defaultValue = "100") int size) {
+        int rows = Math.min(Math.max(0, size), MAX_BATCH_SIZE);
+        HelloDataBatch.Builder builder = new HelloDataBatch.Builder(rows);
+        for (int i = 0; i < rows; i++) {
+            builder.add("user" + (i % 100), 20 + i % 50);
+        }
+        return builder.build();
+    }
 }
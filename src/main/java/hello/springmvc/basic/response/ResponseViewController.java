@@ -1,12 +1,20 @@
 package hello.springmvc.basic.response;
 
+import hello.springmvc.server.admission.AdmissionControl;
+import hello.springmvc.server.admission.Priority;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.servlet.ModelAndView;
 
+/**
+ * 템플릿 렌더링은 무거운 편이라 과부하가 오면 가장 먼저 거절되도록 SHEDDABLE 로 둔다.
+ */
 @Controller
+@AdmissionControl(priority = Priority.SHEDDABLE,
+        permitsPerSecond = "${springmvc.admission.response-view.permits-per-second:}",
+        burst = "${springmvc.admission.response-view.burst:}")
 public class ResponseViewController {
 
     @RequestMapping("/response-view-v1")
@@ -0,0 +1,25 @@
+package hello.springmvc.basic.response.cache;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 항상 같은 값을 반환하는 @ResponseBody 핸들러에 붙인다.
+ *
+ * 처음 한번만 메시지 컨버터로 직렬화해서 byte[] 과 ETag 를 저장해두고
+ * 그 다음부터는 핸들러를 호출하지 않고 저장된 바이트를 그대로 내려준다.
+ * If-None-Match 가 ETag 와 같으면 바디 없이 304 로 응답한다.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface CachedResponse {
+
+    /**
+     * 캐시 유지 시간(초), 0 이면 LRU 로 밀려날 때까지 유지한다.
+     */
+    long ttlSeconds() default 0;
+}
@@ -0,0 +1,103 @@
+package hello.springmvc.basic.response.cache;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.http.HttpMessageConverters;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.http.server.ServletServerHttpRequest;
+import org.springframework.http.server.ServletServerHttpResponse;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
+
+import javax.servlet.http.HttpServletResponse;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * @CachedResponse 핸들러가 처음 호출됐을 때 선택된 메시지 컨버터로 한번 직렬화해서 캐시에 넣는다.
+ * 이후 요청은 CachedResponseInterceptor 가 핸들러 호출 전에 가로챈다.
+ */
+@ControllerAdvice
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "springmvc.response-cache.enabled", havingValue = "true", matchIfMissing = true)
+public class CachedResponseBodyAdvice implements ResponseBodyAdvice<Object> {
+
+    private final ResponseBodyCache cache;
+    private final HttpMessageConverters messageConverters;
+
+    @Override
+    public boolean supports(MethodParameter returnType, Class<? extends HttpMessageConverter<?>> converterType) {
+        return returnType.hasMethodAnnotation(CachedResponse.class);
+    }
+
+    @Override
+    public Object beforeBodyWrite(Object body, MethodParameter returnType, MediaType selectedContentType,
+                                  Class<? extends HttpMessageConverter<?>> selectedConverterType,
+                                  ServerHttpRequest request, ServerHttpResponse response) {
+        if (body == null
+                || !(request instanceof ServletServerHttpRequest)
+                || !(response instanceof ServletServerHttpResponse)) {
+            return body;
+        }
+        HttpServletResponse servletResponse = ((ServletServerHttpResponse) response).getServletResponse();
+        if (servletResponse.getStatus() != HttpServletResponse.SC_OK) {
+            return body;
+        }
+
+        HttpMessageConverter<Object> converter = findConverter(selectedConverterType);
+        if (converter == null) {
+            return body;
+        }
+
+        try {
+            BufferedOutputMessage message = new BufferedOutputMessage();
+            converter.write(body, selectedContentType, message);
+            MediaType contentType = message.getHeaders().getContentType();
+
+            CachedResponse cachedResponse = returnType.getMethodAnnotation(CachedResponse.class);
+            ResponseBodyCache.Entry entry = cache.put(
+                    ResponseBodyCache.key(((ServletServerHttpRequest) request).getServletRequest()),
+                    message.body.toByteArray(),
+                    contentType != null ? contentType.toString() : selectedContentType.toString(),
+                    cachedResponse.ttlSeconds());
+
+            response.getHeaders().set(HttpHeaders.ETAG, entry.getEtag());
+            response.getHeaders().set(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+        } catch (IOException e) {
+            // 캐시에 못 넣어도 이번 응답은 그대로 나가면 된다.
+        }
+        return body;
+    }
+
+    @SuppressWarnings("unchecked")
+    private HttpMessageConverter<Object> findConverter(Class<? extends HttpMessageConverter<?>> converterType) {
+        for (HttpMessageConverter<?> converter : messageConverters.getConverters()) {
+            if (converterType.isInstance(converter)) {
+                return (HttpMessageConverter<Object>) converter;
+            }
+        }
+        return null;
+    }
+
+    private static class BufferedOutputMessage implements HttpOutputMessage {
+        private final HttpHeaders headers = new HttpHeaders();
+        private final ByteArrayOutputStream body = new ByteArrayOutputStream(256);
+
+        @Override
+        public OutputStream getBody() {
+            return body;
+        }
+
+        @Override
+        public HttpHeaders getHeaders() {
+            return headers;
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package hello.springmvc.basic.response.cache;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * @CachedResponse 핸들러 요청이 캐시에 있으면 핸들러를 호출하지 않고 바로 응답한다.
+ * 캐시에 없으면 그대로 통과시키고, 직렬화된 결과는 CachedResponseBodyAdvice 가 저장한다.
+ */
+@RequiredArgsConstructor
+public class CachedResponseInterceptor implements HandlerInterceptor {
+
+    private final ResponseBodyCache cache;
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) throws Exception {
+        if (!(handler instanceof HandlerMethod)
+                || !((HandlerMethod) handler).hasMethodAnnotation(CachedResponse.class)) {
+            return true;
+        }
+
+        ResponseBodyCache.Entry entry = cache.get(ResponseBodyCache.key(request));
+        if (entry == null) {
+            return true;
+        }
+
+        response.setHeader(HttpHeaders.ETAG, entry.getEtag());
+        response.setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+        if (entry.matches(request.getHeader(HttpHeaders.IF_NONE_MATCH))) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return false;
+        }
+
+        response.setStatus(HttpServletResponse.SC_OK);
+        response.setContentType(entry.getContentType());
+        response.setHeader(HttpHeaders.CONTENT_LENGTH, entry.getContentLength());
+        if (!"HEAD".equals(request.getMethod())) {
+            response.getOutputStream().write(entry.getBody());
+        }
+        return false;
+    }
+}
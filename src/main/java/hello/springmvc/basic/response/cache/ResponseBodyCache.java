@@ -0,0 +1,104 @@
+package hello.springmvc.basic.response.cache;
+
+import lombok.Getter;
+import org.springframework.http.HttpHeaders;
+import org.springframework.util.DigestUtils;
+
+import javax.servlet.http.HttpServletRequest;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 직렬화된 응답 바디 저장소
+ * max-entries 를 넘으면 가장 오래 조회되지 않은 항목부터 지운다. (LRU)
+ */
+public class ResponseBodyCache {
+
+    private final Map<String, Entry> entries;
+
+    public ResponseBodyCache(int maxEntries) {
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    /**
+     * 같은 URL 이라도 Accept 에 따라 다른 표현이 나갈 수 있어서 같이 키로 쓴다.
+     */
+    public static String key(HttpServletRequest request) {
+        String query = request.getQueryString();
+        String accept = request.getHeader(HttpHeaders.ACCEPT);
+        return request.getRequestURI()
+                + (query != null ? "?" + query : "")
+                + (accept != null ? "|" + accept : "");
+    }
+
+    public Entry get(String key) {
+        synchronized (entries) {
+            Entry entry = entries.get(key);
+            if (entry != null && entry.isExpired()) {
+                entries.remove(key);
+                return null;
+            }
+            return entry;
+        }
+    }
+
+    public Entry put(String key, byte[] body, String contentType, long ttlSeconds) {
+        long expiresAt = ttlSeconds > 0 ? System.nanoTime() + ttlSeconds * 1_000_000_000L : 0;
+        Entry entry = new Entry(body, contentType, expiresAt);
+        synchronized (entries) {
+            entries.put(key, entry);
+        }
+        return entry;
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    @Getter
+    public static class Entry {
+        private final byte[] body;
+        private final String contentType;
+        private final String contentLength;
+        private final String etag;
+        private final long expiresAt;
+
+        Entry(byte[] body, String contentType, long expiresAt) {
+            this.body = body;
+            this.contentType = contentType;
+            this.contentLength = Integer.toString(body.length);
+            this.etag = "\"" + DigestUtils.md5DigestAsHex(body) + "\"";
+            this.expiresAt = expiresAt;
+        }
+
+        boolean isExpired() {
+            return expiresAt != 0 && System.nanoTime() - expiresAt > 0;
+        }
+
+        /**
+         * If-None-Match: "a", W/"b" 처럼 여러 개가 올 수 있고 * 는 항상 일치한다.
+         */
+        public boolean matches(String ifNoneMatch) {
+            if (ifNoneMatch == null) {
+                return false;
+            }
+            for (String candidate : ifNoneMatch.split(",")) {
+                String tag = candidate.trim();
+                if (tag.startsWith("W/")) {
+                    tag = tag.substring(2);
+                }
+                if (tag.equals("*") || tag.equals(etag)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package hello.springmvc.basic.response.cache;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * @CachedResponse 응답 캐시 설정
+ * springmvc.response-cache.enabled=false 로 끄면 매 요청마다 핸들러 호출, 직렬화를 다시 한다.
+ */
+@Configuration
+@ConditionalOnProperty(name = "springmvc.response-cache.enabled", havingValue = "true", matchIfMissing = true)
+public class ResponseCacheConfig implements WebMvcConfigurer {
+
+    private final ResponseBodyCache responseBodyCache;
+
+    public ResponseCacheConfig(@Value("${springmvc.response-cache.max-entries:256}") int maxEntries) {
+        this.responseBodyCache = new ResponseBodyCache(maxEntries);
+    }
+
+    @Bean
+    public ResponseBodyCache responseBodyCache() {
+        return responseBodyCache;
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(new CachedResponseInterceptor(responseBodyCache));
+    }
+}
@@ -0,0 +1,35 @@
+package hello.springmvc.basic.response.coalesce;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 같은 값을 돌려주는 멱등 GET @ResponseBody 핸들러에 붙인다.
+ *
+ * 키가 같은 요청이 동시에 여러 개 들어오면 먼저 온 요청 하나만 핸들러를 호출하고
+ * 나머지 요청은 그 요청이 직렬화한 응답 바이트를 그대로 받는다. (single-flight)
+ * @CachedResponse 와 달리 결과를 저장해두지 않기 때문에 핸들러 호출이 끝난 다음 들어온 요청은 다시 핸들러를 호출한다.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface CoalesceRequests {
+
+    /**
+     * 응답이 달라질 수 있어서 키에 넣을 요청 헤더 (예: Accept, Accept-Language)
+     */
+    String[] headers() default {};
+
+    /**
+     * 요청에서 키를 뽑는 방법
+     */
+    Class<? extends CoalescingKeyExtractor> key() default PathVariableKeyExtractor.class;
+
+    /**
+     * 먼저 간 요청을 기다리는 최대 시간(ms), 넘으면 직접 핸들러를 호출한다.
+     */
+    long timeoutMillis() default 1000;
+}
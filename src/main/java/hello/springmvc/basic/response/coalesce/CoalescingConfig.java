@@ -0,0 +1,28 @@
+package hello.springmvc.basic.response.coalesce;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * @CoalesceRequests 설정
+ * springmvc.coalescing.enabled=false 로 끄면 요청마다 핸들러를 호출한다.
+ */
+@Configuration
+@ConditionalOnProperty(name = "springmvc.coalescing.enabled", havingValue = "true", matchIfMissing = true)
+public class CoalescingConfig implements WebMvcConfigurer {
+
+    private final RequestCoalescer requestCoalescer = new RequestCoalescer();
+
+    @Bean
+    public RequestCoalescer requestCoalescer() {
+        return requestCoalescer;
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(new CoalescingInterceptor(requestCoalescer));
+    }
+}
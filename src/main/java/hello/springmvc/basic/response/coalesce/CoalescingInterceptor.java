@@ -0,0 +1,63 @@
+package hello.springmvc.basic.response.coalesce;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * @CoalesceRequests 핸들러로 가는 GET 요청을 RequestCoalescer 에 넣는다.
+ *  - leader : 그대로 핸들러를 호출한다. 직렬화한 응답은 CoalescingResponseBodyAdvice 가 follower 들에게 넘긴다.
+ *  - follower : 핸들러를 호출하지 않고 leader 의 응답 헤더와 바이트를 그대로 쓴다.
+ */
+@RequiredArgsConstructor
+public class CoalescingInterceptor implements HandlerInterceptor {
+
+    static final String FLIGHT_ATTRIBUTE = CoalescingInterceptor.class.getName() + ".flight";
+
+    private final RequestCoalescer coalescer;
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) throws Exception {
+        if (!(handler instanceof HandlerMethod) || !"GET".equals(request.getMethod())) {
+            return true;
+        }
+        HandlerMethod handlerMethod = (HandlerMethod) handler;
+        CoalesceRequests coalesceRequests = handlerMethod.getMethodAnnotation(CoalesceRequests.class);
+        if (coalesceRequests == null) {
+            return true;
+        }
+
+        RequestCoalescer.Flight flight =
+                new RequestCoalescer.Flight(coalescer.key(handlerMethod, request, coalesceRequests));
+        RequestCoalescer.Flight existing = coalescer.join(flight);
+        if (existing == null) {
+            request.setAttribute(FLIGHT_ATTRIBUTE, flight);
+            return true;
+        }
+
+        RequestCoalescer.SharedResponse shared = coalescer.await(existing, coalesceRequests.timeoutMillis());
+        if (shared == null) {
+            return true;
+        }
+        response.setStatus(HttpServletResponse.SC_OK);
+        shared.headers.forEach((name, values) -> values.forEach(value -> response.addHeader(name, value)));
+        response.setContentType(shared.contentType);
+        response.setContentLength(shared.body.length);
+        response.getOutputStream().write(shared.body);
+        return false;
+    }
+
+    /**
+     * 핸들러가 예외를 던졌거나 응답 바디를 만들지 않았으면 기다리는 follower 들이 각자 핸들러를 호출하게 한다.
+     */
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        RequestCoalescer.Flight flight = (RequestCoalescer.Flight) request.getAttribute(FLIGHT_ATTRIBUTE);
+        if (flight != null && !flight.isDone()) {
+            coalescer.complete(flight, null);
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package hello.springmvc.basic.response.coalesce;
+
+import javax.servlet.http.HttpServletRequest;
+
+/**
+ * 같은 응답을 받아도 되는 요청끼리 같은 키를 돌려준다.
+ * 핸들러 메서드는 RequestCoalescer 가 따로 구분하기 때문에 키에 넣지 않아도 된다.
+ *
+ * 구현 클래스는 인자 없는 생성자가 있어야 하고 여러 스레드에서 같이 쓴다.
+ */
+public interface CoalescingKeyExtractor {
+
+    String extract(HttpServletRequest request, CoalesceRequests coalesceRequests);
+}
@@ -0,0 +1,149 @@
+package hello.springmvc.basic.response.coalesce;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.http.HttpMessageConverters;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotWritableException;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.http.server.ServletServerHttpRequest;
+import org.springframework.http.server.ServletServerHttpResponse;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
+
+import javax.servlet.http.HttpServletResponse;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * leader 요청의 응답 바디를 선택된 메시지 컨버터로 한번만 직렬화해서
+ * follower 들에게 넘기고 같은 바이트를 leader 응답에도 쓴다.
+ *
+ * 바디를 직접 썼기 때문에 null 을 돌려줘서 메시지 컨버터가 다시 쓰지 않게 한다.
+ *
+ * 이 시점까지 leader 응답에 설정된 헤더(ETag, Vary, Cache-Control 등)도 같이 넘긴다.
+ * 길이, 인코딩처럼 follower 응답에서 다시 정해지는 헤더와 Set-Cookie 처럼 요청마다 달라야 하는 헤더는 넘기지 않는다.
+ */
+@ControllerAdvice
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "springmvc.coalescing.enabled", havingValue = "true", matchIfMissing = true)
+public class CoalescingResponseBodyAdvice implements ResponseBodyAdvice<Object> {
+
+    private static final Set<String> NOT_SHARED = new TreeSet<>(String.CASE_INSENSITIVE_ORDER);
+
+    static {
+        NOT_SHARED.addAll(Arrays.asList(HttpHeaders.CONTENT_TYPE, HttpHeaders.CONTENT_LENGTH,
+                HttpHeaders.CONTENT_ENCODING, HttpHeaders.TRANSFER_ENCODING, HttpHeaders.CONNECTION,
+                HttpHeaders.DATE, HttpHeaders.SET_COOKIE, "Set-Cookie2"));
+    }
+
+    private final RequestCoalescer coalescer;
+    private final HttpMessageConverters messageConverters;
+
+    @Override
+    public boolean supports(MethodParameter returnType, Class<? extends HttpMessageConverter<?>> converterType) {
+        return returnType.hasMethodAnnotation(CoalesceRequests.class);
+    }
+
+    @Override
+    public Object beforeBodyWrite(Object body, MethodParameter returnType, MediaType selectedContentType,
+                                  Class<? extends HttpMessageConverter<?>> selectedConverterType,
+                                  ServerHttpRequest request, ServerHttpResponse response) {
+        if (body == null
+                || !(request instanceof ServletServerHttpRequest)
+                || !(response instanceof ServletServerHttpResponse)) {
+            return body;
+        }
+        RequestCoalescer.Flight flight = (RequestCoalescer.Flight) ((ServletServerHttpRequest) request)
+                .getServletRequest().getAttribute(CoalescingInterceptor.FLIGHT_ATTRIBUTE);
+        HttpServletResponse servletResponse = ((ServletServerHttpResponse) response).getServletResponse();
+        if (flight == null || servletResponse.getStatus() != HttpServletResponse.SC_OK) {
+            return body;
+        }
+
+        HttpMessageConverter<Object> converter = findConverter(selectedConverterType);
+        if (converter == null) {
+            return body;
+        }
+
+        BufferedOutputMessage message = new BufferedOutputMessage();
+        try {
+            converter.write(body, selectedContentType, message);
+        } catch (IOException e) {
+            // follower 들은 각자 핸들러를 호출하고 이번 응답은 원래대로 나간다.
+            coalescer.complete(flight, null);
+            return body;
+        }
+        MediaType contentType = message.getHeaders().getContentType();
+        if (contentType == null) {
+            contentType = selectedContentType;
+        }
+        byte[] bytes = message.body.toByteArray();
+        coalescer.complete(flight,
+                new RequestCoalescer.SharedResponse(contentType.toString(), sharedHeaders(servletResponse, response), bytes));
+
+        try {
+            response.getHeaders().setContentType(contentType);
+            response.getHeaders().setContentLength(bytes.length);
+            response.getBody().write(bytes);
+        } catch (IOException e) {
+            throw new HttpMessageNotWritableException("Could not write coalesced response", e);
+        }
+        return null;
+    }
+
+    /**
+     * 서블릿 응답에 이미 쓰인 헤더 + ServerHttpResponse 에 모아두고 아직 쓰지 않은 헤더 (ResponseEntity 헤더 등)
+     */
+    private static HttpHeaders sharedHeaders(HttpServletResponse servletResponse, ServerHttpResponse response) {
+        HttpHeaders headers = new HttpHeaders();
+        for (String name : servletResponse.getHeaderNames()) {
+            if (!NOT_SHARED.contains(name)) {
+                headers.put(name, new ArrayList<>(servletResponse.getHeaders(name)));
+            }
+        }
+        for (Map.Entry<String, List<String>> header : response.getHeaders().entrySet()) {
+            if (!NOT_SHARED.contains(header.getKey())) {
+                headers.put(header.getKey(), header.getValue());
+            }
+        }
+        return headers;
+    }
+
+    @SuppressWarnings("unchecked")
+    private HttpMessageConverter<Object> findConverter(Class<? extends HttpMessageConverter<?>> converterType) {
+        for (HttpMessageConverter<?> converter : messageConverters.getConverters()) {
+            if (converterType.isInstance(converter)) {
+                return (HttpMessageConverter<Object>) converter;
+            }
+        }
+        return null;
+    }
+
+    private static class BufferedOutputMessage implements HttpOutputMessage {
+        private final HttpHeaders headers = new HttpHeaders();
+        private final ByteArrayOutputStream body = new ByteArrayOutputStream(256);
+
+        @Override
+        public OutputStream getBody() {
+            return body;
+        }
+
+        @Override
+        public HttpHeaders getHeaders() {
+            return headers;
+        }
+    }
+}
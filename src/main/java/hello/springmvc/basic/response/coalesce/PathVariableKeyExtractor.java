@@ -0,0 +1,41 @@
+package hello.springmvc.basic.response.coalesce;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.servlet.HandlerMapping;
+
+import javax.servlet.http.HttpServletRequest;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * 기본 키 : 경로 변수 + 쿼리 스트링 + Accept + @CoalesceRequests 에 적은 헤더 값
+ * ex) {userId=userA}?|Accept=application/json
+ *
+ * Accept 가 다르면 다른 메시지 컨버터가 골라질 수 있으므로 headers 에 적지 않아도 항상 넣는다.
+ */
+public class PathVariableKeyExtractor implements CoalescingKeyExtractor {
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public String extract(HttpServletRequest request, CoalesceRequests coalesceRequests) {
+        Map<String, String> pathVariables =
+                (Map<String, String>) request.getAttribute(HandlerMapping.URI_TEMPLATE_VARIABLES_ATTRIBUTE);
+        StringBuilder key = new StringBuilder(64);
+        if (pathVariables != null) {
+            // 순서가 달라도 같은 키가 되도록 이름순으로 넣는다.
+            key.append(pathVariables.size() > 1 ? new TreeMap<>(pathVariables) : pathVariables);
+        }
+        String query = request.getQueryString();
+        key.append('?');
+        if (query != null) {
+            key.append(query);
+        }
+        key.append('|').append(HttpHeaders.ACCEPT).append('=').append(request.getHeader(HttpHeaders.ACCEPT));
+        for (String header : coalesceRequests.headers()) {
+            if (!HttpHeaders.ACCEPT.equalsIgnoreCase(header)) {
+                key.append('|').append(header).append('=').append(request.getHeader(header));
+            }
+        }
+        return key.toString();
+    }
+}
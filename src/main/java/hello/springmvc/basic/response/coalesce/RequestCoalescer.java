@@ -0,0 +1,131 @@
+package hello.springmvc.basic.response.coalesce;
+
+import org.springframework.beans.BeanUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.method.HandlerMethod;
+
+import javax.servlet.http.HttpServletRequest;
+import java.lang.reflect.Method;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 진행 중인 핸들러 호출 테이블
+ *
+ * 키마다 Flight 하나를 putIfAbsent(CAS) 로 넣는다. 넣는 데 성공한 요청이 leader 가 되어 핸들러를 호출하고
+ * 실패한 요청(follower)은 이미 들어있는 Flight 의 결과를 기다린다.
+ * leader 는 테이블에서 먼저 지운 다음 결과를 채우기 때문에 결과가 나온 뒤에 들어온 요청은 새 Flight 를 만든다.
+ */
+public class RequestCoalescer {
+
+    private final ConcurrentMap<String, Flight> inFlight = new ConcurrentHashMap<>();
+    private final ConcurrentMap<Method, String> prefixes = new ConcurrentHashMap<>();
+    private final ConcurrentMap<Class<? extends CoalescingKeyExtractor>, CoalescingKeyExtractor> extractors =
+            new ConcurrentHashMap<>();
+
+    private final LongAdder leaders = new LongAdder();
+    private final LongAdder followers = new LongAdder();
+    private final LongAdder fallbacks = new LongAdder();
+
+    /**
+     * flight 를 테이블에 넣는다.
+     * @return null 이면 이 요청이 leader, 아니면 이미 진행 중인 Flight (follower)
+     */
+    public Flight join(Flight flight) {
+        Flight existing = inFlight.putIfAbsent(flight.key, flight);
+        if (existing == null) {
+            leaders.increment();
+        }
+        return existing;
+    }
+
+    /**
+     * leader 가 직렬화한 응답을 follower 들에게 넘긴다.
+     * response 가 null 이면(예외, 200 이 아닌 응답) follower 들이 각자 핸들러를 호출한다.
+     */
+    public void complete(Flight flight, SharedResponse response) {
+        inFlight.remove(flight.key, flight);
+        flight.result.complete(response);
+    }
+
+    /**
+     * @return leader 의 응답, 기다리다 시간이 지났거나 leader 가 실패했으면 null
+     */
+    public SharedResponse await(Flight flight, long timeoutMillis) {
+        try {
+            SharedResponse response = flight.result.get(timeoutMillis, TimeUnit.MILLISECONDS);
+            if (response != null) {
+                followers.increment();
+                return response;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException | TimeoutException e) {
+            // 직접 핸들러를 호출한다.
+        }
+        fallbacks.increment();
+        return null;
+    }
+
+    /**
+     * 핸들러 메서드 + @CoalesceRequests 의 키 추출기가 만든 키
+     */
+    public String key(HandlerMethod handlerMethod, HttpServletRequest request, CoalesceRequests coalesceRequests) {
+        String prefix = prefixes.computeIfAbsent(handlerMethod.getMethod(), Method::toGenericString);
+        CoalescingKeyExtractor extractor = extractors.computeIfAbsent(coalesceRequests.key(), BeanUtils::instantiateClass);
+        return prefix + "|" + extractor.extract(request, coalesceRequests);
+    }
+
+    public int inFlight() {
+        return inFlight.size();
+    }
+
+    /**
+     * leaders : 핸들러를 호출한 요청, followers : 핸들러 호출 없이 응답을 받은 요청,
+     * fallbacks : 기다리다가 직접 핸들러를 호출한 요청
+     */
+    public Map<String, Long> snapshot() {
+        Map<String, Long> snapshot = new LinkedHashMap<>();
+        snapshot.put("leaders", leaders.sum());
+        snapshot.put("followers", followers.sum());
+        snapshot.put("fallbacks", fallbacks.sum());
+        return snapshot;
+    }
+
+    public static final class Flight {
+        private final String key;
+        private final CompletableFuture<SharedResponse> result = new CompletableFuture<>();
+
+        public Flight(String key) {
+            this.key = key;
+        }
+
+        public boolean isDone() {
+            return result.isDone();
+        }
+    }
+
+    /**
+     * follower 에게 그대로 써줄 응답
+     * headers 는 leader 응답의 헤더(ETag, Vary, Cache-Control 등)에서 Content-Type/Length 와
+     * 요청마다 달라야 하는 헤더(Set-Cookie 등)를 뺀 것이다.
+     */
+    public static final class SharedResponse {
+        final String contentType;
+        final HttpHeaders headers;
+        final byte[] body;
+
+        SharedResponse(String contentType, HttpHeaders headers, byte[] body) {
+            this.contentType = contentType;
+            this.headers = headers;
+            this.body = body;
+        }
+    }
+}
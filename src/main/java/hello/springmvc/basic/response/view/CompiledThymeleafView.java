@@ -0,0 +1,53 @@
+package hello.springmvc.basic.response.view;
+
+import org.thymeleaf.spring5.view.ThymeleafView;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.util.Map;
+
+/**
+ * ThymeleafView 와 같이 렌더링하지만 출력은 EncodingResponseWrapper 로 받아서
+ * 풀링된 인코더로 응답 바이트 스트림에 바로 쓴다.
+ *
+ * PrerenderedViewCache 에 등록된 템플릿이고 모델이 단순 값이면
+ * 처음 렌더링한 결과를 저장해두고 다음부터는 템플릿을 처리하지 않고 바이트를 그대로 내려준다.
+ *
+ * ThymeleafViewResolver 가 뷰 이름마다 한번 만들고 재사용한다. (CompiledViewConfig)
+ */
+public class CompiledThymeleafView extends ThymeleafView {
+
+    private EncoderPool encoderPool;
+    private PrerenderedViewCache prerenderedViewCache;
+
+    @Override
+    protected void initApplicationContext() {
+        super.initApplicationContext();
+        this.encoderPool = obtainApplicationContext().getBean(EncoderPool.class);
+        this.prerenderedViewCache = obtainApplicationContext().getBean(PrerenderedViewCache.class);
+    }
+
+    @Override
+    public void render(Map<String, ?> model, HttpServletRequest request, HttpServletResponse response) throws Exception {
+        PrerenderedViewCache.Key key = prerenderedViewCache.key(getBeanName(), getTemplateName(), getLocale(), model);
+        if (key != null) {
+            PrerenderedViewCache.Entry entry = prerenderedViewCache.get(key);
+            if (entry != null) {
+                entry.writeTo(response);
+                return;
+            }
+        }
+
+        EncodingResponseWrapper encodingResponse = new EncodingResponseWrapper(response, encoderPool, key != null);
+        try {
+            super.render(model, request, encodingResponse);
+            encodingResponse.finish();
+            byte[] rendered = encodingResponse.captured();
+            if (key != null && rendered != null) {
+                prerenderedViewCache.put(key, response.getContentType(), rendered);
+            }
+        } finally {
+            encodingResponse.release();
+        }
+    }
+}
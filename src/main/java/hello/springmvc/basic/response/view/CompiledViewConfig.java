@@ -0,0 +1,94 @@
+package hello.springmvc.basic.response.view;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.thymeleaf.ITemplateEngine;
+import org.thymeleaf.context.Context;
+import org.thymeleaf.spring5.view.ThymeleafViewResolver;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * springmvc.view.compiled.enabled=true 면 타임리프 뷰를 CompiledThymeleafView 로 렌더링한다.
+ * compiled-views 프로파일(application-compiled-views.properties)에서 켠다.
+ *
+ * 시작할 때 templates/ 아래 템플릿을 한번씩 처리해서 파싱 결과를 타임리프 템플릿 캐시에 올려두고
+ * 뷰 객체도 미리 만들어둔다. 첫 요청이 파싱 비용을 내지 않는다.
+ * (spring.thymeleaf.cache=false 면 타임리프가 매번 다시 파싱하기 때문에 같이 true 로 둔다.)
+ */
+@Slf4j
+@Configuration
+@ConditionalOnProperty(name = "springmvc.view.compiled.enabled", havingValue = "true")
+public class CompiledViewConfig {
+
+    private static final String TEMPLATE_ROOT = "templates/";
+    private static final String TEMPLATE_SUFFIX = ".html";
+
+    @Bean
+    public EncoderPool viewEncoderPool(@Value("${springmvc.view.compiled.buffer-size:8192}") int bufferSize,
+                                       @Value("${springmvc.view.compiled.pool-size:64}") int poolSize) {
+        return new EncoderPool(bufferSize, poolSize);
+    }
+
+    @Bean
+    public PrerenderedViewCache prerenderedViewCache(@Value("${springmvc.view.prerender.templates:}") List<String> templates,
+                                                     @Value("${springmvc.view.prerender.max-entries:256}") int maxEntries,
+                                                     @Value("${springmvc.view.prerender.max-variants:32}") int maxVariants) {
+        return new PrerenderedViewCache(templates, maxEntries, maxVariants);
+    }
+
+    @Bean
+    public static BeanPostProcessor compiledThymeleafViewPostProcessor() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessBeforeInitialization(Object bean, String beanName) {
+                if (bean instanceof ThymeleafViewResolver) {
+                    ((ThymeleafViewResolver) bean).setViewClass(CompiledThymeleafView.class);
+                }
+                return bean;
+            }
+        };
+    }
+
+    @Bean
+    public ApplicationRunner thymeleafTemplateWarmUp(ITemplateEngine templateEngine, ThymeleafViewResolver viewResolver) {
+        return args -> {
+            List<String> templates = findTemplates();
+            for (String template : templates) {
+                try {
+                    viewResolver.resolveViewName(template, Locale.getDefault());
+                    templateEngine.process(template, new Context(), Writer.nullWriter());
+                } catch (RuntimeException e) {
+                    // 모델 값이 없어서 처리 중에 실패해도 파싱 결과는 이미 캐시에 올라가 있다.
+                    log.debug("template warm-up {} : {}", template, e.getMessage());
+                }
+            }
+            log.info("warmed up {} thymeleaf templates", templates.size());
+        };
+    }
+
+    private static List<String> findTemplates() throws IOException {
+        List<String> templates = new ArrayList<>();
+        Resource[] resources = new PathMatchingResourcePatternResolver()
+                .getResources("classpath*:" + TEMPLATE_ROOT + "**/*" + TEMPLATE_SUFFIX);
+        for (Resource resource : resources) {
+            String path = resource.getURL().toString();
+            int root = path.lastIndexOf(TEMPLATE_ROOT);
+            if (root >= 0) {
+                templates.add(path.substring(root + TEMPLATE_ROOT.length(), path.length() - TEMPLATE_SUFFIX.length()));
+            }
+        }
+        return templates;
+    }
+}
@@ -0,0 +1,58 @@
+package hello.springmvc.basic.response.view;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * 뷰 렌더링에 쓰는 문자/바이트 버퍼와 UTF-8 인코더 묶음 풀
+ * 렌더링할 때마다 인코더와 버퍼를 새로 만들지 않고 꺼내 쓰고 돌려놓는다.
+ */
+public class EncoderPool {
+
+    private final int bufferSize;
+    private final BlockingQueue<Buffers> pool;
+
+    public EncoderPool(int bufferSize, int poolSize) {
+        this.bufferSize = bufferSize;
+        this.pool = new ArrayBlockingQueue<>(poolSize);
+    }
+
+    Buffers acquire() {
+        Buffers buffers = pool.poll();
+        return buffers != null ? buffers : new Buffers(bufferSize);
+    }
+
+    void release(Buffers buffers) {
+        buffers.chars.clear();
+        buffers.bytes.clear();
+        pool.offer(buffers);
+    }
+
+    static final class Buffers {
+        final CharBuffer chars;
+        final ByteBuffer bytes;
+        private final CharsetEncoder utf8Encoder = newEncoder(StandardCharsets.UTF_8);
+
+        Buffers(int bufferSize) {
+            this.chars = CharBuffer.allocate(bufferSize);
+            this.bytes = ByteBuffer.allocate(bufferSize * 3);
+        }
+
+        CharsetEncoder encoder(Charset charset) {
+            CharsetEncoder encoder = StandardCharsets.UTF_8.equals(charset) ? utf8Encoder : newEncoder(charset);
+            return encoder.reset();
+        }
+
+        private static CharsetEncoder newEncoder(Charset charset) {
+            return charset.newEncoder()
+                    .onMalformedInput(CodingErrorAction.REPLACE)
+                    .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        }
+    }
+}
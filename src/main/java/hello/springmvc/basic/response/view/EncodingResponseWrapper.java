@@ -0,0 +1,67 @@
+package hello.springmvc.basic.response.view;
+
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.charset.Charset;
+
+/**
+ * getWriter 가 ResponseEncodingWriter 를 돌려주는 응답
+ * 렌더링이 끝나면 finish, release 를 꼭 호출해야 한다.
+ */
+class EncodingResponseWrapper extends HttpServletResponseWrapper {
+
+    private final EncoderPool pool;
+    private final ByteArrayOutputStream capture;
+    private EncoderPool.Buffers buffers;
+    private ResponseEncodingWriter writer;
+    private PrintWriter printWriter;
+
+    EncodingResponseWrapper(HttpServletResponse response, EncoderPool pool, boolean capture) {
+        super(response);
+        this.pool = pool;
+        this.capture = capture ? new ByteArrayOutputStream(1024) : null;
+    }
+
+    @Override
+    public PrintWriter getWriter() throws IOException {
+        if (printWriter == null) {
+            buffers = pool.acquire();
+            writer = new ResponseEncodingWriter(buffers,
+                    buffers.encoder(Charset.forName(getCharacterEncoding())),
+                    getResponse().getOutputStream(), capture);
+            printWriter = new PrintWriter(writer, false);
+        }
+        return printWriter;
+    }
+
+    @Override
+    public void flushBuffer() throws IOException {
+        if (writer != null) {
+            writer.flush();
+        }
+        super.flushBuffer();
+    }
+
+    void finish() throws IOException {
+        if (writer != null) {
+            writer.finish();
+        }
+    }
+
+    /**
+     * 응답으로 내보낸 바이트, getWriter 를 쓰지 않았으면 null
+     */
+    byte[] captured() {
+        return capture != null && writer != null ? capture.toByteArray() : null;
+    }
+
+    void release() {
+        if (buffers != null) {
+            pool.release(buffers);
+            buffers = null;
+        }
+    }
+}
@@ -0,0 +1,147 @@
+package hello.springmvc.basic.response.view;
+
+import lombok.Getter;
+import org.springframework.beans.BeanUtils;
+
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 렌더링이 끝난 템플릿 결과(바이트) 저장소
+ *
+ * 모델 값 몇 개로 결과가 정해지는 템플릿(예: response/hello 의 data)에만 쓴다.
+ * 키는 뷰 이름 + 로케일 + 모델 값이고 모델 값이 모두 단순 타입(String, 숫자, boolean, enum)일 때만 저장한다.
+ *
+ * templates 에 등록한 템플릿만 대상이다. 요청 URL, 세션, 파라미터 등을 쓰는 템플릿은 등록하면 안 된다.
+ * 템플릿 하나의 서로 다른 키가 max-variants 를 넘으면 모델 종류가 많은 템플릿으로 보고 더 이상 저장하지 않는다.
+ */
+public class PrerenderedViewCache {
+
+    private final Set<String> templates;
+    private final int maxVariants;
+    private final Map<Key, Entry> entries;
+    private final Map<String, AtomicInteger> variants = new ConcurrentHashMap<>();
+
+    public PrerenderedViewCache(Collection<String> templates, int maxEntries, int maxVariants) {
+        this.templates = new HashSet<>(templates);
+        this.maxVariants = maxVariants;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, Entry> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    /**
+     * @return 캐시할 수 없는 뷰/모델이면 null
+     */
+    public Key key(String viewName, String templateName, Locale locale, Map<String, ?> model) {
+        if (!templates.contains(templateName)) {
+            return null;
+        }
+        AtomicInteger count = variants.get(templateName);
+        if (count != null && count.get() > maxVariants) {
+            return null;
+        }
+        if (model == null || model.isEmpty()) {
+            return new Key(viewName, templateName, locale, new Object[0]);
+        }
+        Object[] values = new Object[model.size() * 2];
+        int i = 0;
+        Map<String, ?> sorted = model.size() > 1 ? new TreeMap<>(model) : model;
+        for (Map.Entry<String, ?> entry : sorted.entrySet()) {
+            Object value = entry.getValue();
+            if (value != null && !BeanUtils.isSimpleValueType(value.getClass())) {
+                return null;
+            }
+            values[i++] = entry.getKey();
+            values[i++] = value;
+        }
+        return new Key(viewName, templateName, locale, values);
+    }
+
+    public Entry get(Key key) {
+        synchronized (entries) {
+            return entries.get(key);
+        }
+    }
+
+    public void put(Key key, String contentType, byte[] body) {
+        synchronized (entries) {
+            if (entries.containsKey(key)) {
+                return;
+            }
+            entries.put(key, new Entry(contentType, body));
+        }
+        variants.computeIfAbsent(key.templateName, name -> new AtomicInteger()).incrementAndGet();
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    public static final class Key {
+        private final String viewName;
+        private final String templateName;
+        private final Locale locale;
+        private final Object[] values;
+        private final int hash;
+
+        Key(String viewName, String templateName, Locale locale, Object[] values) {
+            this.viewName = viewName;
+            this.templateName = templateName;
+            this.locale = locale;
+            this.values = values;
+            this.hash = 31 * (31 * viewName.hashCode() + (locale != null ? locale.hashCode() : 0)) + Arrays.hashCode(values);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) o;
+            return hash == other.hash && viewName.equals(other.viewName)
+                    && (locale != null ? locale.equals(other.locale) : other.locale == null)
+                    && Arrays.equals(values, other.values);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    @Getter
+    public static final class Entry {
+        private final String contentType;
+        private final byte[] body;
+
+        Entry(String contentType, byte[] body) {
+            this.contentType = contentType;
+            this.body = body;
+        }
+
+        void writeTo(HttpServletResponse response) throws IOException {
+            response.setContentType(contentType);
+            response.setContentLength(body.length);
+            response.getOutputStream().write(body);
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package hello.springmvc.basic.response.view;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+
+/**
+ * 템플릿 출력(char)을 풀에서 꺼낸 인코더로 바로 바이트로 바꿔서 응답 OutputStream 에 쓴다.
+ * 바이트 버퍼가 찰 때마다 내보내기 때문에 렌더링 결과 전체를 String 으로 모으지 않는다.
+ *
+ * capture 가 있으면 내보낸 바이트를 같이 모아둔다. (PrerenderedViewCache 저장용)
+ */
+class ResponseEncodingWriter extends Writer {
+
+    private final CharsetEncoder encoder;
+    private final CharBuffer chars;
+    private final ByteBuffer bytes;
+    private final OutputStream out;
+    private final ByteArrayOutputStream capture;
+    private boolean finished;
+
+    ResponseEncodingWriter(EncoderPool.Buffers buffers, CharsetEncoder encoder, OutputStream out, ByteArrayOutputStream capture) {
+        this.encoder = encoder;
+        this.chars = buffers.chars;
+        this.bytes = buffers.bytes;
+        this.out = out;
+        this.capture = capture;
+    }
+
+    @Override
+    public void write(int c) throws IOException {
+        if (!chars.hasRemaining()) {
+            encode(false);
+        }
+        chars.put((char) c);
+    }
+
+    @Override
+    public void write(char[] cbuf, int off, int len) throws IOException {
+        while (len > 0) {
+            if (!chars.hasRemaining()) {
+                encode(false);
+            }
+            int n = Math.min(len, chars.remaining());
+            chars.put(cbuf, off, n);
+            off += n;
+            len -= n;
+        }
+    }
+
+    @Override
+    public void write(String str, int off, int len) throws IOException {
+        while (len > 0) {
+            if (!chars.hasRemaining()) {
+                encode(false);
+            }
+            int n = Math.min(len, chars.remaining());
+            str.getChars(off, off + n, chars.array(), chars.arrayOffset() + chars.position());
+            chars.position(chars.position() + n);
+            off += n;
+            len -= n;
+        }
+    }
+
+    /**
+     * 모아둔 문자를 인코딩해서 OutputStream 으로 넘긴다.
+     * 응답을 커밋하지 않도록 서블릿 OutputStream 의 flush 는 부르지 않는다.
+     */
+    @Override
+    public void flush() throws IOException {
+        encode(false);
+        drain();
+    }
+
+    @Override
+    public void close() throws IOException {
+        finish();
+    }
+
+    void finish() throws IOException {
+        if (finished) {
+            return;
+        }
+        finished = true;
+        encode(true);
+        while (encoder.flush(bytes).isOverflow()) {
+            drain();
+        }
+        drain();
+    }
+
+    private void encode(boolean endOfInput) throws IOException {
+        chars.flip();
+        while (true) {
+            CoderResult result = encoder.encode(chars, bytes, endOfInput);
+            if (result.isOverflow()) {
+                drain();
+            } else {
+                break;
+            }
+        }
+        // 서로게이트 쌍이 나뉘어 들어온 경우 남은 문자는 다음 encode 로 넘긴다.
+        chars.compact();
+    }
+
+    private void drain() throws IOException {
+        bytes.flip();
+        if (bytes.hasRemaining()) {
+            out.write(bytes.array(), bytes.arrayOffset(), bytes.limit());
+            if (capture != null) {
+                capture.write(bytes.array(), bytes.arrayOffset(), bytes.limit());
+            }
+        }
+        bytes.clear();
+    }
+}
@@ -0,0 +1,88 @@
+package hello.springmvc.metrics;
+
+import javax.servlet.ReadListener;
+import javax.servlet.ServletInputStream;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletRequestWrapper;
+import java.io.IOException;
+
+/**
+ * 핸들러가 실제로 읽은 요청 바디 바이트 수를 센다.
+ * chunked 요청은 Content-Length 가 없기 때문에 읽은 만큼 세야 한다.
+ */
+class CountingRequestWrapper extends HttpServletRequestWrapper {
+
+    private CountingInputStream inputStream;
+
+    CountingRequestWrapper(HttpServletRequest request) {
+        super(request);
+    }
+
+    @Override
+    public ServletInputStream getInputStream() throws IOException {
+        if (inputStream == null) {
+            inputStream = new CountingInputStream(super.getInputStream());
+        }
+        return inputStream;
+    }
+
+    long getBytesRead() {
+        if (inputStream != null) {
+            return inputStream.count;
+        }
+        // 폼 파라미터처럼 컨테이너가 직접 읽은 바디는 Content-Length 로 대신한다.
+        return Math.max(0, getContentLengthLong());
+    }
+
+    private static class CountingInputStream extends ServletInputStream {
+        private final ServletInputStream delegate;
+        private long count;
+
+        CountingInputStream(ServletInputStream delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = delegate.read();
+            if (b >= 0) {
+                count++;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int read = delegate.read(b, off, len);
+            if (read > 0) {
+                count += read;
+            }
+            return read;
+        }
+
+        @Override
+        public boolean isFinished() {
+            return delegate.isFinished();
+        }
+
+        @Override
+        public boolean isReady() {
+            return delegate.isReady();
+        }
+
+        @Override
+        public void setReadListener(ReadListener readListener) {
+            delegate.setReadListener(readListener);
+        }
+
+        @Override
+        public int available() throws IOException {
+            return delegate.available();
+        }
+
+        @Override
+        public void close() throws IOException {
+            delegate.close();
+        }
+    }
+}
@@ -0,0 +1,181 @@
+package hello.springmvc.metrics;
+
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 응답 바디로 쓴 바이트 수를 센다.
+ *
+ * getWriter 는 컨테이너의 Writer 를 그대로 감싸서 인코딩, getWriter/getOutputStream 중 하나만 쓸 수 있는 규칙은
+ * 컨테이너가 그대로 처리한다. Writer 로 쓴 문자는 응답 인코딩으로 몇 바이트가 되는지 계산해서 센다.
+ */
+class CountingResponseWrapper extends HttpServletResponseWrapper {
+
+    private CountingOutputStream outputStream;
+    private CountingWriter writer;
+
+    CountingResponseWrapper(HttpServletResponse response) {
+        super(response);
+    }
+
+    @Override
+    public ServletOutputStream getOutputStream() throws IOException {
+        if (outputStream == null) {
+            outputStream = new CountingOutputStream(super.getOutputStream());
+        }
+        return outputStream;
+    }
+
+    @Override
+    public PrintWriter getWriter() throws IOException {
+        if (writer == null) {
+            // 컨테이너가 getWriter 에서 인코딩을 확정하므로 그 다음에 읽는다.
+            PrintWriter delegate = super.getWriter();
+            writer = new CountingWriter(delegate, Charset.forName(getCharacterEncoding()));
+        }
+        return writer;
+    }
+
+    long getBytesWritten() {
+        return (outputStream != null ? outputStream.count : 0) + (writer != null ? writer.count : 0);
+    }
+
+    private static class CountingOutputStream extends ServletOutputStream {
+        private final ServletOutputStream delegate;
+        private long count;
+
+        CountingOutputStream(ServletOutputStream delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            delegate.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            delegate.write(b, off, len);
+            count += len;
+        }
+
+        @Override
+        public void flush() throws IOException {
+            delegate.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            delegate.close();
+        }
+
+        @Override
+        public boolean isReady() {
+            return delegate.isReady();
+        }
+
+        @Override
+        public void setWriteListener(WriteListener writeListener) {
+            delegate.setWriteListener(writeListener);
+        }
+    }
+
+    /**
+     * 컨테이너의 PrintWriter 에 그대로 쓰면서 인코딩된 바이트 수를 센다.
+     * UTF-8 과 1바이트 문자셋은 문자마다 계산하고, 나머지 문자셋은 쓴 문자열을 한번 더 인코딩해서 센다.
+     */
+    private static final class CountingWriter extends PrintWriter {
+        private final PrintWriter delegate;
+        private final Charset charset;
+        private final boolean utf8;
+        private final boolean singleByte;
+        private long count;
+
+        CountingWriter(PrintWriter delegate, Charset charset) {
+            super(delegate);
+            this.delegate = delegate;
+            this.charset = charset;
+            this.utf8 = StandardCharsets.UTF_8.equals(charset);
+            this.singleByte = StandardCharsets.ISO_8859_1.equals(charset) || StandardCharsets.US_ASCII.equals(charset);
+        }
+
+        @Override
+        public void write(int c) {
+            delegate.write(c);
+            count += utf8 ? utf8Length((char) c) : singleByte ? 1 : charset.encode(String.valueOf((char) c)).remaining();
+        }
+
+        @Override
+        public void write(char[] buf, int off, int len) {
+            delegate.write(buf, off, len);
+            count += encodedLength(CharBuffer.wrap(buf, off, len));
+        }
+
+        @Override
+        public void write(String s, int off, int len) {
+            delegate.write(s, off, len);
+            count += encodedLength(CharBuffer.wrap(s, off, off + len));
+        }
+
+        /**
+         * PrintWriter.println() 은 줄바꿈을 write 를 거치지 않고 바로 쓰기 때문에 다시 정의한다.
+         */
+        @Override
+        public void println() {
+            write(System.lineSeparator());
+        }
+
+        @Override
+        public void flush() {
+            delegate.flush();
+        }
+
+        @Override
+        public void close() {
+            delegate.close();
+        }
+
+        @Override
+        public boolean checkError() {
+            return delegate.checkError();
+        }
+
+        private long encodedLength(CharBuffer chars) {
+            if (singleByte) {
+                return chars.remaining();
+            }
+            if (!utf8) {
+                return charset.encode(chars).remaining();
+            }
+            long length = 0;
+            for (int i = chars.position(); i < chars.limit(); i++) {
+                length += utf8Length(chars.get(i));
+            }
+            return length;
+        }
+
+        /**
+         * 서로게이트 쌍은 상위 서로게이트에서 4바이트를 모두 센다. (쌍이 write 두 번으로 나뉘어도 맞는다.)
+         */
+        private static int utf8Length(char c) {
+            if (c < 0x80) {
+                return 1;
+            }
+            if (c < 0x800) {
+                return 2;
+            }
+            if (Character.isHighSurrogate(c)) {
+                return 4;
+            }
+            return Character.isLowSurrogate(c) ? 0 : 3;
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package hello.springmvc.metrics;
+
+import org.HdrHistogram.Histogram;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 핸들러 메서드 하나의 측정값
+ *
+ * 기록(record)은 요청 스레드에서 락 없이 한다.
+ * 읽기(snapshot, drainInterval)는 synchronized 로 한 스레드씩만 들어와서
+ * stripe 에 쌓인 값을 누적 히스토그램과 파일 기록용 히스토그램에 옮긴다.
+ */
+public class EndpointMetrics {
+
+    private final String name;
+    private final StripedRecorder latencyRecorder;
+    private final StripedRecorder allocationRecorder;
+
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+    private final LongAdder requestBytes = new LongAdder();
+    private final LongAdder responseBytes = new LongAdder();
+    private final LongAdder allocatedBytes = new LongAdder();
+
+    private final Histogram latency = StripedRecorder.newHistogram();
+    private final Histogram allocation = StripedRecorder.newHistogram();
+    private final Histogram latencySinceLastLog = StripedRecorder.newHistogram();
+    private final Histogram scratch = StripedRecorder.newHistogram();
+
+    EndpointMetrics(String name, int stripes) {
+        this.name = name;
+        this.latencyRecorder = new StripedRecorder(stripes);
+        this.allocationRecorder = new StripedRecorder(stripes);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public long getRequests() {
+        return requests.sum();
+    }
+
+    /**
+     * @param allocated 요청 스레드가 할당한 바이트, 측정할 수 없으면(가상 스레드, 비동기 요청) -1
+     */
+    void record(long latencyNanos, int status, long requestBytes, long responseBytes, long allocated) {
+        latencyRecorder.record(latencyNanos);
+        requests.increment();
+        if (status >= 500) {
+            errors.increment();
+        }
+        this.requestBytes.add(requestBytes);
+        this.responseBytes.add(responseBytes);
+        if (allocated >= 0) {
+            allocationRecorder.record(allocated);
+            allocatedBytes.add(allocated);
+        }
+    }
+
+    /**
+     * 마지막 drainInterval 호출 이후의 지연시간 히스토그램(ns)을 복사해서 돌려준다.
+     * 파일에 주기적으로 남길 때 사용한다.
+     */
+    synchronized Histogram drainInterval() {
+        collect();
+        Histogram interval = latencySinceLastLog.copy();
+        latencySinceLastLog.reset();
+        interval.setTag(name);
+        return interval;
+    }
+
+    synchronized double getLatencyMicros(double percentile) {
+        collect();
+        return latency.getValueAtPercentile(percentile) / (double) TimeUnit.MICROSECONDS.toNanos(1);
+    }
+
+    public synchronized Map<String, Object> snapshot() {
+        collect();
+        long count = requests.sum();
+        Map<String, Object> snapshot = new LinkedHashMap<>();
+        snapshot.put("requests", count);
+        snapshot.put("errors", errors.sum());
+        snapshot.put("latencyMicros", percentiles(latency, TimeUnit.MICROSECONDS.toNanos(1)));
+        snapshot.put("requestBytes", requestBytes.sum());
+        snapshot.put("responseBytes", responseBytes.sum());
+        snapshot.put("allocatedBytes", allocatedBytes.sum());
+        snapshot.put("allocatedBytesPerRequest", percentiles(allocation, 1));
+        return snapshot;
+    }
+
+    private void collect() {
+        scratch.reset();
+        latencyRecorder.drainInto(scratch);
+        latency.add(scratch);
+        latencySinceLastLog.add(scratch);
+        allocationRecorder.drainInto(allocation);
+    }
+
+    private static Map<String, Object> percentiles(Histogram histogram, long unit) {
+        Map<String, Object> percentiles = new LinkedHashMap<>();
+        percentiles.put("count", histogram.getTotalCount());
+        percentiles.put("mean", histogram.getMean() / unit);
+        percentiles.put("p50", histogram.getValueAtPercentile(50) / (double) unit);
+        percentiles.put("p90", histogram.getValueAtPercentile(90) / (double) unit);
+        percentiles.put("p99", histogram.getValueAtPercentile(99) / (double) unit);
+        percentiles.put("p999", histogram.getValueAtPercentile(99.9) / (double) unit);
+        percentiles.put("max", histogram.getMaxValue() / (double) unit);
+        return percentiles;
+    }
+}
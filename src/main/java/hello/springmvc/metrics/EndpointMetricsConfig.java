@@ -0,0 +1,59 @@
+package hello.springmvc.metrics;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+import javax.servlet.DispatcherType;
+import java.io.IOException;
+import java.nio.file.Paths;
+
+/**
+ * 엔드포인트별 지연시간/바이트/할당량 측정 설정
+ * springmvc.metrics.enabled=false 로 끄면 필터가 등록되지 않는다.
+ */
+@Configuration
+@ConditionalOnProperty(name = "springmvc.metrics.enabled", havingValue = "true", matchIfMissing = true)
+public class EndpointMetricsConfig {
+
+    @Bean
+    public EndpointMetricsRegistry endpointMetricsRegistry() {
+        return new EndpointMetricsRegistry(Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * 다른 필터(인코딩, 압축 등)에서 쓰는 시간까지 포함하도록 가장 바깥에서 잰다.
+     */
+    @Bean
+    public FilterRegistrationBean<EndpointMetricsFilter> endpointMetricsFilter(EndpointMetricsRegistry registry) {
+        FilterRegistrationBean<EndpointMetricsFilter> registration =
+                new FilterRegistrationBean<>(new EndpointMetricsFilter(registry));
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE);
+        registration.setAsyncSupported(true);
+        registration.setDispatcherTypes(DispatcherType.REQUEST, DispatcherType.ASYNC);
+        return registration;
+    }
+
+    @Bean
+    @ConditionalOnExpression("!'${springmvc.metrics.snapshot.path:}'.isEmpty()")
+    public EndpointMetricsLogWriter endpointMetricsLogWriter(EndpointMetricsRegistry registry,
+                                                             @Value("${springmvc.metrics.snapshot.path}") String path,
+                                                             @Value("${springmvc.metrics.snapshot.interval-ms:10000}") long intervalMillis) throws IOException {
+        return new EndpointMetricsLogWriter(registry, Paths.get(path), intervalMillis);
+    }
+
+    @Configuration
+    @ConditionalOnClass(name = "io.micrometer.core.instrument.binder.MeterBinder")
+    static class MicrometerBinding {
+
+        @Bean
+        public EndpointMetricsMeterBinder endpointMetricsMeterBinder(EndpointMetricsRegistry registry) {
+            return new EndpointMetricsMeterBinder(registry);
+        }
+    }
+}
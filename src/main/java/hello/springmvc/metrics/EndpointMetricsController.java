@@ -0,0 +1,25 @@
+package hello.springmvc.metrics;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Map;
+
+/**
+ * 엔드포인트별 측정값 조회
+ * 지연시간은 마이크로초, 할당량은 바이트 단위이고 애플리케이션 시작 이후 누적값이다.
+ */
+@RestController
+@ConditionalOnProperty(name = "springmvc.metrics.enabled", havingValue = "true", matchIfMissing = true)
+@RequiredArgsConstructor
+public class EndpointMetricsController {
+
+    private final EndpointMetricsRegistry registry;
+
+    @GetMapping("/metrics/endpoints")
+    public Map<String, Map<String, Object>> endpoints() {
+        return registry.snapshot();
+    }
+}
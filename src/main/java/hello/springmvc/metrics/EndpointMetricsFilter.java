@@ -0,0 +1,121 @@
+package hello.springmvc.metrics;
+
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerMapping;
+
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletMapping;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+
+/**
+ * 요청마다 지연시간, 요청/응답 바이트 수, 요청 스레드가 할당한 바이트 수를 재서
+ * 요청을 처리한 핸들러 메서드 이름으로 EndpointMetricsRegistry 에 기록한다.
+ *
+ * 핸들러 매핑이 요청 속성(BEST_MATCHING_HANDLER_ATTRIBUTE)에 남겨둔 핸들러를 보고 이름을 정하기 때문에
+ * 필터 체인이 끝난 다음에 기록한다. 핸들러가 없는 요청(404, /reactive/** 등)은 서블릿 이름으로 묶는다.
+ *
+ * 비동기 요청은 처음 디스패치가 끝났을 때가 아니라 AsyncListener.onComplete 에서 기록하고
+ * 할당량은 여러 스레드에 걸쳐 있어서 기록하지 않는다.
+ */
+public class EndpointMetricsFilter extends OncePerRequestFilter {
+
+    private static final com.sun.management.ThreadMXBean THREADS = threadMXBean();
+
+    private final EndpointMetricsRegistry registry;
+
+    public EndpointMetricsFilter(EndpointMetricsRegistry registry) {
+        this.registry = registry;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        CountingRequestWrapper countingRequest = new CountingRequestWrapper(request);
+        CountingResponseWrapper countingResponse = new CountingResponseWrapper(response);
+        long start = System.nanoTime();
+        long allocatedBefore = allocatedBytes();
+        boolean failed = true;
+        try {
+            filterChain.doFilter(countingRequest, countingResponse);
+            failed = false;
+        } finally {
+            if (countingRequest.isAsyncStarted()) {
+                countingRequest.getAsyncContext().addListener(new AsyncListener() {
+                    @Override
+                    public void onComplete(AsyncEvent event) {
+                        record(countingRequest, countingResponse, start, -1, false);
+                    }
+
+                    @Override
+                    public void onTimeout(AsyncEvent event) {
+                    }
+
+                    @Override
+                    public void onError(AsyncEvent event) {
+                    }
+
+                    @Override
+                    public void onStartAsync(AsyncEvent event) {
+                    }
+                });
+            } else {
+                long allocatedAfter = allocatedBytes();
+                long allocated = allocatedBefore >= 0 && allocatedAfter >= 0 ? allocatedAfter - allocatedBefore : -1;
+                record(countingRequest, countingResponse, start, allocated, failed);
+            }
+        }
+    }
+
+    /**
+     * 예외가 필터 밖으로 나간 경우에는 컨테이너가 나중에 500 으로 바꾸기 때문에 지금 응답 상태 대신 500 으로 기록한다.
+     */
+    private void record(CountingRequestWrapper request, CountingResponseWrapper response, long start,
+                        long allocated, boolean failed) {
+        long latency = System.nanoTime() - start;
+        int status = failed ? HttpServletResponse.SC_INTERNAL_SERVER_ERROR : response.getStatus();
+        registry.get(endpointName(request))
+                .record(latency, status, request.getBytesRead(), response.getBytesWritten(), allocated);
+    }
+
+    /**
+     * 컨트롤러 클래스 이름#메서드 이름
+     */
+    private static String endpointName(HttpServletRequest request) {
+        Object handler = request.getAttribute(HandlerMapping.BEST_MATCHING_HANDLER_ATTRIBUTE);
+        if (handler instanceof HandlerMethod) {
+            HandlerMethod handlerMethod = (HandlerMethod) handler;
+            return handlerMethod.getBeanType().getSimpleName() + "#" + handlerMethod.getMethod().getName();
+        }
+        HttpServletMapping mapping = request.getHttpServletMapping();
+        return "servlet:" + (mapping != null ? mapping.getServletName() : "unknown");
+    }
+
+    /**
+     * 현재 스레드가 지금까지 할당한 바이트 수
+     * 가상 스레드 등 측정할 수 없는 스레드에서는 -1
+     */
+    private static long allocatedBytes() {
+        if (THREADS == null) {
+            return -1;
+        }
+        return THREADS.getCurrentThreadAllocatedBytes();
+    }
+
+    private static com.sun.management.ThreadMXBean threadMXBean() {
+        java.lang.management.ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        if (threads instanceof com.sun.management.ThreadMXBean) {
+            com.sun.management.ThreadMXBean sunThreads = (com.sun.management.ThreadMXBean) threads;
+            if (sunThreads.isThreadAllocatedMemorySupported() && sunThreads.isThreadAllocatedMemoryEnabled()) {
+                return sunThreads;
+            }
+        }
+        return null;
+    }
+}
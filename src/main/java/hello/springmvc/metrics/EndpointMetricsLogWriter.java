@@ -0,0 +1,75 @@
+package hello.springmvc.metrics;
+
+import lombok.extern.slf4j.Slf4j;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.HistogramLogWriter;
+import org.springframework.beans.factory.DisposableBean;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * interval 마다 엔드포인트별 지연시간 히스토그램을 HdrHistogram 로그 파일에 남긴다.
+ *
+ * 백분위 몇 개만 남기는 게 아니라 압축된 히스토그램 전체를 엔드포인트 이름을 태그로 붙여서 쓰기 때문에
+ * 나중에 HistogramLogReader(또는 HistogramLogAnalyzer)로 원하는 구간을 합쳐서 정확한 백분위를 다시 계산할 수 있다.
+ */
+@Slf4j
+public class EndpointMetricsLogWriter implements DisposableBean {
+
+    private final EndpointMetricsRegistry registry;
+    private final HistogramLogWriter writer;
+    private final ScheduledExecutorService scheduler;
+    private long intervalStart;
+
+    public EndpointMetricsLogWriter(EndpointMetricsRegistry registry, Path path, long intervalMillis) throws IOException {
+        this.registry = registry;
+        if (path.getParent() != null) {
+            Files.createDirectories(path.getParent());
+        }
+        this.writer = new HistogramLogWriter(new PrintStream(path.toFile()));
+        this.intervalStart = System.currentTimeMillis();
+        writer.outputLogFormatVersion();
+        writer.outputStartTime(intervalStart);
+        writer.setBaseTime(intervalStart);
+        writer.outputLegend();
+
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "endpoint-metrics-log");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleAtFixedRate(this::writeInterval, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+        log.info("endpoint metrics log: {} every {}ms", path.toAbsolutePath(), intervalMillis);
+    }
+
+    synchronized void writeInterval() {
+        long intervalEnd = System.currentTimeMillis();
+        try {
+            for (EndpointMetrics metrics : registry.all()) {
+                Histogram interval = metrics.drainInterval();
+                if (interval.getTotalCount() == 0) {
+                    continue;
+                }
+                interval.setStartTimeStamp(intervalStart);
+                interval.setEndTimeStamp(intervalEnd);
+                writer.outputIntervalHistogram(interval);
+            }
+        } catch (RuntimeException e) {
+            log.warn("failed to write endpoint metrics", e);
+        }
+        intervalStart = intervalEnd;
+    }
+
+    @Override
+    public void destroy() {
+        scheduler.shutdownNow();
+        writeInterval();
+        writer.close();
+    }
+}
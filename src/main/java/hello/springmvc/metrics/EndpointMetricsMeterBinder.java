@@ -0,0 +1,35 @@
+package hello.springmvc.metrics;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+/**
+ * 클래스패스에 Micrometer 가 있으면(actuator 등) EndpointMetrics 를 미터로도 내보낸다.
+ * 원본 히스토그램은 EndpointMetrics 에 있고 여기서는 요청 수와 주요 백분위만 읽어간다.
+ */
+public class EndpointMetricsMeterBinder implements MeterBinder {
+
+    private final EndpointMetricsRegistry registry;
+
+    public EndpointMetricsMeterBinder(EndpointMetricsRegistry registry) {
+        this.registry = registry;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry meterRegistry) {
+        registry.forEachEndpoint(metrics -> {
+            FunctionCounter.builder("springmvc.endpoint.requests", metrics, EndpointMetrics::getRequests)
+                    .tag("endpoint", metrics.getName())
+                    .register(meterRegistry);
+            for (double percentile : new double[]{50, 99, 99.9}) {
+                Gauge.builder("springmvc.endpoint.latency", metrics, m -> m.getLatencyMicros(percentile))
+                        .tag("endpoint", metrics.getName())
+                        .tag("percentile", String.valueOf(percentile))
+                        .baseUnit("microseconds")
+                        .register(meterRegistry);
+            }
+        });
+    }
+}
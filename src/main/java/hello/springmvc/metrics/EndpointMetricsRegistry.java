@@ -0,0 +1,53 @@
+package hello.springmvc.metrics;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * 엔드포인트(핸들러 메서드) 이름 -> EndpointMetrics
+ * 키는 핸들러 메서드 단위라서 개수가 매핑 수를 넘지 않는다.
+ */
+public class EndpointMetricsRegistry {
+
+    private final ConcurrentHashMap<String, EndpointMetrics> endpoints = new ConcurrentHashMap<>();
+    private final CopyOnWriteArrayList<Consumer<EndpointMetrics>> listeners = new CopyOnWriteArrayList<>();
+    private final int stripes;
+
+    public EndpointMetricsRegistry(int stripes) {
+        this.stripes = stripes;
+    }
+
+    public EndpointMetrics get(String name) {
+        EndpointMetrics metrics = endpoints.get(name);
+        if (metrics != null) {
+            return metrics;
+        }
+        return endpoints.computeIfAbsent(name, key -> {
+            EndpointMetrics created = new EndpointMetrics(key, stripes);
+            listeners.forEach(listener -> listener.accept(created));
+            return created;
+        });
+    }
+
+    public Collection<EndpointMetrics> all() {
+        return endpoints.values();
+    }
+
+    /**
+     * 이미 있는 엔드포인트와 앞으로 새로 생기는 엔드포인트 모두에 대해 listener 를 호출한다.
+     */
+    public void forEachEndpoint(Consumer<EndpointMetrics> listener) {
+        listeners.add(listener);
+        endpoints.values().forEach(listener);
+    }
+
+    public Map<String, Map<String, Object>> snapshot() {
+        Map<String, Map<String, Object>> snapshot = new TreeMap<>();
+        endpoints.forEach((name, metrics) -> snapshot.put(name, metrics.snapshot()));
+        return snapshot;
+    }
+}
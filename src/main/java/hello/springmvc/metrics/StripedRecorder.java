@@ -0,0 +1,54 @@
+package hello.springmvc.metrics;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+/**
+ * HdrHistogram Recorder 를 스레드 id 기준으로 여러 개로 나눠서 쓴다.
+ *
+ * Recorder 하나도 기록 쪽은 락이 없지만(wait-free) 모든 스레드가 같은 카운터 배열을
+ * atomic 으로 증가시키기 때문에 요청이 몰리면 같은 캐시 라인을 두고 경합한다.
+ * 스레드마다 다른 stripe 에 기록하게 해서 경합을 줄이고, 읽을 때만 합친다.
+ *
+ * auto-resize 히스토그램이라 범위를 넘는 값도 잘리지 않고 그대로 기록된다.
+ */
+class StripedRecorder {
+
+    private static final int SIGNIFICANT_DIGITS = 3;
+
+    private final Recorder[] stripes;
+    private final Histogram[] recycled;
+    private final int mask;
+
+    StripedRecorder(int stripeCount) {
+        int size = Integer.highestOneBit(Math.max(1, stripeCount - 1)) << 1;
+        this.stripes = new Recorder[size];
+        this.recycled = new Histogram[size];
+        this.mask = size - 1;
+        for (int i = 0; i < size; i++) {
+            stripes[i] = new Recorder(SIGNIFICANT_DIGITS);
+        }
+    }
+
+    void record(long value) {
+        stripes[(int) Thread.currentThread().threadId() & mask].recordValue(value);
+    }
+
+    /**
+     * 마지막으로 읽은 이후 기록된 값을 모든 stripe 에서 꺼내 into 에 더한다.
+     * 읽는 쪽은 한 스레드만 들어온다고 가정한다. (EndpointMetrics 가 synchronized 로 보장)
+     */
+    void drainInto(Histogram into) {
+        for (int i = 0; i < stripes.length; i++) {
+            Histogram interval = stripes[i].getIntervalHistogram(recycled[i]);
+            into.add(interval);
+            recycled[i] = interval;
+        }
+    }
+
+    static Histogram newHistogram() {
+        Histogram histogram = new Histogram(SIGNIFICANT_DIGITS);
+        histogram.setAutoResize(true);
+        return histogram;
+    }
+}
@@ -0,0 +1,30 @@
+package hello.springmvc.server;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.LazyInitializationExcludeFilter;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * spring.main.lazy-initialization=true (fast-start 프로파일) 일 때
+ * springmvc.fast-start.eager-beans 에 적은 빈은 지연 초기화하지 않고 시작할 때 만든다.
+ *
+ * 요청이 가장 많이 오는 컨트롤러를 적어두면 콜드 스타트 직후 첫 요청들이
+ * 컨트롤러와 그 의존 빈을 만드는 비용을 내지 않는다.
+ */
+@Configuration
+@ConditionalOnProperty(name = "spring.main.lazy-initialization", havingValue = "true")
+public class FastStartConfig {
+
+    @Bean
+    public static LazyInitializationExcludeFilter eagerBeansExcludeFilter(
+            @Value("${springmvc.fast-start.eager-beans:}") List<String> eagerBeans) {
+        Set<String> names = new HashSet<>(eagerBeans);
+        return (beanName, beanDefinition, beanType) -> names.contains(beanName);
+    }
+}
@@ -0,0 +1,91 @@
+package hello.springmvc.server;
+
+import org.apache.catalina.connector.Connector;
+import org.apache.coyote.UpgradeProtocol;
+import org.apache.coyote.http2.Http2Protocol;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.embedded.tomcat.TomcatConnectorCustomizer;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+import javax.servlet.DispatcherType;
+import javax.servlet.Filter;
+
+/**
+ * high-throughput 프로파일에서 켜는 톰캣 커넥터 튜닝 (springmvc.tomcat.tuning.enabled=true)
+ *
+ * 스레드 수, keep-alive, 대기열 길이처럼 스프링 부트 설정(server.tomcat.*)으로 되는 것은 프로파일 파일에 두고
+ * 여기서는 설정으로 노출되지 않는 것만 바꾼다.
+ *  - 소켓 : TCP_NODELAY, 소켓 읽기/쓰기 버퍼 크기, direct 버퍼, NioChannel 재사용 캐시 크기
+ *    (NioChannel 캐시는 프로세서 캐시(server.tomcat.processor-cache)와 같은 크기로 둔다.
+ *     프로세서 캐시 자체는 스프링 부트가 이 customizer 다음에 설정하므로 여기서 바꾸면 덮어써진다.)
+ *  - HTTP/2 (server.http2.enabled=true 일 때 스프링 부트가 붙이는 h2c Http2Protocol) :
+ *    연결당 동시 스트림 수, 동시에 실행하는 스트림 수, 초기 윈도우 크기, keep-alive
+ *  - 응답 버퍼 : 서블릿 응답 버퍼(기본 8KB)를 이 앱의 응답 크기에 맞게 줄인다.
+ *    대부분 응답이 1KB 도 안 되므로 버퍼가 작아도 한번에 나가고 요청마다 잡는 메모리가 줄어든다.
+ *
+ * 톰캣 9 NIO 커넥터는 acceptor, poller 가 하나씩이라 그 개수는 바꿀 수 없다.
+ * 대신 poller 가 처리할 연결 수(max-connections)와 acceptor 뒤의 대기열(accept-count)을 늘린다.
+ */
+@Configuration
+@ConditionalOnProperty(name = "springmvc.tomcat.tuning.enabled", havingValue = "true")
+public class TomcatTuningConfig {
+
+    @Bean
+    public TomcatConnectorCustomizer socketTuningCustomizer(
+            @Value("${springmvc.tomcat.tcp-no-delay:true}") boolean tcpNoDelay,
+            @Value("${springmvc.tomcat.direct-buffer:false}") boolean directBuffer,
+            @Value("${springmvc.tomcat.app-read-buffer-size:8192}") int appReadBufferSize,
+            @Value("${springmvc.tomcat.app-write-buffer-size:8192}") int appWriteBufferSize,
+            @Value("${server.tomcat.processor-cache:200}") int processorCache) {
+        return connector -> {
+            setProperty(connector, "socket.tcpNoDelay", tcpNoDelay);
+            setProperty(connector, "socket.directBuffer", directBuffer);
+            setProperty(connector, "socket.appReadBufSize", appReadBufferSize);
+            setProperty(connector, "socket.appWriteBufSize", appWriteBufferSize);
+            setProperty(connector, "socket.bufferPool", processorCache);
+        };
+    }
+
+    @Bean
+    public TomcatConnectorCustomizer http2TuningCustomizer(
+            @Value("${springmvc.tomcat.http2.max-concurrent-streams:100}") long maxConcurrentStreams,
+            @Value("${springmvc.tomcat.http2.max-concurrent-stream-execution:20}") int maxConcurrentStreamExecution,
+            @Value("${springmvc.tomcat.http2.initial-window-size:65535}") int initialWindowSize,
+            @Value("${springmvc.tomcat.http2.keep-alive-timeout-ms:20000}") long keepAliveTimeout) {
+        return connector -> {
+            for (UpgradeProtocol upgradeProtocol : connector.findUpgradeProtocols()) {
+                if (upgradeProtocol instanceof Http2Protocol) {
+                    Http2Protocol http2 = (Http2Protocol) upgradeProtocol;
+                    http2.setMaxConcurrentStreams(maxConcurrentStreams);
+                    http2.setMaxConcurrentStreamExecution(maxConcurrentStreamExecution);
+                    http2.setInitialWindowSize(initialWindowSize);
+                    http2.setKeepAliveTimeout(keepAliveTimeout);
+                }
+            }
+        };
+    }
+
+    @Bean
+    public FilterRegistrationBean<Filter> responseBufferSizeFilter(
+            @Value("${springmvc.tomcat.response-buffer-size:8192}") int responseBufferSize) {
+        FilterRegistrationBean<Filter> registration = new FilterRegistrationBean<>((request, response, chain) -> {
+            response.setBufferSize(responseBufferSize);
+            chain.doFilter(request, response);
+        });
+        // 압축 필터(HIGHEST_PRECEDENCE + 10)가 응답을 감싸기 전에 원래 응답의 버퍼 크기를 정한다.
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 5);
+        registration.setAsyncSupported(true);
+        registration.setDispatcherTypes(DispatcherType.REQUEST);
+        return registration;
+    }
+
+    private static void setProperty(Connector connector, String name, Object value) {
+        if (!connector.setProperty(name, String.valueOf(value))) {
+            throw new IllegalStateException("tomcat connector does not support " + name);
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package hello.springmvc.server;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.support.TaskExecutorAdapter;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * springmvc.virtual-threads.enabled=true 면 톰캣 요청 처리를 가상 스레드에서 한다.
+ *
+ * 기본 설정은 server.tomcat.threads.max(200) 개의 플랫폼 스레드 풀을 쓰기 때문에
+ * 요청 스레드가 200 개 모두 막히면 다른 요청은 스레드가 날 때까지 기다려야 한다.
+ * 가상 스레드는 막힌 동안 캐리어 스레드를 내려놓을 수 있으면 요청 수만큼 만들어도 된다.
+ *
+ * 주의 : JDK 21~23 에서는 synchronized 블록 안에서 막힌 가상 스레드가 캐리어 스레드를 잡고 있는다. (pinning)
+ * 톰캣 9 는 소켓 블로킹 읽기/쓰기(NioSocketWrapper, NioBlockingSelector 등)와 JSP, 세션 처리에 synchronized 를 쓰므로
+ * 느린 클라이언트에 막힌 요청은 캐리어 스레드(기본은 CPU 코어 수)를 붙잡고, 그 수만큼 막히면 나머지 요청도 멈춘다.
+ * 즉 이 프로젝트(스프링 부트 2.7, 톰캣 9)를 JDK 21 에서 돌리면 느린 I/O 가 많을 때 기본 스레드 풀보다 나빠질 수 있다.
+ * synchronized 에서도 캐리어를 내려놓는 JDK 24 이상(JEP 491)이나, 블로킹 경로를 ReentrantLock 으로 바꾼
+ * 톰캣 10.1 이상에서 쓰는 것이 맞다. -Djdk.tracePinnedThreads=full 로 고정된 지점을 볼 수 있다.
+ *
+ * 스프링 MVC 비동기 요청(Callable 등)을 처리하는 executor 도 같이 가상 스레드로 바꾼다.
+ * executor 는 이 설정 안에서만 쓰고 빈으로 내놓지 않는다. (ExecutorService 를 주입받는 다른 빈이 가져가지 않도록)
+ */
+@Slf4j
+@Configuration
+@ConditionalOnProperty(name = "springmvc.virtual-threads.enabled", havingValue = "true")
+public class VirtualThreadConfig implements WebMvcConfigurer, DisposableBean {
+
+    private static final int UNPINNED_SYNCHRONIZED_JDK = 24;
+
+    private final ExecutorService executor =
+            Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("tomcat-virtual-", 0).factory());
+
+    public VirtualThreadConfig() {
+        if (Runtime.version().feature() < UNPINNED_SYNCHRONIZED_JDK) {
+            log.warn("virtual threads on JDK {} pin their carrier inside synchronized blocks used by Tomcat's blocking I/O; "
+                    + "use JDK {}+ or Tomcat 10.1+ before relying on this under slow clients",
+                    Runtime.version().feature(), UNPINNED_SYNCHRONIZED_JDK);
+        }
+    }
+
+    @Bean
+    public TomcatProtocolHandlerCustomizer<?> virtualThreadProtocolHandlerCustomizer() {
+        return protocolHandler -> protocolHandler.setExecutor(executor);
+    }
+
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        configurer.setTaskExecutor(new TaskExecutorAdapter(executor));
+    }
+
+    @Override
+    public void destroy() {
+        executor.close();
+    }
+}
@@ -0,0 +1,38 @@
+package hello.springmvc.server.admission;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 핸들러 메서드(또는 컨트롤러 클래스)의 우선순위와 초당 허용 요청 수
+ *
+ * 숫자 값은 ${springmvc.admission...:기본값} 처럼 설정값으로 쓸 수 있고 비워두면 제한하지 않는다.
+ * 클래스에 붙이면 그 안의 핸들러 메서드마다 따로 버킷을 만든다.
+ */
+@Target({ElementType.METHOD, ElementType.TYPE})
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface AdmissionControl {
+
+    Priority priority() default Priority.NORMAL;
+
+    /**
+     * 이 핸들러 전체의 초당 허용 요청 수
+     */
+    String permitsPerSecond() default "";
+
+    /**
+     * 한꺼번에 몰려와도 허용하는 요청 수
+     */
+    String burst() default "";
+
+    /**
+     * 클라이언트(IP, 믿을 수 있는 프록시를 거쳤으면 springmvc.admission.client-key-header)마다의 초당 허용 요청 수
+     */
+    String clientPermitsPerSecond() default "";
+
+    String clientBurst() default "";
+}
@@ -0,0 +1,50 @@
+package hello.springmvc.server.admission;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.core.env.Environment;
+import org.springframework.util.StringUtils;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * 입장 제어 설정
+ * 어느 핸들러로 갈지 알아야 @AdmissionControl 을 볼 수 있으므로 서블릿 필터가 아니라 핸들러 매핑 직후의 인터셉터로 건다.
+ * 다른 인터셉터(응답 캐시, 요청 병합 등)보다 먼저 실행되도록 가장 앞에 등록한다.
+ *
+ * springmvc.admission.enabled=false 로 끄면 모든 요청을 그대로 받는다.
+ */
+@Configuration
+@ConditionalOnProperty(name = "springmvc.admission.enabled", havingValue = "true", matchIfMissing = true)
+public class AdmissionControlConfig implements WebMvcConfigurer {
+
+    private final AdmissionControlInterceptor interceptor;
+
+    public AdmissionControlConfig(Environment environment,
+                                  @Value("${springmvc.admission.limiter.initial:100}") int initialLimit,
+                                  @Value("${springmvc.admission.limiter.min:8}") int minLimit,
+                                  @Value("${springmvc.admission.limiter.max:1000}") int maxLimit,
+                                  @Value("${springmvc.admission.limiter.tolerance:1.5}") double tolerance,
+                                  @Value("${springmvc.admission.limiter.window-ms:100}") long windowMillis,
+                                  @Value("${springmvc.admission.client-key-header:}") String clientKeyHeader,
+                                  @Value("${springmvc.admission.trusted-proxies:}") String trustedProxies,
+                                  @Value("${springmvc.admission.client-slots:4096}") int clientSlots) {
+        GradientConcurrencyLimiter limiter =
+                new GradientConcurrencyLimiter(initialLimit, minLimit, maxLimit, tolerance, windowMillis);
+        this.interceptor = new AdmissionControlInterceptor(limiter, environment::resolveRequiredPlaceholders,
+                clientKeyHeader, StringUtils.commaDelimitedListToSet(StringUtils.trimAllWhitespace(trustedProxies)), clientSlots);
+    }
+
+    @Bean
+    public AdmissionControlInterceptor admissionControlInterceptor() {
+        return interceptor;
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(interceptor).order(Ordered.HIGHEST_PRECEDENCE);
+    }
+}
@@ -0,0 +1,173 @@
+package hello.springmvc.server.admission;
+
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.util.StringUtils;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+
+import javax.servlet.DispatcherType;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.lang.reflect.Method;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * @AdmissionControl 이 붙은 핸들러를 호출하기 전에 요청을 받을지 정한다.
+ *  1. 핸들러 버킷, 클라이언트 버킷 순서로 토큰을 꺼낸다. 없으면 429 + Retry-After
+ *  2. GradientConcurrencyLimiter 에 자리가 없으면 503 + Retry-After: 1
+ * 붙지 않은 핸들러(정적 리소스, 업로드, fsync 를 기다리는 쓰기 등)는 검사하지 않고 한도 계산에도 넣지 않는다.
+ * 이런 요청의 긴 응답시간이 섞이면 한도가 min 까지 줄어서 제한 대상 핸들러까지 503 이 되기 때문이다.
+ * 거절 응답은 바디 없이 상태 코드와 헤더만 쓰고 바로 끝낸다. (에러 페이지 렌더링도 하지 않는다.)
+ *
+ * 비동기 요청은 처음 디스패치에서 잡은 자리를 비동기 디스패치의 afterCompletion 에서 돌려준다.
+ *
+ * 클라이언트는 기본으로 연결 주소(getRemoteAddr)로 구분한다.
+ * clientKeyHeader 는 클라이언트가 마음대로 바꿀 수 있으므로 trustedProxies 에서 온 요청일 때만 그 헤더 값을 쓴다.
+ */
+public class AdmissionControlInterceptor implements AsyncHandlerInterceptor {
+
+    static final String START_ATTRIBUTE = AdmissionControlInterceptor.class.getName() + ".start";
+
+    private static final Route UNRESTRICTED = new Route(Priority.NORMAL, null, null);
+
+    private final GradientConcurrencyLimiter limiter;
+    private final Function<String, String> placeholderResolver;
+    private final String clientKeyHeader;
+    private final Set<String> trustedProxies;
+    private final int clientSlots;
+    private final ConcurrentMap<Method, Route> routes = new ConcurrentHashMap<>();
+
+    private final LongAdder admitted = new LongAdder();
+    private final LongAdder rateLimited = new LongAdder();
+    private final LongAdder shed = new LongAdder();
+
+    public AdmissionControlInterceptor(GradientConcurrencyLimiter limiter, Function<String, String> placeholderResolver,
+                                       String clientKeyHeader, Set<String> trustedProxies, int clientSlots) {
+        this.limiter = limiter;
+        this.placeholderResolver = placeholderResolver;
+        this.clientKeyHeader = clientKeyHeader;
+        this.trustedProxies = trustedProxies;
+        this.clientSlots = Math.max(1, clientSlots);
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (request.getDispatcherType() != DispatcherType.REQUEST || request.getAttribute(START_ATTRIBUTE) != null) {
+            return true;
+        }
+        Route route = handler instanceof HandlerMethod
+                ? routes.computeIfAbsent(((HandlerMethod) handler).getMethod(), method -> route((HandlerMethod) handler))
+                : UNRESTRICTED;
+        if (route == UNRESTRICTED) {
+            return true;
+        }
+
+        long now = System.nanoTime();
+        long wait = tryAcquire(route, request, now);
+        if (wait > 0) {
+            rateLimited.increment();
+            reject(response, 429, TimeUnit.NANOSECONDS.toSeconds(wait + 999_999_999L));
+            return false;
+        }
+        if (!limiter.tryAcquire(route.priority)) {
+            shed.increment();
+            reject(response, HttpServletResponse.SC_SERVICE_UNAVAILABLE, 1);
+            return false;
+        }
+        admitted.increment();
+        request.setAttribute(START_ATTRIBUTE, now);
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        Object start = request.getAttribute(START_ATTRIBUTE);
+        if (start == null) {
+            return;
+        }
+        request.removeAttribute(START_ATTRIBUTE);
+        limiter.release(System.nanoTime() - (Long) start, ex == null && response.getStatus() < 500);
+    }
+
+    private void reject(HttpServletResponse response, int status, long retryAfterSeconds) {
+        response.setStatus(status);
+        response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(Math.max(1, retryAfterSeconds)));
+        response.setContentLength(0);
+    }
+
+    private Route route(HandlerMethod handlerMethod) {
+        AdmissionControl admissionControl =
+                AnnotatedElementUtils.findMergedAnnotation(handlerMethod.getMethod(), AdmissionControl.class);
+        if (admissionControl == null) {
+            admissionControl = AnnotatedElementUtils.findMergedAnnotation(handlerMethod.getBeanType(), AdmissionControl.class);
+        }
+        if (admissionControl == null) {
+            return UNRESTRICTED;
+        }
+        return new Route(admissionControl.priority(),
+                buckets(1, admissionControl.permitsPerSecond(), admissionControl.burst()),
+                buckets(clientSlots, admissionControl.clientPermitsPerSecond(), admissionControl.clientBurst()));
+    }
+
+    private TokenBuckets buckets(int size, String permitsPerSecond, String burst) {
+        String rate = placeholderResolver.apply(permitsPerSecond).trim();
+        if (!StringUtils.hasText(rate)) {
+            return null;
+        }
+        String resolvedBurst = placeholderResolver.apply(burst).trim();
+        double permits = Double.parseDouble(rate);
+        int burstSize = StringUtils.hasText(resolvedBurst) ? Integer.parseInt(resolvedBurst) : (int) Math.ceil(permits);
+        return new TokenBuckets(size, permits, burstSize);
+    }
+
+    public Map<String, Object> snapshot() {
+        Map<String, Object> snapshot = new LinkedHashMap<>(limiter.snapshot());
+        snapshot.put("admitted", admitted.sum());
+        snapshot.put("rateLimited", rateLimited.sum());
+        snapshot.put("shed", shed.sum());
+        return snapshot;
+    }
+
+    String clientKey(HttpServletRequest request) {
+        String remoteAddr = request.getRemoteAddr();
+        if (!StringUtils.hasText(clientKeyHeader) || !trustedProxies.contains(remoteAddr)) {
+            return remoteAddr;
+        }
+        String key = request.getHeader(clientKeyHeader);
+        return StringUtils.hasText(key) ? key : remoteAddr;
+    }
+
+    /**
+     * 클라이언트 버킷을 먼저 본다. 한 클라이언트가 핸들러 전체 토큰을 다 써버리지 않게 하기 위해서다.
+     */
+    private long tryAcquire(Route route, HttpServletRequest request, long now) {
+        if (route.clients != null) {
+            long wait = route.clients.tryAcquire(clientKey(request), now);
+            if (wait > 0) {
+                return wait;
+            }
+        }
+        return route.route != null ? route.route.tryAcquire(0, now) : 0;
+    }
+
+    private static final class Route {
+
+        private final Priority priority;
+        private final TokenBuckets route;
+        private final TokenBuckets clients;
+
+        private Route(Priority priority, TokenBuckets route, TokenBuckets clients) {
+            this.priority = priority;
+            this.route = route;
+            this.clients = clients;
+        }
+    }
+}
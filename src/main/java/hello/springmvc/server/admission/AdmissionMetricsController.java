@@ -0,0 +1,27 @@
+package hello.springmvc.server.admission;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Map;
+
+/**
+ * 입장 제어 현황 조회
+ * limit, inFlight 는 현재값이고 admitted, rateLimited(429), shed(503) 는 애플리케이션 시작 이후 누적값이다.
+ * 과부하 중에도 볼 수 있도록 CRITICAL 로 둔다.
+ */
+@RestController
+@ConditionalOnProperty(name = "springmvc.admission.enabled", havingValue = "true", matchIfMissing = true)
+@RequiredArgsConstructor
+public class AdmissionMetricsController {
+
+    private final AdmissionControlInterceptor interceptor;
+
+    @AdmissionControl(priority = Priority.CRITICAL)
+    @GetMapping("/metrics/admission")
+    public Map<String, Object> admission() {
+        return interceptor.snapshot();
+    }
+}
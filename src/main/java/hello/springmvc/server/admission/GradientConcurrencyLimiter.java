@@ -0,0 +1,129 @@
+package hello.springmvc.server.admission;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 지연시간을 보고 동시 처리 한도를 스스로 조절하는 limiter (gradient 방식)
+ *
+ * windowMillis 마다 그 구간의 평균 응답시간(shortRtt)을 구해 오래 본 평균(longRtt)과 비교한다.
+ *  - gradient = tolerance * longRtt / shortRtt 를 0.5 ~ 1.0 으로 자른다.
+ *    응답이 평소보다 느려지면 1보다 작아져 한도가 줄어든다.
+ *  - newLimit = limit * gradient + sqrt(limit)
+ *    sqrt(limit) 는 대기열로 허용하는 여유분이고, 응답시간이 그대로면 한도가 조금씩 늘어난다.
+ * 진행 중인 요청이 한도의 절반도 안 되는 구간에서는 한도를 늘리지 않는다. (부하가 없어서 빠른 것이므로)
+ *
+ * 요청 경로에서는 AtomicInteger CAS 한번, 완료 시 LongAdder 두개만 건드린다.
+ * 한도 계산은 구간이 끝난 뒤 처음 완료된 요청 하나가 windowStart CAS 에 성공했을 때만 한다.
+ */
+public class GradientConcurrencyLimiter {
+
+    private static final double SMOOTHING = 0.2;
+    private static final double LONG_RTT_WEIGHT = 0.05;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final double tolerance;
+    private final long windowNanos;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger maxInFlight = new AtomicInteger();
+    private final AtomicLong windowStart = new AtomicLong(System.nanoTime());
+    private final LongAdder windowRttSum = new LongAdder();
+    private final LongAdder windowSamples = new LongAdder();
+
+    private volatile double limit;
+    private volatile double longRtt;
+    private volatile double shortRtt;
+
+    public GradientConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit, double tolerance, long windowMillis) {
+        this.minLimit = Math.max(1, minLimit);
+        this.maxLimit = Math.max(this.minLimit, maxLimit);
+        this.tolerance = Math.max(1.0, tolerance);
+        this.windowNanos = TimeUnit.MILLISECONDS.toNanos(windowMillis);
+        this.limit = Math.min(this.maxLimit, Math.max(this.minLimit, initialLimit));
+    }
+
+    /**
+     * 진행 중인 요청 수가 한도 * priority.share 보다 적을 때만 자리를 잡는다.
+     */
+    public boolean tryAcquire(Priority priority) {
+        int allowed = Math.max(1, (int) (limit * priority.getShare()));
+        while (true) {
+            int current = inFlight.get();
+            if (current >= allowed) {
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                maxInFlight.accumulateAndGet(current + 1, Math::max);
+                return true;
+            }
+        }
+    }
+
+    /**
+     * @param rttNanos 요청 처리 시간
+     * @param sample   false 면 (실패한 요청 등) 응답시간을 한도 계산에 쓰지 않는다.
+     */
+    public void release(long rttNanos, boolean sample) {
+        inFlight.decrementAndGet();
+        if (sample) {
+            windowRttSum.add(rttNanos);
+            windowSamples.increment();
+        }
+
+        long now = System.nanoTime();
+        long start = windowStart.get();
+        if (now - start >= windowNanos && windowStart.compareAndSet(start, now)) {
+            updateLimit();
+        }
+    }
+
+    private void updateLimit() {
+        long samples = windowSamples.sumThenReset();
+        long rttSum = windowRttSum.sumThenReset();
+        int peak = maxInFlight.getAndSet(inFlight.get());
+        if (samples == 0) {
+            return;
+        }
+
+        double shortRtt = Math.max(1.0, (double) rttSum / samples);
+        double longRtt = this.longRtt == 0 ? shortRtt : this.longRtt * (1 - LONG_RTT_WEIGHT) + shortRtt * LONG_RTT_WEIGHT;
+        // 과부하가 끝나고 응답이 다시 빨라졌으면 부풀어 있던 longRtt 를 빨리 끌어내린다.
+        if (longRtt > shortRtt * 2) {
+            longRtt *= 0.95;
+        }
+        this.shortRtt = shortRtt;
+        this.longRtt = longRtt;
+
+        double current = limit;
+        double gradient = Math.max(0.5, Math.min(1.0, tolerance * longRtt / shortRtt));
+        double next = current * gradient + Math.sqrt(current);
+        if (peak < current / 2) {
+            next = Math.min(next, current);
+        }
+        next = current * (1 - SMOOTHING) + next * SMOOTHING;
+        limit = Math.min(maxLimit, Math.max(minLimit, next));
+    }
+
+    public int getLimit() {
+        return (int) limit;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    public Map<String, Object> snapshot() {
+        Map<String, Object> snapshot = new LinkedHashMap<>();
+        snapshot.put("limit", getLimit());
+        snapshot.put("inFlight", getInFlight());
+        snapshot.put("shortRttMicros", (long) shortRtt / 1_000);
+        snapshot.put("longRttMicros", (long) longRtt / 1_000);
+        return snapshot;
+    }
+}
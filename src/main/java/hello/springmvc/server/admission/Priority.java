@@ -0,0 +1,22 @@
+package hello.springmvc.server.admission;
+
+/**
+ * 요청 우선순위
+ * share : 동시 처리 한도 중 이 우선순위의 요청이 쓸 수 있는 비율
+ * 진행 중인 요청이 한도에 가까워지면 SHEDDABLE, NORMAL 순서로 먼저 거절된다.
+ */
+public enum Priority {
+    CRITICAL(1.0),
+    NORMAL(0.9),
+    SHEDDABLE(0.6);
+
+    private final double share;
+
+    Priority(double share) {
+        this.share = share;
+    }
+
+    public double getShare() {
+        return share;
+    }
+}
@@ -0,0 +1,51 @@
+package hello.springmvc.server.admission;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 락 없는 토큰 버킷 배열 (GCRA)
+ *
+ * 버킷 하나는 "다음 요청이 이론상 도착해야 하는 시각"(TAT) long 하나다.
+ * 요청마다 TAT 를 interval 만큼 미는 CAS 한번으로 끝나고, TAT 가 지금보다 burst * interval 이상 앞서 있으면 거절한다.
+ * 토큰 수를 주기적으로 채우는 스레드가 필요 없다.
+ *
+ * 클라이언트별 버킷은 키의 해시로 고정 크기 배열의 칸을 고른다.
+ * 클라이언트 수가 칸 수보다 많으면 몇몇 클라이언트가 칸을 나눠 쓰지만 메모리는 늘지 않는다.
+ */
+final class TokenBuckets {
+
+    private final AtomicLongArray states;
+    private final long intervalNanos;
+    private final long toleranceNanos;
+
+    TokenBuckets(int size, double permitsPerSecond, int burst) {
+        this.states = new AtomicLongArray(size);
+        this.intervalNanos = Math.max(1, (long) (1_000_000_000L / permitsPerSecond));
+        this.toleranceNanos = intervalNanos * Math.max(1, burst);
+        for (int i = 0; i < size; i++) {
+            states.set(i, Long.MIN_VALUE);
+        }
+    }
+
+    /**
+     * @return 0 이면 허용, 아니면 허용될 때까지 남은 시간(ns)
+     */
+    long tryAcquire(int index, long now) {
+        while (true) {
+            long tat = states.get(index);
+            long next = Math.max(tat, now) + intervalNanos;
+            long allowAt = next - toleranceNanos;
+            if (allowAt > now) {
+                return allowAt - now;
+            }
+            if (states.compareAndSet(index, tat, next)) {
+                return 0;
+            }
+        }
+    }
+
+    long tryAcquire(String key, long now) {
+        int hash = key.hashCode() * 0x9E3779B9;
+        return tryAcquire(((hash ^ (hash >>> 16)) & 0x7fffffff) % states.length(), now);
+    }
+}
@@ -0,0 +1,78 @@
+package hello.springmvc.server.compression;
+
+/**
+ * Accept-Encoding 협상
+ *
+ * "gzip, deflate, br" 나 "gzip;q=0.5, deflate;q=1, *;q=0" 처럼 q 값이 붙은 목록에서
+ * 압축할 수 있는 인코딩 중 q 값이 가장 큰 것을 고른다. 같으면 offered 에 먼저 나온 것을 고른다.
+ */
+public final class AcceptEncoding {
+
+    private AcceptEncoding() {
+    }
+
+    /**
+     * @param offered 서버가 지원하는 인코딩 (선호 순서)
+     * @return 고른 인코딩, 고를 수 없으면 null (압축하지 않음)
+     */
+    public static String negotiate(String acceptEncoding, String... offered) {
+        if (acceptEncoding == null || acceptEncoding.isEmpty()) {
+            return null;
+        }
+        String best = null;
+        double bestQuality = 0;
+        for (String coding : offered) {
+            double quality = quality(acceptEncoding, coding);
+            if (quality > bestQuality) {
+                best = coding;
+                bestQuality = quality;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * coding 이 직접 나오면 그 q 값, 없으면 * 의 q 값, 둘 다 없으면 0
+     */
+    private static double quality(String acceptEncoding, String coding) {
+        double wildcard = 0;
+        int start = 0;
+        int length = acceptEncoding.length();
+        while (start < length) {
+            int end = acceptEncoding.indexOf(',', start);
+            if (end < 0) {
+                end = length;
+            }
+            int semicolon = acceptEncoding.indexOf(';', start);
+            int nameEnd = semicolon >= 0 && semicolon < end ? semicolon : end;
+            String name = acceptEncoding.substring(start, nameEnd).trim();
+            double quality = nameEnd < end ? parseQuality(acceptEncoding.substring(nameEnd + 1, end)) : 1;
+            if (name.equalsIgnoreCase(coding)) {
+                return quality;
+            }
+            if (name.equals("*")) {
+                wildcard = quality;
+            }
+            start = end + 1;
+        }
+        return wildcard;
+    }
+
+    /**
+     * "level=1;q=0" 처럼 q 가 첫번째 파라미터가 아닐 수도 있으므로 파라미터를 모두 본다. q 가 없으면 1
+     */
+    private static double parseQuality(String parameters) {
+        for (String parameter : parameters.split(";")) {
+            int equals = parameter.indexOf('=');
+            if (equals < 0 || !parameter.substring(0, equals).trim().equalsIgnoreCase("q")) {
+                continue;
+            }
+            try {
+                return Double.parseDouble(parameter.substring(equals + 1).trim());
+            } catch (NumberFormatException e) {
+                return 0;
+            }
+        }
+        return 1;
+    }
+}
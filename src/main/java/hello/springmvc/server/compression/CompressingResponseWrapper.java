@@ -0,0 +1,403 @@
+package hello.springmvc.server.compression;
+
+import org.springframework.http.HttpHeaders;
+
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.util.List;
+import java.util.zip.Deflater;
+
+/**
+ * 응답 바디를 gzip/deflate 로 압축하는 응답
+ *
+ * 처음 threshold 바이트까지는 모아두기만 하고 결정을 미룬다.
+ *  - threshold 를 넘기 전에 응답이 끝나면 압축하지 않고 Content-Length 를 붙여서 그대로 보낸다.
+ *  - 넘으면 압축할 수 있는 응답인지(Content-Type, 이미 Content-Encoding 이 있는지, 상태 코드) 보고
+ *    압축하거나 그대로 흘려보낸다.
+ * 압축 중에 flush 가 오면 SYNC_FLUSH 로 지금까지의 데이터를 바로 내보낸다.
+ *
+ * 필터가 응답이 끝날 때 finish 를 호출해야 gzip 트레일러가 써지고 Deflater 가 풀로 돌아간다.
+ */
+class CompressingResponseWrapper extends HttpServletResponseWrapper {
+
+    private static final byte[] GZIP_HEADER = {0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, (byte) 0xff};
+
+    private enum State {
+        BUFFERING, COMPRESSING, PASSTHROUGH, FINISHED
+    }
+
+    private final DeflaterPool pool;
+    private final String encoding;
+    private final List<String> mimeTypes;
+    private final CompressingOutputStream outputStream = new CompressingOutputStream();
+
+    private DeflaterPool.Compressor compressor;
+    private State state = State.BUFFERING;
+    private int pendingLength;
+    private long uncompressedLength;
+    private long contentLength = -1;
+    private PrintWriter writer;
+
+    CompressingResponseWrapper(HttpServletResponse response, DeflaterPool pool, String encoding, List<String> mimeTypes) {
+        super(response);
+        this.pool = pool;
+        this.encoding = encoding;
+        this.mimeTypes = mimeTypes;
+    }
+
+    @Override
+    public ServletOutputStream getOutputStream() {
+        return outputStream;
+    }
+
+    @Override
+    public PrintWriter getWriter() throws IOException {
+        if (writer == null) {
+            writer = new PrintWriter(new OutputStreamWriter(outputStream, getCharacterEncoding()));
+        }
+        return writer;
+    }
+
+    @Override
+    public void flushBuffer() throws IOException {
+        if (writer != null) {
+            writer.flush();
+        }
+        outputStream.flush();
+        super.flushBuffer();
+    }
+
+    @Override
+    public void resetBuffer() {
+        super.resetBuffer();
+        if (state == State.BUFFERING) {
+            pendingLength = 0;
+        }
+    }
+
+    @Override
+    public void reset() {
+        super.reset();
+        if (state == State.BUFFERING) {
+            pendingLength = 0;
+            contentLength = -1;
+        }
+    }
+
+    // 압축 여부가 정해질 때까지 Content-Length 는 보류한다.
+
+    @Override
+    public void setContentLength(int len) {
+        setContentLengthLong(len);
+    }
+
+    @Override
+    public void setContentLengthLong(long len) {
+        if (state == State.PASSTHROUGH) {
+            super.setContentLengthLong(len);
+        } else {
+            contentLength = len;
+        }
+    }
+
+    @Override
+    public void setHeader(String name, String value) {
+        if (HttpHeaders.CONTENT_LENGTH.equalsIgnoreCase(name)) {
+            setContentLengthLong(value != null ? Long.parseLong(value) : -1);
+        } else {
+            super.setHeader(name, value);
+        }
+    }
+
+    @Override
+    public void addHeader(String name, String value) {
+        if (HttpHeaders.CONTENT_LENGTH.equalsIgnoreCase(name)) {
+            setContentLengthLong(Long.parseLong(value));
+        } else {
+            super.addHeader(name, value);
+        }
+    }
+
+    @Override
+    public void setIntHeader(String name, int value) {
+        if (HttpHeaders.CONTENT_LENGTH.equalsIgnoreCase(name)) {
+            setContentLengthLong(value);
+        } else {
+            super.setIntHeader(name, value);
+        }
+    }
+
+    @Override
+    public void addIntHeader(String name, int value) {
+        if (HttpHeaders.CONTENT_LENGTH.equalsIgnoreCase(name)) {
+            setContentLengthLong(value);
+        } else {
+            super.addIntHeader(name, value);
+        }
+    }
+
+    /**
+     * 응답이 정상적으로 끝났을 때 호출한다.
+     */
+    void finish() throws IOException {
+        if (writer != null) {
+            writer.flush();
+        }
+        switch (state) {
+            case BUFFERING:
+                passThrough(true);
+                break;
+            case COMPRESSING:
+                Deflater deflater = compressor.deflater;
+                deflater.finish();
+                while (!deflater.finished()) {
+                    drain(Deflater.NO_FLUSH);
+                }
+                if (pool.isGzip()) {
+                    writeGzipTrailer();
+                }
+                break;
+            default:
+                break;
+        }
+        state = State.FINISHED;
+        releaseCompressor();
+    }
+
+    /**
+     * 핸들러에서 예외가 나서 에러 페이지로 넘어가는 경우, 모아둔 내용은 버린다.
+     */
+    void abandon() {
+        state = State.FINISHED;
+        releaseCompressor();
+    }
+
+    private void write(byte[] b, int off, int len) throws IOException {
+        switch (state) {
+            case BUFFERING:
+                ensureCompressor();
+                if (pendingLength + len <= compressor.pending.length) {
+                    System.arraycopy(b, off, compressor.pending, pendingLength, len);
+                    pendingLength += len;
+                    return;
+                }
+                if (isCompressible()) {
+                    startCompression();
+                    deflate(compressor.pending, 0, pendingLength);
+                    deflate(b, off, len);
+                } else {
+                    passThrough(false);
+                    getResponse().getOutputStream().write(b, off, len);
+                }
+                return;
+            case COMPRESSING:
+                deflate(b, off, len);
+                return;
+            case PASSTHROUGH:
+                getResponse().getOutputStream().write(b, off, len);
+                return;
+            default:
+                throw new IOException("response already finished");
+        }
+    }
+
+    private void flush() throws IOException {
+        switch (state) {
+            case BUFFERING:
+                // 메시지 컨버터는 바디를 다 쓰고 flush 를 부르기 때문에 압축 대상이면 계속 모아둔다.
+                // 압축 대상이 아니면 스트리밍 응답일 수 있으니 바로 내보낸다.
+                if (!isCompressible()) {
+                    passThrough(false);
+                    getResponse().getOutputStream().flush();
+                }
+                return;
+            case COMPRESSING:
+                drain(Deflater.SYNC_FLUSH);
+                getResponse().getOutputStream().flush();
+                return;
+            case PASSTHROUGH:
+                getResponse().getOutputStream().flush();
+                return;
+            default:
+        }
+    }
+
+    private boolean isCompressible() {
+        HttpServletResponse response = (HttpServletResponse) getResponse();
+        int status = response.getStatus();
+        if (status < 200 || status == SC_NO_CONTENT || status == SC_NOT_MODIFIED || status == SC_PARTIAL_CONTENT) {
+            return false;
+        }
+        if (response.getHeader(HttpHeaders.CONTENT_ENCODING) != null) {
+            return false;
+        }
+        String contentType = response.getContentType();
+        if (contentType == null) {
+            return false;
+        }
+        for (String mimeType : mimeTypes) {
+            if (contentType.regionMatches(true, 0, mimeType, 0, mimeType.length())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void startCompression() {
+        HttpServletResponse response = (HttpServletResponse) getResponse();
+        response.setHeader(HttpHeaders.CONTENT_ENCODING, encoding);
+        if (response.getHeader(HttpHeaders.VARY) == null) {
+            response.setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        } else if (!response.getHeader(HttpHeaders.VARY).contains(HttpHeaders.ACCEPT_ENCODING)) {
+            response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        }
+        // 압축된 표현은 바이트가 다르기 때문에 강한 ETag 를 약한 ETag 로 바꾼다.
+        String etag = response.getHeader(HttpHeaders.ETAG);
+        if (etag != null && !etag.startsWith("W/")) {
+            response.setHeader(HttpHeaders.ETAG, "W/" + etag);
+        }
+        state = State.COMPRESSING;
+        if (pool.isGzip()) {
+            writeRaw(GZIP_HEADER, GZIP_HEADER.length);
+        }
+    }
+
+    /**
+     * 모아둔 바이트를 그대로 내보내고 이후로는 압축하지 않는다.
+     * complete 면 응답이 여기서 끝나는 것이므로 모아둔 길이가 곧 Content-Length 다.
+     */
+    private void passThrough(boolean complete) throws IOException {
+        state = State.PASSTHROUGH;
+        if (contentLength >= 0) {
+            super.setContentLengthLong(contentLength);
+        } else if (complete && !getResponse().isCommitted()) {
+            super.setContentLengthLong(pendingLength);
+        }
+        if (pendingLength > 0) {
+            getResponse().getOutputStream().write(compressor.pending, 0, pendingLength);
+        }
+        pendingLength = 0;
+        releaseCompressor();
+    }
+
+    private void deflate(byte[] b, int off, int len) throws IOException {
+        if (len == 0) {
+            return;
+        }
+        compressor.crc.update(b, off, len);
+        uncompressedLength += len;
+        compressor.deflater.setInput(b, off, len);
+        while (!compressor.deflater.needsInput()) {
+            drain(Deflater.NO_FLUSH);
+        }
+    }
+
+    private void drain(int flush) throws IOException {
+        byte[] out = compressor.out;
+        int n;
+        do {
+            n = compressor.deflater.deflate(out, 0, out.length, flush);
+            if (n > 0) {
+                getResponse().getOutputStream().write(out, 0, n);
+            }
+        } while (n == out.length);
+    }
+
+    private void writeGzipTrailer() throws IOException {
+        byte[] trailer = compressor.out;
+        writeIntLE(trailer, 0, (int) compressor.crc.getValue());
+        writeIntLE(trailer, 4, (int) uncompressedLength);
+        getResponse().getOutputStream().write(trailer, 0, 8);
+    }
+
+    private void writeRaw(byte[] bytes, int length) {
+        try {
+            getResponse().getOutputStream().write(bytes, 0, length);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void writeIntLE(byte[] b, int off, int value) {
+        b[off] = (byte) value;
+        b[off + 1] = (byte) (value >> 8);
+        b[off + 2] = (byte) (value >> 16);
+        b[off + 3] = (byte) (value >> 24);
+    }
+
+    private void ensureCompressor() {
+        if (compressor == null) {
+            compressor = pool.acquire();
+        }
+    }
+
+    private void releaseCompressor() {
+        if (compressor != null) {
+            pool.release(compressor);
+            compressor = null;
+        }
+    }
+
+    private class CompressingOutputStream extends ServletOutputStream {
+
+        private final byte[] single = new byte[1];
+
+        @Override
+        public void write(int b) throws IOException {
+            single[0] = (byte) b;
+            CompressingResponseWrapper.this.write(single, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            CompressingResponseWrapper.this.write(b, off, len);
+        }
+
+        @Override
+        public void flush() throws IOException {
+            CompressingResponseWrapper.this.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            finish();
+            getResponse().getOutputStream().close();
+        }
+
+        @Override
+        public boolean isReady() {
+            try {
+                return getResponse().getOutputStream().isReady();
+            } catch (IOException e) {
+                return false;
+            }
+        }
+
+        /**
+         * 논블로킹 쓰기(WriteListener)를 쓰는 응답은 압축하지 않고 그대로 넘긴다.
+         */
+        @Override
+        public void setWriteListener(WriteListener writeListener) {
+            try {
+                if (state == State.BUFFERING) {
+                    if (compressor != null && pendingLength > 0) {
+                        throw new IllegalStateException("setWriteListener after blocking writes");
+                    }
+                    state = State.PASSTHROUGH;
+                    if (contentLength >= 0) {
+                        CompressingResponseWrapper.super.setContentLengthLong(contentLength);
+                    }
+                    releaseCompressor();
+                }
+                getResponse().getOutputStream().setWriteListener(writeListener);
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package hello.springmvc.server.compression;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+import javax.servlet.DispatcherType;
+import java.util.List;
+
+/**
+ * 응답 압축 설정
+ * springmvc.compression.enabled=false 로 끄면 필터가 등록되지 않는다.
+ *
+ * 톰캣 내장 압축(server.compression.enabled)과 같이 켜면 두번 압축하지는 않지만(Content-Encoding 이 이미 있으면 건너뛴다)
+ * 어느 쪽이 압축했는지 헷갈리므로 하나만 쓴다.
+ */
+@Configuration
+@ConditionalOnProperty(name = "springmvc.compression.enabled", havingValue = "true", matchIfMissing = true)
+public class CompressionConfig {
+
+    /**
+     * 엔드포인트 측정 필터 바로 안쪽에 둬서 측정 필터가 압축된 바이트 수와 압축에 쓴 시간까지 재도록 한다.
+     */
+    @Bean
+    public FilterRegistrationBean<CompressionFilter> compressionFilter(
+            @Value("${springmvc.compression.level:6}") int level,
+            @Value("${springmvc.compression.min-response-size:1024}") int minResponseSize,
+            @Value("${springmvc.compression.pool-size:64}") int poolSize,
+            @Value("${springmvc.compression.mime-types:text/html,text/css,text/plain,application/javascript,application/json}") List<String> mimeTypes) {
+        FilterRegistrationBean<CompressionFilter> registration =
+                new FilterRegistrationBean<>(new CompressionFilter(level, minResponseSize, poolSize, mimeTypes));
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 10);
+        registration.setAsyncSupported(true);
+        registration.setDispatcherTypes(DispatcherType.REQUEST, DispatcherType.ASYNC);
+        return registration;
+    }
+}
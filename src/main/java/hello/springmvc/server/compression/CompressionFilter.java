@@ -0,0 +1,95 @@
+package hello.springmvc.server.compression;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.WebUtils;
+
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Accept-Encoding 을 보고 응답을 gzip 이나 deflate 로 압축한다.
+ *
+ * 정적 리소스는 ResourceHttpRequestHandler 가 미리 압축해둔 .gz/.br 파일을 Content-Encoding 과 함께 보내기 때문에
+ * 이미 Content-Encoding 이 있는 응답은 다시 압축하지 않는다.
+ *
+ * 비동기 요청은 마지막 ASYNC 디스패치가 끝난 다음(AsyncListener.onComplete 이전) finish 해야
+ * gzip 트레일러까지 나가기 때문에 ASYNC 디스패치도 거른다.
+ */
+public class CompressionFilter extends OncePerRequestFilter {
+
+    private final DeflaterPool gzipPool;
+    private final DeflaterPool deflatePool;
+    private final List<String> mimeTypes;
+
+    public CompressionFilter(int level, int minResponseSize, int poolSize, List<String> mimeTypes) {
+        this.gzipPool = new DeflaterPool(level, true, minResponseSize, poolSize);
+        this.deflatePool = new DeflaterPool(level, false, minResponseSize, poolSize);
+        this.mimeTypes = mimeTypes;
+    }
+
+    @Override
+    protected boolean shouldNotFilterAsyncDispatch() {
+        return false;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        if (isAsyncDispatch(request)) {
+            filterChain.doFilter(request, response);
+            CompressingResponseWrapper compressing = WebUtils.getNativeResponse(response, CompressingResponseWrapper.class);
+            if (compressing != null && !request.isAsyncStarted()) {
+                compressing.finish();
+            }
+            return;
+        }
+
+        String encoding = "HEAD".equals(request.getMethod()) ? null
+                : AcceptEncoding.negotiate(request.getHeader(HttpHeaders.ACCEPT_ENCODING), "gzip", "deflate");
+        if (encoding == null) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        DeflaterPool pool = "gzip".equals(encoding) ? gzipPool : deflatePool;
+        CompressingResponseWrapper compressing = new CompressingResponseWrapper(response, pool, encoding, mimeTypes);
+        boolean completed = false;
+        try {
+            filterChain.doFilter(request, compressing);
+            completed = true;
+        } finally {
+            if (!completed) {
+                compressing.abandon();
+            } else if (request.isAsyncStarted()) {
+                // 에러나 타임아웃으로 ASYNC 디스패치 없이 끝나는 경우에도 Deflater 를 풀에 돌려놓는다.
+                request.getAsyncContext().addListener(new AsyncListener() {
+                    @Override
+                    public void onComplete(AsyncEvent event) {
+                        compressing.abandon();
+                    }
+
+                    @Override
+                    public void onTimeout(AsyncEvent event) {
+                    }
+
+                    @Override
+                    public void onError(AsyncEvent event) {
+                    }
+
+                    @Override
+                    public void onStartAsync(AsyncEvent event) {
+                    }
+                });
+            } else {
+                compressing.finish();
+            }
+        }
+    }
+}
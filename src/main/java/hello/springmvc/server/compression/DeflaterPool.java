@@ -0,0 +1,57 @@
+package hello.springmvc.server.compression;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * Deflater 와 압축에 쓰는 버퍼 묶음 풀
+ *
+ * Deflater 는 네이티브 zlib 메모리(수백 KB)를 잡기 때문에 요청마다 만들면 비싸다.
+ * 꺼내 쓰고 reset 해서 돌려놓기 때문에 동시에 압축하는 요청 수(≒ 요청 처리 스레드 수)만큼만 만들어진다.
+ * 풀이 가득 차서 못 돌려놓은 Deflater 는 바로 end() 로 네이티브 메모리를 돌려준다.
+ */
+class DeflaterPool {
+
+    private final int level;
+    private final boolean gzip;
+    private final int threshold;
+    private final BlockingQueue<Compressor> pool;
+
+    DeflaterPool(int level, boolean gzip, int threshold, int poolSize) {
+        this.level = level;
+        this.gzip = gzip;
+        this.threshold = threshold;
+        this.pool = new ArrayBlockingQueue<>(poolSize);
+    }
+
+    Compressor acquire() {
+        Compressor compressor = pool.poll();
+        return compressor != null ? compressor : new Compressor(new Deflater(level, gzip), threshold);
+    }
+
+    void release(Compressor compressor) {
+        compressor.deflater.reset();
+        compressor.crc.reset();
+        if (!pool.offer(compressor)) {
+            compressor.deflater.end();
+        }
+    }
+
+    boolean isGzip() {
+        return gzip;
+    }
+
+    static final class Compressor {
+        final Deflater deflater;
+        final CRC32 crc = new CRC32();
+        final byte[] out = new byte[8192];
+        final byte[] pending;
+
+        Compressor(Deflater deflater, int threshold) {
+            this.deflater = deflater;
+            this.pending = new byte[threshold];
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package hello.springmvc.server.staticfile;
+
+/**
+ * Range: bytes=... 헤더 하나를 해석한 결과
+ *
+ * 구간 하나(bytes=0-99, bytes=100-, bytes=-100)만 지원한다.
+ * 여러 구간(multipart/byteranges)이나 형식이 잘못된 헤더는 RFC 7233 에 따라 무시하고 전체를 보낸다.
+ */
+final class ByteRange {
+
+    /**
+     * 파일 크기를 벗어나는 구간 (416)
+     */
+    static final ByteRange UNSATISFIABLE = new ByteRange(-1, 0);
+
+    private static final String PREFIX = "bytes=";
+
+    final long start;
+    final long length;
+
+    private ByteRange(long start, long length) {
+        this.start = start;
+        this.length = length;
+    }
+
+    /**
+     * @return 보낼 구간, UNSATISFIABLE, 무시해야 하면 null
+     */
+    static ByteRange parse(String header, long total) {
+        if (header == null || !header.regionMatches(true, 0, PREFIX, 0, PREFIX.length()) || header.indexOf(',') >= 0) {
+            return null;
+        }
+        String spec = header.substring(PREFIX.length()).trim();
+        int dash = spec.indexOf('-');
+        if (dash < 0) {
+            return null;
+        }
+        try {
+            if (dash == 0) {
+                long suffix = Long.parseLong(spec.substring(1));
+                if (suffix <= 0 || total == 0) {
+                    return UNSATISFIABLE;
+                }
+                long start = Math.max(0, total - suffix);
+                return new ByteRange(start, total - start);
+            }
+            long start = Long.parseLong(spec.substring(0, dash));
+            long end = dash == spec.length() - 1 ? total - 1 : Long.parseLong(spec.substring(dash + 1));
+            if (start < 0 || end < start && dash != spec.length() - 1) {
+                return null;
+            }
+            if (start >= total) {
+                return UNSATISFIABLE;
+            }
+            end = Math.min(end, total - 1);
+            return new ByteRange(start, end - start + 1);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    String contentRange(long total) {
+        return "bytes " + start + "-" + (start + length - 1) + "/" + total;
+    }
+
+    static String unsatisfied(long total) {
+        return "bytes */" + total;
+    }
+}
@@ -0,0 +1,133 @@
+package hello.springmvc.server.staticfile;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import org.springframework.core.io.Resource;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * 정적 파일 하나의 메타데이터와 (캐시에 올라가 있다면) 내용
+ *
+ * ETag, Last-Modified, Content-Type 헤더 값은 처음 읽을 때 문자열로 만들어두고
+ * 요청마다 그대로 쓴다.
+ */
+@Getter
+public class StaticFile {
+
+    /**
+     * 파일 시스템에 있는 파일이면 그 경로, jar 안의 리소스면 null (sendfile 을 쓸 수 없다.)
+     */
+    private final Path file;
+    private final Resource resource;
+    private final long length;
+    private final long lastModified;
+
+    /**
+     * 읽을 때의 파일 수정 시각 (밀리초를 버리지 않은 값), isStale 에서 비교한다.
+     */
+    @Getter(AccessLevel.NONE)
+    private final long modifiedMillis;
+    private final String etag;
+    private final String lastModifiedHeader;
+    private final String contentType;
+
+    /**
+     * 읽기 전용 direct 버퍼(또는 메모리 매핑 버퍼), 캐시하기에 너무 큰 파일이면 null
+     */
+    private final ByteBuffer body;
+
+    /**
+     * 빌드할 때 만들어둔 같은 파일의 .gz, 없으면 null
+     */
+    private final StaticFile gzipVariant;
+
+    StaticFile(Path file, Resource resource, long length, long lastModified, String contentType,
+               ByteBuffer body, StaticFile gzipVariant) {
+        this.file = file;
+        this.resource = resource;
+        this.length = length;
+        this.modifiedMillis = lastModified;
+        // HTTP 날짜는 초 단위라서 If-Modified-Since 와 비교하려면 밀리초를 버려야 한다.
+        this.lastModified = lastModified / 1000 * 1000;
+        this.etag = "\"" + Long.toHexString(length) + "-" + Long.toHexString(this.lastModified) + "\"";
+        this.lastModifiedHeader = DateTimeFormatter.RFC_1123_DATE_TIME
+                .format(Instant.ofEpochMilli(this.lastModified).atZone(ZoneOffset.UTC));
+        this.contentType = contentType;
+        this.body = body;
+        this.gzipVariant = gzipVariant;
+    }
+
+    /**
+     * 캐시가 차지하는 바이트 수 (변형 포함)
+     */
+    long getCachedBytes() {
+        long bytes = body != null ? body.capacity() : 0;
+        return gzipVariant != null ? bytes + gzipVariant.getCachedBytes() : bytes;
+    }
+
+    /**
+     * 파일 시스템의 파일이 읽은 뒤로 바뀌었거나 지워졌으면 true (변형 포함)
+     * 매핑해둔 파일이 줄어든 채로 쓰면 InternalError(SIGBUS)가 나므로 캐시에서 꺼낼 때마다 확인한다.
+     * jar 안의 리소스는 바뀌지 않는다.
+     */
+    boolean isStale() {
+        if (file != null) {
+            try {
+                BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+                if (attributes.size() != length || attributes.lastModifiedTime().toMillis() != modifiedMillis) {
+                    return true;
+                }
+            } catch (IOException e) {
+                return true;
+            }
+        }
+        return gzipVariant != null && gzipVariant.isStale();
+    }
+
+    /**
+     * If-None-Match: "a", W/"b" 처럼 여러 개가 올 수 있고 * 는 항상 일치한다. (약한 비교)
+     */
+    public boolean matches(String ifNoneMatch) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            if (tag.equals("*") || tag.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * If-Modified-Since 이후로 바뀌지 않았으면 true
+     */
+    public boolean notModifiedSince(long ifModifiedSince) {
+        return ifModifiedSince >= 0 && lastModified <= ifModifiedSince;
+    }
+
+    /**
+     * If-Range 는 강한 ETag 나 날짜 중 하나다. 일치하지 않으면 Range 를 무시하고 전체를 보낸다.
+     */
+    public boolean ifRangeMatches(String ifRange) {
+        if (ifRange == null) {
+            return true;
+        }
+        if (ifRange.startsWith("\"")) {
+            return ifRange.equals(etag);
+        }
+        return ifRange.equals(lastModifiedHeader);
+    }
+}
@@ -0,0 +1,164 @@
+package hello.springmvc.server.staticfile;
+
+import org.springframework.core.io.Resource;
+import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 정적 파일 캐시
+ *
+ * max-file-size 이하인 파일은 내용을 힙 밖에 올려둔다.
+ *  - 파일 시스템에 있는 파일은 메모리 매핑한다. (페이지 캐시를 그대로 쓰고 힙으로 복사하지 않는다.)
+ *  - jar 안의 리소스는 direct 버퍼에 한번 읽어둔다.
+ * 올려둔 내용의 합이 max-bytes 를 넘으면 가장 오래 조회되지 않은 파일부터 지운다. (LRU)
+ * 지워진 버퍼의 메모리는 버퍼 객체가 GC 될 때 돌려받는다.
+ *
+ * 더 큰 파일은 메타데이터만 캐시하고 내용은 요청마다 파일에서 보낸다.
+ *
+ * 파일 시스템의 파일은 꺼낼 때마다 크기와 수정 시각을 다시 확인해서 바뀌었으면 새로 읽는다.
+ * (확인한 뒤 보내는 사이에 파일이 줄어드는 경우는 StaticResourceHandler 가 처리한다.)
+ */
+public class StaticFileCache {
+
+    private final List<Resource> locations;
+    private final long maxBytes;
+    private final long maxFileSize;
+    private final Map<String, StaticFile> files = new LinkedHashMap<>(64, 0.75f, true);
+    private long cachedBytes;
+
+    public StaticFileCache(List<Resource> locations, long maxBytes, long maxFileSize) {
+        this.locations = locations;
+        this.maxBytes = maxBytes;
+        this.maxFileSize = maxFileSize;
+    }
+
+    /**
+     * @param path 정적 리소스 위치 기준 상대 경로 (검증된 경로)
+     * @return 없으면 null
+     */
+    public StaticFile get(String path) throws IOException {
+        StaticFile cached;
+        synchronized (files) {
+            cached = files.get(path);
+        }
+        if (cached != null) {
+            if (!cached.isStale()) {
+                return cached;
+            }
+            invalidate(path, cached);
+        }
+        StaticFile loaded = load(path);
+        if (loaded == null) {
+            return null;
+        }
+        synchronized (files) {
+            StaticFile existing = files.putIfAbsent(path, loaded);
+            if (existing != null) {
+                return existing;
+            }
+            cachedBytes += loaded.getCachedBytes();
+            evict(path);
+        }
+        return loaded;
+    }
+
+    /**
+     * 캐시에 있는 파일을 지운다. 다음 get 에서 다시 읽는다.
+     */
+    public void invalidate(String path) {
+        synchronized (files) {
+            StaticFile removed = files.remove(path);
+            if (removed != null) {
+                cachedBytes -= removed.getCachedBytes();
+            }
+        }
+    }
+
+    private void invalidate(String path, StaticFile stale) {
+        synchronized (files) {
+            if (files.remove(path, stale)) {
+                cachedBytes -= stale.getCachedBytes();
+            }
+        }
+    }
+
+    public long getCachedBytes() {
+        synchronized (files) {
+            return cachedBytes;
+        }
+    }
+
+    public int size() {
+        synchronized (files) {
+            return files.size();
+        }
+    }
+
+    private void evict(String keep) {
+        Iterator<Map.Entry<String, StaticFile>> iterator = files.entrySet().iterator();
+        while (cachedBytes > maxBytes && iterator.hasNext()) {
+            Map.Entry<String, StaticFile> eldest = iterator.next();
+            if (eldest.getKey().equals(keep)) {
+                continue;
+            }
+            cachedBytes -= eldest.getValue().getCachedBytes();
+            iterator.remove();
+        }
+    }
+
+    private StaticFile load(String path) throws IOException {
+        for (Resource location : locations) {
+            Resource resource = location.createRelative(path);
+            if (resource.isReadable()) {
+                Resource gzip = location.createRelative(path + ".gz");
+                StaticFile gzipVariant = gzip.isReadable() ? load(gzip, null, null) : null;
+                return load(resource, contentType(resource), gzipVariant);
+            }
+        }
+        return null;
+    }
+
+    private StaticFile load(Resource resource, String contentType, StaticFile gzipVariant) throws IOException {
+        Path file = resource.isFile() ? resource.getFile().toPath() : null;
+        long length = resource.contentLength();
+        ByteBuffer body = null;
+        if (length <= maxFileSize) {
+            body = file != null ? map(file, length) : read(resource, length);
+        }
+        return new StaticFile(file, resource, length, resource.lastModified(), contentType, body, gzipVariant);
+    }
+
+    private static ByteBuffer map(Path file, long length) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, length);
+        }
+    }
+
+    private static ByteBuffer read(Resource resource, long length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocateDirect((int) length);
+        try (InputStream in = resource.getInputStream(); ReadableByteChannel channel = Channels.newChannel(in)) {
+            while (buffer.hasRemaining() && channel.read(buffer) >= 0) {
+                // 끝까지 읽는다.
+            }
+        }
+        buffer.flip();
+        return buffer.asReadOnlyBuffer();
+    }
+
+    private static String contentType(Resource resource) {
+        return MediaTypeFactory.getMediaType(resource).orElse(MediaType.APPLICATION_OCTET_STREAM).toString();
+    }
+}
@@ -0,0 +1,47 @@
+package hello.springmvc.server.staticfile;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.web.WebProperties;
+import org.springframework.boot.autoconfigure.web.servlet.WebMvcProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.web.servlet.handler.SimpleUrlHandlerMapping;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * springmvc.static.engine.enabled=true 면 spring.mvc.static-path-pattern(/**) 을
+ * 스프링 부트의 ResourceHttpRequestHandler 대신 StaticResourceHandler 가 처리한다.
+ * 파일은 spring.web.resources.static-locations 에서 같은 순서로 찾는다.
+ *
+ * 컨트롤러 매핑과 웰컴 페이지(/ -> index.html)보다는 뒤, 스프링 부트 리소스 매핑보다는 앞에 둔다.
+ */
+@Configuration
+@ConditionalOnProperty(name = "springmvc.static.engine.enabled", havingValue = "true", matchIfMissing = true)
+public class StaticResourceConfig {
+
+    @Bean
+    public StaticFileCache staticFileCache(WebProperties webProperties, ResourceLoader resourceLoader,
+                                           @Value("${springmvc.static.engine.cache.max-bytes:67108864}") long maxBytes,
+                                           @Value("${springmvc.static.engine.cache.max-file-size:4194304}") long maxFileSize) {
+        List<Resource> locations = Stream.of(webProperties.getResources().getStaticLocations())
+                .map(resourceLoader::getResource)
+                .collect(Collectors.toList());
+        return new StaticFileCache(locations, maxBytes, Math.min(maxFileSize, Integer.MAX_VALUE));
+    }
+
+    @Bean
+    public SimpleUrlHandlerMapping staticResourceHandlerMapping(StaticFileCache staticFileCache, WebMvcProperties mvcProperties,
+                                                                @Value("${springmvc.static.engine.sendfile-threshold:65536}") long sendfileThreshold) {
+        StaticResourceHandler handler = new StaticResourceHandler(staticFileCache, sendfileThreshold);
+        return new SimpleUrlHandlerMapping(Collections.singletonMap(mvcProperties.getStaticPathPattern(), handler),
+                Ordered.LOWEST_PRECEDENCE - 2);
+    }
+}
@@ -0,0 +1,182 @@
+package hello.springmvc.server.staticfile;
+
+import hello.springmvc.server.compression.AcceptEncoding;
+import org.springframework.http.HttpHeaders;
+import org.springframework.util.StreamUtils;
+import org.springframework.web.HttpRequestHandler;
+import org.springframework.web.servlet.HandlerMapping;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * ResourceHttpRequestHandler 대신 정적 파일을 보내는 핸들러
+ *
+ * 보내는 방법
+ *  - sendfile-threshold 이상이고 커넥터가 sendfile 을 지원하면 요청 속성에 파일 경로만 남기고
+ *    톰캣이 서블릿이 끝난 다음 커널에서 바로 소켓으로 보낸다. 힙을 거치지 않는 건 이 경우뿐이다.
+ *  - 캐시에 올라가 있으면 direct/매핑 버퍼를 서블릿 출력 스트림에 쓴다.
+ *    ServletOutputStream 은 byte[] 만 받으므로 Channels.newChannel 이 8KB 힙 배열로 나눠 복사하고,
+ *    톰캣 출력 버퍼로 한번 더 복사된다. 요청마다 파일을 읽지 않는 것이 이득이다.
+ *  - 둘 다 아니면 FileChannel.transferTo 로 보낸다. 대상이 소켓이 아니라서 내부에서는 읽고 쓰는 복사 루프다.
+ *
+ * GET/HEAD, If-None-Match/If-Modified-Since(304), Range/If-Range(206, 416) 와
+ * 빌드할 때 만든 .gz 변형(Accept-Encoding: gzip)을 지원한다.
+ */
+public class StaticResourceHandler implements HttpRequestHandler {
+
+    private static final String SENDFILE_SUPPORTED = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    private final StaticFileCache cache;
+    private final long sendfileThreshold;
+
+    public StaticResourceHandler(StaticFileCache cache, long sendfileThreshold) {
+        this.cache = cache;
+        this.sendfileThreshold = sendfileThreshold;
+    }
+
+    @Override
+    public void handleRequest(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        String method = request.getMethod();
+        boolean head = "HEAD".equals(method);
+        if (!head && !"GET".equals(method)) {
+            response.setHeader(HttpHeaders.ALLOW, "GET, HEAD");
+            response.sendError(HttpServletResponse.SC_METHOD_NOT_ALLOWED);
+            return;
+        }
+
+        String path = (String) request.getAttribute(HandlerMapping.PATH_WITHIN_HANDLER_MAPPING_ATTRIBUTE);
+        StaticFile file = isValidPath(path) ? cache.get(path) : null;
+        if (file == null) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+
+        // 구간 요청은 압축하지 않은 원본 기준으로 보낸다.
+        String rangeHeader = request.getHeader(HttpHeaders.RANGE);
+        StaticFile representation = file;
+        if (file.getGzipVariant() != null) {
+            response.setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+            if (rangeHeader == null
+                    && "gzip".equals(AcceptEncoding.negotiate(request.getHeader(HttpHeaders.ACCEPT_ENCODING), "gzip"))) {
+                representation = file.getGzipVariant();
+                response.setHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+            }
+        }
+
+        response.setHeader(HttpHeaders.ETAG, representation.getEtag());
+        response.setHeader(HttpHeaders.LAST_MODIFIED, representation.getLastModifiedHeader());
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+
+        String ifNoneMatch = request.getHeader(HttpHeaders.IF_NONE_MATCH);
+        if (ifNoneMatch != null ? representation.matches(ifNoneMatch)
+                : representation.notModifiedSince(ifModifiedSince(request))) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+
+        long start = 0;
+        long length = representation.getLength();
+        if (rangeHeader != null && file.ifRangeMatches(request.getHeader(HttpHeaders.IF_RANGE))) {
+            ByteRange range = ByteRange.parse(rangeHeader, length);
+            if (range == ByteRange.UNSATISFIABLE) {
+                response.setHeader(HttpHeaders.CONTENT_RANGE, ByteRange.unsatisfied(length));
+                response.setStatus(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+                return;
+            }
+            if (range != null) {
+                response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+                response.setHeader(HttpHeaders.CONTENT_RANGE, range.contentRange(length));
+                start = range.start;
+                length = range.length;
+            }
+        }
+
+        response.setContentType(file.getContentType());
+        response.setContentLengthLong(length);
+        if (head || length == 0) {
+            return;
+        }
+        try {
+            writeBody(request, response, representation, start, length);
+        } catch (InternalError e) {
+            // 확인한 뒤에 매핑된 파일이 줄어들었다. 다음 요청에서 다시 읽도록 캐시에서 지운다.
+            cache.invalidate(path);
+            throw new IOException("static file changed while it was being sent: " + path, e);
+        }
+    }
+
+    private void writeBody(HttpServletRequest request, HttpServletResponse response, StaticFile file,
+                           long start, long length) throws IOException {
+        if (file.getFile() != null && length >= sendfileThreshold
+                && Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORTED))) {
+            request.setAttribute(SENDFILE_FILENAME, file.getFile().toAbsolutePath().toString());
+            request.setAttribute(SENDFILE_START, start);
+            request.setAttribute(SENDFILE_END, start + length);
+            return;
+        }
+
+        OutputStream out = response.getOutputStream();
+        ByteBuffer body = file.getBody();
+        if (body != null) {
+            ByteBuffer slice = body.duplicate();
+            slice.position((int) start).limit((int) (start + length));
+            WritableByteChannel channel = Channels.newChannel(out);
+            while (slice.hasRemaining()) {
+                channel.write(slice);
+            }
+        } else if (file.getFile() != null) {
+            try (FileChannel channel = FileChannel.open(file.getFile(), StandardOpenOption.READ)) {
+                WritableByteChannel target = Channels.newChannel(out);
+                long position = start;
+                long end = start + length;
+                while (position < end) {
+                    long transferred = channel.transferTo(position, end - position, target);
+                    if (transferred == 0 && position >= channel.size()) {
+                        throw new IOException("static file was truncated while it was being sent: " + file.getFile());
+                    }
+                    position += transferred;
+                }
+            }
+        } else {
+            // jar 안에 있고 캐시하기에는 큰 리소스
+            try (InputStream in = file.getResource().getInputStream()) {
+                StreamUtils.copyRange(in, out, start, start + length - 1);
+            }
+        }
+    }
+
+    private static long ifModifiedSince(HttpServletRequest request) {
+        try {
+            return request.getDateHeader(HttpHeaders.IF_MODIFIED_SINCE);
+        } catch (IllegalArgumentException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * 상위 디렉터리로 나가거나 URL 로 해석될 수 있는 경로, 인코딩이 남아있는 경로는 거절한다.
+     */
+    static boolean isValidPath(String path) {
+        if (path == null || path.isEmpty() || path.endsWith("/")) {
+            return false;
+        }
+        if (path.contains("..") || path.contains("\\") || path.contains(":") || path.contains("%")
+                || path.startsWith("/")) {
+            return false;
+        }
+        String upper = path.toUpperCase();
+        return !upper.contains("WEB-INF") && !upper.contains("META-INF");
+    }
+}
@@ -0,0 +1,94 @@
+package hello.springmvc.support;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Consumer;
+
+/**
+ * 여러 스레드가 넣고(offer) 한 스레드만 꺼내는(drain) 크기 고정 링 버퍼
+ *
+ * 락 없이 슬롯마다 시퀀스 번호를 두고 CAS 로 자리를 잡는다.
+ *  - 슬롯 시퀀스 == 넣을 위치 : 비어있는 슬롯
+ *  - 슬롯 시퀀스 == 넣을 위치 + 1 : 값이 들어있는 슬롯
+ * 꺼내는 쪽은 값을 꺼낸 뒤 시퀀스를 한 바퀴 뒤(위치 + capacity)로 옮겨서 다음 생산자에게 넘긴다.
+ *
+ * capacity 는 2의 거듭제곱으로 올림한다.
+ */
+public class MpscRingBuffer<E> {
+
+    private final int capacity;
+    private final int mask;
+    private final AtomicReferenceArray<E> slots;
+    private final AtomicLongArray sequences;
+    private final AtomicLong tail = new AtomicLong();
+    private volatile long head;
+
+    public MpscRingBuffer(int requestedCapacity) {
+        int capacity = Integer.highestOneBit(Math.max(2, requestedCapacity) - 1) << 1;
+        this.capacity = capacity;
+        this.mask = capacity - 1;
+        this.slots = new AtomicReferenceArray<>(capacity);
+        this.sequences = new AtomicLongArray(capacity);
+        for (int i = 0; i < capacity; i++) {
+            sequences.set(i, i);
+        }
+    }
+
+    /**
+     * 자리가 없으면 기다리지 않고 false 를 반환한다.
+     */
+    public boolean offer(E element) {
+        long position;
+        int index;
+        while (true) {
+            position = tail.get();
+            index = (int) (position & mask);
+            long difference = sequences.get(index) - position;
+            if (difference == 0) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    break;
+                }
+            } else if (difference < 0) {
+                return false;
+            }
+        }
+        slots.lazySet(index, element);
+        sequences.lazySet(index, position + 1);
+        return true;
+    }
+
+    /**
+     * 최대 limit 개까지 꺼내서 consumer 에 넘긴다. 한 스레드에서만 호출해야 한다.
+     */
+    public int drain(Consumer<? super E> consumer, int limit) {
+        long position = head;
+        int drained = 0;
+        while (drained < limit) {
+            int index = (int) (position & mask);
+            if (sequences.get(index) != position + 1) {
+                break;
+            }
+            E element = slots.get(index);
+            slots.lazySet(index, null);
+            sequences.lazySet(index, position + capacity);
+            position++;
+            drained++;
+            head = position;
+            consumer.accept(element);
+        }
+        return drained;
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    /**
+     * 동시에 넣고 빼는 중에는 근사값이다.
+     */
+    public int size() {
+        long size = tail.get() - head;
+        return (int) Math.max(0, Math.min(size, capacity));
+    }
+}
@@ -0,0 +1,15 @@
+package hello.springmvc.user;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * userId, username 이 비어있거나 저장할 수 있는 길이를 넘으면 400 으로 응답한다.
+ */
+@ResponseStatus(HttpStatus.BAD_REQUEST)
+public class InvalidUserException extends RuntimeException {
+
+    public InvalidUserException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,490 @@
+package hello.springmvc.user;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 사용자 레코드를 힙 밖(direct 버퍼 또는 메모리 매핑 파일)에 저장하는 해시 테이블
+ *
+ * 레코드 하나는 고정 크기(112 바이트) 슬롯이고 슬롯 배열을 stripes 개의 세그먼트로 나눈다.
+ * 세그먼트마다 읽기/쓰기 락이 따로 있어서 서로 다른 세그먼트의 변경은 동시에 진행된다.
+ * 세그먼트 안에서는 선형 탐사(open addressing)로 찾고, 지운 슬롯은 DELETED 로 표시했다가
+ * 너무 많아지면 세그먼트를 다시 해시한다.
+ *
+ * 힙에는 세그먼트 객체 몇 개만 남기 때문에 레코드가 수천만 개여도 GC 가 훑을 객체 수는 늘지 않는다.
+ *
+ * 슬롯 : state(1) idLength(1) nameLength(1) -(1) hash(4) age(4) userId(36) username(64)
+ *
+ * open(file) 로 만들면 파일을 매핑해서 다시 시작해도 그대로 읽는다.
+ * 정상 종료(close) 할 때 force 로 디스크에 내리며, 비정상 종료 때의 일관성은 보장하지 않는다.
+ */
+public class OffHeapUserStore implements Closeable {
+
+    static final int MAX_ID_BYTES = 36;
+    static final int MAX_NAME_BYTES = 64;
+
+    private static final int SLOT_SIZE = 112;
+    private static final int STATE = 0;
+    private static final int ID_LENGTH = 1;
+    private static final int NAME_LENGTH = 2;
+    private static final int HASH = 4;
+    private static final int AGE = 8;
+    private static final int ID = 12;
+    private static final int NAME = ID + MAX_ID_BYTES;
+
+    private static final byte EMPTY = 0;
+    private static final byte USED = 1;
+    private static final byte DELETED = 2;
+    private static final byte MOVING = 3;
+
+    private static final double LOAD_FACTOR = 0.75;
+
+    private static final int HEADER_SIZE = 64;
+    private static final int MAGIC = 0x48555352;
+    private static final int VERSION = 1;
+
+    private final int capacity;
+    private final Segment[] segments;
+    private final int segmentBits;
+    private final FileChannel channel;
+    private final MappedByteBuffer header;
+
+    private OffHeapUserStore(int capacity, Segment[] segments, FileChannel channel, MappedByteBuffer header) {
+        this.capacity = capacity;
+        this.segments = segments;
+        this.segmentBits = Integer.numberOfTrailingZeros(segments.length);
+        this.channel = channel;
+        this.header = header;
+    }
+
+    /**
+     * 다시 시작하면 사라지는 direct 버퍼 저장소
+     */
+    public static OffHeapUserStore allocate(int capacity, int stripes) {
+        int segmentCount = segmentCount(stripes);
+        int slots = slotsPerSegment(capacity, segmentCount);
+        Segment[] segments = new Segment[segmentCount];
+        for (int i = 0; i < segmentCount; i++) {
+            segments[i] = new Segment(ByteBuffer.allocateDirect(slots * SLOT_SIZE), slots);
+        }
+        return new OffHeapUserStore(capacity, segments, null, null);
+    }
+
+    /**
+     * file 을 매핑한 저장소, 같은 capacity/stripes 로 만든 파일이 이미 있으면 그 내용을 그대로 쓴다.
+     */
+    public static OffHeapUserStore open(Path file, int capacity, int stripes) throws IOException {
+        int segmentCount = segmentCount(stripes);
+        int slots = slotsPerSegment(capacity, segmentCount);
+        long segmentBytes = (long) slots * SLOT_SIZE;
+
+        FileChannel channel = FileChannel.open(file,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            boolean existing = channel.size() > 0;
+            MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE);
+            if (existing) {
+                if (header.getInt(0) != MAGIC || header.getInt(4) != VERSION || header.getInt(8) != segmentCount
+                        || header.getInt(12) != slots || header.getInt(16) != SLOT_SIZE) {
+                    throw new IllegalStateException(file + " was created with a different capacity or stripes");
+                }
+            } else {
+                header.putInt(0, MAGIC).putInt(4, VERSION).putInt(8, segmentCount).putInt(12, slots).putInt(16, SLOT_SIZE);
+            }
+
+            Segment[] segments = new Segment[segmentCount];
+            for (int i = 0; i < segmentCount; i++) {
+                segments[i] = new Segment(
+                        channel.map(FileChannel.MapMode.READ_WRITE, HEADER_SIZE + i * segmentBytes, segmentBytes), slots);
+            }
+            return new OffHeapUserStore(capacity, segments, channel, header);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    private static int segmentCount(int stripes) {
+        return stripes <= 1 ? 1 : Integer.highestOneBit(stripes - 1) << 1;
+    }
+
+    private static int slotsPerSegment(int capacity, int segmentCount) {
+        long slots = Math.max(16, (long) Math.ceil(capacity / LOAD_FACTOR / segmentCount));
+        if (slots * SLOT_SIZE > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("segment too large, increase stripes for capacity " + capacity);
+        }
+        return (int) slots;
+    }
+
+    /**
+     * @return 없으면 null
+     */
+    public UserRecord get(String userId) {
+        byte[] id = encodeId(userId);
+        int hash = hash(userId);
+        Segment segment = segmentFor(hash);
+        segment.lock.readLock().lock();
+        try {
+            int index = segment.probe(start(segment, hash), hash, id);
+            return index >= 0 ? segment.read(index) : null;
+        } finally {
+            segment.lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return 같은 userId 가 이미 있어서 넣지 않았으면 false
+     */
+    public boolean insert(UserRecord user) {
+        return write(user, false);
+    }
+
+    /**
+     * 없으면 넣고 있으면 덮어쓴다.
+     */
+    public void put(UserRecord user) {
+        write(user, true);
+    }
+
+    /**
+     * null 인 값은 바꾸지 않는다.
+     * @return 바뀐 레코드, 없으면 null
+     */
+    public UserRecord update(String userId, String username, Integer age) {
+        byte[] id = encodeId(userId);
+        byte[] name = username != null ? encodeName(username) : null;
+        int hash = hash(userId);
+        Segment segment = segmentFor(hash);
+        segment.lock.writeLock().lock();
+        try {
+            int index = segment.probe(start(segment, hash), hash, id);
+            if (index < 0) {
+                return null;
+            }
+            if (name != null) {
+                segment.writeName(index, name);
+            }
+            if (age != null) {
+                segment.buffer.putInt(index * SLOT_SIZE + AGE, age);
+            }
+            return segment.read(index);
+        } finally {
+            segment.lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @return 없었으면 false
+     */
+    public boolean delete(String userId) {
+        byte[] id = encodeId(userId);
+        int hash = hash(userId);
+        Segment segment = segmentFor(hash);
+        segment.lock.writeLock().lock();
+        try {
+            int index = segment.probe(start(segment, hash), hash, id);
+            if (index < 0) {
+                return false;
+            }
+            segment.buffer.put(index * SLOT_SIZE + STATE, DELETED);
+            segment.used--;
+            segment.deleted++;
+            if (segment.deleted > segment.slots / 4) {
+                segment.rehash(this);
+            }
+            return true;
+        } finally {
+            segment.lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * cursor 위치부터 limit 개까지 슬롯 순서대로 읽는다.
+     * 한 번에 한 세그먼트의 읽기 락만 잡고 페이지 크기만큼만 객체를 만든다.
+     * ConcurrentHashMap 의 순회처럼 조회 중에 바뀐 레코드는 빠지거나 두 번 나올 수 있다.
+     */
+    public UserPage page(long cursor, int limit) {
+        if (cursor < 0 || limit <= 0) {
+            throw new IllegalArgumentException("cursor=" + cursor + ", limit=" + limit);
+        }
+        int segmentIndex = (int) Math.min(cursor >>> 32, segments.length);
+        int slot = (int) Math.min(cursor & 0xffffffffL, Integer.MAX_VALUE);
+        List<UserRecord> users = new ArrayList<>(Math.min(limit, 1024));
+        for (; segmentIndex < segments.length; segmentIndex++, slot = 0) {
+            Segment segment = segments[segmentIndex];
+            segment.lock.readLock().lock();
+            try {
+                for (; slot < segment.slots; slot++) {
+                    if (segment.buffer.get(slot * SLOT_SIZE + STATE) != USED) {
+                        continue;
+                    }
+                    users.add(segment.read(slot));
+                    if (users.size() == limit) {
+                        return new UserPage(users, ((long) segmentIndex << 32) | (slot + 1));
+                    }
+                }
+            } finally {
+                segment.lock.readLock().unlock();
+            }
+        }
+        return new UserPage(users, null);
+    }
+
+    public long size() {
+        long size = 0;
+        for (Segment segment : segments) {
+            segment.lock.readLock().lock();
+            try {
+                size += segment.used;
+            } finally {
+                segment.lock.readLock().unlock();
+            }
+        }
+        return size;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * 힙 밖에 잡은 바이트 수
+     */
+    public long getOffHeapBytes() {
+        return (long) segments.length * segments[0].slots * SLOT_SIZE + (header != null ? HEADER_SIZE : 0);
+    }
+
+    /**
+     * 매핑 파일이면 지금까지의 변경을 디스크에 내린다.
+     */
+    public void flush() {
+        if (channel == null) {
+            return;
+        }
+        for (Segment segment : segments) {
+            segment.lock.readLock().lock();
+            try {
+                ((MappedByteBuffer) segment.buffer).force();
+            } finally {
+                segment.lock.readLock().unlock();
+            }
+        }
+        header.force();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (channel != null) {
+            flush();
+            channel.close();
+        }
+    }
+
+    private boolean write(UserRecord user, boolean overwrite) {
+        byte[] id = encodeId(user.getUserId());
+        byte[] name = encodeName(user.getUsername());
+        int hash = hash(user.getUserId());
+        Segment segment = segmentFor(hash);
+        segment.lock.writeLock().lock();
+        try {
+            int index = segment.probe(start(segment, hash), hash, id);
+            if (index >= 0) {
+                if (!overwrite) {
+                    return false;
+                }
+                segment.writeName(index, name);
+                segment.buffer.putInt(index * SLOT_SIZE + AGE, user.getAge());
+                return true;
+            }
+            if (segment.used >= segment.limit && segment.deleted > 0) {
+                segment.rehash(this);
+                index = segment.probe(start(segment, hash), hash, id);
+            }
+            if (segment.used >= segment.limit) {
+                throw new UserStoreFullException(capacity);
+            }
+            segment.insert(-index - 1, hash, id, name, user.getAge());
+            return true;
+        } finally {
+            segment.lock.writeLock().unlock();
+        }
+    }
+
+    private static int hash(String userId) {
+        int h = userId.hashCode() * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    private Segment segmentFor(int hash) {
+        return segments[hash & (segments.length - 1)];
+    }
+
+    private int start(Segment segment, int hash) {
+        return ((hash >>> segmentBits) & 0x7fffffff) % segment.slots;
+    }
+
+    private static byte[] encodeId(String userId) {
+        if (userId == null || userId.isEmpty()) {
+            throw new InvalidUserException("userId is required");
+        }
+        byte[] id = userId.getBytes(StandardCharsets.UTF_8);
+        if (id.length > MAX_ID_BYTES) {
+            throw new InvalidUserException("userId exceeds " + MAX_ID_BYTES + " bytes");
+        }
+        return id;
+    }
+
+    private static byte[] encodeName(String username) {
+        if (username == null) {
+            throw new InvalidUserException("username is required");
+        }
+        byte[] name = username.getBytes(StandardCharsets.UTF_8);
+        if (name.length > MAX_NAME_BYTES) {
+            throw new InvalidUserException("username exceeds " + MAX_NAME_BYTES + " bytes");
+        }
+        return name;
+    }
+
+    /**
+     * 슬롯 배열 하나와 그 락
+     * 버퍼는 절대 위치(get(int), put(int, ...))로만 접근해서 읽기 락을 잡은 여러 스레드가 같이 읽을 수 있다.
+     */
+    private static final class Segment {
+        final ByteBuffer buffer;
+        final int slots;
+        final int limit;
+        final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+        final byte[] scratch = new byte[SLOT_SIZE];
+        int used;
+        int deleted;
+
+        Segment(ByteBuffer buffer, int slots) {
+            this.buffer = buffer;
+            this.slots = slots;
+            this.limit = slots - (slots >> 3);
+            // 매핑 파일을 다시 열었으면 개수를 다시 센다.
+            for (int i = 0; i < slots; i++) {
+                byte state = buffer.get(i * SLOT_SIZE + STATE);
+                if (state == USED) {
+                    used++;
+                } else if (state == DELETED) {
+                    deleted++;
+                }
+            }
+        }
+
+        /**
+         * @return 찾았으면 슬롯 번호, 없으면 -(넣을 슬롯 번호 + 1)
+         */
+        int probe(int start, int hash, byte[] id) {
+            int firstDeleted = -1;
+            int index = start;
+            for (int i = 0; i < slots; i++) {
+                int offset = index * SLOT_SIZE;
+                byte state = buffer.get(offset + STATE);
+                if (state == EMPTY) {
+                    return -(firstDeleted >= 0 ? firstDeleted : index) - 1;
+                }
+                if (state == DELETED) {
+                    if (firstDeleted < 0) {
+                        firstDeleted = index;
+                    }
+                } else if (buffer.getInt(offset + HASH) == hash && idEquals(offset, id)) {
+                    return index;
+                }
+                index = index + 1 == slots ? 0 : index + 1;
+            }
+            return -(firstDeleted >= 0 ? firstDeleted : 0) - 1;
+        }
+
+        private boolean idEquals(int offset, byte[] id) {
+            if (buffer.get(offset + ID_LENGTH) != id.length) {
+                return false;
+            }
+            for (int i = 0; i < id.length; i++) {
+                if (buffer.get(offset + ID + i) != id[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        void insert(int index, int hash, byte[] id, byte[] name, int age) {
+            int offset = index * SLOT_SIZE;
+            if (buffer.get(offset + STATE) == DELETED) {
+                deleted--;
+            }
+            buffer.put(offset + ID_LENGTH, (byte) id.length);
+            buffer.putInt(offset + HASH, hash);
+            buffer.putInt(offset + AGE, age);
+            buffer.put(offset + ID, id);
+            writeName(index, name);
+            buffer.put(offset + STATE, USED);
+            used++;
+        }
+
+        void writeName(int index, byte[] name) {
+            int offset = index * SLOT_SIZE;
+            buffer.put(offset + NAME_LENGTH, (byte) name.length);
+            buffer.put(offset + NAME, name);
+        }
+
+        UserRecord read(int index) {
+            int offset = index * SLOT_SIZE;
+            byte[] id = new byte[buffer.get(offset + ID_LENGTH)];
+            byte[] name = new byte[buffer.get(offset + NAME_LENGTH)];
+            buffer.get(offset + ID, id);
+            buffer.get(offset + NAME, name);
+            return new UserRecord(new String(id, StandardCharsets.UTF_8), new String(name, StandardCharsets.UTF_8),
+                    buffer.getInt(offset + AGE));
+        }
+
+        /**
+         * DELETED 슬롯을 없애고 살아있는 레코드를 제자리에서 다시 배치한다. (쓰기 락을 잡고 호출한다.)
+         *
+         * DELETED 는 EMPTY 로, USED 는 MOVING 으로 바꾼 다음 MOVING 슬롯을 하나씩
+         * 해시 위치부터 처음 만나는 USED 가 아닌 슬롯으로 옮긴다.
+         * 그 슬롯이 EMPTY 면 옮기고, 아직 옮기지 않은 MOVING 이면 두 슬롯을 바꾼 뒤 바뀌어 들어온 레코드를 다시 처리한다.
+         * 세그먼트 전체를 힙으로 복사하지 않고 슬롯 하나 크기의 scratch 만 쓴다.
+         */
+        void rehash(OffHeapUserStore store) {
+            for (int i = 0; i < slots; i++) {
+                int offset = i * SLOT_SIZE;
+                byte state = buffer.get(offset + STATE);
+                buffer.put(offset + STATE, state == USED ? MOVING : EMPTY);
+            }
+            for (int i = 0; i < slots; i++) {
+                int from = i * SLOT_SIZE;
+                while (buffer.get(from + STATE) == MOVING) {
+                    int index = store.start(this, buffer.getInt(from + HASH));
+                    while (buffer.get(index * SLOT_SIZE + STATE) == USED) {
+                        index = index + 1 == slots ? 0 : index + 1;
+                    }
+                    int to = index * SLOT_SIZE;
+                    if (index == i) {
+                        buffer.put(from + STATE, USED);
+                    } else if (buffer.get(to + STATE) == EMPTY) {
+                        buffer.put(to, buffer, from, SLOT_SIZE);
+                        buffer.put(to + STATE, USED);
+                        buffer.put(from + STATE, EMPTY);
+                    } else {
+                        buffer.get(to, scratch);
+                        buffer.put(to, buffer, from, SLOT_SIZE);
+                        buffer.put(to + STATE, USED);
+                        buffer.put(from, scratch);
+                    }
+                }
+            }
+            deleted = 0;
+        }
+    }
+}
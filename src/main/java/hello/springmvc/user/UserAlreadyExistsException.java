@@ -0,0 +1,15 @@
+package hello.springmvc.user;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * 같은 userId 가 이미 있으면 409 로 응답한다.
+ */
+@ResponseStatus(HttpStatus.CONFLICT)
+public class UserAlreadyExistsException extends RuntimeException {
+
+    public UserAlreadyExistsException(String userId) {
+        super("user already exists: " + userId);
+    }
+}
@@ -0,0 +1,15 @@
+package hello.springmvc.user;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * 404 으로 응답한다.
+ */
+@ResponseStatus(HttpStatus.NOT_FOUND)
+public class UserNotFoundException extends RuntimeException {
+
+    public UserNotFoundException(String userId) {
+        super("user not found: " + userId);
+    }
+}
@@ -0,0 +1,17 @@
+package hello.springmvc.user;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * 사용자 목록 한 페이지
+ * next 를 다음 요청의 cursor 로 넘기면 이어서 조회한다. 마지막 페이지면 null
+ */
+@Getter
+@AllArgsConstructor
+public class UserPage {
+    private final List<UserRecord> users;
+    private final Long next;
+}
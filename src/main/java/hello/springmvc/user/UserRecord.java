@@ -0,0 +1,17 @@
+package hello.springmvc.user;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * OffHeapUserStore 에 저장하는 사용자 (HelloData + userId)
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserRecord {
+    private String userId;
+    private String username;
+    private int age;
+}
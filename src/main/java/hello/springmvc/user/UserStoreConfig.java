@@ -0,0 +1,27 @@
+package hello.springmvc.user;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+
+/**
+ * /mapping/users 가 쓰는 사용자 저장소
+ * springmvc.user-store.file 을 지정하면 그 파일을 매핑해서 다시 시작해도 내용이 남는다.
+ * 비워두면 direct 버퍼에 만들고 종료하면 사라진다.
+ */
+@Configuration
+public class UserStoreConfig {
+
+    @Bean(destroyMethod = "close")
+    public OffHeapUserStore offHeapUserStore(@Value("${springmvc.user-store.capacity:100000}") int capacity,
+                                             @Value("${springmvc.user-store.stripes:64}") int stripes,
+                                             @Value("${springmvc.user-store.file:}") String file) throws IOException {
+        if (file.isEmpty()) {
+            return OffHeapUserStore.allocate(capacity, stripes);
+        }
+        return OffHeapUserStore.open(Paths.get(file), capacity, stripes);
+    }
+}
@@ -0,0 +1,15 @@
+package hello.springmvc.user;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * 저장소 용량(springmvc.user-store.capacity)이 가득 차면 507 로 응답한다.
+ */
+@ResponseStatus(HttpStatus.INSUFFICIENT_STORAGE)
+public class UserStoreFullException extends RuntimeException {
+
+    public UserStoreFullException(int capacity) {
+        super("user store is full (capacity " + capacity + ")");
+    }
+}
@@ -0,0 +1,16 @@
+package hello.springmvc.writebehind;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * 마지막 세그먼트가 아닌 파일 중간에서 깨진 레코드를 만났을 때
+ * 마지막 세그먼트의 끝부분이 깨진 것은 쓰다가 죽은 것이므로 잘라내고 넘어가지만
+ * 그 앞의 세그먼트는 이미 fsync 하고 닫은 파일이라 자동으로 고치지 않는다.
+ */
+public class CorruptSegmentException extends IOException {
+
+    public CorruptSegmentException(Path segment, long position) {
+        super("corrupt record in " + segment + " at " + position);
+    }
+}
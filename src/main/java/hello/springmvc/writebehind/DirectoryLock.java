@@ -0,0 +1,62 @@
+package hello.springmvc.writebehind;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * write-behind 디렉터리를 한 프로세스만 쓰도록 잡는 배타 락
+ *
+ * 디렉터리 안의 "lock" 파일에 FileChannel.tryLock 을 건다. OS 가 프로세스 단위로 잡아주므로 프로세스가 죽으면 풀린다.
+ * 두 프로세스가 같은 세그먼트를 쓰면 서로의 꼬리를 잘라내고, 잘린 세그먼트가 마지막이 아니게 되면
+ * 다음 시작이 CorruptSegmentException 으로 막힌다. 그래서 잡지 못하면 시작하지 않는다.
+ */
+public class DirectoryLock implements Closeable {
+
+    private static final String LOCK_FILE = "lock";
+
+    private final FileChannel channel;
+    private final FileLock lock;
+
+    private DirectoryLock(FileChannel channel, FileLock lock) {
+        this.channel = channel;
+        this.lock = lock;
+    }
+
+    /**
+     * @throws IOException 다른 프로세스(또는 같은 JVM 의 다른 DirectoryLock)가 이미 잡고 있을 때
+     */
+    public static DirectoryLock acquire(Path directory) throws IOException {
+        Files.createDirectories(directory);
+        Path file = directory.resolve(LOCK_FILE);
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        FileLock lock;
+        try {
+            lock = channel.tryLock();
+        } catch (OverlappingFileLockException e) {
+            lock = null;
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+        if (lock == null) {
+            channel.close();
+            throw new IOException("write-behind directory is in use by another process: " + directory);
+        }
+        return new DirectoryLock(channel, lock);
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            lock.release();
+        } finally {
+            channel.close();
+        }
+    }
+}
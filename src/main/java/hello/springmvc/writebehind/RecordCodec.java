@@ -0,0 +1,14 @@
+package hello.springmvc.writebehind;
+
+import java.nio.ByteBuffer;
+
+/**
+ * 세그먼트 파일에 남길 레코드 직렬화
+ * encode 는 요청 스레드에서, decode 는 시작할 때 replay 에서 호출한다.
+ */
+public interface RecordCodec<T> {
+
+    byte[] encode(T record);
+
+    T decode(ByteBuffer payload);
+}
@@ -0,0 +1,386 @@
+package hello.springmvc.writebehind;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.OpenOption;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.zip.CRC32C;
+
+/**
+ * 추가만 하는(append-only) 세그먼트 파일 묶음
+ *
+ * 레코드 : [payload 길이 int][payload 의 CRC32C int][payload]
+ * 파일 이름 : 그 파일 첫 레코드의 순번(20자리) + ".seg"
+ * 세그먼트가 maxSegmentBytes 를 넘으면 fsync 하고 닫은 다음 새 파일을 연다.
+ *
+ * open 할 때 가장 최근 스냅샷과 그 뒤의 세그먼트를 순서대로 읽어서 replay 에 넘긴다.
+ * 마지막 세그먼트 끝에 길이/CRC 가 맞지 않는 레코드가 있으면 쓰다가 죽은 것이므로 그 앞까지 잘라낸다.
+ * fsync 가 끝난 레코드만 응답했으므로 잘려나가는 레코드는 응답하지 않은 레코드다.
+ *
+ * 스냅샷 : 어떤 순번 앞의 레코드를 모두 대신하는 레코드 묶음. 파일 이름은 그 순번(20자리) + ".snap"
+ * snapshot 은 새 세그먼트로 넘어간 다음 임시 파일에 쓰고 fsync 한 뒤 이름을 바꾸고, 그 앞의 세그먼트와 스냅샷을 지운다.
+ * 지우기 전에 죽으면 다음 open 이 스냅샷 앞의 세그먼트를 지운다. 이름을 바꾸기 전에 죽으면 임시 파일만 지운다.
+ *
+ * append, sync 가 실패하면 rollback 으로 그 append 전의 길이까지 잘라내서 깨진 레코드 뒤에 이어 쓰지 않는다.
+ * 잘라내지도 못하면 broken 이 되고 그 뒤의 append 는 아무것도 쓰지 않고 실패한다.
+ *
+ * append, sync, rollback 은 한 스레드(WriteBehindPipeline 의 writer)에서만 호출한다.
+ */
+@Slf4j
+public class SegmentLog implements Closeable {
+
+    static final int HEADER_BYTES = 8;
+    private static final String SUFFIX = ".seg";
+    private static final String SNAPSHOT_SUFFIX = ".snap";
+    private static final String TEMPORARY_SUFFIX = ".tmp";
+
+    /**
+     * 세그먼트 파일을 쓰기용으로 여는 방법 (테스트에서 실패하는 채널을 끼워넣는다.)
+     */
+    @FunctionalInterface
+    interface ChannelOpener {
+        FileChannel open(Path segment, OpenOption... options) throws IOException;
+    }
+
+    private final Path directory;
+    private final long maxSegmentBytes;
+    private final ChannelOpener opener;
+    private ByteBuffer writeBuffer = ByteBuffer.allocateDirect(64 * 1024).order(ByteOrder.BIG_ENDIAN);
+    private final CRC32C crc = new CRC32C();
+
+    private FileChannel channel;
+    private Path segment;
+    private long segmentBytes;
+    private volatile long nextSequence;
+    private long snapshotSequence;
+    private long replayed;
+
+    // 마지막 append 를 시작하기 전의 위치 (rollback 이 여기로 되돌린다.)
+    private boolean marked;
+    private Path markSegment;
+    private long markSegmentBytes;
+    private long markSequence;
+    private volatile boolean broken;
+
+    private SegmentLog(Path directory, long maxSegmentBytes, ChannelOpener opener) {
+        this.directory = directory;
+        this.maxSegmentBytes = maxSegmentBytes;
+        this.opener = opener;
+    }
+
+    /**
+     * @param replay 남아있는 레코드의 payload 를 순서대로 받는다. (읽기 전용, 호출이 끝나면 쓰지 않는다.)
+     */
+    public static SegmentLog open(Path directory, long maxSegmentBytes, Consumer<ByteBuffer> replay) throws IOException {
+        return open(directory, maxSegmentBytes, replay, FileChannel::open);
+    }
+
+    static SegmentLog open(Path directory, long maxSegmentBytes, Consumer<ByteBuffer> replay,
+                           ChannelOpener opener) throws IOException {
+        Files.createDirectories(directory);
+        SegmentLog log = new SegmentLog(directory, maxSegmentBytes, opener);
+        for (Path temporary : log.files("*" + TEMPORARY_SUFFIX)) {
+            Files.delete(temporary);
+        }
+        List<Path> snapshots = log.files("*" + SNAPSHOT_SUFFIX);
+        if (!snapshots.isEmpty()) {
+            Path snapshot = snapshots.get(snapshots.size() - 1);
+            log.replay(snapshot, false, replay);
+            log.snapshotSequence = sequenceOf(snapshot);
+            log.nextSequence = log.snapshotSequence;
+            log.deleteBefore(log.snapshotSequence);
+        }
+        List<Path> segments = log.segments();
+        for (int i = 0; i < segments.size(); i++) {
+            log.replay(segments.get(i), i == segments.size() - 1, replay);
+        }
+        if (segments.isEmpty()) {
+            log.roll();
+        } else {
+            log.segment = segments.get(segments.size() - 1);
+            log.channel = opener.open(log.segment, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+            log.segmentBytes = log.channel.size();
+        }
+        return log;
+    }
+
+    private List<Path> segments() throws IOException {
+        return files("*" + SUFFIX);
+    }
+
+    private List<Path> files(String glob) throws IOException {
+        List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, glob)) {
+            stream.forEach(files::add);
+        }
+        Collections.sort(files);
+        return files;
+    }
+
+    private static long sequenceOf(Path file) {
+        String name = file.getFileName().toString();
+        return Long.parseLong(name.substring(0, name.indexOf('.')));
+    }
+
+    /**
+     * sequence 앞의 레코드만 담은 세그먼트와 sequence 보다 오래된 스냅샷을 지운다.
+     * 스냅샷은 세그먼트 경계에서 찍으므로 sequence 앞에서 시작한 세그먼트는 sequence 전에 끝난다.
+     */
+    private void deleteBefore(long sequence) throws IOException {
+        boolean deleted = false;
+        for (Path file : files("*")) {
+            String name = file.getFileName().toString();
+            if ((name.endsWith(SUFFIX) || name.endsWith(SNAPSHOT_SUFFIX)) && sequenceOf(file) < sequence) {
+                Files.delete(file);
+                deleted = true;
+            }
+        }
+        if (deleted) {
+            syncDirectory();
+        }
+    }
+
+    private void replay(Path segment, boolean last, Consumer<ByteBuffer> replay) throws IOException {
+        try (FileChannel file = FileChannel.open(segment, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            long size = file.size();
+            ByteBuffer buffer = file.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            long valid = 0;
+            while (buffer.remaining() >= HEADER_BYTES) {
+                int length = buffer.getInt(buffer.position());
+                int checksum = buffer.getInt(buffer.position() + 4);
+                // 파일 시스템이 늘려둔 0 으로 채워진 영역이 빈 레코드로 읽히지 않게 길이 0 도 깨진 것으로 본다.
+                if (length <= 0 || length > buffer.remaining() - HEADER_BYTES) {
+                    break;
+                }
+                ByteBuffer payload = buffer.duplicate();
+                payload.position(buffer.position() + HEADER_BYTES).limit(buffer.position() + HEADER_BYTES + length);
+                crc.reset();
+                crc.update(payload.duplicate());
+                if ((int) crc.getValue() != checksum) {
+                    break;
+                }
+                replay.accept(payload.asReadOnlyBuffer());
+                buffer.position(payload.limit());
+                valid = payload.limit();
+                nextSequence++;
+                replayed++;
+            }
+
+            if (valid < size) {
+                if (!last) {
+                    throw new CorruptSegmentException(segment, valid);
+                }
+                log.warn("truncating torn tail of {} at {} ({} bytes)", segment, valid, size - valid);
+                file.truncate(valid);
+                file.force(true);
+            }
+        }
+    }
+
+    /**
+     * 지금까지 쓴 레코드를 모두 대신하는 records 를 스냅샷으로 남기고 그 앞의 세그먼트를 지운다.
+     * 다음 open 은 이 스냅샷부터 replay 한다.
+     * append 와 같은 스레드에서, 호출하는 동안 기록 대상이 바뀌지 않을 때 호출한다. (WriteBehindConfig 는 replay 직후에 호출한다.)
+     */
+    public void snapshot(Iterable<byte[]> records) throws IOException {
+        marked = false;
+        if (broken) {
+            throw new IOException("segment log is broken after a failed rollback: " + directory);
+        }
+        if (segmentBytes > 0) {
+            roll();
+        }
+        long sequence = nextSequence;
+        Path target = directory.resolve(String.format("%020d%s", sequence, SNAPSHOT_SUFFIX));
+        Path temporary = directory.resolve(target.getFileName() + TEMPORARY_SUFFIX);
+        try (FileChannel file = FileChannel.open(temporary, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            for (byte[] payload : records) {
+                reserve(file, HEADER_BYTES + payload.length);
+                put(payload);
+            }
+            writeOut(file);
+            file.force(true);
+        } catch (IOException | RuntimeException e) {
+            writeBuffer.clear();
+            Files.deleteIfExists(temporary);
+            throw e;
+        }
+        Files.move(temporary, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        syncDirectory();
+        snapshotSequence = sequence;
+        deleteBefore(sequence);
+    }
+
+    /**
+     * 레코드들을 현재 세그먼트 끝에 쓴다. fsync 는 하지 않는다.
+     */
+    public void append(List<byte[]> payloads) throws IOException {
+        marked = false;
+        if (broken) {
+            throw new IOException("segment log is broken after a failed rollback: " + directory);
+        }
+        markSegment = segment;
+        markSegmentBytes = segmentBytes;
+        markSequence = nextSequence;
+        marked = true;
+        for (byte[] payload : payloads) {
+            int recordBytes = HEADER_BYTES + payload.length;
+            if (segmentBytes > 0 && segmentBytes + writeBuffer.position() + recordBytes > maxSegmentBytes) {
+                segmentBytes += writeOut(channel);
+                roll();
+            }
+            segmentBytes += reserve(channel, recordBytes);
+            put(payload);
+            nextSequence++;
+        }
+        segmentBytes += writeOut(channel);
+    }
+
+    /**
+     * writeBuffer 에 recordBytes 만큼 자리가 없으면 file 에 내보내고, 그래도 모자라면 더 큰 버퍼로 바꾼다.
+     *
+     * @return 내보낸 바이트 수
+     */
+    private long reserve(FileChannel file, int recordBytes) throws IOException {
+        if (writeBuffer.remaining() >= recordBytes) {
+            return 0;
+        }
+        long written = writeOut(file);
+        if (writeBuffer.capacity() < recordBytes) {
+            writeBuffer = ByteBuffer.allocateDirect(recordBytes);
+        }
+        return written;
+    }
+
+    private void put(byte[] payload) {
+        crc.reset();
+        crc.update(payload);
+        writeBuffer.putInt(payload.length).putInt((int) crc.getValue()).put(payload);
+    }
+
+    private long writeOut(FileChannel file) throws IOException {
+        writeBuffer.flip();
+        long written = 0;
+        while (writeBuffer.hasRemaining()) {
+            written += file.write(writeBuffer);
+        }
+        writeBuffer.clear();
+        return written;
+    }
+
+    /**
+     * 지금까지 쓴 레코드를 디스크에 내린다. 파일 길이가 바뀌므로 메타데이터까지 내린다.
+     */
+    public void sync() throws IOException {
+        channel.force(true);
+    }
+
+    /**
+     * 마지막 append 가 쓴 바이트를 모두 없앤다. (append 나 sync 가 실패했을 때 호출한다.)
+     * 그 사이 새로 만든 세그먼트는 지우고, append 를 시작한 세그먼트는 그때 길이로 잘라낸 다음 다시 연다.
+     * 이것도 실패하면 broken 이 되어 이후 append 는 모두 실패한다. (다시 시작하면 replay 가 깨진 꼬리를 잘라낸다.)
+     */
+    public void rollback() throws IOException {
+        if (!marked) {
+            return;
+        }
+        marked = false;
+        writeBuffer.clear();
+        try {
+            if (channel != null) {
+                channel.close();
+            }
+            for (Path created : segments()) {
+                if (created.getFileName().toString().compareTo(markSegment.getFileName().toString()) > 0) {
+                    Files.delete(created);
+                }
+            }
+            segment = markSegment;
+            channel = opener.open(segment, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+            channel.truncate(markSegmentBytes);
+            channel.force(true);
+            segmentBytes = markSegmentBytes;
+            nextSequence = markSequence;
+        } catch (Throwable e) {
+            broken = true;
+            throw e;
+        }
+    }
+
+    /**
+     * rollback 까지 실패해서 더는 쓸 수 없으면 true
+     */
+    public boolean isBroken() {
+        return broken;
+    }
+
+    /**
+     * 이전 세그먼트를 fsync 하고 닫은 뒤 nextSequence 로 시작하는 새 세그먼트를 만든다.
+     * 새 파일 이름이 디렉터리에 남도록 디렉터리도 fsync 한다. (지원하지 않는 OS 에서는 건너뛴다.)
+     */
+    private void roll() throws IOException {
+        if (channel != null) {
+            channel.force(true);
+            channel.close();
+        }
+        segment = directory.resolve(String.format("%020d%s", nextSequence, SUFFIX));
+        channel = opener.open(segment, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        segmentBytes = 0;
+        syncDirectory();
+    }
+
+    private void syncDirectory() {
+        try (FileChannel dir = FileChannel.open(directory, StandardOpenOption.READ)) {
+            dir.force(true);
+        } catch (IOException e) {
+            log.debug("directory fsync is not supported: {}", directory);
+        }
+    }
+
+    /**
+     * 다음에 쓸 레코드의 순번 (지금까지 남은 레코드 수)
+     */
+    public long getNextSequence() {
+        return nextSequence;
+    }
+
+    /**
+     * 가장 최근 스냅샷이 대신하는 레코드의 끝 순번 (스냅샷이 없으면 0)
+     */
+    public long getSnapshotSequence() {
+        return snapshotSequence;
+    }
+
+    /**
+     * open 할 때 replay 한 레코드 수 (스냅샷 레코드 포함)
+     */
+    public long getReplayed() {
+        return replayed;
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (channel != null && channel.isOpen()) {
+            channel.force(true);
+            channel.close();
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package hello.springmvc.writebehind;
+
+import hello.springmvc.user.UserRecord;
+import lombok.Value;
+
+/**
+ * /mapping/users 변경 기록
+ * 추가와 수정은 바뀐 뒤의 사용자 전체(PUT), 삭제는 userId 만 남긴다.
+ * replay 할 때 순서대로 다시 적용하면 마지막 상태가 된다.
+ */
+@Value
+public class UserEvent {
+
+    public enum Type {
+        PUT, DELETE
+    }
+
+    Type type;
+    UserRecord user;
+
+    public static UserEvent put(UserRecord user) {
+        return new UserEvent(Type.PUT, user);
+    }
+
+    public static UserEvent delete(String userId) {
+        return new UserEvent(Type.DELETE, new UserRecord(userId, null, 0));
+    }
+}
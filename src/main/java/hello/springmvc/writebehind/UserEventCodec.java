@@ -0,0 +1,48 @@
+package hello.springmvc.writebehind;
+
+import hello.springmvc.user.UserRecord;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * [type byte][userId 길이 short][userId][username 길이 short, null 이면 -1][username][age int]
+ */
+public class UserEventCodec implements RecordCodec<UserEvent> {
+
+    @Override
+    public byte[] encode(UserEvent event) {
+        UserRecord user = event.getUser();
+        byte[] userId = user.getUserId().getBytes(StandardCharsets.UTF_8);
+        byte[] username = user.getUsername() == null ? null : user.getUsername().getBytes(StandardCharsets.UTF_8);
+        ByteBuffer buffer = ByteBuffer.allocate(1 + 2 + userId.length + 2 + (username == null ? 0 : username.length) + 4);
+        buffer.put((byte) event.getType().ordinal());
+        buffer.putShort((short) userId.length).put(userId);
+        if (username == null) {
+            buffer.putShort((short) -1);
+        } else {
+            buffer.putShort((short) username.length).put(username);
+        }
+        buffer.putInt(user.getAge());
+        return buffer.array();
+    }
+
+    @Override
+    public UserEvent decode(ByteBuffer payload) {
+        UserEvent.Type type = UserEvent.Type.values()[payload.get()];
+        String userId = getString(payload);
+        String username = getString(payload);
+        int age = payload.getInt();
+        return new UserEvent(type, new UserRecord(userId, username, age));
+    }
+
+    private static String getString(ByteBuffer payload) {
+        int length = payload.getShort();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        payload.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,105 @@
+package hello.springmvc.writebehind;
+
+import hello.springmvc.user.OffHeapUserStore;
+import hello.springmvc.user.UserPage;
+import hello.springmvc.user.UserRecord;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 쓰기 엔드포인트의 write-behind 파이프라인
+ *  - users : POST/PATCH/DELETE /mapping/users 의 변경. 시작할 때 replay 해서 OffHeapUserStore 를 복구한다.
+ *
+ * replay 가 끝나면 저장소의 사용자 전체를 스냅샷으로 남기고 그 앞의 세그먼트를 지운다.
+ * 그래서 다음 시작은 스냅샷과 이번 실행 동안 쓴 세그먼트만 읽는다.
+ *
+ * springmvc.write-behind.enabled=true 일 때만 켠다. 꺼져 있으면 /mapping/users 는 저장소만 바꾸고 기록하지 않는다.
+ *
+ * springmvc.write-behind.directory 는 기본값이 없다. 인스턴스마다 따로 정해야 한다.
+ * 시작할 때 그 디렉터리에 DirectoryLock 을 잡아서 다른 프로세스가 같은 디렉터리를 쓰면 시작하지 않는다.
+ * 그 아래에 파이프라인 이름으로 디렉터리를 만든다.
+ * fsync=false 면 OS 페이지 캐시에 쓰기만 하고 응답한다. (프로세스가 죽어도 남지만 OS 가 죽으면 잃을 수 있다.)
+ */
+@Slf4j
+@Configuration
+@ConditionalOnProperty(name = "springmvc.write-behind.enabled", havingValue = "true")
+public class WriteBehindConfig {
+
+    private static final int SNAPSHOT_PAGE_SIZE = 1000;
+
+    @Value("${springmvc.write-behind.directory}")
+    private String directory;
+    @Value("${springmvc.write-behind.queue-capacity:65536}")
+    private int queueCapacity;
+    @Value("${springmvc.write-behind.max-batch-size:1024}")
+    private int maxBatchSize;
+    @Value("${springmvc.write-behind.max-batch-delay-micros:200}")
+    private long maxBatchDelayMicros;
+    @Value("${springmvc.write-behind.ack-timeout-ms:5000}")
+    private long ackTimeoutMillis;
+    @Value("${springmvc.write-behind.fsync:true}")
+    private boolean fsync;
+    @Value("${springmvc.write-behind.max-segment-bytes:67108864}")
+    private long maxSegmentBytes;
+
+    @Bean(destroyMethod = "close")
+    public DirectoryLock writeBehindDirectoryLock() throws IOException {
+        return DirectoryLock.acquire(Paths.get(directory));
+    }
+
+    /**
+     * 디렉터리 락을 받아서 락보다 먼저 만들어지거나 락보다 늦게 닫히지 않게 한다.
+     */
+    @Bean(destroyMethod = "close")
+    public WriteBehindPipeline<UserEvent> userWriteBehind(DirectoryLock writeBehindDirectoryLock,
+                                                          OffHeapUserStore userStore) throws IOException {
+        UserEventCodec codec = new UserEventCodec();
+        SegmentLog segmentLog = SegmentLog.open(path("users"), maxSegmentBytes, payload -> {
+            UserEvent event = codec.decode(payload);
+            if (event.getType() == UserEvent.Type.PUT) {
+                userStore.put(event.getUser());
+            } else {
+                userStore.delete(event.getUser().getUserId());
+            }
+        });
+        log.info("replayed {} user events, {} users", segmentLog.getReplayed(), userStore.size());
+        if (segmentLog.getNextSequence() > segmentLog.getSnapshotSequence()) {
+            segmentLog.snapshot(snapshotOf(userStore, codec));
+        }
+        return pipeline("users", segmentLog, codec);
+    }
+
+    /**
+     * 저장소의 사용자마다 PUT 이벤트 하나. replay 하면 지금 저장소와 같아진다.
+     */
+    private static List<byte[]> snapshotOf(OffHeapUserStore userStore, UserEventCodec codec) {
+        List<byte[]> records = new ArrayList<>((int) userStore.size());
+        Long cursor = 0L;
+        while (cursor != null) {
+            UserPage page = userStore.page(cursor, SNAPSHOT_PAGE_SIZE);
+            for (UserRecord user : page.getUsers()) {
+                records.add(codec.encode(UserEvent.put(user)));
+            }
+            cursor = page.getNext();
+        }
+        return records;
+    }
+
+    private Path path(String name) {
+        return Paths.get(directory).resolve(name);
+    }
+
+    private <T> WriteBehindPipeline<T> pipeline(String name, SegmentLog segmentLog, RecordCodec<T> codec) {
+        return new WriteBehindPipeline<>(name, segmentLog, codec, queueCapacity, maxBatchSize,
+                maxBatchDelayMicros, ackTimeoutMillis, fsync);
+    }
+}
@@ -0,0 +1,33 @@
+package hello.springmvc.writebehind;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * write-behind 파이프라인별 큐 깊이, 배치 크기, flush(쓰기 + fsync) 지연시간(마이크로초) 조회
+ * 배치 크기와 지연시간은 애플리케이션 시작 이후 누적값이다.
+ */
+@RestController
+@ConditionalOnProperty(name = "springmvc.write-behind.enabled", havingValue = "true")
+public class WriteBehindMetricsController {
+
+    private final List<WriteBehindPipeline<?>> pipelines;
+
+    public WriteBehindMetricsController(List<WriteBehindPipeline<?>> pipelines) {
+        this.pipelines = pipelines;
+    }
+
+    @GetMapping("/metrics/write-behind")
+    public Map<String, Map<String, Object>> writeBehind() {
+        Map<String, Map<String, Object>> snapshot = new LinkedHashMap<>();
+        for (WriteBehindPipeline<?> pipeline : pipelines) {
+            snapshot.put(pipeline.getName(), pipeline.snapshot());
+        }
+        return snapshot;
+    }
+}
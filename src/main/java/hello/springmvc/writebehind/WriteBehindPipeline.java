@@ -0,0 +1,299 @@
+package hello.springmvc.writebehind;
+
+import hello.springmvc.support.MpscRingBuffer;
+import lombok.extern.slf4j.Slf4j;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 요청 스레드가 넘긴 레코드를 모아서(micro-batch) SegmentLog 에 한번에 쓰고 fsync 도 한번만 하는 파이프라인
+ *
+ * 요청 스레드 : 레코드를 직렬화해서 MPSC 링 버퍼에 넣고, writer 가 그 레코드가 든 배치를 fsync 할 때까지 기다린다.
+ * writer 스레드 : 꺼낼 수 있는 만큼 꺼낸 다음 maxBatchSize 가 안 되면 maxBatchDelay 동안 더 모은다.
+ *                 배치를 쓰고 fsync 한 뒤 기다리던 요청 스레드들을 깨운다.
+ * fsync 하는 동안 들어온 레코드는 다음 배치에 모이므로 부하가 클수록 배치가 커지고 레코드당 fsync 비용이 줄어든다.
+ *
+ * 큐가 가득 찼거나, fsync 가 실패했거나, ackTimeout 안에 끝나지 않으면 WriteBehindUnavailableException 을 던진다.
+ * 예외의 isDiscarded() 가 true 면 레코드가 기록되지 않았고 앞으로도 기록되지 않는다.
+ *  - 큐에 넣지 못했을 때
+ *  - ackTimeout 까지 writer 가 꺼내지 않아서 취소했을 때
+ *  - 쓰기/fsync 가 실패했지만 SegmentLog.rollback 으로 배치를 잘라냈을 때
+ * 다음 경우는 isDiscarded() 가 false 다. (기록됐는지 알 수 없고 다시 시작하면 replay 될 수도 있다.)
+ *  - rollback 도 실패했을 때. 이후 append 는 모두 거절한다.
+ *  - 이미 쓰는 중(WRITING)인데 ackTimeout 이 지났을 때. writer 가 멈춰도 요청 스레드가 계속 기다리지 않는다.
+ *  - writer 가 배치를 쓰다가 예상하지 못한 예외로 실패했을 때
+ */
+@Slf4j
+public class WriteBehindPipeline<T> implements Closeable {
+
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+    private static final long LINGER_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(20);
+
+    private final String name;
+    private final SegmentLog segmentLog;
+    private final RecordCodec<T> codec;
+    private final MpscRingBuffer<Pending> queue;
+    private final int maxBatchSize;
+    private final long maxBatchDelayNanos;
+    private final long ackTimeoutNanos;
+    private final boolean fsync;
+    private final Thread writer;
+
+    private volatile boolean running = true;
+    private volatile boolean parked;
+
+    private final LongAdder appended = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder timedOut = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+    private final Recorder batchSizeRecorder = new Recorder(3);
+    private final Recorder flushLatencyRecorder = new Recorder(TimeUnit.SECONDS.toMicros(60), 3);
+    private final Histogram batchSize = new Histogram(3);
+    private final Histogram flushLatency = new Histogram(TimeUnit.SECONDS.toMicros(60), 3);
+
+    public WriteBehindPipeline(String name, SegmentLog segmentLog, RecordCodec<T> codec, int queueCapacity,
+                               int maxBatchSize, long maxBatchDelayMicros, long ackTimeoutMillis, boolean fsync) {
+        this.name = name;
+        this.segmentLog = segmentLog;
+        this.codec = codec;
+        this.queue = new MpscRingBuffer<>(queueCapacity);
+        this.maxBatchSize = Math.max(1, maxBatchSize);
+        this.maxBatchDelayNanos = TimeUnit.MICROSECONDS.toNanos(maxBatchDelayMicros);
+        this.ackTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(ackTimeoutMillis);
+        this.fsync = fsync;
+        this.writer = new Thread(this::writeLoop, "write-behind-" + name);
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /**
+     * 레코드가 세그먼트 파일에 기록(fsync)될 때까지 기다린다.
+     */
+    public void append(T record) {
+        Pending pending = new Pending(codec.encode(record), Thread.currentThread());
+        if (!running || segmentLog.isBroken() || !queue.offer(pending)) {
+            rejected.increment();
+            throw new WriteBehindUnavailableException(name + " write-behind queue is full or closed", true, null);
+        }
+        if (parked) {
+            LockSupport.unpark(writer);
+        }
+
+        long deadline = System.nanoTime() + ackTimeoutNanos;
+        while (true) {
+            int state = pending.state.get();
+            if (state == Pending.DURABLE) {
+                return;
+            }
+            if (state == Pending.FAILED) {
+                throw new WriteBehindUnavailableException(name + " write-behind flush failed", true, pending.failure);
+            }
+            if (state == Pending.UNKNOWN) {
+                throw new WriteBehindUnavailableException(
+                        name + " write-behind flush failed and could not be rolled back", false, pending.failure);
+            }
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                if (state == Pending.QUEUED) {
+                    if (pending.state.compareAndSet(Pending.QUEUED, Pending.CANCELLED)) {
+                        timedOut.increment();
+                        throw new WriteBehindUnavailableException(name + " write-behind flush timed out", true, null);
+                    }
+                    continue;
+                }
+                timedOut.increment();
+                throw new WriteBehindUnavailableException(
+                        name + " write-behind flush timed out while writing", false, null);
+            }
+            LockSupport.parkNanos(this, remaining);
+        }
+    }
+
+    private void writeLoop() {
+        List<Pending> batch = new ArrayList<>(maxBatchSize);
+        List<Pending> writing = new ArrayList<>(maxBatchSize);
+        List<byte[]> payloads = new ArrayList<>(maxBatchSize);
+        while (running || queue.size() > 0) {
+            try {
+                queue.drain(batch::add, maxBatchSize);
+                if (batch.isEmpty()) {
+                    idle();
+                    continue;
+                }
+                long lingerEnd = System.nanoTime() + maxBatchDelayNanos;
+                while (batch.size() < maxBatchSize && running) {
+                    if (queue.drain(batch::add, maxBatchSize - batch.size()) == 0) {
+                        long remaining = lingerEnd - System.nanoTime();
+                        if (remaining <= 0) {
+                            break;
+                        }
+                        LockSupport.parkNanos(Math.min(remaining, LINGER_PARK_NANOS));
+                    }
+                }
+                // 시간 초과로 취소된 레코드는 빼고, 나머지는 WRITING 으로 바꿔서 더는 취소되지 않게 한다.
+                for (Pending pending : batch) {
+                    if (pending.state.compareAndSet(Pending.QUEUED, Pending.WRITING)) {
+                        writing.add(pending);
+                        payloads.add(pending.payload);
+                    }
+                }
+                if (!writing.isEmpty()) {
+                    flush(writing, payloads);
+                }
+            } catch (Throwable e) {
+                // writer 가 죽으면 기다리는 요청이 모두 멈추므로 이번 배치만 실패로 끝내고 계속 돈다.
+                log.error("{} write-behind writer failed, failing {} records", name, batch.size(), e);
+                failUnfinished(batch, e);
+            } finally {
+                batch.clear();
+                writing.clear();
+                payloads.clear();
+            }
+        }
+    }
+
+    /**
+     * 아직 결과가 나지 않은 레코드를 끝낸다. 꺼내기만 한 레코드는 FAILED, 쓰기 시작한 레코드는 UNKNOWN 이다.
+     */
+    private void failUnfinished(List<Pending> batch, Throwable failure) {
+        for (Pending pending : batch) {
+            int state = pending.state.get();
+            if (state != Pending.QUEUED && state != Pending.WRITING) {
+                continue;
+            }
+            pending.failure = failure;
+            int outcome = state == Pending.QUEUED ? Pending.FAILED : Pending.UNKNOWN;
+            if (pending.state.compareAndSet(state, outcome)) {
+                failed.increment();
+                LockSupport.unpark(pending.waiter);
+            }
+        }
+    }
+
+    /**
+     * parked 를 먼저 세우고 큐를 다시 본다. 요청 스레드는 넣은 다음 parked 를 보고 깨우므로 놓치지 않는다.
+     */
+    private void idle() {
+        parked = true;
+        if (running && queue.size() == 0) {
+            LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+        }
+        parked = false;
+    }
+
+    private void flush(List<Pending> batch, List<byte[]> payloads) {
+        long start = System.nanoTime();
+        Throwable failure = null;
+        boolean discarded = true;
+        try {
+            segmentLog.append(payloads);
+            if (fsync) {
+                segmentLog.sync();
+            }
+        } catch (Throwable e) {
+            failure = e;
+            try {
+                segmentLog.rollback();
+                log.error("{} write-behind flush failed, rolled back {} records", name, batch.size(), e);
+            } catch (Throwable rollbackFailure) {
+                e.addSuppressed(rollbackFailure);
+                discarded = false;
+                log.error("{} write-behind flush failed and could not be rolled back, rejecting further writes",
+                        name, e);
+            }
+        }
+        long elapsed = System.nanoTime() - start;
+
+        int outcome = failure == null ? Pending.DURABLE : discarded ? Pending.FAILED : Pending.UNKNOWN;
+        for (Pending pending : batch) {
+            pending.failure = failure;
+            pending.state.set(outcome);
+            LockSupport.unpark(pending.waiter);
+        }
+        if (failure == null) {
+            appended.add(batch.size());
+        } else {
+            failed.add(batch.size());
+        }
+        batches.increment();
+        batchSizeRecorder.recordValue(batch.size());
+        flushLatencyRecorder.recordValue(Math.min(TimeUnit.NANOSECONDS.toMicros(elapsed), TimeUnit.SECONDS.toMicros(60)));
+    }
+
+    public synchronized Map<String, Object> snapshot() {
+        batchSize.add(batchSizeRecorder.getIntervalHistogram());
+        flushLatency.add(flushLatencyRecorder.getIntervalHistogram());
+
+        Map<String, Object> snapshot = new LinkedHashMap<>();
+        snapshot.put("queueDepth", queue.size());
+        snapshot.put("queueCapacity", queue.capacity());
+        snapshot.put("appended", appended.sum());
+        snapshot.put("rejected", rejected.sum());
+        snapshot.put("timedOut", timedOut.sum());
+        snapshot.put("failed", failed.sum());
+        snapshot.put("batches", batches.sum());
+        snapshot.put("batchSizeMean", batchSize.getMean());
+        snapshot.put("batchSizeP99", batchSize.getValueAtPercentile(99));
+        snapshot.put("batchSizeMax", batchSize.getMaxValue());
+        snapshot.put("flushLatencyP50Micros", flushLatency.getValueAtPercentile(50));
+        snapshot.put("flushLatencyP99Micros", flushLatency.getValueAtPercentile(99));
+        snapshot.put("flushLatencyMaxMicros", flushLatency.getMaxValue());
+        snapshot.put("segmentRecords", segmentLog.getNextSequence());
+        snapshot.put("replayed", segmentLog.getReplayed());
+        return snapshot;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * 큐에 남은 레코드를 다 쓰고 나서 파일을 닫는다.
+     */
+    @Override
+    public void close() throws IOException {
+        running = false;
+        LockSupport.unpark(writer);
+        try {
+            writer.join(TimeUnit.SECONDS.toMillis(10));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        segmentLog.close();
+    }
+
+    private static final class Pending {
+
+        static final int QUEUED = 0;
+        static final int WRITING = 1;
+        static final int DURABLE = 2;
+        // 기록되지 않았다. (잘라냈다.)
+        static final int FAILED = 3;
+        // 기록됐는지 알 수 없다.
+        static final int UNKNOWN = 4;
+        static final int CANCELLED = 5;
+
+        final byte[] payload;
+        final Thread waiter;
+        final AtomicInteger state = new AtomicInteger(QUEUED);
+        // state 를 바꾸기 전에 쓰고 state 를 읽은 다음 읽는다.
+        Throwable failure;
+
+        Pending(byte[] payload, Thread waiter) {
+            this.payload = payload;
+            this.waiter = waiter;
+        }
+    }
+}
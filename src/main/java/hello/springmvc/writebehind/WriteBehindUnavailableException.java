@@ -0,0 +1,24 @@
+package hello.springmvc.writebehind;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * 큐가 가득 찼거나 fsync 가 실패/지연돼서 기록을 보장할 수 없으면 503 으로 응답한다.
+ * discarded 가 true 면 레코드는 기록되지 않았고 나중에 기록되지도 않는다. 호출한 쪽은 바꾼 것을 되돌려도 된다.
+ * false 면 기록됐는지 알 수 없다. (다시 시작하면 replay 될 수 있으므로 되돌리면 안 된다.)
+ */
+@ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+public class WriteBehindUnavailableException extends RuntimeException {
+
+    private final boolean discarded;
+
+    public WriteBehindUnavailableException(String message, boolean discarded, Throwable cause) {
+        super(message, cause);
+        this.discarded = discarded;
+    }
+
+    public boolean isDiscarded() {
+        return discarded;
+    }
+}
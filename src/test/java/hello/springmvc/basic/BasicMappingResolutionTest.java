@@ -0,0 +1,93 @@
+package hello.springmvc.basic;
+
+import org.assertj.core.api.SoftAssertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerExecutionChain;
+import org.springframework.web.servlet.mvc.condition.NameValueExpression;
+import org.springframework.web.servlet.mvc.method.RequestMappingInfo;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerMapping;
+import org.springframework.web.util.ServletRequestPathUtils;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * fast-start 프로파일(지연 초기화, 컴포넌트 인덱스, 자동 설정 제외)로 띄워도
+ * hello.springmvc.basic 의 모든 @RequestMapping 이 등록되고 원래 핸들러 메서드로 찾아지는지 확인한다.
+ *
+ * 매핑 정보(메서드, 경로, params, headers, consumes, produces)에 맞는 요청을 만들어서
+ * 핸들러 매핑에 물어본다.
+ */
+@SpringBootTest
+@ActiveProfiles("fast-start")
+class BasicMappingResolutionTest {
+
+    @Autowired
+    @Qualifier("requestMappingHandlerMapping")
+    RequestMappingHandlerMapping handlerMapping;
+
+    @Test
+    void everyBasicMappingResolvesToItsHandler() throws Exception {
+        SoftAssertions softly = new SoftAssertions();
+        int checked = 0;
+        for (Map.Entry<RequestMappingInfo, HandlerMethod> entry : handlerMapping.getHandlerMethods().entrySet()) {
+            HandlerMethod expected = entry.getValue();
+            if (!expected.getBeanType().getPackage().getName().startsWith("hello.springmvc.basic")) {
+                continue;
+            }
+            for (String pattern : entry.getKey().getPatternValues()) {
+                MockHttpServletRequest request = requestFor(entry.getKey(), pattern);
+                HandlerExecutionChain chain = handlerMapping.getHandler(request);
+                softly.assertThat(chain)
+                        .as("%s %s -> %s", request.getMethod(), request.getRequestURI(), expected)
+                        .isNotNull();
+                if (chain != null) {
+                    softly.assertThat(((HandlerMethod) chain.getHandler()).getMethod())
+                            .as("%s %s", request.getMethod(), request.getRequestURI())
+                            .isEqualTo(expected.getMethod());
+                }
+                checked++;
+            }
+        }
+        softly.assertAll();
+        assertThat(checked).isGreaterThan(30);
+    }
+
+    private static MockHttpServletRequest requestFor(RequestMappingInfo info, String pattern) {
+        RequestMethod method = info.getMethodsCondition().getMethods().stream()
+                .findFirst().orElse(RequestMethod.GET);
+        String path = pattern.replaceAll("\\{[^}]+}", "1");
+        MockHttpServletRequest request = new MockHttpServletRequest(method.name(), path);
+
+        for (NameValueExpression<String> param : info.getParamsCondition().getExpressions()) {
+            if (!param.isNegated()) {
+                request.addParameter(param.getName(), param.getValue() != null ? param.getValue() : "1");
+            }
+        }
+        for (NameValueExpression<String> header : info.getHeadersCondition().getExpressions()) {
+            if (!header.isNegated()) {
+                request.addHeader(header.getName(), header.getValue() != null ? header.getValue() : "1");
+            }
+        }
+        info.getConsumesCondition().getConsumableMediaTypes().stream()
+                .filter(MediaType::isConcrete)
+                .findFirst()
+                .ifPresent(mediaType -> request.setContentType(mediaType.toString()));
+        info.getProducesCondition().getProducibleMediaTypes().stream()
+                .filter(MediaType::isConcrete)
+                .findFirst()
+                .ifPresent(mediaType -> request.addHeader("Accept", mediaType.toString()));
+
+        ServletRequestPathUtils.parseAndCache(request);
+        return request;
+    }
+}
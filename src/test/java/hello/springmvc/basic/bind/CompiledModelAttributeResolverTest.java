@@ -0,0 +1,158 @@
+package hello.springmvc.basic.bind;
+
+import hello.springmvc.basic.HelloData;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.MethodParameter;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.bind.WebDataBinder;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.bind.annotation.InitBinder;
+import org.springframework.web.bind.annotation.ModelAttribute;
+import org.springframework.web.bind.support.ConfigurableWebBindingInitializer;
+import org.springframework.web.bind.support.WebBindingInitializer;
+import org.springframework.web.bind.support.WebDataBinderFactory;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.method.ControllerAdviceBean;
+import org.springframework.web.method.support.ModelAndViewContainer;
+import org.springframework.web.servlet.HandlerMapping;
+import org.springframework.web.servlet.mvc.method.annotation.ServletModelAttributeMethodProcessor;
+import org.springframework.web.servlet.mvc.method.annotation.ServletRequestDataBinderFactory;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * BindingPlan 으로 바인딩한 결과가 원래 processor(ServletRequestDataBinder)와 같은지,
+ * 바인더 설정이 적용되는 경우에는 원래 processor 로 넘어가는지 확인한다.
+ *
+ * 원래 processor 로 넘어가면 binderFactory 의 허용 필드(username)가 적용되어 age 가 바인딩되지 않는다.
+ */
+class CompiledModelAttributeResolverTest {
+
+    private final BindingPlanRegistry registry = new BindingPlanRegistry();
+
+    @Test
+    void uriVariablesAreBoundLikeRequestParameters() throws Exception {
+        MockHttpServletRequest request = request();
+        request.setAttribute(HandlerMapping.URI_TEMPLATE_VARIABLES_ATTRIBUTE, Map.of("username", "kim", "age", "30"));
+        request.addParameter("age", "20");
+
+        HelloData data = resolve(resolver(null, Collections.emptyList()), PlainController.class, request, binderFactory(null));
+
+        assertThat(data.getUsername()).isEqualTo("kim");
+        assertThat(data.getAge()).isEqualTo(20);
+    }
+
+    @Test
+    void controllerInitBinderFallsBackToDataBinder() throws Exception {
+        MockHttpServletRequest request = request();
+        request.addParameter("age", "20");
+
+        HelloData data = resolve(resolver(null, Collections.emptyList()), InitBinderController.class, request,
+                binderFactory(null));
+
+        assertThat(data.getUsername()).isEqualTo("kim");
+        assertThat(data.getAge()).isZero();
+    }
+
+    @Test
+    void controllerAdviceInitBinderFallsBackToDataBinder() throws Exception {
+        MockHttpServletRequest request = request();
+        request.addParameter("age", "20");
+        List<ControllerAdviceBean> advice = Collections.singletonList(new ControllerAdviceBean(new BinderAdvice()));
+
+        HelloData data = resolve(resolver(null, advice), PlainController.class, request, binderFactory(null));
+
+        assertThat(data.getAge()).isZero();
+    }
+
+    @Test
+    void customBindingInitializerFallsBackToDataBinder() throws Exception {
+        MockHttpServletRequest request = request();
+        request.addParameter("age", "20");
+        WebBindingInitializer initializer = binder -> binder.setAllowedFields("username");
+
+        HelloData data = resolve(resolver(initializer, Collections.emptyList()), PlainController.class, request,
+                binderFactory(initializer));
+
+        assertThat(data.getAge()).isZero();
+    }
+
+    @Test
+    void defaultBindingInitializerKeepsCompiledBinding() throws Exception {
+        MockHttpServletRequest request = request();
+        request.addParameter("age", "20");
+        ConfigurableWebBindingInitializer initializer = new ConfigurableWebBindingInitializer();
+
+        HelloData data = resolve(resolver(initializer, Collections.emptyList()), PlainController.class, request,
+                binderFactory(binder -> binder.setAllowedFields("username")));
+
+        assertThat(data.getAge()).isEqualTo(20);
+    }
+
+    @Test
+    void bindingDisabledIsNotBound() throws Exception {
+        MockHttpServletRequest request = request();
+        request.addParameter("age", "20");
+
+        HelloData data = resolve(resolver(null, Collections.emptyList()), NoBindingController.class, request,
+                binderFactory(null));
+
+        assertThat(data.getUsername()).isNull();
+        assertThat(data.getAge()).isZero();
+    }
+
+    private CompiledModelAttributeResolver resolver(WebBindingInitializer initializer, List<ControllerAdviceBean> advice) {
+        return new CompiledModelAttributeResolver(new ServletModelAttributeMethodProcessor(false), registry, initializer, advice);
+    }
+
+    private static WebDataBinderFactory binderFactory(WebBindingInitializer initializer) {
+        return new ServletRequestDataBinderFactory(Collections.emptyList(),
+                initializer != null ? initializer : binder -> binder.setAllowedFields("username"));
+    }
+
+    private static MockHttpServletRequest request() {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/hello");
+        request.addParameter("username", "kim");
+        return request;
+    }
+
+    private static HelloData resolve(CompiledModelAttributeResolver resolver, Class<?> controller,
+                                     MockHttpServletRequest request, WebDataBinderFactory binderFactory) throws Exception {
+        MethodParameter parameter = new MethodParameter(controller.getMethod("hello", HelloData.class), 0);
+        return (HelloData) resolver.resolveArgument(parameter, new ModelAndViewContainer(),
+                new ServletWebRequest(request), binderFactory);
+    }
+
+    static class PlainController {
+        public String hello(@ModelAttribute HelloData helloData) {
+            return "ok";
+        }
+    }
+
+    static class NoBindingController {
+        public String hello(@ModelAttribute(binding = false) HelloData helloData) {
+            return "ok";
+        }
+    }
+
+    static class InitBinderController {
+        @InitBinder
+        public void initBinder(WebDataBinder binder) {
+        }
+
+        public String hello(@ModelAttribute HelloData helloData) {
+            return "ok";
+        }
+    }
+
+    @ControllerAdvice
+    static class BinderAdvice {
+        @InitBinder
+        public void initBinder(WebDataBinder binder) {
+        }
+    }
+}
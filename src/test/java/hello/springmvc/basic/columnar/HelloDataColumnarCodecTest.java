@@ -0,0 +1,124 @@
+package hello.springmvc.basic.columnar;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.exc.MismatchedInputException;
+import hello.springmvc.basic.HelloData;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class HelloDataColumnarCodecTest {
+
+    @Test
+    void roundTrip() throws Exception {
+        List<HelloData> rows = new ArrayList<>();
+        for (int i = 0; i < 3000; i++) {
+            rows.add(helloData(i % 7 == 0 ? null : "user" + (i % 50), i % 3 == 0 ? -i : i));
+        }
+        rows.add(helloData("한글", Integer.MIN_VALUE));
+        rows.add(helloData("", Integer.MAX_VALUE));
+
+        HelloDataBatch read = HelloDataColumnarCodec.read(new ByteArrayInputStream(write(HelloDataBatch.of(rows))), 10_000);
+
+        assertThat(read.toList()).isEqualTo(rows);
+    }
+
+    @Test
+    void emptyBatch() throws Exception {
+        HelloDataBatch read = HelloDataColumnarCodec.read(
+                new ByteArrayInputStream(write(HelloDataBatch.of(new ArrayList<>()))), 10);
+
+        assertThat(read.size()).isZero();
+    }
+
+    @Test
+    void wrongMagicIsRejected() {
+        assertThatThrownBy(() -> read(new byte[]{'H', 'D', 'C', '2', 0, 0}, 10))
+                .isInstanceOf(InvalidColumnarFormatException.class);
+    }
+
+    @Test
+    void tooManyRowsAreRejected() throws Exception {
+        byte[] body = write(HelloDataBatch.of(Arrays.asList(helloData("a", 1), helloData("b", 2), helloData("c", 3))));
+
+        assertThatThrownBy(() -> read(body, 2))
+                .isInstanceOf(InvalidColumnarFormatException.class)
+                .hasMessageContaining("3 rows");
+    }
+
+    /**
+     * 헤더에는 max-rows 만큼 있다고 적고 바디는 짧게 끊는다. 헤더 크기만큼 할당하지 않고 EOF 로 끝나야 한다.
+     */
+    @Test
+    void truncatedBodyWithLargeHeaderFailsWithoutAllocatingTheHeaderSize() {
+        byte[] body = {'H', 'D', 'C', '1', (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0x7F, 0, 0, 0};
+
+        assertThatThrownBy(() -> read(body, Integer.MAX_VALUE)).isInstanceOf(EOFException.class);
+    }
+
+    @Test
+    void usernameCodeOutsideTheDictionaryIsRejected() {
+        // 행 1, dictionary 1 ("a"), username 번호 2 (dictionary 1번, 없음)
+        byte[] body = {'H', 'D', 'C', '1', 1, 1, 1, 'a', 2, 0};
+
+        assertThatThrownBy(() -> read(body, 10))
+                .isInstanceOf(InvalidColumnarFormatException.class)
+                .hasMessageContaining("out of dictionary");
+    }
+
+    @Test
+    void dictionaryLargerThanBatchIsRejected() {
+        byte[] body = {'H', 'D', 'C', '1', 1, 2, 1, 'a', 1, 'b', 1, 0};
+
+        assertThatThrownBy(() -> read(body, 10)).isInstanceOf(InvalidColumnarFormatException.class);
+    }
+
+    @Test
+    void malformedVarintIsRejected() {
+        byte[] body = {'H', 'D', 'C', '1', (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 0};
+
+        assertThatThrownBy(() -> read(body, 10))
+                .isInstanceOf(InvalidColumnarFormatException.class)
+                .hasMessageContaining("varint");
+    }
+
+    @Test
+    void jsonBatchIsLimitedByMaxRows() throws Exception {
+        ObjectMapper objectMapper = new ObjectMapper();
+        String json = "[{\"username\":\"a\",\"age\":1},{\"username\":\"b\",\"age\":\"2\"},{\"username\":null,\"age\":3}]";
+        ObjectReader reader = objectMapper.readerFor(HelloDataBatch.class);
+
+        HelloDataBatch batch = reader.withAttribute(HelloDataBatchJsonDeserializer.MAX_ROWS_ATTRIBUTE, 3).readValue(json);
+        assertThat(batch.toList()).containsExactly(helloData("a", 1), helloData("b", 2), helloData(null, 3));
+
+        assertThatThrownBy(() -> reader.withAttribute(HelloDataBatchJsonDeserializer.MAX_ROWS_ATTRIBUTE, 2).readValue(json))
+                .isInstanceOf(MismatchedInputException.class)
+                .hasMessageContaining("more than 2 rows");
+    }
+
+    private static byte[] write(HelloDataBatch batch) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        HelloDataColumnarCodec.write(batch, out);
+        return out.toByteArray();
+    }
+
+    private static HelloDataBatch read(byte[] body, int maxRows) throws Exception {
+        return HelloDataColumnarCodec.read(new ByteArrayInputStream(body), maxRows);
+    }
+
+    private static HelloData helloData(String username, int age) {
+        HelloData helloData = new HelloData();
+        helloData.setUsername(username);
+        helloData.setAge(age);
+        return helloData;
+    }
+}
@@ -0,0 +1,86 @@
+package hello.springmvc.basic.json;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.cfg.CoercionAction;
+import com.fasterxml.jackson.databind.cfg.CoercionInputShape;
+import com.fasterxml.jackson.databind.exc.InvalidFormatException;
+import com.fasterxml.jackson.databind.exc.MismatchedInputException;
+import com.fasterxml.jackson.databind.exc.UnrecognizedPropertyException;
+import com.fasterxml.jackson.databind.type.LogicalType;
+import hello.springmvc.basic.HelloData;
+import org.junit.jupiter.api.Test;
+
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * FastPathJsonModule 을 등록한 ObjectMapper 와 기본 BeanDeserializer 를 쓰는 ObjectMapper 가
+ * 같은 입력에 같은 결과(또는 같은 종류의 예외)를 내는지 비교한다.
+ */
+class HelloDataDeserializerTest {
+
+    @Test
+    void sameResultAsBeanDeserializer() throws Exception {
+        String[] inputs = {
+                "{\"username\":\"hello\",\"age\":20}",
+                "{\"age\":20,\"username\":\"hello\"}",
+                "{\"username\":null,\"age\":\"30\"}",
+                "{\"username\":\"김영한\"}",
+                "{}",
+                "null"
+        };
+        ObjectMapper fastPath = mapper(true, mapper -> {
+        });
+        ObjectMapper bean = mapper(false, mapper -> {
+        });
+
+        for (String input : inputs) {
+            assertThat(fastPath.readValue(input, HelloData.class)).as(input)
+                    .isEqualTo(bean.readValue(input, HelloData.class));
+        }
+    }
+
+    @Test
+    void unknownPropertiesFollowMapperSetting() throws Exception {
+        String input = "{\"username\":\"hello\",\"extra\":{\"nested\":[1,2]},\"age\":20}";
+
+        assertThatThrownBy(() -> mapper(true, mapper -> {
+        }).readValue(input, HelloData.class)).isInstanceOf(UnrecognizedPropertyException.class);
+
+        HelloData data = mapper(true, mapper -> mapper.disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES))
+                .readValue(input, HelloData.class);
+        assertThat(data.getUsername()).isEqualTo("hello");
+        assertThat(data.getAge()).isEqualTo(20);
+    }
+
+    @Test
+    void coercionFollowsMapperSetting() {
+        Consumer<ObjectMapper> failStringToInt = mapper -> mapper.coercionConfigFor(LogicalType.Integer)
+                .setCoercion(CoercionInputShape.String, CoercionAction.Fail);
+
+        assertThatThrownBy(() -> mapper(true, failStringToInt).readValue("{\"age\":\"20\"}", HelloData.class))
+                .isInstanceOf(MismatchedInputException.class);
+        assertThatThrownBy(() -> mapper(true, mapper -> {
+        }).readValue("{\"age\":\"abc\"}", HelloData.class)).isInstanceOf(InvalidFormatException.class);
+        assertThatThrownBy(() -> mapper(true, mapper -> mapper.enable(DeserializationFeature.FAIL_ON_NULL_FOR_PRIMITIVES))
+                .readValue("{\"age\":null}", HelloData.class)).isInstanceOf(MismatchedInputException.class);
+    }
+
+    @Test
+    void nonObjectInputIsRejected() {
+        assertThatThrownBy(() -> mapper(true, mapper -> {
+        }).readValue("[1,2]", HelloData.class)).isInstanceOf(MismatchedInputException.class);
+    }
+
+    private static ObjectMapper mapper(boolean fastPath, Consumer<ObjectMapper> configurer) {
+        ObjectMapper mapper = new ObjectMapper();
+        if (fastPath) {
+            mapper.registerModule(new FastPathJsonModule());
+        }
+        configurer.accept(mapper);
+        return mapper;
+    }
+}
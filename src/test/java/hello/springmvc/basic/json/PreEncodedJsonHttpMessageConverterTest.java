@@ -0,0 +1,70 @@
+package hello.springmvc.basic.json;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import hello.springmvc.basic.HelloData;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.mock.http.MockHttpInputMessage;
+import org.springframework.mock.http.MockHttpOutputMessage;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * 등록한 타입과 JSON 미디어 타입만 쓰는지,
+ * HelloDataJsonWriter 가 Jackson(ObjectMapper 기본 설정)과 같은 바이트와 Content-Length 를 내는지 확인한다.
+ */
+class PreEncodedJsonHttpMessageConverterTest {
+
+    private final PreEncodedJsonHttpMessageConverter converter =
+            new PreEncodedJsonHttpMessageConverter().register(HelloData.class, new HelloDataJsonWriter());
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void canWriteOnlyRegisteredTypesAsJson() {
+        assertThat(converter.canWrite(HelloData.class, MediaType.APPLICATION_JSON)).isTrue();
+        assertThat(converter.canWrite(HelloData.class, MediaType.valueOf("application/vnd.hello+json"))).isTrue();
+        assertThat(converter.canWrite(HelloData.class, MediaType.ALL)).isTrue();
+        assertThat(converter.canWrite(HelloData.class, null)).isTrue();
+        assertThat(converter.canWrite(HelloData.class, MediaType.TEXT_PLAIN)).isFalse();
+        assertThat(converter.canWrite(HelloData.class, MediaType.APPLICATION_XML)).isFalse();
+        assertThat(converter.canWrite(String.class, MediaType.APPLICATION_JSON)).isFalse();
+        assertThat(converter.canWrite(Object.class, MediaType.APPLICATION_JSON)).isFalse();
+        assertThat(converter.canWrite(ExtendedHelloData.class, MediaType.APPLICATION_JSON)).isFalse();
+    }
+
+    @Test
+    void neverReads() {
+        assertThat(converter.canRead(HelloData.class, MediaType.APPLICATION_JSON)).isFalse();
+        assertThatThrownBy(() -> converter.read(HelloData.class, new MockHttpInputMessage(new byte[0])))
+                .isInstanceOf(HttpMessageNotReadableException.class);
+    }
+
+    @Test
+    void outputMatchesJackson() throws Exception {
+        String[] usernames = {"hello", "", null, "김영한", "quote\" back\\slash /", "tab\tnew\nline\r\u0000\u001f\u007f",
+                "emoji 😀 and ü", "  ", "x".repeat(10_000)};
+        int[] ages = {0, 20, -1, Integer.MAX_VALUE, Integer.MIN_VALUE};
+
+        for (String username : usernames) {
+            for (int age : ages) {
+                HelloData data = new HelloData();
+                data.setUsername(username);
+                data.setAge(age);
+                MockHttpOutputMessage output = new MockHttpOutputMessage();
+
+                converter.write(data, MediaType.APPLICATION_JSON, output);
+
+                byte[] expected = objectMapper.writeValueAsBytes(data);
+                assertThat(output.getBodyAsBytes()).as("%s / %d", username, age).isEqualTo(expected);
+                assertThat(output.getHeaders().getContentLength()).isEqualTo(expected.length);
+                assertThat(output.getHeaders().getFirst(HttpHeaders.CONTENT_TYPE)).isEqualTo("application/json");
+            }
+        }
+    }
+
+    static class ExtendedHelloData extends HelloData {
+    }
+}
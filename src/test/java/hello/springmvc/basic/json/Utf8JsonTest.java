@@ -0,0 +1,61 @@
+package hello.springmvc.basic.json;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Utf8Json 은 기본 설정 ObjectMapper 와 바이트 단위로 같은 결과를 내야 한다.
+ */
+class Utf8JsonTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void stringsMatchObjectMapper() throws Exception {
+        String[] values = {
+                "", "hello", "quote\" backslash\\ slash/", "\b\t\n\f\r\u0000\u001f\u007f",
+                "é ß 한글 €", "😀 pair", "lone \uD800 high", "lone \uDC00 low", "\uDE00\uD83D reversed",
+                "end \uD83D", "\uD83D😀"
+        };
+        for (String value : values) {
+            assertString(value);
+        }
+    }
+
+    @Test
+    void randomCharsMatchObjectMapper() throws Exception {
+        Random random = new Random(42);
+        for (int n = 0; n < 2000; n++) {
+            char[] chars = new char[random.nextInt(20)];
+            for (int i = 0; i < chars.length; i++) {
+                chars[i] = (char) (random.nextBoolean() ? random.nextInt(0x100) : random.nextInt(0x10000));
+            }
+            assertString(new String(chars));
+        }
+    }
+
+    @Test
+    void intsMatchObjectMapper() throws Exception {
+        int[] values = {0, 7, -7, 10, 99, 100, -1000, 123456789, Integer.MAX_VALUE, Integer.MIN_VALUE};
+        for (int value : values) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            Utf8Json.writeInt(value, out);
+
+            assertThat(out.toByteArray()).isEqualTo(objectMapper.writeValueAsBytes(value));
+            assertThat(Utf8Json.intLength(value)).isEqualTo(out.size());
+        }
+    }
+
+    private void assertString(String value) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        Utf8Json.writeString(value, out);
+
+        assertThat(out.toByteArray()).as(value).isEqualTo(objectMapper.writeValueAsBytes(value));
+        assertThat(Utf8Json.stringLength(value)).as(value).isEqualTo(out.size());
+    }
+}
@@ -0,0 +1,66 @@
+package hello.springmvc.basic.log;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.classic.spi.LoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 시작 전 metrics 와 워커 스레드가 하위 appender 까지 이벤트를 넘기는지 본다.
+ */
+class RingBufferAsyncAppenderTest {
+
+    private final LoggerContext context = new LoggerContext();
+
+    @Test
+    void metricsBeforeStart() {
+        RingBufferAsyncAppender appender = new RingBufferAsyncAppender();
+        appender.setBufferSize(64);
+
+        assertThat(appender.metrics())
+                .containsEntry("capacity", 64)
+                .containsEntry("occupancy", 0)
+                .containsEntry("written", 0L);
+    }
+
+    @Test
+    void eventsReachAttachedAppender() throws Exception {
+        ListAppender<ILoggingEvent> target = new ListAppender<>();
+        target.setContext(context);
+        target.start();
+
+        RingBufferAsyncAppender appender = new RingBufferAsyncAppender();
+        appender.setContext(context);
+        appender.setBufferSize(64);
+        appender.setBatchSize(8);
+        appender.addAppender(target);
+        appender.start();
+        try {
+            for (int i = 0; i < 20; i++) {
+                appender.doAppend(event("message " + i));
+            }
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (target.list.size() < 20 && System.nanoTime() < deadline) {
+                Thread.sleep(1);
+            }
+        } finally {
+            appender.stop();
+        }
+
+        assertThat(target.list).extracting(ILoggingEvent::getFormattedMessage)
+                .startsWith("message 0", "message 1")
+                .hasSize(20);
+        assertThat(appender.metrics()).containsEntry("written", 20L).containsEntry("dropped", 0L);
+    }
+
+    private LoggingEvent event(String message) {
+        return new LoggingEvent(RingBufferAsyncAppenderTest.class.getName(),
+                context.getLogger("test"), Level.INFO, message, null, null);
+    }
+}
@@ -0,0 +1,48 @@
+package hello.springmvc.basic.reactive;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+/**
+ * 기존 컨트롤러에 있는 버전만 라우팅되고, 버전마다 MVC 쪽과 같은 응답을 주는지 확인한다.
+ */
+class ReactiveRouterConfigTest {
+
+    private static final String JSON = "{\"username\":\"kim\",\"age\":20}";
+
+    private final WebTestClient client =
+            WebTestClient.bindToRouterFunction(ReactiveRouterConfig.routes(new ReactiveBodyHandler())).build();
+
+    @Test
+    void existingVersionsAnswerLikeTheirControllers() {
+        for (String version : new String[]{"v1", "v2", "v3", "v4"}) {
+            client.post().uri("/request-body-string-" + version).bodyValue("hello")
+                    .exchange().expectStatus().isOk().expectBody(String.class).isEqualTo("ok");
+        }
+        for (String version : new String[]{"v1", "v2", "v3", "v4", "v6"}) {
+            client.post().uri("/request-body-json-" + version).contentType(MediaType.APPLICATION_JSON).bodyValue(JSON)
+                    .exchange().expectStatus().isOk().expectBody(String.class).isEqualTo("ok");
+        }
+        client.post().uri("/request-body-json-v5").contentType(MediaType.APPLICATION_JSON).bodyValue(JSON)
+                .exchange().expectStatus().isOk().expectBody().json(JSON);
+        for (String version : new String[]{"v1", "v2", "v3"}) {
+            client.get().uri("/response-body-string-" + version)
+                    .exchange().expectStatus().isOk().expectBody(String.class).isEqualTo("ok");
+        }
+        for (String version : new String[]{"v1", "v2"}) {
+            client.get().uri("/response-body-json-" + version)
+                    .exchange().expectStatus().isOk().expectBody().json("{\"username\":\"userA\",\"age\":20}");
+        }
+    }
+
+    @Test
+    void unknownVersionsAreNotRouted() {
+        client.post().uri("/request-body-string-v5").bodyValue("hello").exchange().expectStatus().isNotFound();
+        client.post().uri("/request-body-json-v7").contentType(MediaType.APPLICATION_JSON).bodyValue(JSON)
+                .exchange().expectStatus().isNotFound();
+        client.get().uri("/response-body-string-v4").exchange().expectStatus().isNotFound();
+        client.get().uri("/response-body-json-v3").exchange().expectStatus().isNotFound();
+        client.get().uri("/response-body-json-vx").exchange().expectStatus().isNotFound();
+    }
+}
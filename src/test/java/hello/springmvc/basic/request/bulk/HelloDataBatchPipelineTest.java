@@ -0,0 +1,71 @@
+package hello.springmvc.basic.request.bulk;
+
+import hello.springmvc.basic.HelloData;
+import org.junit.jupiter.api.Test;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * 종료할 때 큐에 들어간 배치는 처리하고, 새 배치는 받지 않는다.
+ */
+class HelloDataBatchPipelineTest {
+
+    private static final List<HelloData> BATCH = Collections.singletonList(new HelloData());
+
+    @Test
+    void queuedBatchesAreProcessedBeforeShutdown() throws Exception {
+        AtomicInteger processed = new AtomicInteger();
+        HelloDataBatchPipeline pipeline = new HelloDataBatchPipeline(batch -> {
+            sleep(20);
+            processed.incrementAndGet();
+        }, 16, 2, 1000, 5000);
+        for (int i = 0; i < 10; i++) {
+            pipeline.submit(BATCH);
+        }
+
+        pipeline.destroy();
+
+        assertThat(processed).hasValue(10);
+        assertThatThrownBy(() -> pipeline.submit(BATCH))
+                .isInstanceOf(BulkIngestOverloadedException.class)
+                .hasMessageContaining("shutting down");
+    }
+
+    @Test
+    void shutdownGivesUpAfterTheTimeout() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger processed = new AtomicInteger();
+        HelloDataBatchPipeline pipeline = new HelloDataBatchPipeline(batch -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            processed.incrementAndGet();
+        }, 16, 1, 1000, 100);
+        pipeline.submit(BATCH);
+        pipeline.submit(BATCH);
+
+        long start = System.nanoTime();
+        pipeline.destroy();
+
+        assertThat(System.nanoTime() - start).isLessThan(5_000_000_000L);
+        assertThat(processed).hasValue(0);
+        release.countDown();
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
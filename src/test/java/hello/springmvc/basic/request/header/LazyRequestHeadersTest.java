@@ -0,0 +1,67 @@
+package hello.springmvc.basic.request.header;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Cookie 헤더에서 쿠키 하나만 잘라내는 findCookie 와 헤더 조회가 request 에 그대로 위임되는지 확인한다.
+ */
+class LazyRequestHeadersTest {
+
+    @Test
+    void findCookieMatchesWholeName() {
+        String header = "ab=1; b=2;\tmyCookie=hello; myCookie2=other";
+
+        assertThat(LazyRequestHeaders.findCookie(header, "b")).isEqualTo("2");
+        assertThat(LazyRequestHeaders.findCookie(header, "ab")).isEqualTo("1");
+        assertThat(LazyRequestHeaders.findCookie(header, "myCookie")).isEqualTo("hello");
+        assertThat(LazyRequestHeaders.findCookie(header, "myCookie2")).isEqualTo("other");
+        assertThat(LazyRequestHeaders.findCookie(header, "a")).isNull();
+        assertThat(LazyRequestHeaders.findCookie(header, "mycookie")).isNull();
+    }
+
+    @Test
+    void findCookieValueForms() {
+        assertThat(LazyRequestHeaders.findCookie("a=\"quoted value\"", "a")).isEqualTo("quoted value");
+        assertThat(LazyRequestHeaders.findCookie("a=\"", "a")).isEqualTo("\"");
+        assertThat(LazyRequestHeaders.findCookie("a=; b=2", "a")).isEmpty();
+        assertThat(LazyRequestHeaders.findCookie("a=1  ;b=2", "a")).isEqualTo("1");
+        assertThat(LazyRequestHeaders.findCookie("a=x=y", "a")).isEqualTo("x=y");
+        assertThat(LazyRequestHeaders.findCookie("flag; a=1", "flag")).isNull();
+        assertThat(LazyRequestHeaders.findCookie("", "a")).isNull();
+    }
+
+    @Test
+    void getCookieSearchesEveryCookieHeader() {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader("Cookie", "a=1");
+        request.addHeader("Cookie", "myCookie=hello");
+
+        LazyRequestHeaders headers = new LazyRequestHeaders(request);
+
+        assertThat(headers.getCookie("a")).isEqualTo("1");
+        assertThat(headers.getCookie("myCookie")).isEqualTo("hello");
+        assertThat(headers.getCookie("missing")).isNull();
+        assertThat(new LazyRequestHeaders(new MockHttpServletRequest()).getCookie("a")).isNull();
+    }
+
+    @Test
+    void headersAreLookedUpIgnoringCase() {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader("Host", "localhost:8080");
+        request.addHeader("Accept", "text/html");
+        request.addHeader("Accept", "application/json");
+
+        LazyRequestHeaders headers = new LazyRequestHeaders(request);
+
+        assertThat(headers.getHost()).isEqualTo("localhost:8080");
+        assertThat(headers.get("accept")).isEqualTo("text/html");
+        assertThat(headers.getAll("ACCEPT")).containsExactly("text/html", "application/json");
+        assertThat(headers.getAll("missing")).isEmpty();
+        assertThat(headers.get("missing", "none")).isEqualTo("none");
+        assertThat(headers.contains("host")).isTrue();
+        assertThat(headers.names()).containsExactly("Host", "Accept");
+    }
+}
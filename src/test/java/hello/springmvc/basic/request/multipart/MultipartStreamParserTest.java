@@ -0,0 +1,155 @@
+package hello.springmvc.basic.request.multipart;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * 버퍼를 헤더 한도에 맞춰 작게 잡고 읽기 크기를 1바이트부터 바꿔가며 구분자가 읽기 사이에 걸치는 경우를 지나가게 한다.
+ */
+class MultipartStreamParserTest {
+
+    private static final String BOUNDARY = "----boundary7MA4YWxk";
+    private static final int MAX_HEADER_BYTES = 128;
+
+    @Test
+    void boundarySplitAcrossReads() throws Exception {
+        // 파일 바디에 구분자 앞부분("\r\n--" 와 boundary 일부)을 넣어서 끝까지 맞는지 보게 한다.
+        String content = "line1\r\n--" + BOUNDARY.substring(0, 10) + "x\r\n-\r\nline2 " + "a".repeat(300);
+        String body = "--" + BOUNDARY + "\r\n"
+                + "Content-Disposition: form-data; name=\"username\"\r\n\r\n"
+                + "kim\r\n"
+                + "--" + BOUNDARY + "\r\n"
+                + "Content-Disposition: form-data; name=\"file\"; filename=\"a.txt\"\r\n"
+                + "Content-Type: text/plain\r\n\r\n"
+                + content + "\r\n"
+                + "--" + BOUNDARY + "--\r\n";
+
+        for (int chunk = 1; chunk <= body.length(); chunk += chunk < 40 ? 1 : 37) {
+            List<String> parts = parse(new TrickleInputStream(bytes(body), chunk), Long.MAX_VALUE);
+
+            assertThat(parts).as("chunk %d", chunk).containsExactly("username=kim", "file:a.txt:text/plain=" + content);
+        }
+    }
+
+    @Test
+    void preambleAndEpilogueAreSkipped() throws Exception {
+        String body = "This is the preamble.\r\nIt is ignored.\r\n"
+                + "--" + BOUNDARY + "\r\n"
+                + "Content-Disposition: form-data; name=\"itemName\"\r\n\r\n"
+                + "itemA\r\n"
+                + "--" + BOUNDARY + "--\r\n"
+                + "This is the epilogue.";
+
+        assertThat(parse(new ByteArrayInputStream(bytes(body)), Long.MAX_VALUE)).containsExactly("itemName=itemA");
+    }
+
+    @Test
+    void preambleLongerThanHeaderLimitIsRejected() {
+        String body = "x".repeat(MAX_HEADER_BYTES + 1) + "\r\n"
+                + "--" + BOUNDARY + "\r\n"
+                + "Content-Disposition: form-data; name=\"itemName\"\r\n\r\n"
+                + "itemA\r\n"
+                + "--" + BOUNDARY + "--\r\n";
+
+        assertThatThrownBy(() -> parse(new ByteArrayInputStream(bytes(body)), Long.MAX_VALUE))
+                .isInstanceOf(MultipartLimitExceededException.class);
+    }
+
+    @Test
+    void emptyFilePart() throws Exception {
+        String body = "--" + BOUNDARY + "\r\n"
+                + "Content-Disposition: form-data; name=\"file\"; filename=\"\"\r\n"
+                + "Content-Type: application/octet-stream\r\n\r\n"
+                + "\r\n"
+                + "--" + BOUNDARY + "\r\n"
+                + "Content-Disposition: form-data; name=\"empty\"; filename=\"empty.bin\"\r\n\r\n"
+                + "\r\n"
+                + "--" + BOUNDARY + "--\r\n";
+
+        assertThat(parse(new TrickleInputStream(bytes(body), 3), Long.MAX_VALUE))
+                .containsExactly("file::application/octet-stream=", "empty:empty.bin:null=");
+    }
+
+    @Test
+    void partLargerThanLimitIsRejected() throws Exception {
+        String body = "--" + BOUNDARY + "\r\n"
+                + "Content-Disposition: form-data; name=\"file\"; filename=\"a.bin\"\r\n\r\n"
+                + "0123456789\r\n"
+                + "--" + BOUNDARY + "--\r\n";
+
+        assertThat(parse(new ByteArrayInputStream(bytes(body)), 10)).containsExactly("file:a.bin:null=0123456789");
+        assertThatThrownBy(() -> parse(new TrickleInputStream(bytes(body), 4), 9))
+                .isInstanceOf(MultipartLimitExceededException.class);
+    }
+
+    @Test
+    void missingClosingBoundaryIsMalformed() {
+        String body = "--" + BOUNDARY + "\r\n"
+                + "Content-Disposition: form-data; name=\"itemName\"\r\n\r\n"
+                + "itemA";
+
+        assertThatThrownBy(() -> parse(new ByteArrayInputStream(bytes(body)), Long.MAX_VALUE))
+                .isInstanceOf(MalformedMultipartException.class);
+    }
+
+    @Test
+    void boundaryFromContentType() {
+        assertThat(MultipartStreamParser.boundary("multipart/form-data; boundary=abc")).isEqualTo("abc");
+        assertThat(MultipartStreamParser.boundary("multipart/form-data; charset=UTF-8; BOUNDARY=\"a b\""))
+                .isEqualTo("a b");
+        assertThatThrownBy(() -> MultipartStreamParser.boundary("multipart/form-data"))
+                .isInstanceOf(MalformedMultipartException.class);
+        assertThatThrownBy(() -> MultipartStreamParser.boundary("multipart/form-data; boundary=" + "b".repeat(71)))
+                .isInstanceOf(MalformedMultipartException.class);
+    }
+
+    /**
+     * 파트마다 "name=값" 또는 "name:filename:contentType=값" 으로 돌려준다.
+     */
+    private static List<String> parse(InputStream in, long maxPartBytes) throws IOException {
+        MultipartStreamParser parser = new MultipartStreamParser(in, BOUNDARY,
+                new byte[MAX_HEADER_BYTES + BOUNDARY.length() + 8], MAX_HEADER_BYTES, StandardCharsets.UTF_8);
+        List<String> parts = new ArrayList<>();
+        MultipartStreamParser.Part part;
+        while ((part = parser.nextPart()) != null) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            parser.readBody(out::write, maxPartBytes);
+            String key = part.isFile()
+                    ? part.getName() + ":" + part.getFilename() + ":" + part.getContentType()
+                    : part.getName();
+            parts.add(key + "=" + out.toString(StandardCharsets.UTF_8));
+        }
+        return parts;
+    }
+
+    private static byte[] bytes(String body) {
+        return body.getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * read 한 번에 최대 chunk 바이트만 돌려주는 스트림
+     */
+    private static class TrickleInputStream extends ByteArrayInputStream {
+        private final int chunk;
+
+        TrickleInputStream(byte[] bytes, int chunk) {
+            super(bytes);
+            this.chunk = chunk;
+        }
+
+        @Override
+        public synchronized int read(byte[] b, int off, int len) {
+            return super.read(b, off, Math.min(len, chunk));
+        }
+    }
+}
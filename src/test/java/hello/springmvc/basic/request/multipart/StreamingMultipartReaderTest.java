@@ -0,0 +1,199 @@
+package hello.springmvc.basic.request.multipart;
+
+import hello.springmvc.basic.HelloData;
+import hello.springmvc.basic.bind.BindingPlanRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.validation.BindException;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * 바인딩 실패, 한도 초과, 깨진 바디에서 StreamingMultipartReader 가 어떻게 끝나는지 본다.
+ * 실패한 요청은 그때까지 upload 디렉터리에 쓴 파일을 남기지 않아야 한다.
+ */
+class StreamingMultipartReaderTest {
+
+    private static final String BOUNDARY = "----boundary7MA4YWxk";
+    private static final long MAX_FILE_BYTES = 64;
+    private static final long MAX_REQUEST_BYTES = 1024;
+
+    private static final long RETENTION_MINUTES = 60;
+
+    @TempDir
+    Path directory;
+
+    private final List<StreamingMultipartReader> readers = new ArrayList<>();
+
+    @Test
+    void fieldsAndFilesAreRead() throws Exception {
+        StreamingMultipartReader reader = reader(registry());
+        String body = field("username", "kim") + field("age", "20") + file("a.txt", "hello") + close();
+
+        StreamingMultipartResult<HelloData> result = reader.read(request(body), HelloData.class);
+
+        assertThat(result.getTarget().getUsername()).isEqualTo("kim");
+        assertThat(result.getTarget().getAge()).isEqualTo(20);
+        assertThat(result.getFiles()).singleElement().satisfies(file -> {
+            assertThat(file.getFilename()).isEqualTo("a.txt");
+            assertThat(directory.resolve(file.getStoredAs())).hasContent("hello");
+        });
+    }
+
+    @Test
+    void bindingPlanFailureFallsBackToBindException() throws Exception {
+        String body = field("username", "kim") + field("age", "abc") + file("a.txt", "hello") + close();
+
+        for (StreamingMultipartReader reader : new StreamingMultipartReader[]{reader(registry()), reader(none())}) {
+            assertThatThrownBy(() -> reader.read(request(body), HelloData.class))
+                    .isInstanceOfSatisfying(BindException.class,
+                            e -> assertThat(e.getFieldError("age")).isNotNull());
+            assertThat(stored()).isEmpty();
+        }
+    }
+
+    @Test
+    void filesWrittenBeforeLimitAreDeleted() throws Exception {
+        StreamingMultipartReader reader = reader(registry());
+        String body = file("a.txt", "hello") + file("b.txt", "x".repeat((int) MAX_FILE_BYTES + 1)) + close();
+
+        assertThatThrownBy(() -> reader.read(request(body), HelloData.class))
+                .isInstanceOf(MultipartLimitExceededException.class);
+        assertThat(stored()).isEmpty();
+    }
+
+    @Test
+    void filesWrittenBeforeMalformedBodyAreDeleted() throws Exception {
+        StreamingMultipartReader reader = reader(registry());
+        // 닫는 구분자 없이 끝난 바디
+        String body = file("a.txt", "hello") + file("b.txt", "world");
+
+        assertThatThrownBy(() -> reader.read(request(body), HelloData.class))
+                .isInstanceOf(MalformedMultipartException.class);
+        assertThat(stored()).isEmpty();
+    }
+
+    @Test
+    void requestOverLimitIsRejectedByContentLength() throws Exception {
+        StreamingMultipartReader reader = reader(registry());
+        String body = field("username", "x".repeat((int) MAX_REQUEST_BYTES)) + close();
+
+        assertThatThrownBy(() -> reader.read(request(body), HelloData.class))
+                .isInstanceOf(MultipartLimitExceededException.class)
+                .hasMessageContaining("multipart request");
+    }
+
+    @Test
+    void requestOverLimitIsRejectedWhileReadingWithoutContentLength() throws Exception {
+        StreamingMultipartReader reader = reader(registry());
+        // 파일 하나는 한도 안이지만 합치면 요청 한도를 넘는다.
+        StringBuilder body = new StringBuilder();
+        for (int i = 0; i < 20; i++) {
+            body.append(file("f" + i + ".txt", "x".repeat((int) MAX_FILE_BYTES)));
+        }
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/upload-stream") {
+            @Override
+            public long getContentLengthLong() {
+                return -1;
+            }
+        };
+        request.setContentType("multipart/form-data; boundary=" + BOUNDARY);
+        request.setContent((body + close()).getBytes(StandardCharsets.UTF_8));
+
+        assertThatThrownBy(() -> reader.read(request, HelloData.class))
+                .isInstanceOf(MultipartLimitExceededException.class)
+                .hasMessageContaining("multipart request");
+        assertThat(stored()).isEmpty();
+    }
+
+    @Test
+    void expiredUploadsAreDeleted() throws Exception {
+        StreamingMultipartReader reader = reader(registry());
+        Path expired = Files.writeString(directory.resolve("expired"), "old");
+        Files.setLastModifiedTime(expired, FileTime.from(Instant.now().minus(RETENTION_MINUTES + 1, ChronoUnit.MINUTES)));
+        Path recent = Files.writeString(directory.resolve("recent"), "new");
+
+        assertThat(reader.deleteExpired()).isEqualTo(1);
+        assertThat(stored()).containsExactly(recent);
+    }
+
+    @Test
+    void emptyFilenamePartIsSkipped() throws Exception {
+        StreamingMultipartReader reader = reader(registry());
+        String body = field("username", "kim") + file("", "") + close();
+
+        StreamingMultipartResult<HelloData> result = reader.read(request(body), HelloData.class);
+
+        assertThat(result.getTarget().getUsername()).isEqualTo("kim");
+        assertThat(result.getFiles()).isEmpty();
+        assertThat(stored()).isEmpty();
+    }
+
+    private StreamingMultipartReader reader(ObjectProvider<BindingPlanRegistry> bindingPlans) throws Exception {
+        StreamingMultipartReader reader = new StreamingMultipartReader(directory.toString(), 1024, 1024, 1, 1024,
+                MAX_FILE_BYTES, MAX_REQUEST_BYTES, 32, 256, RETENTION_MINUTES, bindingPlans);
+        readers.add(reader);
+        return reader;
+    }
+
+    @AfterEach
+    void destroy() {
+        readers.forEach(StreamingMultipartReader::destroy);
+    }
+
+    private static ObjectProvider<BindingPlanRegistry> registry() {
+        StaticListableBeanFactory beanFactory = new StaticListableBeanFactory();
+        beanFactory.addBean("bindingPlanRegistry", new BindingPlanRegistry());
+        return beanFactory.getBeanProvider(BindingPlanRegistry.class);
+    }
+
+    private static ObjectProvider<BindingPlanRegistry> none() {
+        return new StaticListableBeanFactory().getBeanProvider(BindingPlanRegistry.class);
+    }
+
+    private List<Path> stored() throws Exception {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.collect(Collectors.toList());
+        }
+    }
+
+    private static MockHttpServletRequest request(String body) {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/upload-stream");
+        request.setContentType("multipart/form-data; boundary=" + BOUNDARY);
+        request.setContent(body.getBytes(StandardCharsets.UTF_8));
+        return request;
+    }
+
+    private static String field(String name, String value) {
+        return "--" + BOUNDARY + "\r\n"
+                + "Content-Disposition: form-data; name=\"" + name + "\"\r\n\r\n"
+                + value + "\r\n";
+    }
+
+    private static String file(String filename, String content) {
+        return "--" + BOUNDARY + "\r\n"
+                + "Content-Disposition: form-data; name=\"file\"; filename=\"" + filename + "\"\r\n"
+                + "Content-Type: text/plain\r\n\r\n"
+                + content + "\r\n";
+    }
+
+    private static String close() {
+        return "--" + BOUNDARY + "--\r\n";
+    }
+}
@@ -0,0 +1,148 @@
+package hello.springmvc.basic.request.param;
+
+import hello.springmvc.basic.request.stream.RequestBodyTooLargeException;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * 쿼리 스트링과 폼 바디를 원본에서 바로 읽는 LazyRequestParameters 와 그 리졸버를 확인한다.
+ */
+class LazyRequestParametersTest {
+
+    @Test
+    void queryComesBeforeForm() {
+        LazyRequestParameters parameters = of("username=kim&age=20", "username=lee&tag=a&tag=b");
+
+        assertThat(parameters.get("username")).isEqualTo("kim");
+        assertThat(parameters.getAll("username")).containsExactly("kim", "lee");
+        assertThat(parameters.getAll("tag")).containsExactly("a", "b");
+        assertThat(parameters.names()).containsExactly("username", "age", "tag");
+        assertThat(parameters.size()).isEqualTo(5);
+    }
+
+    @Test
+    void encodedNamesAndValuesAreDecoded() {
+        LazyRequestParameters parameters = of("us%65rname=%EA%B9%80+%EC%98%81%ED%95%9C&empty=&flag", null);
+
+        assertThat(parameters.get("username")).isEqualTo("김 영한");
+        assertThat(parameters.get("empty")).isEmpty();
+        assertThat(parameters.get("flag")).isEmpty();
+        assertThat(parameters.contains("missing")).isFalse();
+        assertThat(parameters.get("missing", "none")).isEqualTo("none");
+    }
+
+    @Test
+    void formBodyUsesRequestCharset() {
+        byte[] form = "username=김영한".getBytes(StandardCharsets.UTF_8);
+
+        assertThat(LazyRequestParameters.of(null, form, StandardCharsets.UTF_8).get("username")).isEqualTo("김영한");
+    }
+
+    @Test
+    void intsAreReadWithoutDecodingWhenPossible() {
+        LazyRequestParameters parameters = of("age=20&negative=-7&encoded=%32%31&spaced=+5&blank=&big=2147483647", null);
+
+        assertThat(parameters.getInt("age")).isEqualTo(20);
+        assertThat(parameters.getInt("negative")).isEqualTo(-7);
+        assertThat(parameters.getInt("encoded")).isEqualTo(21);
+        assertThat(parameters.getInt("spaced")).isEqualTo(5);
+        assertThat(parameters.getInt("big")).isEqualTo(Integer.MAX_VALUE);
+        assertThat(parameters.getInt("blank", 1)).isEqualTo(1);
+        assertThat(parameters.getInt("missing", 2)).isEqualTo(2);
+    }
+
+    @Test
+    void missingOrInvalidIntIsBadRequest() {
+        LazyRequestParameters parameters = of("age=abc", null);
+
+        assertThatThrownBy(() -> parameters.getInt("age"))
+                .isInstanceOf(InvalidRequestParameterException.class)
+                .hasMessageContaining("not a number");
+        assertThatThrownBy(() -> parameters.getInt("missing"))
+                .isInstanceOf(InvalidRequestParameterException.class)
+                .hasMessageContaining("required");
+    }
+
+    @Test
+    void resolverReadsFormBody() throws Exception {
+        MockHttpServletRequest request = form("POST", "username=kim&age=20");
+        request.setQueryString("age=30");
+
+        LazyRequestParameters parameters = resolve(request, 1024);
+
+        assertThat(parameters.get("username")).isEqualTo("kim");
+        assertThat(parameters.getAll("age")).containsExactly("30", "20");
+    }
+
+    @Test
+    void resolverIgnoresBodyOfGetAndOtherContentTypes() throws Exception {
+        assertThat(resolve(form("GET", "username=kim"), 1024).contains("username")).isFalse();
+
+        MockHttpServletRequest json = form("POST", "username=kim");
+        json.setContentType("application/json");
+        assertThat(resolve(json, 1024).contains("username")).isFalse();
+    }
+
+    @Test
+    void resolverRejectsFormOverLimit() {
+        MockHttpServletRequest request = form("POST", "username=" + "x".repeat(100));
+
+        assertThatThrownBy(() -> resolve(request, 64)).isInstanceOf(RequestBodyTooLargeException.class);
+    }
+
+    @Test
+    void resolverRejectsFormOverLimitWithoutContentLength() {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/request-param-lazy") {
+            @Override
+            public long getContentLengthLong() {
+                return -1;
+            }
+        };
+        request.setContentType("application/x-www-form-urlencoded");
+        request.setContent(("username=" + "x".repeat(100)).getBytes(StandardCharsets.UTF_8));
+
+        assertThatThrownBy(() -> resolve(request, 64)).isInstanceOf(RequestBodyTooLargeException.class);
+    }
+
+    @Test
+    void resolverReadsFormBodyLargerThanInitialBufferWithoutContentLength() throws Exception {
+        String username = "x".repeat(5000);
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/request-param-lazy") {
+            @Override
+            public long getContentLengthLong() {
+                return -1;
+            }
+        };
+        request.setContentType("application/x-www-form-urlencoded");
+        request.setContent(("username=" + username + "&age=20").getBytes(StandardCharsets.UTF_8));
+
+        LazyRequestParameters parameters = resolve(request, 8192);
+
+        assertThat(parameters.get("username")).isEqualTo(username);
+        assertThat(parameters.getInt("age")).isEqualTo(20);
+        assertThat(parameters.size()).isEqualTo(2);
+    }
+
+    private static LazyRequestParameters of(String query, String form) {
+        byte[] body = form != null ? form.getBytes(StandardCharsets.UTF_8) : null;
+        return LazyRequestParameters.of(query, body, StandardCharsets.UTF_8);
+    }
+
+    private static MockHttpServletRequest form(String method, String body) {
+        MockHttpServletRequest request = new MockHttpServletRequest(method, "/request-param-lazy");
+        request.setContentType("application/x-www-form-urlencoded");
+        request.setContent(body.getBytes(StandardCharsets.UTF_8));
+        return request;
+    }
+
+    private static LazyRequestParameters resolve(MockHttpServletRequest request, long maxFormBytes) throws Exception {
+        LazyRequestParametersArgumentResolver resolver = new LazyRequestParametersArgumentResolver(maxFormBytes);
+        return (LazyRequestParameters) resolver.resolveArgument(null, null, new ServletWebRequest(request), null);
+    }
+}
@@ -0,0 +1,89 @@
+package hello.springmvc.basic.request.stream;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * 버퍼를 몇 바이트로 작게 잡아서 멀티바이트 문자가 읽기 사이에 나뉘어도 그대로 디코딩되는지,
+ * max-bytes 를 넘으면 413 예외로 끝나는지 확인한다.
+ */
+class StreamingBodyReaderTest {
+
+    private final StreamingBodyMetrics metrics = new StreamingBodyMetrics();
+
+    @Test
+    void multiByteCharactersSplitAcrossBuffers() throws Exception {
+        String body = "hello 김영한 😀 " + "가나다".repeat(50);
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+
+        for (int bufferSize = 4; bufferSize <= 16; bufferSize++) {
+            StreamingBodyReader reader = new StreamingBodyReader(1024, bufferSize, 1, metrics);
+            StringBuilder chunks = new StringBuilder();
+
+            StreamingBodyResult result = reader.read(new ByteArrayInputStream(bytes), StandardCharsets.UTF_8, chunks::append);
+
+            assertThat(chunks.toString()).as("buffer %d", bufferSize).isEqualTo(body);
+            assertThat(result.getBytes()).isEqualTo(bytes.length);
+            assertThat(result.getChars()).isEqualTo(body.length());
+        }
+    }
+
+    @Test
+    void requestCharsetIsUsed() throws Exception {
+        Charset eucKr = Charset.forName("EUC-KR");
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/request-body-string-stream");
+        request.setCharacterEncoding(eucKr.name());
+        request.setContent("김영한".getBytes(eucKr));
+        StringBuilder chunks = new StringBuilder();
+
+        new StreamingBodyReader(1024, 4, 1, metrics).read(request, chunks::append);
+
+        assertThat(chunks.toString()).isEqualTo("김영한");
+    }
+
+    @Test
+    void malformedBytesAreReplaced() throws Exception {
+        byte[] bytes = {'a', (byte) 0xFF, 'b', (byte) 0xEA, (byte) 0xB9};
+        StringBuilder chunks = new StringBuilder();
+
+        new StreamingBodyReader(1024, 4, 1, metrics).read(new ByteArrayInputStream(bytes), StandardCharsets.UTF_8, chunks::append);
+
+        assertThat(chunks.toString()).isEqualTo("a\uFFFDb\uFFFD");
+    }
+
+    @Test
+    void bodyOverLimitIsRejected() {
+        StreamingBodyReader reader = new StreamingBodyReader(16, 4, 1, metrics);
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/request-body-string-stream");
+        request.setContent(new byte[17]);
+
+        assertThatThrownBy(() -> reader.read(request, chunk -> {
+        })).isInstanceOf(RequestBodyTooLargeException.class);
+        // Content-Length 가 없는 (chunked) 바디는 읽으면서 센다.
+        assertThatThrownBy(() -> reader.read(new ByteArrayInputStream(new byte[17]), StandardCharsets.UTF_8, chunk -> {
+        })).isInstanceOf(RequestBodyTooLargeException.class);
+        assertThat(metrics.snapshot()).containsEntry("rejected", 2L).containsEntry("requests", 0L);
+    }
+
+    @Test
+    void pooledBuffersAreReusedCleanly() throws Exception {
+        StreamingBodyReader reader = new StreamingBodyReader(1024, 8, 1, metrics);
+        assertThatThrownBy(() -> reader.read(new ByteArrayInputStream("first body".getBytes(StandardCharsets.UTF_8)),
+                StandardCharsets.UTF_8, chunk -> {
+                    throw new IllegalStateException("handler failed");
+                })).isInstanceOf(IllegalStateException.class);
+
+        StringBuilder chunks = new StringBuilder();
+        reader.read(new ByteArrayInputStream("second".getBytes(StandardCharsets.UTF_8)), StandardCharsets.UTF_8, chunks::append);
+
+        assertThat(chunks.toString()).isEqualTo("second");
+        assertThat(metrics.snapshot()).containsEntry("requests", 1L).containsEntry("bytes", 6L);
+    }
+}
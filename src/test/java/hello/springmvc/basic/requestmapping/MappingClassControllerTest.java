@@ -0,0 +1,43 @@
+package hello.springmvc.basic.requestmapping;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * write-behind 가 꺼진 기본 설정에서도 /mapping/users 추가, 수정, 삭제가 저장소만으로 동작하는지 확인한다.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+class MappingClassControllerTest {
+
+    @Autowired
+    MockMvc mockMvc;
+
+    @Test
+    void crudWorksWithoutWriteBehind() throws Exception {
+        mockMvc.perform(post("/mapping/users").contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"userId\":\"userB\",\"username\":\"lee\",\"age\":30}"))
+                .andExpect(status().isCreated());
+        mockMvc.perform(patch("/mapping/users/userB").param("username", "park"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.username").value("park"))
+                .andExpect(jsonPath("$.age").value(30));
+        mockMvc.perform(delete("/mapping/users/userB"))
+                .andExpect(status().isNoContent());
+        mockMvc.perform(get("/mapping/users/userB"))
+                .andExpect(status().isNotFound());
+        mockMvc.perform(get("/metrics/write-behind"))
+                .andExpect(status().isNotFound());
+    }
+}
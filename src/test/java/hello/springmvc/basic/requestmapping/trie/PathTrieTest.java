@@ -0,0 +1,80 @@
+package hello.springmvc.basic.requestmapping.trie;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 트라이는 후보만 좁히고 실제 매칭은 PathPattern 이 하므로, 후보에 빠지는 핸들러가 없는지를 본다.
+ * 세그먼트 하나로 표현할 수 없는 패턴은 어떤 경로에도 후보로 돌려줘야 한다.
+ */
+class PathTrieTest {
+
+    @Test
+    void literalAndVariableSegmentsAreBothCandidates() {
+        PathTrie<String> trie = new PathTrie<>();
+        trie.add("/mapping/users", "users");
+        trie.add("/mapping/users/{userId}", "user");
+        trie.add("/mapping/users/me", "me");
+        trie.add("/mapping/users/{userId}/orders/{orderId}", "order");
+
+        assertThat(collect(trie, "/mapping/users")).containsExactly("users");
+        assertThat(collect(trie, "/mapping/users/userA")).containsExactly("user");
+        assertThat(collect(trie, "/mapping/users/me")).containsExactlyInAnyOrder("me", "user");
+        assertThat(collect(trie, "/mapping/users/userA/orders/100")).containsExactly("order");
+        assertThat(collect(trie, "/mapping/users/userA/orders")).isEmpty();
+        assertThat(collect(trie, "/mapping/other")).isEmpty();
+    }
+
+    @Test
+    void repeatedAndTrailingSlashesAreSkipped() {
+        PathTrie<String> trie = new PathTrie<>();
+        trie.add("/hello/world", "world");
+
+        assertThat(collect(trie, "/hello/world/")).containsExactly("world");
+        assertThat(collect(trie, "//hello//world")).containsExactly("world");
+    }
+
+    @Test
+    void rootPattern() {
+        PathTrie<String> trie = new PathTrie<>();
+        trie.add("/", "root");
+
+        assertThat(collect(trie, "/")).containsExactly("root");
+        assertThat(collect(trie, "/anything")).isEmpty();
+    }
+
+    @Test
+    void samePatternKeepsEveryValue() {
+        PathTrie<String> trie = new PathTrie<>();
+        trie.add("/mapping/{id}", "get");
+        trie.add("/mapping/{userId}", "post");
+
+        assertThat(collect(trie, "/mapping/1")).containsExactly("get", "post");
+    }
+
+    @Test
+    void patternsTheTrieCannotExpressAreAlwaysCandidates() {
+        PathTrie<String> trie = new PathTrie<>();
+        trie.add("/static/**", "wildcard");
+        trie.add("/file/?.txt", "question");
+        trie.add("/users/{id:[0-9]+}", "regex");
+        trie.add("/users/abc{name}", "partial");
+        trie.add("relative", "relative");
+        trie.add("/users/{id}", "user");
+
+        assertThat(collect(trie, "/users/1"))
+                .containsExactly("user", "wildcard", "question", "regex", "partial", "relative");
+        assertThat(collect(trie, "/nothing"))
+                .containsExactly("wildcard", "question", "regex", "partial", "relative");
+    }
+
+    private static List<String> collect(PathTrie<String> trie, String path) {
+        List<String> result = new ArrayList<>();
+        trie.collect(path, result);
+        return result;
+    }
+}
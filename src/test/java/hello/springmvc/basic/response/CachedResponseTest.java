@@ -0,0 +1,55 @@
+package hello.springmvc.basic.response;
+
+import hello.springmvc.basic.json.PreEncodedJsonHttpMessageConverter;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.http.HttpMessageConverters;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * PreEncodedJsonHttpMessageConverter 가 HelloData 를 쓰더라도 @CachedResponse 가 ETag 를 붙이고
+ * 같은 ETag 로 다시 요청하면 핸들러를 호출하지 않고 304 로 응답하는지 확인한다.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+class CachedResponseTest {
+
+    @Autowired
+    MockMvc mockMvc;
+
+    @Autowired
+    HttpMessageConverters messageConverters;
+
+    @Test
+    void preEncodedConverterIsVisibleToResponseBodyAdvice() {
+        assertThat(messageConverters.getConverters()).first().isInstanceOf(PreEncodedJsonHttpMessageConverter.class);
+    }
+
+    @Test
+    void secondRequestWithEtagIsNotModified() throws Exception {
+        for (String path : new String[]{"/response-body-json-v1", "/response-body-json-v2"}) {
+            MvcResult first = mockMvc.perform(get(path).header(HttpHeaders.ACCEPT, "application/json"))
+                    .andExpect(status().isOk())
+                    .andExpect(header().exists(HttpHeaders.ETAG))
+                    .andExpect(content().json("{\"username\":\"userA\",\"age\":20}"))
+                    .andReturn();
+            String etag = first.getResponse().getHeader(HttpHeaders.ETAG);
+
+            mockMvc.perform(get(path)
+                            .header(HttpHeaders.ACCEPT, "application/json")
+                            .header(HttpHeaders.IF_NONE_MATCH, etag))
+                    .andExpect(status().isNotModified())
+                    .andExpect(header().string(HttpHeaders.ETAG, etag));
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package hello.springmvc.basic.response.coalesce;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.autoconfigure.http.HttpMessageConverters;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.StringHttpMessageConverter;
+import org.springframework.http.server.ServletServerHttpRequest;
+import org.springframework.http.server.ServletServerHttpResponse;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.method.HandlerMethod;
+
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * follower 는 leader 의 바디뿐 아니라 캐시 관련 헤더도 같이 받고, Accept 가 다르면 같은 flight 에 묶이지 않는다.
+ */
+class CoalescingInterceptorTest {
+
+    private final RequestCoalescer coalescer = new RequestCoalescer();
+    private final CoalescingInterceptor interceptor = new CoalescingInterceptor(coalescer);
+    private final CoalescingResponseBodyAdvice advice = new CoalescingResponseBodyAdvice(coalescer,
+            new HttpMessageConverters(false, Collections.singletonList(new StringHttpMessageConverter())));
+
+    @Test
+    void followerReceivesLeaderHeadersAndBody() throws Exception {
+        HandlerMethod handler = handler();
+        MockHttpServletRequest leaderRequest = request("text/plain");
+        MockHttpServletResponse leaderResponse = new MockHttpServletResponse();
+        assertThat(interceptor.preHandle(leaderRequest, leaderResponse, handler)).isTrue();
+
+        MockHttpServletResponse followerResponse = new MockHttpServletResponse();
+        AtomicBoolean followerCalledHandler = new AtomicBoolean(true);
+        Thread follower = new Thread(() -> {
+            try {
+                followerCalledHandler.set(interceptor.preHandle(request("text/plain"), followerResponse, handler));
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        follower.start();
+        while (follower.getState() != Thread.State.TIMED_WAITING) {
+            Thread.sleep(1);
+        }
+
+        leaderResponse.setHeader("ETag", "\"v1\"");
+        leaderResponse.addHeader("Vary", "Accept");
+        leaderResponse.addHeader("Set-Cookie", "session=leader");
+        ServletServerHttpResponse outputMessage = new ServletServerHttpResponse(leaderResponse);
+        outputMessage.getHeaders().setCacheControl("max-age=60");
+        Object body = advice.beforeBodyWrite("hello", handler.getReturnType(), MediaType.TEXT_PLAIN,
+                StringHttpMessageConverter.class, new ServletServerHttpRequest(leaderRequest), outputMessage);
+        outputMessage.flush();
+        follower.join();
+
+        assertThat(body).isNull();
+        assertThat(leaderResponse.getContentAsString()).isEqualTo("hello");
+        assertThat(followerCalledHandler).isFalse();
+        assertThat(followerResponse.getContentAsString()).isEqualTo("hello");
+        assertThat(followerResponse.getContentType()).startsWith("text/plain");
+        assertThat(followerResponse.getHeader("ETag")).isEqualTo("\"v1\"");
+        assertThat(followerResponse.getHeader("Vary")).isEqualTo("Accept");
+        assertThat(followerResponse.getHeader("Cache-Control")).isEqualTo("max-age=60");
+        assertThat(followerResponse.getHeader("Set-Cookie")).isNull();
+    }
+
+    @Test
+    void acceptIsPartOfTheDefaultKey() throws Exception {
+        HandlerMethod handler = handler();
+        CoalesceRequests coalesceRequests = handler.getMethodAnnotation(CoalesceRequests.class);
+
+        String json = coalescer.key(handler, request("application/json"), coalesceRequests);
+        String text = coalescer.key(handler, request("text/plain"), coalesceRequests);
+
+        assertThat(json).isNotEqualTo(text).contains("Accept=application/json");
+        assertThat(coalescer.key(handler, request("application/json"), coalesceRequests)).isEqualTo(json);
+    }
+
+    private static HandlerMethod handler() throws Exception {
+        return new HandlerMethod(new Controller(), Controller.class.getMethod("hello"));
+    }
+
+    private static MockHttpServletRequest request(String accept) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/hello");
+        request.addHeader("Accept", accept);
+        return request;
+    }
+
+    static class Controller {
+        @CoalesceRequests
+        public String hello() {
+            return "hello";
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package hello.springmvc.basic.response.view;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.thymeleaf.spring5.view.ThymeleafViewResolver;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * compiled-views 프로파일에서 타임리프 뷰 리졸버가 CompiledThymeleafView 를 만들고
+ * 등록된 템플릿(response/hello)은 모델 값별로 한번만 렌더링해서 저장하는지 확인한다.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("compiled-views")
+class CompiledThymeleafViewTest {
+
+    @Autowired
+    MockMvc mockMvc;
+
+    @Autowired
+    ThymeleafViewResolver viewResolver;
+
+    @Autowired
+    PrerenderedViewCache prerenderedViewCache;
+
+    @Test
+    void resolverCreatesCompiledViews() throws Exception {
+        assertThat(viewResolver.resolveViewName("response/hello", Locale.KOREA)).isInstanceOf(CompiledThymeleafView.class);
+    }
+
+    @Test
+    void prerenderedOutputIsSameAsRenderedOutput() throws Exception {
+        int before = prerenderedViewCache.size();
+        String rendered = render("/response-view-v1");
+        String prerendered = render("/response-view-v1");
+
+        assertThat(rendered).contains("<p>hello!</p>");
+        assertThat(prerendered).isEqualTo(rendered);
+        assertThat(render("/response-view-v2")).contains("<p>hello model</p>");
+        assertThat(prerenderedViewCache.size() - before).isEqualTo(2);
+    }
+
+    @Test
+    void onlyRegisteredTemplatesWithSimpleModelsAreKeyed() {
+        PrerenderedViewCache cache = new PrerenderedViewCache(Collections.singletonList("response/hello"), 8, 1);
+
+        assertThat(cache.key("other", "other", Locale.KOREA, Map.of("data", "x"))).isNull();
+        assertThat(cache.key("response/hello", "response/hello", Locale.KOREA, Map.of("data", List.of("x")))).isNull();
+        assertThat(cache.key("response/hello", "response/hello", Locale.KOREA, Map.of("data", "x", "age", 20)))
+                .isEqualTo(cache.key("response/hello", "response/hello", Locale.KOREA, Map.of("age", 20, "data", "x")));
+        assertThat(cache.key("response/hello", "response/hello", Locale.KOREA, Map.of("data", "x")))
+                .isNotEqualTo(cache.key("response/hello", "response/hello", Locale.US, Map.of("data", "x")));
+    }
+
+    @Test
+    void templateWithTooManyVariantsIsNoLongerKeyed() {
+        PrerenderedViewCache cache = new PrerenderedViewCache(Collections.singletonList("response/hello"), 8, 1);
+
+        for (String data : new String[]{"a", "b"}) {
+            cache.put(cache.key("response/hello", "response/hello", Locale.KOREA, Map.of("data", data)), "text/html", new byte[0]);
+        }
+
+        assertThat(cache.key("response/hello", "response/hello", Locale.KOREA, Map.of("data", "c"))).isNull();
+        assertThat(cache.size()).isEqualTo(2);
+    }
+
+    private String render(String path) throws Exception {
+        return mockMvc.perform(get(path).locale(Locale.KOREA))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith("text/html"))
+                .andReturn().getResponse().getContentAsString();
+    }
+}
@@ -0,0 +1,74 @@
+package hello.springmvc.metrics;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Writer 로 쓴 응답은 컨테이너의 Writer 로 그대로 가고, 센 바이트 수는 실제로 인코딩된 바이트 수와 같아야 한다.
+ */
+class CountingResponseWrapperTest {
+
+    @Test
+    void writerBytesAreCountedInTheResponseEncoding() throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        response.setCharacterEncoding("UTF-8");
+        CountingResponseWrapper wrapper = new CountingResponseWrapper(response);
+
+        PrintWriter writer = wrapper.getWriter();
+        writer.print("hello ");
+        writer.println("안녕");
+        writer.write('é');
+        writer.write("😀".toCharArray());
+        writer.printf("%d", 42);
+        writer.flush();
+
+        assertThat(wrapper.getBytesWritten()).isEqualTo(response.getContentAsByteArray().length);
+        assertThat(response.getContentAsString(StandardCharsets.UTF_8))
+                .isEqualTo("hello 안녕" + System.lineSeparator() + "é😀42");
+    }
+
+    @Test
+    void singleByteCharsetCountsOneBytePerChar() throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        response.setCharacterEncoding("ISO-8859-1");
+        CountingResponseWrapper wrapper = new CountingResponseWrapper(response);
+
+        wrapper.getWriter().print("héllo");
+        wrapper.getWriter().flush();
+
+        assertThat(wrapper.getBytesWritten()).isEqualTo(5).isEqualTo(response.getContentAsByteArray().length);
+    }
+
+    @Test
+    void streamBytesAreCounted() throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        CountingResponseWrapper wrapper = new CountingResponseWrapper(response);
+
+        wrapper.getOutputStream().write(new byte[10]);
+        wrapper.getOutputStream().write(1);
+
+        assertThat(wrapper.getBytesWritten()).isEqualTo(11);
+    }
+
+    /**
+     * getWriter 가 더이상 getOutputStream 위에 만들어지지 않으므로 컨테이너가 막은 쪽만 실패한다.
+     */
+    @Test
+    void accessChecksAreLeftToTheContainer() throws Exception {
+        MockHttpServletResponse streamOnly = new MockHttpServletResponse();
+        streamOnly.setWriterAccessAllowed(false);
+        MockHttpServletResponse writerOnly = new MockHttpServletResponse();
+        writerOnly.setOutputStreamAccessAllowed(false);
+
+        assertThatThrownBy(() -> new CountingResponseWrapper(streamOnly).getWriter()).isInstanceOf(IllegalStateException.class);
+        assertThat(new CountingResponseWrapper(writerOnly).getWriter()).isNotNull();
+        assertThatThrownBy(() -> new CountingResponseWrapper(writerOnly).getOutputStream())
+                .isInstanceOf(IllegalStateException.class);
+    }
+}
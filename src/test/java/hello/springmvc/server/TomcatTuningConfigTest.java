@@ -0,0 +1,72 @@
+package hello.springmvc.server;
+
+import org.apache.catalina.connector.Connector;
+import org.apache.coyote.UpgradeProtocol;
+import org.apache.coyote.http11.AbstractHttp11Protocol;
+import org.apache.coyote.http2.Http2Protocol;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.boot.web.embedded.tomcat.TomcatWebServer;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.context.ActiveProfiles;
+
+import javax.servlet.Filter;
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * high-throughput 프로파일로 띄운 톰캣 커넥터에 프로파일 설정과 TomcatTuningConfig 의 튜닝이 들어갔는지 확인한다.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("high-throughput")
+class TomcatTuningConfigTest {
+
+    @Autowired
+    ServletWebServerApplicationContext context;
+
+    @Autowired
+    TestRestTemplate restTemplate;
+
+    @Test
+    void connectorIsTuned() {
+        Connector connector = ((TomcatWebServer) context.getWebServer()).getTomcat().getConnector();
+        AbstractHttp11Protocol<?> protocol = (AbstractHttp11Protocol<?>) connector.getProtocolHandler();
+
+        assertThat(protocol.getKeepAliveTimeout()).isEqualTo(60_000);
+        assertThat(protocol.getMaxKeepAliveRequests()).isEqualTo(-1);
+        assertThat(protocol.getMaxConnections()).isEqualTo(16384);
+        assertThat(protocol.getAcceptCount()).isEqualTo(2048);
+        assertThat(protocol.getMaxThreads()).isEqualTo(128);
+        assertThat(protocol.getTcpNoDelay()).isTrue();
+        assertThat(protocol.getProcessorCache()).isEqualTo(1024);
+
+        Http2Protocol http2 = (Http2Protocol) Arrays.stream(connector.findUpgradeProtocols())
+                .filter(Http2Protocol.class::isInstance)
+                .findFirst()
+                .orElseThrow(() -> new AssertionError("h2c is not enabled"));
+        assertThat(http2.getMaxConcurrentStreams()).isEqualTo(256);
+        assertThat(http2.getMaxConcurrentStreamExecution()).isEqualTo(128);
+        assertThat(http2.getInitialWindowSize()).isEqualTo(1048576);
+        assertThat(http2.getKeepAliveTimeout()).isEqualTo(60_000);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void responseBufferIsSized() throws Exception {
+        Filter filter = ((FilterRegistrationBean<Filter>) context.getBean("responseBufferSizeFilter")).getFilter();
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        filter.doFilter(new MockHttpServletRequest(), response, new MockFilterChain());
+
+        assertThat(response.getBufferSize()).isEqualTo(4096);
+        assertThat(restTemplate.getForEntity("/hello-basic", String.class).getStatusCode()).isEqualTo(HttpStatus.OK);
+    }
+}
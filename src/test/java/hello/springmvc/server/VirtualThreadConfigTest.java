@@ -0,0 +1,42 @@
+package hello.springmvc.server;
+
+import org.apache.tomcat.util.threads.ThreadPoolExecutor;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.web.embedded.tomcat.TomcatWebServer;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * springmvc.virtual-threads.enabled=true 로 띄운 톰캣 커넥터가 기본 스레드 풀 대신 가상 스레드 executor 를 쓰는지 본다.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = "springmvc.virtual-threads.enabled=true")
+class VirtualThreadConfigTest {
+
+    @Autowired
+    ServletWebServerApplicationContext context;
+
+    @Test
+    void protocolHandlerExecutorIsReplaced() throws Exception {
+        TomcatWebServer webServer = (TomcatWebServer) context.getWebServer();
+        Executor executor = webServer.getTomcat().getConnector().getProtocolHandler().getExecutor();
+
+        assertThat(executor).isNotInstanceOf(ThreadPoolExecutor.class);
+        CompletableFuture<Thread> thread = new CompletableFuture<>();
+        executor.execute(() -> thread.complete(Thread.currentThread()));
+        assertThat(thread.get(5, TimeUnit.SECONDS).isVirtual()).isTrue();
+    }
+
+    @Test
+    void executorIsNotExposedAsBean() {
+        assertThat(context.getBeansOfType(ExecutorService.class)).isEmpty();
+    }
+}
@@ -0,0 +1,94 @@
+package hello.springmvc.server.admission;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.method.HandlerMethod;
+
+import java.util.Collections;
+import java.util.Set;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 클라이언트 키 헤더는 신뢰하는 프록시를 거친 요청에서만 쓰인다.
+ * 동시 처리 한도는 @AdmissionControl 이 붙은 핸들러에만 적용된다.
+ */
+class AdmissionControlInterceptorTest {
+
+    @Test
+    void onlyAnnotatedHandlersTakeLimiterSlots() throws Exception {
+        GradientConcurrencyLimiter limiter = new GradientConcurrencyLimiter(1, 1, 1, 1.5, 100);
+        AdmissionControlInterceptor interceptor =
+                new AdmissionControlInterceptor(limiter, Function.identity(), "", Collections.emptySet(), 16);
+        HandlerMethod limited = new HandlerMethod(new Handlers(), Handlers.class.getMethod("limited"));
+        HandlerMethod unrestricted = new HandlerMethod(new Handlers(), Handlers.class.getMethod("unrestricted"));
+
+        MockHttpServletRequest first = request("10.0.0.1", null);
+        assertThat(interceptor.preHandle(first, new MockHttpServletResponse(), limited)).isTrue();
+        assertThat(limiter.getInFlight()).isEqualTo(1);
+
+        // 한도가 찼어도 제한 대상이 아닌 핸들러와 정적 리소스 핸들러는 통과하고 자리를 잡지 않는다.
+        for (Object handler : new Object[]{unrestricted, new Object()}) {
+            MockHttpServletRequest request = request("10.0.0.1", null);
+            assertThat(interceptor.preHandle(request, new MockHttpServletResponse(), handler)).isTrue();
+            interceptor.afterCompletion(request, new MockHttpServletResponse(), handler, null);
+        }
+        assertThat(limiter.getInFlight()).isEqualTo(1);
+
+        MockHttpServletResponse rejected = new MockHttpServletResponse();
+        assertThat(interceptor.preHandle(request("10.0.0.1", null), rejected, limited)).isFalse();
+        assertThat(rejected.getStatus()).isEqualTo(503);
+
+        interceptor.afterCompletion(first, new MockHttpServletResponse(), limited, null);
+        assertThat(limiter.getInFlight()).isZero();
+    }
+
+    @Test
+    void headerIsIgnoredByDefault() {
+        AdmissionControlInterceptor interceptor = interceptor("", Collections.emptySet());
+
+        assertThat(interceptor.clientKey(request("10.0.0.1", "spoofed"))).isEqualTo("10.0.0.1");
+    }
+
+    @Test
+    void headerIsIgnoredFromUntrustedAddress() {
+        AdmissionControlInterceptor interceptor = interceptor("X-Client-Id", Set.of("10.0.0.2"));
+
+        assertThat(interceptor.clientKey(request("10.0.0.1", "spoofed"))).isEqualTo("10.0.0.1");
+    }
+
+    @Test
+    void headerIsUsedFromTrustedProxy() {
+        AdmissionControlInterceptor interceptor = interceptor("X-Client-Id", Set.of("10.0.0.2"));
+
+        assertThat(interceptor.clientKey(request("10.0.0.2", "client-a"))).isEqualTo("client-a");
+        assertThat(interceptor.clientKey(request("10.0.0.2", null))).isEqualTo("10.0.0.2");
+    }
+
+    private static AdmissionControlInterceptor interceptor(String header, Set<String> trustedProxies) {
+        return new AdmissionControlInterceptor(null, Function.identity(), header, trustedProxies, 16);
+    }
+
+    static class Handlers {
+
+        @AdmissionControl
+        public String limited() {
+            return "ok";
+        }
+
+        public String unrestricted() {
+            return "ok";
+        }
+    }
+
+    private static MockHttpServletRequest request(String remoteAddr, String clientId) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/");
+        request.setRemoteAddr(remoteAddr);
+        if (clientId != null) {
+            request.addHeader("X-Client-Id", clientId);
+        }
+        return request;
+    }
+}
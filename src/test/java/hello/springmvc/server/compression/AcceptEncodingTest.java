@@ -0,0 +1,43 @@
+package hello.springmvc.server.compression;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AcceptEncodingTest {
+
+    @Test
+    void firstOfferedWinsWithoutQuality() {
+        assertThat(AcceptEncoding.negotiate("gzip, deflate, br", "gzip", "deflate")).isEqualTo("gzip");
+        assertThat(AcceptEncoding.negotiate("deflate, gzip", "gzip", "deflate")).isEqualTo("gzip");
+        assertThat(AcceptEncoding.negotiate("DEFLATE", "gzip", "deflate")).isEqualTo("deflate");
+    }
+
+    @Test
+    void highestQualityWins() {
+        assertThat(AcceptEncoding.negotiate("gzip;q=0.5, deflate;q=1", "gzip", "deflate")).isEqualTo("deflate");
+        assertThat(AcceptEncoding.negotiate("gzip; Q=0.2 , deflate;q=0.3", "gzip", "deflate")).isEqualTo("deflate");
+    }
+
+    @Test
+    void qualityIsFoundAfterOtherParameters() {
+        assertThat(AcceptEncoding.negotiate("gzip;level=1;q=0", "gzip")).isNull();
+        assertThat(AcceptEncoding.negotiate("gzip;level=1;q=0, deflate;foo=bar", "gzip", "deflate")).isEqualTo("deflate");
+        assertThat(AcceptEncoding.negotiate("gzip;level=1", "gzip")).isEqualTo("gzip");
+    }
+
+    @Test
+    void wildcardAppliesToCodingsNotListed() {
+        assertThat(AcceptEncoding.negotiate("br, *;q=0.1", "gzip")).isEqualTo("gzip");
+        assertThat(AcceptEncoding.negotiate("*;q=0", "gzip")).isNull();
+        assertThat(AcceptEncoding.negotiate("gzip;q=0, *", "gzip", "deflate")).isEqualTo("deflate");
+    }
+
+    @Test
+    void nothingAcceptable() {
+        assertThat(AcceptEncoding.negotiate(null, "gzip")).isNull();
+        assertThat(AcceptEncoding.negotiate("", "gzip")).isNull();
+        assertThat(AcceptEncoding.negotiate("identity", "gzip")).isNull();
+        assertThat(AcceptEncoding.negotiate("gzip;q=abc", "gzip")).isNull();
+    }
+}
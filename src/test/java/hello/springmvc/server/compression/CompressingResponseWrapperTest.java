@@ -0,0 +1,185 @@
+package hello.springmvc.server.compression;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.util.StreamUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * threshold 는 64 바이트, BUFFERING 에서 COMPRESSING/PASSTHROUGH 로 넘어가는 경우와 끝나는 경우를 본다.
+ */
+class CompressingResponseWrapperTest {
+
+    private static final int THRESHOLD = 64;
+    private static final List<String> MIME_TYPES = Arrays.asList("text/plain", "application/json");
+
+    private final DeflaterPool gzipPool = new DeflaterPool(6, true, THRESHOLD, 4);
+    private final DeflaterPool deflatePool = new DeflaterPool(6, false, THRESHOLD, 4);
+    private final MockHttpServletResponse response = new MockHttpServletResponse();
+
+    @Test
+    void smallResponseIsSentAsIsWithContentLength() throws Exception {
+        CompressingResponseWrapper wrapper = gzip();
+        wrapper.setContentType("text/plain");
+        wrapper.getOutputStream().write(bytes("small"));
+        wrapper.finish();
+
+        assertThat(response.getHeader("Content-Encoding")).isNull();
+        assertThat(response.getContentLength()).isEqualTo(5);
+        assertThat(response.getContentAsString()).isEqualTo("small");
+    }
+
+    @Test
+    void largeResponseIsGzipped() throws Exception {
+        String body = text(1000);
+        CompressingResponseWrapper wrapper = gzip();
+        wrapper.setContentType("text/plain;charset=UTF-8");
+        wrapper.setHeader("ETag", "\"abc\"");
+        wrapper.setContentLength(body.length());
+        wrapper.getOutputStream().write(bytes(body.substring(0, 10)));
+        wrapper.getOutputStream().write(bytes(body.substring(10)));
+        wrapper.finish();
+
+        assertThat(response.getHeader("Content-Encoding")).isEqualTo("gzip");
+        assertThat(response.getHeader("Vary")).isEqualTo("Accept-Encoding");
+        assertThat(response.getHeader("ETag")).isEqualTo("W/\"abc\"");
+        assertThat(response.getHeader("Content-Length")).isNull();
+        assertThat(response.getContentAsByteArray().length).isLessThan(body.length());
+        assertThat(inflate(new GZIPInputStream(new ByteArrayInputStream(response.getContentAsByteArray())))).isEqualTo(body);
+    }
+
+    @Test
+    void writerOutputIsDeflated() throws Exception {
+        String body = text(500) + "한글";
+        CompressingResponseWrapper wrapper = new CompressingResponseWrapper(response, deflatePool, "deflate", MIME_TYPES);
+        wrapper.setContentType("application/json");
+        wrapper.setCharacterEncoding("UTF-8");
+        wrapper.getWriter().write(body);
+        wrapper.finish();
+
+        assertThat(response.getHeader("Content-Encoding")).isEqualTo("deflate");
+        assertThat(inflate(new InflaterInputStream(new ByteArrayInputStream(response.getContentAsByteArray())))).isEqualTo(body);
+    }
+
+    @Test
+    void flushWhileCompressingSendsWhatWasWritten() throws Exception {
+        String first = text(200);
+        CompressingResponseWrapper wrapper = gzip();
+        wrapper.setContentType("text/plain");
+        wrapper.getOutputStream().write(bytes(first));
+        wrapper.getOutputStream().flush();
+
+        // SYNC_FLUSH 까지의 바이트만으로 지금까지 쓴 내용을 모두 풀 수 있어야 한다.
+        byte[] flushed = response.getContentAsByteArray();
+        Inflater inflater = new Inflater(true);
+        inflater.setInput(flushed, 10, flushed.length - 10);
+        byte[] out = new byte[first.length()];
+        assertThat(inflater.inflate(out)).isEqualTo(first.length());
+        assertThat(new String(out, StandardCharsets.UTF_8)).isEqualTo(first);
+        inflater.end();
+
+        wrapper.getOutputStream().write(bytes("tail"));
+        wrapper.finish();
+        assertThat(inflate(new GZIPInputStream(new ByteArrayInputStream(response.getContentAsByteArray()))))
+                .isEqualTo(first + "tail");
+    }
+
+    @Test
+    void flushWhileBufferingCompressibleKeepsBuffering() throws Exception {
+        CompressingResponseWrapper wrapper = gzip();
+        wrapper.setContentType("text/plain");
+        wrapper.getOutputStream().write(bytes("abc"));
+        wrapper.getOutputStream().flush();
+
+        assertThat(response.getContentAsByteArray()).isEmpty();
+
+        wrapper.finish();
+        assertThat(response.getContentAsString()).isEqualTo("abc");
+    }
+
+    @Test
+    void incompressibleResponsesPassThrough() throws Exception {
+        String body = text(1000);
+        CompressingResponseWrapper image = gzip();
+        image.setContentType("image/png");
+        image.setContentLength(body.length());
+        image.getOutputStream().write(bytes(body));
+        image.finish();
+
+        assertThat(response.getHeader("Content-Encoding")).isNull();
+        assertThat(response.getContentLength()).isEqualTo(body.length());
+        assertThat(response.getContentAsString()).isEqualTo(body);
+
+        MockHttpServletResponse partial = new MockHttpServletResponse();
+        partial.setStatus(206);
+        CompressingResponseWrapper range = new CompressingResponseWrapper(partial, gzipPool, "gzip", MIME_TYPES);
+        range.setContentType("text/plain");
+        range.getOutputStream().write(bytes(body));
+        range.finish();
+        assertThat(partial.getHeader("Content-Encoding")).isNull();
+
+        MockHttpServletResponse encoded = new MockHttpServletResponse();
+        encoded.setHeader("Content-Encoding", "br");
+        CompressingResponseWrapper already = new CompressingResponseWrapper(encoded, gzipPool, "gzip", MIME_TYPES);
+        already.setContentType("text/plain");
+        already.getOutputStream().write(bytes(body));
+        already.finish();
+        assertThat(encoded.getHeader("Content-Encoding")).isEqualTo("br");
+        assertThat(encoded.getContentAsString()).isEqualTo(body);
+    }
+
+    @Test
+    void resetWhileBufferingDropsPendingBytes() throws Exception {
+        CompressingResponseWrapper wrapper = gzip();
+        wrapper.setContentType("text/plain");
+        wrapper.getOutputStream().write(bytes("discarded"));
+        wrapper.resetBuffer();
+        wrapper.getOutputStream().write(bytes("kept"));
+        wrapper.finish();
+
+        assertThat(response.getContentAsString()).isEqualTo("kept");
+        assertThat(response.getContentLength()).isEqualTo(4);
+    }
+
+    @Test
+    void abandonWritesNothing() throws Exception {
+        CompressingResponseWrapper wrapper = gzip();
+        wrapper.setContentType("text/plain");
+        wrapper.getOutputStream().write(bytes("partial"));
+        wrapper.abandon();
+
+        assertThat(response.getContentAsByteArray()).isEmpty();
+    }
+
+    private CompressingResponseWrapper gzip() {
+        return new CompressingResponseWrapper(response, gzipPool, "gzip", MIME_TYPES);
+    }
+
+    private static String text(int length) {
+        StringBuilder text = new StringBuilder(length);
+        for (int i = 0; text.length() < length; i++) {
+            text.append("line ").append(i % 10).append('\n');
+        }
+        return text.substring(0, length);
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static String inflate(InputStream in) throws Exception {
+        try (InputStream stream = in) {
+            return StreamUtils.copyToString(stream, StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package hello.springmvc.server.staticfile;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ByteRangeTest {
+
+    @Test
+    void closedRange() {
+        ByteRange range = ByteRange.parse("bytes=0-99", 1000);
+
+        assertThat(range.start).isZero();
+        assertThat(range.length).isEqualTo(100);
+        assertThat(range.contentRange(1000)).isEqualTo("bytes 0-99/1000");
+    }
+
+    @Test
+    void openRangeAndEndPastTheFileStopAtTheLastByte() {
+        ByteRange open = ByteRange.parse("bytes=900-", 1000);
+        ByteRange past = ByteRange.parse("bytes=900-5000", 1000);
+
+        assertThat(open.contentRange(1000)).isEqualTo("bytes 900-999/1000");
+        assertThat(past.contentRange(1000)).isEqualTo("bytes 900-999/1000");
+    }
+
+    @Test
+    void suffixRange() {
+        assertThat(ByteRange.parse("bytes=-100", 1000).contentRange(1000)).isEqualTo("bytes 900-999/1000");
+        assertThat(ByteRange.parse("bytes=-5000", 1000).contentRange(1000)).isEqualTo("bytes 0-999/1000");
+    }
+
+    @Test
+    void unsatisfiableRanges() {
+        assertThat(ByteRange.parse("bytes=1000-", 1000)).isSameAs(ByteRange.UNSATISFIABLE);
+        assertThat(ByteRange.parse("bytes=-0", 1000)).isSameAs(ByteRange.UNSATISFIABLE);
+        assertThat(ByteRange.parse("bytes=-10", 0)).isSameAs(ByteRange.UNSATISFIABLE);
+        assertThat(ByteRange.unsatisfied(1000)).isEqualTo("bytes */1000");
+    }
+
+    @Test
+    void ignoredHeaders() {
+        assertThat(ByteRange.parse(null, 1000)).isNull();
+        assertThat(ByteRange.parse("items=0-1", 1000)).isNull();
+        assertThat(ByteRange.parse("bytes=0-1,5-6", 1000)).isNull();
+        assertThat(ByteRange.parse("bytes=5", 1000)).isNull();
+        assertThat(ByteRange.parse("bytes=9-1", 1000)).isNull();
+        assertThat(ByteRange.parse("bytes=a-b", 1000)).isNull();
+    }
+}
@@ -0,0 +1,175 @@
+package hello.springmvc.server.staticfile;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Collections;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 임시 디렉터리를 정적 리소스 위치로 두고 조건부 요청, 구간 요청, gzip 변형, 파일 변경을 확인한다.
+ * max-file-size 를 넘는 파일은 캐시하지 않고 transferTo 로 보내는 경로를 탄다.
+ */
+class StaticResourceHandlerTest {
+
+    private static final String BODY = "0123456789abcdefghij";
+
+    @TempDir
+    Path directory;
+
+    private StaticFileCache cache;
+    private StaticResourceHandler handler;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        Files.write(directory.resolve("hello.txt"), BODY.getBytes(StandardCharsets.UTF_8));
+        cache = new StaticFileCache(Collections.singletonList(new FileSystemResource(directory.toString() + "/")), 1024, 64);
+        handler = new StaticResourceHandler(cache, Long.MAX_VALUE);
+    }
+
+    @Test
+    void fullResponse() throws Exception {
+        MockHttpServletResponse response = handle(request("GET", "hello.txt"));
+
+        assertThat(response.getStatus()).isEqualTo(200);
+        assertThat(response.getContentAsString()).isEqualTo(BODY);
+        assertThat(response.getContentLengthLong()).isEqualTo(BODY.length());
+        assertThat(response.getHeader("ETag")).isNotNull();
+        assertThat(response.getHeader("Accept-Ranges")).isEqualTo("bytes");
+    }
+
+    @Test
+    void headHasHeadersWithoutBody() throws Exception {
+        MockHttpServletResponse response = handle(request("HEAD", "hello.txt"));
+
+        assertThat(response.getContentLengthLong()).isEqualTo(BODY.length());
+        assertThat(response.getContentAsByteArray()).isEmpty();
+    }
+
+    @Test
+    void conditionalRequestsReturnNotModified() throws Exception {
+        MockHttpServletResponse first = handle(request("GET", "hello.txt"));
+
+        MockHttpServletRequest byEtag = request("GET", "hello.txt");
+        byEtag.addHeader("If-None-Match", "W/\"other\", " + first.getHeader("ETag"));
+        MockHttpServletRequest byDate = request("GET", "hello.txt");
+        byDate.addHeader("If-Modified-Since", first.getHeader("Last-Modified"));
+        MockHttpServletRequest otherEtag = request("GET", "hello.txt");
+        otherEtag.addHeader("If-None-Match", "\"other\"");
+        otherEtag.addHeader("If-Modified-Since", first.getHeader("Last-Modified"));
+
+        assertThat(handle(byEtag).getStatus()).isEqualTo(304);
+        assertThat(handle(byDate).getStatus()).isEqualTo(304);
+        assertThat(handle(otherEtag).getStatus()).isEqualTo(200);
+    }
+
+    @Test
+    void rangeRequests() throws Exception {
+        MockHttpServletRequest partial = request("GET", "hello.txt");
+        partial.addHeader("Range", "bytes=5-9");
+        MockHttpServletResponse response = handle(partial);
+
+        assertThat(response.getStatus()).isEqualTo(206);
+        assertThat(response.getHeader("Content-Range")).isEqualTo("bytes 5-9/20");
+        assertThat(response.getContentAsString()).isEqualTo("56789");
+
+        MockHttpServletRequest unsatisfiable = request("GET", "hello.txt");
+        unsatisfiable.addHeader("Range", "bytes=20-");
+        MockHttpServletResponse rejected = handle(unsatisfiable);
+
+        assertThat(rejected.getStatus()).isEqualTo(416);
+        assertThat(rejected.getHeader("Content-Range")).isEqualTo("bytes */20");
+    }
+
+    @Test
+    void ifRangeMismatchSendsTheWholeFile() throws Exception {
+        MockHttpServletRequest request = request("GET", "hello.txt");
+        request.addHeader("Range", "bytes=5-9");
+        request.addHeader("If-Range", "\"stale\"");
+        MockHttpServletResponse response = handle(request);
+
+        assertThat(response.getStatus()).isEqualTo(200);
+        assertThat(response.getContentAsString()).isEqualTo(BODY);
+    }
+
+    @Test
+    void largeFileIsSentFromTheFile() throws Exception {
+        String large = BODY.repeat(10);
+        Files.write(directory.resolve("large.txt"), large.getBytes(StandardCharsets.UTF_8));
+
+        MockHttpServletRequest request = request("GET", "large.txt");
+        request.addHeader("Range", "bytes=190-");
+        MockHttpServletResponse response = handle(request);
+
+        assertThat(response.getContentAsString()).isEqualTo("abcdefghij");
+        assertThat(handle(request("GET", "large.txt")).getContentAsString()).isEqualTo(large);
+    }
+
+    @Test
+    void gzipVariantIsNegotiated() throws Exception {
+        byte[] gzip = {0x1f, (byte) 0x8b, 1, 2, 3};
+        Files.write(directory.resolve("hello.txt.gz"), gzip);
+
+        MockHttpServletRequest accepts = request("GET", "hello.txt");
+        accepts.addHeader("Accept-Encoding", "gzip, deflate");
+        MockHttpServletResponse compressed = handle(accepts);
+
+        assertThat(compressed.getHeader("Content-Encoding")).isEqualTo("gzip");
+        assertThat(compressed.getHeader("Vary")).isEqualTo("Accept-Encoding");
+        assertThat(compressed.getContentAsByteArray()).isEqualTo(gzip);
+
+        MockHttpServletRequest refuses = request("GET", "hello.txt");
+        refuses.addHeader("Accept-Encoding", "gzip;q=0");
+        assertThat(handle(refuses).getContentAsString()).isEqualTo(BODY);
+    }
+
+    @Test
+    void changedFileIsReloaded() throws Exception {
+        assertThat(handle(request("GET", "hello.txt")).getContentAsString()).isEqualTo(BODY);
+
+        Path file = directory.resolve("hello.txt");
+        Files.write(file, "short".getBytes(StandardCharsets.UTF_8));
+        Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis() + 5000));
+
+        MockHttpServletResponse response = handle(request("GET", "hello.txt"));
+        assertThat(response.getContentAsString()).isEqualTo("short");
+        assertThat(cache.size()).isEqualTo(1);
+        assertThat(cache.getCachedBytes()).isEqualTo(5);
+
+        Files.delete(file);
+        assertThat(handle(request("GET", "hello.txt")).getStatus()).isEqualTo(404);
+        assertThat(cache.getCachedBytes()).isZero();
+    }
+
+    @Test
+    void invalidPathsAreRejected() {
+        assertThat(StaticResourceHandler.isValidPath("css/app.css")).isTrue();
+        assertThat(StaticResourceHandler.isValidPath("../secret")).isFalse();
+        assertThat(StaticResourceHandler.isValidPath("/etc/passwd")).isFalse();
+        assertThat(StaticResourceHandler.isValidPath("a%2e%2e/b")).isFalse();
+        assertThat(StaticResourceHandler.isValidPath("WEB-INF/web.xml")).isFalse();
+        assertThat(StaticResourceHandler.isValidPath("dir/")).isFalse();
+    }
+
+    private MockHttpServletResponse handle(MockHttpServletRequest request) throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        handler.handleRequest(request, response);
+        return response;
+    }
+
+    private static MockHttpServletRequest request(String method, String path) {
+        MockHttpServletRequest request = new MockHttpServletRequest(method, "/" + path);
+        request.setAttribute(HandlerMapping.PATH_WITHIN_HANDLER_MAPPING_ATTRIBUTE, path);
+        return request;
+    }
+}
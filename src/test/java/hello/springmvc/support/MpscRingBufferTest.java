@@ -0,0 +1,119 @@
+package hello.springmvc.support;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 작은 버퍼로 여러 바퀴를 돌려서 슬롯 시퀀스가 한 바퀴씩 넘어가는 경우까지 지나가게 한다.
+ */
+class MpscRingBufferTest {
+
+    @Test
+    void capacityIsRoundedUpToPowerOfTwo() {
+        assertThat(new MpscRingBuffer<>(0).capacity()).isEqualTo(2);
+        assertThat(new MpscRingBuffer<>(1).capacity()).isEqualTo(2);
+        assertThat(new MpscRingBuffer<>(5).capacity()).isEqualTo(8);
+        assertThat(new MpscRingBuffer<>(8).capacity()).isEqualTo(8);
+        assertThat(new MpscRingBuffer<>(1000).capacity()).isEqualTo(1024);
+    }
+
+    @Test
+    void offerFailsWhenFullAndSucceedsAfterDrain() {
+        MpscRingBuffer<Integer> buffer = new MpscRingBuffer<>(4);
+        for (int i = 0; i < 4; i++) {
+            assertThat(buffer.offer(i)).isTrue();
+        }
+        assertThat(buffer.offer(4)).isFalse();
+        assertThat(buffer.size()).isEqualTo(4);
+
+        List<Integer> drained = new ArrayList<>();
+        assertThat(buffer.drain(drained::add, 1)).isEqualTo(1);
+        assertThat(drained).containsExactly(0);
+        assertThat(buffer.offer(4)).isTrue();
+        assertThat(buffer.offer(5)).isFalse();
+
+        assertThat(buffer.drain(drained::add, Integer.MAX_VALUE)).isEqualTo(4);
+        assertThat(drained).containsExactly(0, 1, 2, 3, 4);
+        assertThat(buffer.size()).isZero();
+        assertThat(buffer.drain(drained::add, Integer.MAX_VALUE)).isZero();
+    }
+
+    @Test
+    void orderIsKeptAcrossManyLaps() {
+        MpscRingBuffer<Integer> buffer = new MpscRingBuffer<>(4);
+        List<Integer> drained = new ArrayList<>();
+        int next = 0;
+        for (int lap = 0; lap < 100; lap++) {
+            for (int i = 0; i < 3; i++) {
+                assertThat(buffer.offer(next++)).isTrue();
+            }
+            buffer.drain(drained::add, 3);
+        }
+        buffer.drain(drained::add, Integer.MAX_VALUE);
+
+        assertThat(drained).hasSize(next);
+        for (int i = 0; i < next; i++) {
+            assertThat(drained.get(i)).isEqualTo(i);
+        }
+    }
+
+    @Test
+    void concurrentProducersLoseNothing() throws Exception {
+        int producers = 4;
+        int perProducer = 20_000;
+        MpscRingBuffer<long[]> buffer = new MpscRingBuffer<>(64);
+        ExecutorService executor = Executors.newFixedThreadPool(producers);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int p = 0; p < producers; p++) {
+                long producer = p;
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    for (long i = 0; i < perProducer; i++) {
+                        long[] element = {producer, i};
+                        while (!buffer.offer(element)) {
+                            Thread.yield();
+                        }
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+
+            // 생산자별로 넣은 순서대로 빠짐없이 한 번씩 나와야 한다.
+            long[] expected = new long[producers];
+            int total = producers * perProducer;
+            int received = 0;
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+            while (received < total && System.nanoTime() < deadline) {
+                int drained = buffer.drain(element -> {
+                    assertThat(element[1]).isEqualTo(expected[(int) element[0]]);
+                    expected[(int) element[0]]++;
+                }, 32);
+                if (drained == 0) {
+                    Thread.yield();
+                }
+                received += drained;
+            }
+
+            assertThat(received).isEqualTo(total);
+            for (Future<?> future : futures) {
+                future.get(1, TimeUnit.SECONDS);
+            }
+            assertThat(expected).containsOnly(perProducer);
+            assertThat(buffer.size()).isZero();
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package hello.springmvc.user;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * 세그먼트 하나(stripes=1), 슬롯 16개처럼 작게 만들어서 탐사가 이어지고 끝에서 처음으로 돌아가는 경우까지 지나가게 한다.
+ */
+class OffHeapUserStoreTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void collidingIdsAreFoundByProbing() throws Exception {
+        try (OffHeapUserStore store = OffHeapUserStore.allocate(12, 1)) {
+            for (int i = 0; i < 12; i++) {
+                assertThat(store.insert(new UserRecord("user" + i, "name" + i, i))).isTrue();
+            }
+
+            assertThat(store.insert(new UserRecord("user3", "other", 99))).isFalse();
+            for (int i = 0; i < 12; i++) {
+                assertThat(store.get("user" + i)).isEqualTo(new UserRecord("user" + i, "name" + i, i));
+            }
+            assertThat(store.get("missing")).isNull();
+            assertThat(store.size()).isEqualTo(12);
+        }
+    }
+
+    @Test
+    void fullSegmentIsReported() throws Exception {
+        try (OffHeapUserStore store = OffHeapUserStore.allocate(12, 1)) {
+            for (int i = 0; i < 14; i++) {
+                store.insert(new UserRecord("user" + i, "name" + i, i));
+            }
+
+            assertThatThrownBy(() -> store.insert(new UserRecord("one-more", "name", 1)))
+                    .isInstanceOf(UserStoreFullException.class);
+        }
+    }
+
+    @Test
+    void updateAndDelete() throws Exception {
+        try (OffHeapUserStore store = OffHeapUserStore.allocate(12, 1)) {
+            store.insert(new UserRecord("userA", "kim", 20));
+            store.insert(new UserRecord("userB", "lee", 30));
+
+            assertThat(store.update("userA", "park", null)).isEqualTo(new UserRecord("userA", "park", 20));
+            assertThat(store.update("userA", null, 21)).isEqualTo(new UserRecord("userA", "park", 21));
+            assertThat(store.update("missing", "x", 1)).isNull();
+
+            assertThat(store.delete("userA")).isTrue();
+            assertThat(store.delete("userA")).isFalse();
+            assertThat(store.get("userA")).isNull();
+            assertThat(store.get("userB")).isEqualTo(new UserRecord("userB", "lee", 30));
+            assertThat(store.size()).isEqualTo(1);
+
+            store.put(new UserRecord("userA", "choi", 40));
+            assertThat(store.get("userA")).isEqualTo(new UserRecord("userA", "choi", 40));
+        }
+    }
+
+    @Test
+    void rehashKeepsEveryLiveRecordReachable() throws Exception {
+        try (OffHeapUserStore store = OffHeapUserStore.allocate(200, 1)) {
+            Set<String> live = new HashSet<>();
+            // 넣고 지우기를 반복해서 DELETED 가 쌓이고 세그먼트가 여러 번 다시 해시되게 한다.
+            for (int round = 0; round < 50; round++) {
+                for (int i = 0; i < 100; i++) {
+                    String userId = "user" + round + "-" + i;
+                    store.insert(new UserRecord(userId, "name" + i, i));
+                    live.add(userId);
+                }
+                for (int i = 0; i < 100; i += 2) {
+                    String userId = "user" + round + "-" + i;
+                    assertThat(store.delete(userId)).isTrue();
+                    live.remove(userId);
+                }
+                for (String userId : new HashSet<>(live)) {
+                    if (live.size() <= 120) {
+                        break;
+                    }
+                    store.delete(userId);
+                    live.remove(userId);
+                }
+
+                for (String userId : live) {
+                    assertThat(store.get(userId)).as(userId).isNotNull();
+                }
+                assertThat(store.size()).isEqualTo(live.size());
+            }
+        }
+    }
+
+    @Test
+    void pagesFollowTheCursorUntilEveryUserIsRead() throws Exception {
+        try (OffHeapUserStore store = OffHeapUserStore.allocate(1000, 8)) {
+            for (int i = 0; i < 500; i++) {
+                store.insert(new UserRecord("user" + i, "name" + i, i));
+            }
+
+            Set<String> seen = new HashSet<>();
+            int pages = 0;
+            Long cursor = 0L;
+            while (cursor != null) {
+                UserPage page = store.page(cursor, 64);
+                assertThat(page.getUsers()).hasSizeLessThanOrEqualTo(64);
+                page.getUsers().forEach(user -> assertThat(seen.add(user.getUserId())).isTrue());
+                cursor = page.getNext();
+                pages++;
+            }
+
+            assertThat(seen).hasSize(500);
+            assertThat(pages).isEqualTo(8);
+        }
+    }
+
+    @Test
+    void mappedFileIsReadBackAfterReopen() throws Exception {
+        Path file = directory.resolve("users.dat");
+        try (OffHeapUserStore store = OffHeapUserStore.open(file, 100, 4)) {
+            for (int i = 0; i < 50; i++) {
+                store.insert(new UserRecord("user" + i, "이름" + i, i));
+            }
+            store.delete("user7");
+        }
+
+        try (OffHeapUserStore store = OffHeapUserStore.open(file, 100, 4)) {
+            assertThat(store.size()).isEqualTo(49);
+            assertThat(store.get("user8")).isEqualTo(new UserRecord("user8", "이름8", 8));
+            assertThat(store.get("user7")).isNull();
+            assertThat(store.insert(new UserRecord("user7", "again", 7))).isTrue();
+        }
+
+        assertThatThrownBy(() -> OffHeapUserStore.open(file, 100, 8))
+                .isInstanceOf(IllegalStateException.class);
+    }
+}
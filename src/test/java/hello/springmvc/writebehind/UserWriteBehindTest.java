@@ -0,0 +1,63 @@
+package hello.springmvc.writebehind;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * write-behind 를 켜면 /mapping/users 변경이 이 테스트만의 디렉터리에 기록되고, 그 디렉터리는 락이 잡혀 있는지 확인한다.
+ */
+@SpringBootTest(properties = "springmvc.write-behind.enabled=true")
+@AutoConfigureMockMvc
+class UserWriteBehindTest {
+
+    @TempDir
+    static Path directory;
+
+    @DynamicPropertySource
+    static void directory(DynamicPropertyRegistry registry) {
+        registry.add("springmvc.write-behind.directory", () -> directory.toString());
+    }
+
+    @Autowired
+    MockMvc mockMvc;
+
+    @Test
+    void userChangesAreLoggedInTheConfiguredDirectory() throws Exception {
+        mockMvc.perform(post("/mapping/users").contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"userId\":\"userA\",\"username\":\"kim\",\"age\":20}"))
+                .andExpect(status().isCreated());
+        mockMvc.perform(patch("/mapping/users/userA").param("age", "21"))
+                .andExpect(status().isOk());
+        mockMvc.perform(delete("/mapping/users/userA"))
+                .andExpect(status().isNoContent());
+
+        mockMvc.perform(get("/metrics/write-behind"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.users.appended").value(3));
+        try (Stream<Path> files = Files.list(directory.resolve("users"))) {
+            assertThat(files).isNotEmpty();
+        }
+        assertThatThrownBy(() -> DirectoryLock.acquire(directory)).isInstanceOf(IOException.class);
+    }
+}
@@ -0,0 +1,497 @@
+package hello.springmvc.writebehind;
+
+import hello.springmvc.user.OffHeapUserStore;
+import hello.springmvc.user.UserRecord;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.OpenOption;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * 프로세스가 죽었다가 다시 시작했을 때 세그먼트 파일을 replay 해서 응답한 레코드를 모두 되찾는지 확인한다.
+ * 죽는 것은 파이프라인을 close 하지 않고 같은 디렉터리를 새로 여는 것으로,
+ * 쓰다가 죽은 것은 파일 끝에 레코드 일부만 덧붙이는 것으로 흉내낸다.
+ */
+class WriteBehindRecoveryTest {
+
+    private static final long SEGMENT_BYTES = 64 * 1024;
+    private final UserEventCodec codec = new UserEventCodec();
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void acknowledgedRecordsAreReplayedAfterCrash() throws Exception {
+        WriteBehindPipeline<UserEvent> pipeline = new WriteBehindPipeline<>("test",
+                SegmentLog.open(directory, SEGMENT_BYTES, payload -> { }), codec, 1024, 64, 200, 5000, true);
+        ExecutorService executor = Executors.newFixedThreadPool(16);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            UserEvent event = event("user" + i, i);
+            futures.add(executor.submit(() -> pipeline.append(event)));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+
+        // close 하지 않고 다시 연다.
+        List<UserEvent> replayed = replay();
+        assertThat(replayed).hasSize(2000);
+        assertThat(replayed.stream().map(event -> event.getUser().getAge()).sorted().collect(Collectors.toList()))
+                .containsExactlyElementsOf(Stream.iterate(0, i -> i + 1).limit(2000).collect(Collectors.toList()));
+        assertThat(pipeline.snapshot().get("batches")).isInstanceOf(Long.class);
+        pipeline.close();
+    }
+
+    @Test
+    void tornTailIsTruncatedAndAppendingContinues() throws Exception {
+        write(event("a", 1), event("b", 2), event("c", 3));
+        Path segment = onlySegment();
+        long validBytes = Files.size(segment);
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.APPEND)) {
+            ByteBuffer torn = ByteBuffer.allocate(SegmentLog.HEADER_BYTES + 3);
+            torn.putInt(100).putInt(12345).put(new byte[]{1, 2, 3}).flip();
+            channel.write(torn);
+        }
+
+        assertThat(replay()).extracting(WriteBehindRecoveryTest::userId).containsExactly("a", "b", "c");
+        assertThat(Files.size(segment)).isEqualTo(validBytes);
+
+        write(event("d", 4));
+        assertThat(replay()).extracting(WriteBehindRecoveryTest::userId).containsExactly("a", "b", "c", "d");
+    }
+
+    @Test
+    void recordWithBadChecksumAtTailIsDropped() throws Exception {
+        write(event("a", 1), event("b", 2));
+        Path segment = onlySegment();
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(new byte[]{(byte) 0xff}), Files.size(segment) - 1);
+        }
+
+        assertThat(replay()).extracting(WriteBehindRecoveryTest::userId).containsExactly("a");
+    }
+
+    @Test
+    void zeroFilledTailIsNotReplayedAsEmptyRecords() throws Exception {
+        write(event("a", 1));
+        Path segment = onlySegment();
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.APPEND)) {
+            channel.write(ByteBuffer.allocate(4096));
+        }
+
+        assertThat(replay()).extracting(WriteBehindRecoveryTest::userId).containsExactly("a");
+    }
+
+    @Test
+    void recordsAreReplayedInOrderAcrossSegments() throws Exception {
+        List<UserEvent> records = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            records.add(event("user" + i, i));
+        }
+        try (SegmentLog log = SegmentLog.open(directory, 128, payload -> { })) {
+            for (UserEvent record : records) {
+                log.append(Collections.singletonList(codec.encode(record)));
+            }
+            log.sync();
+        }
+
+        assertThat(segments()).hasSizeGreaterThan(1);
+        List<UserEvent> replayed = new ArrayList<>();
+        try (SegmentLog log = SegmentLog.open(directory, 128, payload -> replayed.add(codec.decode(payload)))) {
+            assertThat(log.getNextSequence()).isEqualTo(100);
+        }
+        assertThat(replayed).containsExactlyElementsOf(records);
+    }
+
+    @Test
+    void corruptionBeforeLastSegmentIsReported() throws Exception {
+        try (SegmentLog log = SegmentLog.open(directory, 32, payload -> { })) {
+            for (int i = 0; i < 10; i++) {
+                log.append(Collections.singletonList(codec.encode(event("user" + i, i))));
+            }
+        }
+        Path first = segments().get(0);
+        try (FileChannel channel = FileChannel.open(first, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(new byte[]{(byte) 0xff}), Files.size(first) - 1);
+        }
+
+        assertThatThrownBy(this::replay).isInstanceOf(CorruptSegmentException.class);
+    }
+
+    @Test
+    void userEventsRebuildTheStore() throws Exception {
+        WriteBehindPipeline<UserEvent> pipeline = new WriteBehindPipeline<>("users",
+                SegmentLog.open(directory, SEGMENT_BYTES, payload -> { }), codec, 64, 16, 0, 5000, true);
+        pipeline.append(UserEvent.put(new UserRecord("userA", "kim", 20)));
+        pipeline.append(UserEvent.put(new UserRecord("userB", "lee", 30)));
+        pipeline.append(UserEvent.put(new UserRecord("userA", "park", 21)));
+        pipeline.append(UserEvent.delete("userB"));
+
+        try (OffHeapUserStore store = OffHeapUserStore.allocate(16, 1);
+             SegmentLog ignored = SegmentLog.open(directory, SEGMENT_BYTES, payload -> {
+                 UserEvent event = codec.decode(payload);
+                 if (event.getType() == UserEvent.Type.PUT) {
+                     store.put(event.getUser());
+                 } else {
+                     store.delete(event.getUser().getUserId());
+                 }
+             })) {
+            assertThat(store.size()).isEqualTo(1);
+            assertThat(store.get("userA")).isEqualTo(new UserRecord("userA", "park", 21));
+            assertThat(store.get("userB")).isNull();
+        }
+        pipeline.close();
+    }
+
+    @Test
+    void snapshotReplacesEarlierSegments() throws Exception {
+        try (SegmentLog log = SegmentLog.open(directory, 128, payload -> { })) {
+            for (int i = 0; i < 20; i++) {
+                log.append(Collections.singletonList(codec.encode(event("user" + i, i))));
+            }
+            assertThat(segments()).hasSizeGreaterThan(1);
+            Path oldSegment = segments().get(0);
+            byte[] oldBytes = Files.readAllBytes(oldSegment);
+
+            log.snapshot(Collections.singletonList(codec.encode(event("snapshot", 100))));
+            assertThat(log.getSnapshotSequence()).isEqualTo(20);
+            assertThat(segments()).hasSize(1);
+
+            log.append(Collections.singletonList(codec.encode(event("after", 101))));
+            log.sync();
+
+            // 스냅샷을 남기고 세그먼트를 지우기 전에 죽은 것처럼 오래된 세그먼트를 되살린다.
+            Files.write(oldSegment, oldBytes);
+            Files.write(directory.resolve("00000000000000000021.snap.tmp"), new byte[]{1, 2, 3});
+        }
+
+        List<UserEvent> replayed = new ArrayList<>();
+        try (SegmentLog log = SegmentLog.open(directory, 128, payload -> replayed.add(codec.decode(payload)))) {
+            assertThat(log.getNextSequence()).isEqualTo(21);
+            assertThat(log.getReplayed()).isEqualTo(2);
+        }
+        assertThat(replayed).extracting(WriteBehindRecoveryTest::userId).containsExactly("snapshot", "after");
+        try (Stream<Path> files = Files.list(directory)) {
+            assertThat(files.map(file -> file.getFileName().toString()))
+                    .containsExactlyInAnyOrder("00000000000000000020.snap", "00000000000000000020.seg");
+        }
+    }
+
+    @Test
+    void failedWriteIsRolledBackSoLaterRecordsSurviveReplay() throws Exception {
+        FailingChannels channels = new FailingChannels();
+        WriteBehindPipeline<UserEvent> pipeline = new WriteBehindPipeline<>("test",
+                SegmentLog.open(directory, SEGMENT_BYTES, payload -> { }, channels), codec, 64, 16, 0, 5000, true);
+        pipeline.append(event("a", 1));
+        pipeline.append(event("b", 2));
+
+        // 다음 write 는 절반만 쓰고 실패한다.
+        channels.failWrite.set(true);
+        assertThatThrownBy(() -> pipeline.append(event("torn", 3)))
+                .isInstanceOfSatisfying(WriteBehindUnavailableException.class,
+                        e -> assertThat(e.isDiscarded()).isTrue());
+        pipeline.append(event("c", 4));
+
+        assertThat(replay()).extracting(WriteBehindRecoveryTest::userId).containsExactly("a", "b", "c");
+        assertThat(pipeline.snapshot().get("segmentRecords")).isEqualTo(3L);
+        pipeline.close();
+    }
+
+    @Test
+    void failedWriteAfterRollDoesNotLeaveCorruptSegments() throws Exception {
+        FailingChannels channels = new FailingChannels();
+        try (SegmentLog log = SegmentLog.open(directory, 64, payload -> { }, channels)) {
+            log.append(Collections.singletonList(codec.encode(event("a", 1))));
+            log.sync();
+
+            // 배치 중간에 새 세그먼트로 넘어간 뒤 그 세그먼트의 write 가 실패한다.
+            List<byte[]> batch = new ArrayList<>();
+            for (int i = 0; i < 10; i++) {
+                batch.add(codec.encode(event("batch" + i, i)));
+            }
+            channels.failWrite.set(true);
+            channels.writesBeforeFailure.set(1);
+            assertThatThrownBy(() -> log.append(batch)).isInstanceOf(IOException.class);
+            assertThat(segments()).hasSize(2);
+            log.rollback();
+            assertThat(segments()).hasSize(1);
+            assertThat(log.getNextSequence()).isEqualTo(1);
+
+            log.append(Collections.singletonList(codec.encode(event("b", 2))));
+            log.sync();
+        }
+
+        List<UserEvent> replayed = new ArrayList<>();
+        SegmentLog.open(directory, 64, payload -> replayed.add(codec.decode(payload))).close();
+        assertThat(replayed).extracting(WriteBehindRecoveryTest::userId).containsExactly("a", "b");
+    }
+
+    @Test
+    void failedRollbackRejectsFurtherAppends() throws Exception {
+        FailingChannels channels = new FailingChannels();
+        WriteBehindPipeline<UserEvent> pipeline = new WriteBehindPipeline<>("test",
+                SegmentLog.open(directory, SEGMENT_BYTES, payload -> { }, channels), codec, 64, 16, 0, 5000, true);
+        pipeline.append(event("a", 1));
+
+        channels.failWrite.set(true);
+        channels.failOpen.set(true);
+        assertThatThrownBy(() -> pipeline.append(event("torn", 2)))
+                .isInstanceOfSatisfying(WriteBehindUnavailableException.class,
+                        e -> assertThat(e.isDiscarded()).isFalse());
+        assertThatThrownBy(() -> pipeline.append(event("b", 3)))
+                .isInstanceOfSatisfying(WriteBehindUnavailableException.class,
+                        e -> assertThat(e.isDiscarded()).isTrue());
+        pipeline.close();
+
+        // 다시 열면 깨진 꼬리는 잘려나가고 응답한 레코드만 남는다.
+        assertThat(replay()).extracting(WriteBehindRecoveryTest::userId).containsExactly("a");
+    }
+
+    @Test
+    void unexpectedWriterFailureIsReportedAndWriterKeepsRunning() throws Exception {
+        FailingChannels channels = new FailingChannels();
+        WriteBehindPipeline<UserEvent> pipeline = new WriteBehindPipeline<>("test",
+                SegmentLog.open(directory, SEGMENT_BYTES, payload -> { }, channels), codec, 64, 16, 0, 5000, true);
+        pipeline.append(event("a", 1));
+
+        channels.writeError.set(new IllegalStateException("injected runtime failure"));
+        assertThatThrownBy(() -> pipeline.append(event("lost", 2)))
+                .isInstanceOfSatisfying(WriteBehindUnavailableException.class, e -> {
+                    assertThat(e.isDiscarded()).isTrue();
+                    assertThat(e.getCause()).isInstanceOf(IllegalStateException.class);
+                });
+        pipeline.append(event("b", 3));
+        pipeline.close();
+
+        assertThat(replay()).extracting(WriteBehindRecoveryTest::userId).containsExactly("a", "b");
+    }
+
+    @Test
+    void stuckFsyncTimesOutInsteadOfWaitingForever() throws Exception {
+        FailingChannels channels = new FailingChannels();
+        WriteBehindPipeline<UserEvent> pipeline = new WriteBehindPipeline<>("test",
+                SegmentLog.open(directory, SEGMENT_BYTES, payload -> { }, channels), codec, 64, 16, 0, 200, true);
+
+        channels.forceBlocked.set(new CountDownLatch(1));
+        long start = System.nanoTime();
+        assertThatThrownBy(() -> pipeline.append(event("a", 1)))
+                .isInstanceOfSatisfying(WriteBehindUnavailableException.class,
+                        e -> assertThat(e.isDiscarded()).isFalse());
+        assertThat(System.nanoTime() - start).isLessThan(TimeUnit.SECONDS.toNanos(5));
+        assertThat(pipeline.snapshot().get("timedOut")).isEqualTo(1L);
+
+        channels.forceBlocked.getAndSet(null).countDown();
+        pipeline.append(event("b", 2));
+        pipeline.close();
+    }
+
+    @Test
+    void directoryLockIsExclusiveUntilClosed() throws Exception {
+        try (DirectoryLock ignored = DirectoryLock.acquire(directory)) {
+            assertThatThrownBy(() -> DirectoryLock.acquire(directory))
+                    .isInstanceOf(IOException.class)
+                    .hasMessageContaining("in use");
+        }
+        DirectoryLock.acquire(directory).close();
+    }
+
+    private void write(UserEvent... records) throws IOException {
+        try (SegmentLog log = SegmentLog.open(directory, SEGMENT_BYTES, payload -> { })) {
+            List<byte[]> payloads = new ArrayList<>();
+            for (UserEvent record : records) {
+                payloads.add(codec.encode(record));
+            }
+            log.append(payloads);
+            log.sync();
+        }
+    }
+
+    private List<UserEvent> replay() throws IOException {
+        List<UserEvent> replayed = new ArrayList<>();
+        SegmentLog.open(directory, SEGMENT_BYTES, payload -> replayed.add(codec.decode(payload))).close();
+        return replayed;
+    }
+
+    private Path onlySegment() throws IOException {
+        List<Path> segments = segments();
+        assertThat(segments).hasSize(1);
+        return segments.get(0);
+    }
+
+    private List<Path> segments() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> file.toString().endsWith(".seg")).sorted().collect(Collectors.toList());
+        }
+    }
+
+    private static UserEvent event(String userId, int age) {
+        return UserEvent.put(new UserRecord(userId, "name" + age, age));
+    }
+
+    private static String userId(UserEvent event) {
+        return event.getUser().getUserId();
+    }
+
+    /**
+     * failWrite 가 켜지면 writesBeforeFailure 번째 write 에서 절반만 쓰고 IOException 을 던지는 채널을 연다.
+     * failOpen 이 켜지면 채널을 열지 못한다.
+     * writeError 가 있으면 다음 write 에서 한번 던지고, forceBlocked 가 있으면 force 가 그 latch 를 기다린다.
+     */
+    private static class FailingChannels implements SegmentLog.ChannelOpener {
+        final AtomicBoolean failWrite = new AtomicBoolean();
+        final AtomicInteger writesBeforeFailure = new AtomicInteger();
+        final AtomicBoolean failOpen = new AtomicBoolean();
+        final AtomicReference<RuntimeException> writeError = new AtomicReference<>();
+        final AtomicReference<CountDownLatch> forceBlocked = new AtomicReference<>();
+
+        @Override
+        public FileChannel open(Path segment, OpenOption... options) throws IOException {
+            if (failOpen.get()) {
+                throw new IOException("injected open failure");
+            }
+            return new FailingChannel(FileChannel.open(segment, options));
+        }
+
+        private class FailingChannel extends FileChannel {
+            private final FileChannel delegate;
+
+            FailingChannel(FileChannel delegate) {
+                this.delegate = delegate;
+            }
+
+            @Override
+            public int write(ByteBuffer src) throws IOException {
+                RuntimeException error = writeError.getAndSet(null);
+                if (error != null) {
+                    throw error;
+                }
+                if (failWrite.get() && writesBeforeFailure.getAndDecrement() <= 0) {
+                    failWrite.set(false);
+                    ByteBuffer half = src.duplicate();
+                    half.limit(half.position() + half.remaining() / 2);
+                    delegate.write(half);
+                    throw new IOException("injected write failure");
+                }
+                return delegate.write(src);
+            }
+
+            @Override
+            public int read(ByteBuffer dst) throws IOException {
+                return delegate.read(dst);
+            }
+
+            @Override
+            public long read(ByteBuffer[] dsts, int offset, int length) throws IOException {
+                return delegate.read(dsts, offset, length);
+            }
+
+            @Override
+            public long write(ByteBuffer[] srcs, int offset, int length) throws IOException {
+                return delegate.write(srcs, offset, length);
+            }
+
+            @Override
+            public long position() throws IOException {
+                return delegate.position();
+            }
+
+            @Override
+            public FileChannel position(long newPosition) throws IOException {
+                delegate.position(newPosition);
+                return this;
+            }
+
+            @Override
+            public long size() throws IOException {
+                return delegate.size();
+            }
+
+            @Override
+            public FileChannel truncate(long size) throws IOException {
+                delegate.truncate(size);
+                return this;
+            }
+
+            @Override
+            public void force(boolean metaData) throws IOException {
+                CountDownLatch latch = forceBlocked.get();
+                if (latch != null) {
+                    try {
+                        latch.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+                delegate.force(metaData);
+            }
+
+            @Override
+            public long transferTo(long position, long count, WritableByteChannel target) throws IOException {
+                return delegate.transferTo(position, count, target);
+            }
+
+            @Override
+            public long transferFrom(ReadableByteChannel src, long position, long count) throws IOException {
+                return delegate.transferFrom(src, position, count);
+            }
+
+            @Override
+            public int read(ByteBuffer dst, long position) throws IOException {
+                return delegate.read(dst, position);
+            }
+
+            @Override
+            public int write(ByteBuffer src, long position) throws IOException {
+                return delegate.write(src, position);
+            }
+
+            @Override
+            public MappedByteBuffer map(MapMode mode, long position, long size) throws IOException {
+                return delegate.map(mode, position, size);
+            }
+
+            @Override
+            public FileLock lock(long position, long size, boolean shared) throws IOException {
+                return delegate.lock(position, size, shared);
+            }
+
+            @Override
+            public FileLock tryLock(long position, long size, boolean shared) throws IOException {
+                return delegate.tryLock(position, size, shared);
+            }
+
+            @Override
+            protected void implCloseChannel() throws IOException {
+                delegate.close();
+            }
+        }
+    }
+}